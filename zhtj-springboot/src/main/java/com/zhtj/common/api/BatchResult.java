@@ -0,0 +1,53 @@
+package com.zhtj.common.api;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量操作结果
+ * 逐条记录每个ID的处理结果，部分失败时不影响其他记录
+ */
+@Data
+public class BatchResult {
+    /**
+     * 处理成功的ID
+     */
+    private List<Integer> succeeded = new ArrayList<>();
+
+    /**
+     * 处理失败的ID及失败原因
+     */
+    private Map<Integer, String> failed = new LinkedHashMap<>();
+
+    /**
+     * 记录处理成功
+     */
+    public void success(Integer id) {
+        succeeded.add(id);
+    }
+
+    /**
+     * 记录处理失败
+     */
+    public void fail(Integer id, String reason) {
+        failed.put(id, reason);
+    }
+
+    /**
+     * 成功数量
+     */
+    public int getSuccessCount() {
+        return succeeded.size();
+    }
+
+    /**
+     * 失败数量
+     */
+    public int getFailureCount() {
+        return failed.size();
+    }
+}
@@ -0,0 +1,54 @@
+package com.zhtj.common.api;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 游标分页结果
+ * 按排序键定位下一页，不需要OFFSET跳过前面的记录，翻到多深每页耗时都相同
+ */
+@Data
+public class CursorPage<T> {
+    /**
+     * 当前页数据
+     */
+    private List<T> list;
+
+    /**
+     * 下一页游标，没有更多数据时为null
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有更多数据
+     */
+    private boolean hasMore;
+
+    /**
+     * 总数，未要求统计时为null
+     */
+    private Long total;
+
+    public CursorPage(List<T> list, String nextCursor, boolean hasMore) {
+        this.list = list;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * 转换为与页码分页相同结构的Map，附加nextCursor和hasMore
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("list", list);
+        result.put("nextCursor", nextCursor);
+        result.put("hasMore", hasMore);
+        if (total != null) {
+            result.put("total", total);
+        }
+        return result;
+    }
+}
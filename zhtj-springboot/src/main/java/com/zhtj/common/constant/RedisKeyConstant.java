@@ -50,6 +50,76 @@ public class RedisKeyConstant {
      */
     public static final String STATISTICS = "statistics:%s";
     
+    /**
+     * 已吊销的JWT令牌，参数为令牌的SHA-256摘要
+     */
+    public static final String JWT_REVOKED = "jwt:revoked:%s";
+    
+    /**
+     * JWT令牌吊销广播频道
+     */
+    public static final String JWT_REVOKED_CHANNEL = "channel:jwt:revoked";
+    
+    /**
+     * 用户角色编码缓存
+     */
+    public static final String USER_ROLES = "user:roles:%s";
+    
+    /**
+     * 用户角色缓存失效广播频道
+     */
+    public static final String USER_ROLES_CHANNEL = "channel:user:roles";
+    
+    /**
+     * 用户实体缓存失效广播频道
+     */
+    public static final String USER_ENTITY_CHANNEL = "channel:user:entity";
+    
+    /**
+     * 组织树版本号，组织变更时递增
+     */
+    public static final String ORGANIZATION_TREE_VERSION = "organization:tree:version";
+    
+    /**
+     * 组织树版本变更广播频道
+     */
+    public static final String ORGANIZATION_TREE_CHANNEL = "channel:organization:tree";
+    
+    /**
+     * 用户未读通知数，参数依次为广播通知版本号、用户ID
+     */
+    public static final String NOTIFICATION_UNREAD = "notification:unread:%s:%s";
+    
+    /**
+     * 广播通知版本号，新增广播通知时递增，使全部用户的未读数失效
+     */
+    public static final String NOTIFICATION_BROADCAST_EPOCH = "notification:broadcast:epoch";
+    
+    /**
+     * 广播通知版本变更广播频道
+     */
+    public static final String NOTIFICATION_BROADCAST_CHANNEL = "channel:notification:broadcast";
+    
+    /**
+     * 通知推送事件广播频道，各实例收到后推送给本实例上的连接
+     */
+    public static final String NOTIFICATION_PUSH_CHANNEL = "channel:notification:push";
+    
+    /**
+     * 学习资源分类统计（Hash，字段为分类ID），参数为组织ID，全部组织时为all；统计包含下级组织的资源
+     */
+    public static final String STUDY_RESOURCE_CATEGORY_STATS = "stats:resource:category:%s";
+    
+    /**
+     * 过期转接申请处理任务的执行租约，多实例部署时只有持有租约的实例执行
+     */
+    public static final String TRANSFER_EXPIRE_LEASE = "lease:transfer:expire";
+    
+    /**
+     * 统计汇总失败、待定时任务重新汇总的评议活动ID集合（Set）
+     */
+    public static final String EVALUATION_STATISTICS_STALE = "stats:evaluation:stale";
+    
     /**
      * 构建验证码Redis键
      * 
@@ -1,5 +1,10 @@
 package com.zhtj.config;
 
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.zhtj.interceptor.JwtInterceptor;
+import com.zhtj.service.TokenRevocationService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -8,7 +13,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,7 +24,6 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
-import java.util.Set;
 
 /**
  * JWT配置类，用于处理JWT令牌的创建、验证和解析
@@ -28,6 +33,11 @@ import java.util.Set;
 public class JwtConfig {
     
     private static final Logger log = LoggerFactory.getLogger(JwtConfig.class);
+    
+    /**
+     * 已验证Claims缓存容量
+     */
+    private static final int CLAIMS_CACHE_CAPACITY = 10000;
 
     /**
      * 密钥
@@ -45,7 +55,14 @@ public class JwtConfig {
     private String issuer;
     
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private TokenRevocationService tokenRevocationService;
+    
+    /**
+     * 已验证签名的Claims缓存，键为令牌SHA-256摘要，条目在令牌过期时失效
+     */
+    private final LRUCache<String, Claims> claimsCache = CacheUtil.newLRUCache(CLAIMS_CACHE_CAPACITY);
+    
+    private volatile SecretKey signingKey;
 
     /**
      * 从令牌中获取用户ID
@@ -53,41 +70,49 @@ public class JwtConfig {
     public Integer getUserIdFromToken(String token) {
         try {
             log.debug("开始从token中解析用户ID，token前10位: {}", token.substring(0, Math.min(token.length(), 10)));
-            
-            // 尝试从subject中获取
-            String subject = getClaimFromToken(token, Claims::getSubject);
-            log.debug("从token subject中获取的值为: {}", subject);
-            
-            if (subject != null && !subject.isEmpty()) {
-                try {
-                    return Integer.valueOf(subject);
-                } catch (NumberFormatException e) {
-                    log.warn("subject不是有效的数字: {}", subject);
-                }
-            }
-            
-            // 如果subject解析失败，尝试从user_id字段获取
-            Object userIdClaim = getClaimFromToken(token, claims -> claims.get("user_id"));
-            log.debug("从token user_id字段中获取的值为: {}", userIdClaim);
-            
-            if (userIdClaim != null) {
-                if (userIdClaim instanceof Integer) {
-                    return (Integer) userIdClaim;
-                } else if (userIdClaim instanceof String) {
-                    return Integer.valueOf((String) userIdClaim);
-                } else if (userIdClaim instanceof Number) {
-                    return ((Number) userIdClaim).intValue();
-                }
-            }
-            
-            log.warn("无法从token中解析出用户ID");
-            return null;
+            return getUserIdFromClaims(getAllClaimsFromToken(token));
         } catch (Exception e) {
             log.error("解析token中的用户ID出错: {}", e.getMessage(), e);
             return null;
         }
     }
 
+    /**
+     * 从已验证的声明中获取用户ID，优先取subject，其次取user_id字段
+     */
+    public Integer getUserIdFromClaims(Claims claims) {
+        if (claims == null) {
+            return null;
+        }
+        String subject = claims.getSubject();
+        log.debug("从token subject中获取的值为: {}", subject);
+        if (subject != null && !subject.isEmpty()) {
+            try {
+                return Integer.valueOf(subject);
+            } catch (NumberFormatException e) {
+                log.warn("subject不是有效的数字: {}", subject);
+            }
+        }
+        
+        // 如果subject解析失败，尝试从user_id字段获取
+        Object userIdClaim = claims.get("user_id");
+        log.debug("从token user_id字段中获取的值为: {}", userIdClaim);
+        if (userIdClaim instanceof Integer) {
+            return (Integer) userIdClaim;
+        } else if (userIdClaim instanceof String) {
+            try {
+                return Integer.valueOf((String) userIdClaim);
+            } catch (NumberFormatException e) {
+                log.warn("user_id不是有效的数字: {}", userIdClaim);
+            }
+        } else if (userIdClaim instanceof Number) {
+            return ((Number) userIdClaim).intValue();
+        }
+        
+        log.warn("无法从token中解析出用户ID");
+        return null;
+    }
+
     /**
      * 从令牌中获取过期时间
      */
@@ -112,12 +137,36 @@ public class JwtConfig {
      * 从令牌中获取所有声明
      */
     private Claims getAllClaimsFromToken(String token) {
+        // 拦截器已验证过当前请求的令牌时直接复用其声明，不再计算摘要和查缓存
+        Claims current = getCurrentRequestClaims(token);
+        if (current != null) {
+            return current;
+        }
+        return getAllClaimsFromToken(token, DigestUtil.sha256Hex(token));
+    }
+
+    /**
+     * 按已计算的令牌摘要获取所有声明
+     */
+    private Claims getAllClaimsFromToken(String token, String digest) {
+        Claims cached = claimsCache.get(digest, false);
+        if (cached != null) {
+            return cached;
+        }
         try {
-            return Jwts.parserBuilder()
+            Claims claims = Jwts.parserBuilder()
                     .setSigningKey(getSigningKey())
                     .build()
                     .parseClaimsJws(token)
                     .getBody();
+            
+            // 仅缓存验证通过的Claims，缓存有效期不超过令牌剩余有效期
+            Date exp = claims.getExpiration();
+            long ttl = exp != null ? exp.getTime() - System.currentTimeMillis() : expiration * 1000;
+            if (ttl > 0) {
+                claimsCache.put(digest, claims, ttl);
+            }
+            return claims;
         } catch (Exception e) {
             log.error("解析token的Claims失败: {}", e.getMessage());
             throw e;
@@ -125,41 +174,38 @@ public class JwtConfig {
     }
 
     /**
-     * 检查令牌是否过期
+     * 读取JwtInterceptor为当前请求保存的已验证声明，令牌与当前请求的令牌不一致时返回null
      */
-    private Boolean isTokenExpired(String token) {
-        try {
-            final Date expiration = getExpirationDateFromToken(token);
-            return expiration != null && expiration.before(new Date());
-        } catch (Exception e) {
-            log.error("检查token是否过期时出错: {}", e.getMessage());
-            return true;
+    private Claims getCurrentRequestClaims(String token) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object requestToken = attributes.getAttribute(JwtInterceptor.TOKEN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        Object claims = attributes.getAttribute(JwtInterceptor.CLAIMS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (claims instanceof Claims && token.equals(requestToken)) {
+            return (Claims) claims;
         }
+        return null;
     }
-    
+
     /**
-     * 检查令牌是否在黑名单中
+     * 验证令牌签名、有效期及是否已吊销，令牌摘要只计算一次，同时用于声明缓存和吊销查询
+     * 
+     * @return 验证通过的声明，令牌无效时返回null
      */
-    private Boolean isTokenInBlacklist(String token) {
+    public Claims verifyToken(String token) {
         try {
-            // 直接检查特定令牌是否在黑名单中
-            String blacklistKeyPattern = "jwt:blacklist:*";
-            Set<String> keys = redisTemplate.keys(blacklistKeyPattern);
-            if (keys == null || keys.isEmpty()) {
-                return false;
-            }
-            
-            // 逐个检查键对应的值
-            for (String key : keys) {
-                Object value = redisTemplate.opsForValue().get(key);
-                if (value != null && token.equals(value.toString())) {
-                    return true;
-                }
-            }
-            return false;
+            String digest = DigestUtil.sha256Hex(token);
+            Claims claims = getAllClaimsFromToken(token, digest);
+            Date expirationDate = claims.getExpiration();
+            boolean notExpired = expirationDate == null || !expirationDate.before(new Date());
+            boolean notInBlacklist = !tokenRevocationService.isDigestRevoked(digest);
+            log.debug("Token验证 - 未过期: {}, 不在黑名单: {}", notExpired, notInBlacklist);
+            return notExpired && notInBlacklist ? claims : null;
         } catch (Exception e) {
-            log.error("检查token是否在黑名单中时出错: {}", e.getMessage());
-            return false;
+            log.error("验证token时发生错误: {}", e.getMessage());
+            return null;
         }
     }
 
@@ -212,23 +258,27 @@ public class JwtConfig {
      * 验证令牌
      */
     public Boolean validateToken(String token) {
-        try {
-            boolean notExpired = !isTokenExpired(token);
-            boolean notInBlacklist = !isTokenInBlacklist(token);
-            log.debug("Token验证 - 未过期: {}, 不在黑名单: {}", notExpired, notInBlacklist);
-            return notExpired && notInBlacklist;
-        } catch (Exception e) {
-            log.error("验证token时发生错误: {}", e.getMessage());
-            return false;
-        }
+        return verifyToken(token) != null;
     }
 
     /**
      * 获取签名密钥
      */
     private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        SecretKey key = signingKey;
+        if (key == null) {
+            byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+            key = Keys.hmacShaKeyFor(keyBytes);
+            signingKey = key;
+        }
+        return key;
+    }
+    
+    /**
+     * 获取已验证签名的全部声明，令牌无效时返回null
+     */
+    public Claims getVerifiedClaims(String token) {
+        return getClaimFromToken(token, Function.identity());
     }
 
     public String getSecret() {
@@ -237,6 +287,8 @@ public class JwtConfig {
 
     public void setSecret(String secret) {
         this.secret = secret;
+        this.signingKey = null;
+        this.claimsCache.clear();
     }
 
     public long getExpiration() {
@@ -1,9 +1,12 @@
 package com.zhtj.controller;
 
+import com.zhtj.config.JwtConfig;
 import com.zhtj.domain.User;
 import com.zhtj.domain.Organization;
+import com.zhtj.interceptor.JwtInterceptor;
 import com.zhtj.service.UserService;
 import com.zhtj.service.OrganizationService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +34,9 @@ public abstract class BaseController {
     @Autowired
     protected OrganizationService organizationService;
     
+    @Autowired
+    protected JwtConfig jwtConfig;
+    
     /**
      * 为所有控制器方法提供当前用户ID
      * 
@@ -174,6 +180,21 @@ public abstract class BaseController {
         return false;
     }
     
+    /**
+     * 获取JwtInterceptor为当前请求保存的已验证JWT声明
+     * 
+     * @return 已验证的声明，当前请求未经过令牌验证时返回null
+     */
+    protected Claims getCurrentClaims() {
+        ServletRequestAttributes attributes = 
+            (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object claims = attributes.getRequest().getAttribute(JwtInterceptor.CLAIMS_ATTRIBUTE);
+        return claims instanceof Claims ? (Claims) claims : null;
+    }
+    
     /**
      * 从请求中获取当前登录用户ID
      * 
@@ -189,6 +210,10 @@ public abstract class BaseController {
             if (attributes != null) {
                 HttpServletRequest request = attributes.getRequest();
                 Object userIdAttr = request.getAttribute("userId");
+                if (userIdAttr == null) {
+                    // 拦截器未能写入用户ID时，从已验证的声明中读取，不再重新解析令牌
+                    userIdAttr = jwtConfig.getUserIdFromClaims(getCurrentClaims());
+                }
                 
                 if (userIdAttr != null) {
                     if (userIdAttr instanceof Integer) {
@@ -1,7 +1,9 @@
 package com.zhtj.controller;
 
 import com.zhtj.common.api.Result;
+import com.zhtj.service.FileBlobService;
 import com.zhtj.service.FileService;
+import com.zhtj.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -36,9 +38,18 @@ import java.util.Map;
 @ConditionalOnProperty(name = "minio.enabled", havingValue = "false")
 public class FileController {
 
+    // 通过本接口上传的文件引用方前缀
+    private static final String UPLOAD_OWNER_PREFIX = "upload.";
+
     @Autowired
     private FileService fileService;
 
+    @Autowired
+    private FileBlobService fileBlobService;
+
+    @Autowired
+    private UserService userService;
+
     @Autowired
     private HttpServletRequest request;
 
@@ -61,6 +72,10 @@ public class FileController {
             @RequestParam("business_type") String businessType,
             @RequestParam("business_id") String businessId,
             @RequestParam(value = "description", required = false) String description) {
+        Integer userId = getCurrentUserId();
+        if (userId == null) {
+            return Result.unauthorized("请先登录");
+        }
         try {
             // 根据业务类型决定文件类型
             String fileType;
@@ -72,8 +87,8 @@ public class FileController {
                 fileType = "documents";
             }
 
-            // 上传文件
-            String fileUrl = fileService.uploadFile(file, fileType);
+            // 上传文件，引用登记在业务记录名下
+            String fileUrl = fileService.uploadFile(file, fileType, ownerKey(businessType, businessId), userId);
 
             // 构建返回结果
             Map<String, Object> fileInfo = new HashMap<>();
@@ -129,14 +144,31 @@ public class FileController {
 
     /**
      * 删除文件
+     * 去重存储的文件只释放该业务记录的引用，仅上传人或管理员可操作；其他文件仅管理员可删除
      * 
      * @param fileUrl 文件路径
+     * @param businessType 业务类型
+     * @param businessId 业务ID
      * @return 操作结果
      */
     @DeleteMapping
-    @Operation(summary = "删除文件", description = "删除指定的文件")
-    public Result<Boolean> deleteFile(@RequestParam("file_url") String fileUrl) {
-        boolean deleted = fileService.deleteFile(fileUrl);
+    @Operation(summary = "删除文件", description = "删除指定业务关联的文件")
+    public Result<Boolean> deleteFile(
+            @RequestParam("file_url") String fileUrl,
+            @RequestParam("business_type") String businessType,
+            @RequestParam("business_id") String businessId) {
+        Integer userId = getCurrentUserId();
+        if (userId == null) {
+            return Result.unauthorized("请先登录");
+        }
+        String owner = ownerKey(businessType, businessId);
+        if (!userService.isAdmin(userId)) {
+            Integer uploaderId = fileBlobService.isBlobPath(fileUrl) ? fileBlobService.getUploaderId(fileUrl, owner) : null;
+            if (!userId.equals(uploaderId)) {
+                return Result.forbidden("无权删除该文件");
+            }
+        }
+        boolean deleted = fileService.deleteFile(fileUrl, owner);
         return Result.success(deleted, deleted ? "删除成功" : "文件不存在");
     }
 
@@ -159,16 +191,19 @@ public class FileController {
      * @param fileUrl 图片文件路径
      * @param width 缩略图宽度
      * @param height 缩略图高度
-     * @return 缩略图路径
+     * @return 缩略图路径，尚未生成完成时为null
      */
     @PostMapping("/thumbnail")
-    @Operation(summary = "生成图片缩略图", description = "生成指定宽高的图片缩略图")
+    @Operation(summary = "生成图片缩略图", description = "获取指定宽高的图片缩略图，未生成时在后台生成，稍后再次请求即可获取")
     public Result<String> generateThumbnail(
             @RequestParam("file_url") String fileUrl,
             @RequestParam(value = "width", defaultValue = "200") int width,
             @RequestParam(value = "height", defaultValue = "200") int height) {
         try {
             String thumbnailUrl = fileService.generateThumbnail(fileUrl, width, height);
+            if (thumbnailUrl == null) {
+                return Result.success(null, "缩略图生成中，请稍后再试");
+            }
             return Result.success(thumbnailUrl, "生成缩略图成功");
         } catch (IOException e) {
             return Result.failed("生成缩略图失败: " + e.getMessage());
@@ -242,4 +277,26 @@ public class FileController {
             return ResponseEntity.status(500).build();
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * 通过本接口上传的文件的引用方，与业务服务自行登记的引用区分开，避免客户端冒用业务记录的引用
+     */
+    private String ownerKey(String businessType, String businessId) {
+        return FileBlobService.ownerKey(UPLOAD_OWNER_PREFIX + businessType, businessId);
+    }
+
+    /**
+     * 获取JwtInterceptor设置的当前用户ID
+     */
+    private Integer getCurrentUserId() {
+        Object userIdAttr = request.getAttribute("userId");
+        if (userIdAttr == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(userIdAttr.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.zhtj.domain.HonorApplication;
 import com.zhtj.service.HonorApplicationService;
 import com.zhtj.service.UserService;
+import com.zhtj.common.api.BatchResult;
 import com.zhtj.common.api.Result;
 import com.zhtj.domain.User;
 import com.zhtj.service.OrganizationService;
@@ -370,42 +371,17 @@ public class HonorController {
             return Result.failed("您没有审批权限");
         }
         
-        // 获取审批人有权限的组织ID列表
-        List<Integer> authorizedOrgIds = getAuthorizedOrganizationIds(userId);
-        
-        // 批量审批
-        int successCount = 0;
-        int failCount = 0;
-        
-        for (Integer id : ids) {
-            HonorApplication application = honorApplicationService.getById(id);
-            if (application == null) {
-                logger.warn("荣誉申请[{}]不存在", id);
-                failCount++;
-                continue;
-            }
-            
-            // 检查是否有权限审批该申请
-            if (!authorizedOrgIds.contains(application.getOrganizationId())) {
-                logger.warn("用户[{}]无权审批组织[{}]的荣誉申请[{}]", 
-                    userId, application.getOrganizationId(), id);
-                failCount++;
-                continue;
-            }
-            
-            boolean success = honorApplicationService.approve(id, status, comments, userId);
-            if (success) {
-                successCount++;
-            } else {
-                failCount++;
-            }
-        }
+        // 批量审批，申请查询、组织权限校验和状态更新均按批处理
+        BatchResult batchResult = honorApplicationService.batchApprove(ids, status, comments, userId);
         
-        logger.info("用户[{}]批量审批完成，成功: {}, 失败: {}", userId, successCount, failCount);
+        logger.info("用户[{}]批量审批完成，成功: {}, 失败: {}", 
+                userId, batchResult.getSuccessCount(), batchResult.getFailureCount());
         
         Map<String, Object> result = new HashMap<>();
-        result.put("successCount", successCount);
-        result.put("failCount", failCount);
+        result.put("successCount", batchResult.getSuccessCount());
+        result.put("failCount", batchResult.getFailureCount());
+        result.put("succeeded", batchResult.getSucceeded());
+        result.put("failed", batchResult.getFailed());
         
         return Result.success(result);
     }
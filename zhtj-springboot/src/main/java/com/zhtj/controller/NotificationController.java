@@ -4,6 +4,8 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.zhtj.common.api.Result;
 import com.zhtj.domain.Notification;
+import com.zhtj.domain.NotificationBroadcast;
+import com.zhtj.service.NotificationPushService;
 import com.zhtj.service.NotificationService;
 import com.zhtj.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -12,11 +14,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.util.StringUtils;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 消息通知控制器
@@ -31,6 +39,9 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
     
+    @Autowired
+    private NotificationPushService notificationPushService;
+    
     @Autowired
     private UserService userService;
     
@@ -43,9 +54,11 @@ public class NotificationController {
             @RequestHeader(value = "Authorization", required = false) String authorization,
             @Parameter(description = "页码") @RequestParam(defaultValue = "1") Integer page,
             @Parameter(description = "每页数量") @RequestParam(defaultValue = "10") Integer size,
-            @Parameter(description = "是否已读") @RequestParam(required = false) Integer isRead) {
+            @Parameter(description = "是否已读") @RequestParam(required = false) Integer isRead,
+            @Parameter(description = "游标，传入时按游标分页，首页传空字符串") @RequestParam(required = false) String cursor,
+            @Parameter(description = "游标分页时是否统计总数") @RequestParam(defaultValue = "false") boolean withTotal) {
         
-        log.debug("获取通知列表: page={}, size={}, isRead={}", page, size, isRead);
+        log.debug("获取通知列表: page={}, size={}, isRead={}, cursor={}", page, size, isRead, cursor);
         
         // 从Authorization中获取当前用户ID
         Integer recipientId = null;
@@ -64,6 +77,12 @@ public class NotificationController {
             log.warn("无法获取用户ID，使用默认值: {}", recipientId);
         }
         
+        // 游标分页，供无限滚动列表使用；游标无效时直接返回错误
+        if (cursor != null) {
+            return Result.success(notificationService.getNotificationCursorPage(
+                    recipientId, isRead, cursor, size, withTotal).toMap());
+        }
+        
         try {
             // 创建分页对象
             Page<Notification> pageObj = new Page<>(page, size);
@@ -97,12 +116,19 @@ public class NotificationController {
      * 获取通知详情
      */
     @GetMapping("/{id}")
-    @Operation(summary = "获取通知详情", description = "根据ID获取通知详情")
+    @Operation(summary = "获取通知详情", description = "根据ID获取当前用户的通知详情，广播通知需传isBroadcast=1")
     public Result<Notification> getNotification(
-            @Parameter(description = "通知ID") @PathVariable Integer id) {
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @Parameter(description = "通知ID") @PathVariable Integer id,
+            @Parameter(description = "是否为广播通知，与通知列表中的isBroadcast一致") @RequestParam(defaultValue = "0") Integer isBroadcast) {
+        
+        Integer userId = getCurrentUserId(authorization);
+        if (userId == null) {
+            return Result.unauthorized("未登录或登录已过期");
+        }
         
         try {
-            Notification notification = notificationService.getById(id);
+            Notification notification = notificationService.getForRecipient(id, isBroadcast == 1, userId);
             if (notification == null) {
                 return Result.failed("通知不存在");
             }
@@ -139,11 +165,25 @@ public class NotificationController {
      * 标记通知为已读
      */
     @PostMapping("/{id}/read")
-    @Operation(summary = "标记通知为已读", description = "标记指定通知为已读状态")
+    @Operation(summary = "标记通知为已读", description = "标记当前用户的指定通知为已读状态，广播通知需传isBroadcast=1")
     public Result<Boolean> markAsRead(
-            @Parameter(description = "通知ID") @PathVariable Integer id) {
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @Parameter(description = "通知ID") @PathVariable Integer id,
+            @Parameter(description = "是否为广播通知，与通知列表中的isBroadcast一致") @RequestParam(defaultValue = "0") Integer isBroadcast) {
+        
+        Integer userId = getCurrentUserId(authorization);
+        if (userId == null) {
+            return Result.unauthorized("未登录或登录已过期");
+        }
         
         try {
+            // 个人通知与广播通知的ID各自独立，按isBroadcast分别处理
+            if (isBroadcast == 1) {
+                return Result.success(notificationService.markBroadcastAsRead(id, userId), "标记成功");
+            }
+            if (notificationService.getForRecipient(id, false, userId) == null) {
+                return Result.failed("通知不存在");
+            }
             boolean success = notificationService.markAsRead(id);
             return Result.success(success, "标记成功");
         } catch (Exception e) {
@@ -152,6 +192,33 @@ public class NotificationController {
         }
     }
     
+    /**
+     * 批量标记通知为已读
+     */
+    @PostMapping("/read/batch")
+    @Operation(summary = "批量标记通知为已读", description = "标记当前用户的指定通知为已读状态")
+    public Result<Map<String, Object>> markBatchAsRead(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @Parameter(description = "通知ID列表") @RequestBody List<Integer> ids) {
+        
+        Integer userId = getCurrentUserId(authorization);
+        if (userId == null) {
+            return Result.unauthorized("未登录或登录已过期");
+        }
+        
+        try {
+            int count = notificationService.markAsRead(userId, ids);
+            
+            Map<String, Object> result = new HashMap<>();
+            result.put("count", count);
+            
+            return Result.success(result, "标记成功");
+        } catch (Exception e) {
+            log.error("批量标记通知已读失败", e);
+            return Result.failed("批量标记通知已读失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 标记所有通知为已读
      */
@@ -190,11 +257,24 @@ public class NotificationController {
      * 删除通知
      */
     @DeleteMapping("/{id}")
-    @Operation(summary = "删除通知", description = "删除指定的通知")
+    @Operation(summary = "删除通知", description = "删除当前用户的指定通知，广播通知需传isBroadcast=1")
     public Result<Boolean> deleteNotification(
-            @Parameter(description = "通知ID") @PathVariable Integer id) {
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @Parameter(description = "通知ID") @PathVariable Integer id,
+            @Parameter(description = "是否为广播通知，与通知列表中的isBroadcast一致") @RequestParam(defaultValue = "0") Integer isBroadcast) {
+        
+        Integer userId = getCurrentUserId(authorization);
+        if (userId == null) {
+            return Result.unauthorized("未登录或登录已过期");
+        }
         
         try {
+            if (isBroadcast == 1) {
+                return Result.success(notificationService.deleteBroadcast(id, userId), "删除成功");
+            }
+            if (notificationService.getForRecipient(id, false, userId) == null) {
+                return Result.failed("通知不存在");
+            }
             boolean success = notificationService.delete(id);
             return Result.success(success, "删除成功");
         } catch (Exception e) {
@@ -240,4 +320,125 @@ public class NotificationController {
             return Result.failed("获取未读通知数量失败: " + e.getMessage());
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 向组织成员广播通知
+     */
+    @PostMapping("/broadcasts")
+    @Operation(summary = "广播通知", description = "向指定组织（可包含下级组织）的全部成员或指定角色发送通知，"
+            + "需为系统管理员或目标组织及其上级组织的书记/副书记，发送人取自登录用户")
+    public Result<Map<String, Object>> broadcastNotification(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @Parameter(description = "广播通知对象") @RequestBody NotificationBroadcast broadcast) {
+        
+        Integer userId = getCurrentUserId(authorization);
+        if (userId == null) {
+            return Result.unauthorized("未登录或登录已过期");
+        }
+        
+        try {
+            Integer id = notificationService.broadcast(broadcast, userId);
+            
+            Map<String, Object> result = new HashMap<>();
+            result.put("id", id);
+            
+            return Result.success(result, "发送成功");
+        } catch (Exception e) {
+            log.error("广播通知失败", e);
+            return Result.failed("广播通知失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 标记广播通知为已读
+     */
+    @PostMapping("/broadcasts/{id}/read")
+    @Operation(summary = "标记广播通知为已读", description = "标记当前用户的指定广播通知为已读状态")
+    public Result<Boolean> markBroadcastAsRead(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @Parameter(description = "广播通知ID") @PathVariable Integer id) {
+        
+        Integer userId = getCurrentUserId(authorization);
+        if (userId == null) {
+            return Result.unauthorized("未登录或登录已过期");
+        }
+        
+        try {
+            boolean success = notificationService.markBroadcastAsRead(id, userId);
+            return Result.success(success, "标记成功");
+        } catch (Exception e) {
+            log.error("标记广播通知已读失败", e);
+            return Result.failed("标记广播通知已读失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 删除广播通知，只对当前用户隐藏
+     */
+    @DeleteMapping("/broadcasts/{id}")
+    @Operation(summary = "删除广播通知", description = "从当前用户的通知列表中删除指定广播通知")
+    public Result<Boolean> deleteBroadcast(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @Parameter(description = "广播通知ID") @PathVariable Integer id) {
+        
+        Integer userId = getCurrentUserId(authorization);
+        if (userId == null) {
+            return Result.unauthorized("未登录或登录已过期");
+        }
+        
+        try {
+            boolean success = notificationService.deleteBroadcast(id, userId);
+            return Result.success(success, "删除成功");
+        } catch (Exception e) {
+            log.error("删除广播通知失败", e);
+            return Result.failed("删除广播通知失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 订阅通知推送（SSE）
+     * 浏览器EventSource无法设置请求头，可通过token参数传递令牌
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "订阅通知推送", description = "建立SSE连接，新通知送达时推送notification事件，广播通知推送不含内容的broadcast事件（需重新拉取通知列表），收到resync事件时需重新拉取未读数")
+    public ResponseEntity<SseEmitter> subscribe(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @Parameter(description = "令牌，无法设置请求头时使用") @RequestParam(required = false) String token) {
+        
+        Integer userId = getCurrentUserId(StringUtils.hasText(token) ? "Bearer " + token : authorization);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(notificationPushService.subscribe(userId));
+    }
+    
+    /**
+     * 长轮询等待通知推送，供不支持SSE的客户端使用
+     */
+    @GetMapping("/poll")
+    @Operation(summary = "长轮询通知推送", description = "有新的推送事件时立即返回，否则等待至超时后返回空列表")
+    public CompletableFuture<Result<List<Map<String, Object>>>> poll(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @Parameter(description = "已收到的最后一个事件的时间戳(毫秒)") @RequestParam(required = false) Long since) {
+        
+        Integer userId = getCurrentUserId(authorization);
+        if (userId == null) {
+            return CompletableFuture.completedFuture(Result.unauthorized("未登录或登录已过期"));
+        }
+        return notificationPushService.poll(userId, since).thenApply(Result::success);
+    }
+    
+    /**
+     * 从Authorization中获取当前用户ID，无法获取时返回null
+     */
+    private Integer getCurrentUserId(String authorization) {
+        try {
+            if (StringUtils.hasText(authorization) && authorization.startsWith("Bearer ")) {
+                return userService.getUserIdFromToken(authorization.substring(7));
+            }
+        } catch (Exception e) {
+            log.error("获取用户ID失败", e);
+        }
+        return null;
+    }
+}
@@ -57,14 +57,18 @@ public class OrganizationController {
      * 获取组织树结构
      * 
      * @param rootId 根组织ID，默认为顶级组织
+     * @param depth 向下展开的层数，可选，仅在指定根组织时生效
      * @return 组织树结构
      */
     @GetMapping("/tree")
-    @Operation(summary = "获取组织树结构", description = "获取组织的树形结构，可指定根组织ID")
+    @Operation(summary = "获取组织树结构", description = "获取组织的树形结构，可指定根组织ID和展开层数")
     public Result<List<Organization>> getOrganizationTree(
-            @RequestParam(required = false) Integer rootId) {
+            @RequestParam(required = false) Integer rootId,
+            @RequestParam(required = false) Integer depth) {
         
-        List<Organization> tree = organizationService.getOrganizationTree(rootId);
+        List<Organization> tree = rootId != null && depth != null
+                ? organizationService.getOrganizationSubtree(rootId, depth)
+                : organizationService.getOrganizationTree(rootId);
         return Result.success(tree);
     }
     
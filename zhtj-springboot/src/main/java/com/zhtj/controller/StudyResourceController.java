@@ -6,6 +6,7 @@ import com.zhtj.common.api.Result;
 import com.zhtj.domain.StudyResource;
 import com.zhtj.domain.User;
 import com.zhtj.domain.dto.StudyResourceDTO;
+import com.zhtj.domain.dto.StudyResourceSearchDTO;
 import com.zhtj.domain.enums.ResourceCategory;
 import com.zhtj.domain.enums.ResourceFileType;
 import com.zhtj.domain.vo.StudyResourceVO;
@@ -16,11 +17,16 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -28,6 +34,11 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -108,6 +119,20 @@ public class StudyResourceController extends BaseController {
         return Result.success(response, "查询成功");
     }
     
+    /**
+     * 全文检索学习资源
+     */
+    @GetMapping("/search")
+    @Operation(summary = "全文检索学习资源", description = "按关键词检索标题和描述，结果按相关度排序，并返回分类、格式、组织、月份的分布统计")
+    public Result<Map<String, Object>> searchResources(
+            @Parameter(description = "当前页码") @RequestParam(defaultValue = "1") int page,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int size,
+            StudyResourceSearchDTO query
+    ) {
+        Integer currentUserId = getCurrentUserIdFromRequest();
+        return Result.success(studyResourceService.searchResources(query, page, size, currentUserId), "查询成功");
+    }
+    
     /**
      * 获取资源详情
      */
@@ -223,24 +248,42 @@ public class StudyResourceController extends BaseController {
     
     /**
      * 下载资源
+     * 以流的方式输出文件，内存占用与文件大小无关；支持Range断点续传和视频拖动，
+     * 以及基于ETag、Last-Modified的条件请求
      */
     @GetMapping("/{id}/download")
     @Operation(summary = "下载资源", description = "下载资源文件")
-    public ResponseEntity<byte[]> downloadResource(
-            @Parameter(description = "资源ID", required = true) @PathVariable Long id
+    public ResponseEntity<Resource> downloadResource(
+            @Parameter(description = "资源ID", required = true) @PathVariable Long id,
+            WebRequest webRequest
     ) throws IOException {
         // 使用简化版本的方法，不需要用户ID
         Map<String, Object> downloadInfo = studyResourceService.getResourceForDownload(id.intValue());
         
-        byte[] fileData = (byte[]) downloadInfo.get("fileData");
+        Path file = (Path) downloadInfo.get("file");
         String fileName = (String) downloadInfo.get("fileName");
         String contentType = (String) downloadInfo.get("contentType");
+        long fileSize = (Long) downloadInfo.get("fileSize");
+        long lastModified = (Long) downloadInfo.get("lastModified");
+        String eTag = "\"" + Long.toHexString(fileSize) + "-" + Long.toHexString(lastModified) + "\"";
+        
+        // 客户端缓存仍然有效时直接返回304
+        if (webRequest.checkNotModified(eTag, lastModified)) {
+            return null;
+        }
         
-        // 更新下载次数
-        studyResourceService.recordDownload(id);
+        String range = webRequest.getHeader(HttpHeaders.RANGE);
+        boolean partial = StringUtils.hasText(range) && isIfRangeMatched(webRequest, eTag, lastModified);
+        
+        // 更新下载次数，分段请求只在从头开始时计数，避免续传和视频拖动重复计数
+        if (!partial || range.replace(" ", "").startsWith("bytes=0-")) {
+            studyResourceService.recordDownload(id);
+        }
         
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.parseMediaType(contentType));
+        headers.setETag(eTag);
+        headers.setLastModified(lastModified);
         
         // 对中文文件名进行URL编码处理
         try {
@@ -255,9 +298,40 @@ public class StudyResourceController extends BaseController {
             headers.setContentDispositionFormData("attachment", fileName);
         }
         
+        // 文件已变化（If-Range不匹配）时忽略Range返回完整文件，InputStreamResource不会被框架按Range切分
+        if (StringUtils.hasText(range) && !partial) {
+            headers.setContentLength(fileSize);
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .body(new InputStreamResource(Files.newInputStream(file)));
+        }
+        
+        // FileSystemResource由框架按Range请求头切分为ResourceRegion并返回206
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(fileData);
+                .body(new FileSystemResource(file));
+    }
+    
+    /**
+     * 判断If-Range条件是否成立，成立时才按Range返回部分内容
+     * If-Range可以是ETag（弱ETag不参与比较）或HTTP日期
+     */
+    private boolean isIfRangeMatched(WebRequest webRequest, String eTag, long lastModified) {
+        String ifRange = webRequest.getHeader(HttpHeaders.IF_RANGE);
+        if (!StringUtils.hasText(ifRange)) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(eTag);
+        }
+        try {
+            long since = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            // HTTP日期精确到秒
+            return lastModified / 1000 == since / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
     }
     
     /**
@@ -57,6 +57,8 @@ public class TransferController extends BaseController {
      * @param status 状态，可选
      * @param transferUserId 转接用户ID，可选
      * @param mine 是否为"我的转接申请"，可选
+     * @param cursor 游标，可选；传入时按游标分页（首页传空字符串），忽略page
+     * @param withTotal 游标分页时是否统计总数，默认不统计
      * @param currentUserId 当前用户ID（由@ModelAttribute自动提供）
      * @param currentUser 当前用户对象（由@ModelAttribute自动提供）
      * @return 转接申请列表和总数
@@ -70,6 +72,8 @@ public class TransferController extends BaseController {
             @RequestParam(required = false) String status,
             @RequestParam(required = false) Integer transferUserId,
             @RequestParam(required = false) Boolean mine,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal,
             @ModelAttribute("currentUserId") Integer currentUserId,
             @ModelAttribute("currentUser") User currentUser) {
         
@@ -89,6 +93,12 @@ public class TransferController extends BaseController {
             }
         }
         
+        // 游标分页，供无限滚动列表使用
+        if (cursor != null) {
+            return Result.success(transferService.getTransferCursorPage(
+                    cursor, size, transferUserId, statusCode, null, withTotal).toMap());
+        }
+        
         IPage<Transfer> pageResult = transferService.getTransferPage(pageParam, transferUserId, statusCode, null);
         
         Map<String, Object> result = new HashMap<>();
@@ -8,12 +8,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -30,12 +28,9 @@ public class OrganizationAdminController {
     @Autowired
     private OrganizationService organizationService;
     
-    @Autowired
-    private JdbcTemplate jdbcTemplate;
-    
     /**
      * 修复组织结构
-     * 直接更新关键数据以修复组织树
+     * 根据parent_id重新计算全部组织的路径和层级，并重建organization_hierarchy表
      */
     @PostMapping("/repair")
     @Operation(summary = "修复组织结构", description = "修复组织结构中的层级关系和路径")
@@ -45,59 +40,8 @@ public class OrganizationAdminController {
         try {
             log.info("开始修复组织结构");
             
-            // 1. 修正根节点
-            int rootFixed = jdbcTemplate.update(
-                "UPDATE organization SET parent_id = NULL, level = 0, path = '3', is_leaf = 0 WHERE id = 3"
-            );
-            result.put("root_node_fixed", rootFixed > 0);
-            
-            // 2. 修正二级节点
-            int secondLevel1Fixed = jdbcTemplate.update(
-                "UPDATE organization SET parent_id = 3, level = 1, path = '3,14', is_leaf = 0 WHERE id = 14"
-            );
-            int secondLevel2Fixed = jdbcTemplate.update(
-                "UPDATE organization SET parent_id = 3, level = 1, path = '3,16', is_leaf = 0 WHERE id = 16"
-            );
-            result.put("second_level_fixed", secondLevel1Fixed + secondLevel2Fixed);
-            
-            // 3. 修正三级节点
-            int thirdLevelFixed = jdbcTemplate.update(
-                "UPDATE organization SET parent_id = 14, level = 2, path = '3,14,15', is_leaf = 1 WHERE id = 15"
-            );
-            result.put("third_level_fixed", thirdLevelFixed);
-            
-            // 4. 清空并重建organization_hierarchy表
-            jdbcTemplate.execute("TRUNCATE TABLE organization_hierarchy");
-            
-            // 5. 插入层级数据
-            jdbcTemplate.update(
-                "INSERT INTO organization_hierarchy " +
-                "(organization_id, parent_organization_id, level, path, create_time, update_time) " +
-                "VALUES (3, NULL, 0, '3', ?, ?)",
-                LocalDateTime.now(), LocalDateTime.now()
-            );
-            
-            jdbcTemplate.update(
-                "INSERT INTO organization_hierarchy " +
-                "(organization_id, parent_organization_id, level, path, create_time, update_time) " +
-                "VALUES (14, 3, 1, '3,14', ?, ?)",
-                LocalDateTime.now(), LocalDateTime.now()
-            );
-            
-            jdbcTemplate.update(
-                "INSERT INTO organization_hierarchy " +
-                "(organization_id, parent_organization_id, level, path, create_time, update_time) " +
-                "VALUES (15, 14, 2, '3,14,15', ?, ?)",
-                LocalDateTime.now(), LocalDateTime.now()
-            );
-            
-            jdbcTemplate.update(
-                "INSERT INTO organization_hierarchy " +
-                "(organization_id, parent_organization_id, level, path, create_time, update_time) " +
-                "VALUES (16, 3, 1, '3,16', ?, ?)",
-                LocalDateTime.now(), LocalDateTime.now()
-            );
-            
+            int fixedCount = organizationService.rebuildHierarchy();
+            result.put("fixed_count", fixedCount);
             result.put("hierarchy_rebuilt", true);
             
             log.info("组织结构修复完成");
@@ -329,60 +329,19 @@ public class MemberEvaluationController {
         statistics.put("unqualifiedRate", 0);
         
         try {
-            // 这里调用userService获取评议结果列表
-            Map<String, Object> results = userService.getResultList(id, 1, 1000, null, null, null);
-            if (results != null) {
-                log.debug("获取到评议结果: {}", results);
+            // 读取预汇总的统计数据，耗时与评议人数无关
+            Map<String, Object> dbResults = userService.getEvaluationResultsFromDb(id);
+            if (dbResults != null && !dbResults.isEmpty()) {
+                statistics.putAll(dbResults);
                 
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> items = (List<Map<String, Object>>) results.get("items");
-                
-                if (items != null && !items.isEmpty()) {
-                    int total = items.size();
-                    int completed = 0;
-                    int excellent = 0;
-                    int qualified = 0;
-                    int basicQualified = 0;
-                    int unqualified = 0;
-                    
-                    for (Map<String, Object> item : items) {
-                        if ("已评议".equals(item.get("status"))) {
-                            completed++;
-                            String result = (String) item.get("result");
-                            if ("优秀".equals(result)) {
-                                excellent++;
-                            } else if ("合格".equals(result)) {
-                                qualified++;
-                            } else if ("基本合格".equals(result)) {
-                                basicQualified++;
-                            } else if ("不合格".equals(result)) {
-                                unqualified++;
-                            }
-                        }
-                    }
-                    
-                    statistics.put("totalCount", total);
-                    statistics.put("completedCount", completed);
-                    statistics.put("overallProgress", total > 0 ? (completed * 100) / total : 0);
-                    statistics.put("excellentCount", excellent);
-                    statistics.put("excellentRate", completed > 0 ? (excellent * 100) / completed : 0);
-                    statistics.put("qualifiedCount", qualified + excellent);
-                    statistics.put("qualifiedRate", completed > 0 ? ((qualified + excellent) * 100) / completed : 0);
-                    statistics.put("basicQualifiedCount", basicQualified);
-                    statistics.put("basicQualifiedRate", completed > 0 ? (basicQualified * 100) / completed : 0);
-                    statistics.put("unqualifiedCount", unqualified);
-                    statistics.put("unqualifiedRate", completed > 0 ? (unqualified * 100) / completed : 0);
-                } else {
-                    log.warn("评议结果列表为空");
-                    
-                    // 如果没有从userService获取到数据，尝试从数据库直接查询
-                    Map<String, Object> dbResults = userService.getEvaluationResultsFromDb(id);
-                    if (dbResults != null && !dbResults.isEmpty()) {
-                        statistics = dbResults;
-                    }
-                }
+                // 接口返回的合格人数一直包含优秀人数
+                long completed = ((Number) statistics.get("completedCount")).longValue();
+                long qualified = ((Number) statistics.get("qualifiedCount")).longValue()
+                        + ((Number) statistics.get("excellentCount")).longValue();
+                statistics.put("qualifiedCount", qualified);
+                statistics.put("qualifiedRate", completed > 0 ? (qualified * 100) / completed : 0);
             } else {
-                log.warn("获取评议结果失败，结果为null");
+                log.warn("获取评议统计数据失败，结果为空");
             }
         } catch (Exception e) {
             log.error("获取评议统计数据失败: {}", e.getMessage(), e);
@@ -1,5 +1,6 @@
 package com.zhtj.controller.twosystem;
 
+import com.zhtj.common.api.BatchResult;
 import com.zhtj.common.api.Result;
 import com.zhtj.domain.User;
 import com.zhtj.config.JwtConfig;
@@ -102,6 +103,8 @@ public class MemberRegisterController {
             @RequestParam(value = "batchId", required = false) Integer batchId,
             @RequestParam(value = "memberName", required = false) String memberName,
             @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "withTotal", defaultValue = "false") boolean withTotal,
             HttpServletRequest request) {
         try {
             String authHeader = request.getHeader("Authorization");
@@ -111,6 +114,11 @@ public class MemberRegisterController {
             String token = authHeader.substring(7);
         Integer userId = jwtConfig.getUserIdFromToken(token);
         User currentUser = userService.getById(userId);
+        // 传入cursor时按游标分页（首页传空字符串），供无限滚动列表使用
+        if (cursor != null) {
+            return Result.success(userService.getApprovalCursorPage(
+                    currentUser, cursor, size, batchId, memberName, status, withTotal).toMap());
+        }
         return Result.success(userService.getApprovalList(currentUser, page, size, batchId, memberName, status));
         } catch (Exception e) {
             return Result.failed("获取审批列表失败：" + e.getMessage());
@@ -169,7 +177,7 @@ public class MemberRegisterController {
     @PostMapping("/approve/batch-approve")
     @PreAuthorize("@ss.hasPermi('twosystem:register:approve')")
     @SuppressWarnings("unchecked")
-    public Result<Void> batchApprove(@RequestBody Map<String, Object> params, HttpServletRequest request) {
+    public Result<BatchResult> batchApprove(@RequestBody Map<String, Object> params, HttpServletRequest request) {
         try {
             String authHeader = request.getHeader("Authorization");
             if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -181,8 +189,7 @@ public class MemberRegisterController {
         List<Integer> ids = (List<Integer>) params.get("ids");
         String comments = (String) params.get("comments");
         
-        boolean result = userService.batchApproveRegister(ids, currentUser, comments);
-        return result ? Result.success() : Result.failed("批量审批通过失败");
+        return Result.success(userService.batchApproveRegister(ids, currentUser, comments));
         } catch (Exception e) {
             return Result.failed("批量审批通过失败：" + e.getMessage());
         }
@@ -194,7 +201,7 @@ public class MemberRegisterController {
     @PostMapping("/approve/batch-reject")
     @PreAuthorize("@ss.hasPermi('twosystem:register:approve')")
     @SuppressWarnings("unchecked")
-    public Result<Void> batchReject(@RequestBody Map<String, Object> params, HttpServletRequest request) {
+    public Result<BatchResult> batchReject(@RequestBody Map<String, Object> params, HttpServletRequest request) {
         try {
             String authHeader = request.getHeader("Authorization");
             if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -206,8 +213,7 @@ public class MemberRegisterController {
         List<Integer> ids = (List<Integer>) params.get("ids");
         String comments = (String) params.get("comments");
         
-        boolean result = userService.batchRejectRegister(ids, currentUser, comments);
-        return result ? Result.success() : Result.failed("批量审批驳回失败");
+        return Result.success(userService.batchRejectRegister(ids, currentUser, comments));
         } catch (Exception e) {
             return Result.failed("批量审批驳回失败：" + e.getMessage());
         }
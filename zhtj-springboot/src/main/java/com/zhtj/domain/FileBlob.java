@@ -0,0 +1,34 @@
+package com.zhtj.domain;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文件内容实体类
+ * 相同内容的文件只存储一份，按内容摘要寻址并记录引用次数
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("file_blob")
+public class FileBlob {
+    
+    @TableId(value = "digest", type = IdType.INPUT)
+    private String digest;                  // 文件内容SHA-256摘要
+    
+    private String storagePath;             // 存储路径
+    
+    private Long fileSize;                  // 文件大小(字节)
+    
+    private Integer refCount;               // 引用次数
+    
+    private LocalDateTime createTime;       // 创建时间
+    
+    private LocalDateTime updateTime;       // 更新时间
+}
@@ -55,4 +55,7 @@ public class Notification {
     // 非数据库字段
     @TableField(exist = false)
     private String recipientName;           // 接收者姓名
+    
+    @TableField(exist = false)
+    private Integer isBroadcast;            // 是否组织广播通知(0-个人通知，1-广播通知)
 } 
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.zhtj.domain;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 组织广播通知实体类
+ * 面向一个组织（可包含下级组织）全部成员或指定角色的通知只存储一条，
+ * 接收范围在查询时按用户所属组织和角色计算，用户的阅读状态在阅读时才写入
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("notification_broadcast")
+public class NotificationBroadcast {
+    
+    @TableId(value = "id", type = IdType.AUTO)
+    private Integer id;                     // 广播通知ID
+    
+    private String title;                   // 通知标题
+    
+    private String content;                 // 通知内容
+    
+    private Integer senderId;               // 发送者ID(0表示系统)
+    
+    private String senderName;              // 发送者名称
+    
+    private Integer organizationId;         // 目标组织ID
+    
+    private Integer includeChildren;        // 是否包含下级组织(0-否，1-是)
+    
+    private String roleCode;                // 目标角色编码，为空表示全部成员
+    
+    private String notificationType;        // 通知类型
+    
+    private Integer referenceId;            // 关联业务ID
+    
+    private String referenceType;           // 关联业务类型
+    
+    private Integer priority;               // 优先级(0-普通，1-重要，2-紧急)
+    
+    private LocalDateTime expireTime;       // 过期时间
+    
+    private Integer status;                 // 状态(0-撤回，1-有效)
+    
+    private LocalDateTime createTime;       // 创建时间
+    
+    private LocalDateTime updateTime;       // 更新时间
+}
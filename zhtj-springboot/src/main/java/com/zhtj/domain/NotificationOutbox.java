@@ -0,0 +1,71 @@
+package com.zhtj.domain;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 消息通知发件箱实体类
+ * 业务事务中只记录待发送的通知，由后台投递任务批量写入通知表或发送邮件、短信
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("notification_outbox")
+public class NotificationOutbox {
+
+    public static final String CHANNEL_SITE = "site";
+    public static final String CHANNEL_EMAIL = "email";
+    public static final String CHANNEL_SMS = "sms";
+
+    public static final int STATUS_PENDING = 0;
+    public static final int STATUS_DELIVERED = 1;
+    public static final int STATUS_FAILED = 2;
+    public static final int STATUS_SENDING = 3;
+
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;                        // 序号
+
+    private String channel;                 // 投递渠道(site-站内信,email-邮件,sms-短信)
+
+    private String title;                   // 通知标题
+
+    private String content;                 // 通知内容
+
+    private Integer senderId;               // 发送者ID(0表示系统)
+
+    private String senderName;              // 发送者名称
+
+    private Integer recipientId;            // 接收者ID
+
+    private String notificationType;        // 通知类型
+
+    private Integer referenceId;            // 关联业务ID
+
+    private String referenceType;           // 关联业务类型
+
+    private Integer priority;               // 优先级(0-普通，1-重要，2-紧急)
+
+    private LocalDateTime expireTime;       // 通知过期时间
+
+    private Integer status;                 // 投递状态(0-待投递，1-已投递，2-投递失败，3-投递中)
+
+    private Integer attempts;               // 已尝试次数
+
+    private LocalDateTime nextRetryTime;    // 下次投递时间
+
+    private String lastError;               // 最近一次失败原因
+
+    private String claimToken;              // 认领本条记录的投递批次标识
+
+    private LocalDateTime leaseUntil;       // 投递租约到期时间，到期仍未记录结果时重新投递
+
+    private LocalDateTime createTime;       // 创建时间
+
+    private LocalDateTime updateTime;       // 更新时间
+}
@@ -43,7 +43,9 @@ public class Organization {
     
     private String secretaryPhone;       // 书记联系电话
     
-    private Integer memberCount;         // 成员数量
+    private Integer memberCount;         // 成员数量（直属）
+    
+    private Integer totalMemberCount;    // 成员总数（含全部下级组织）
     
     // 非数据库字段，数据库中不存在该字段
     @TableField(exist = false)
@@ -0,0 +1,41 @@
+package com.zhtj.domain.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 学习资源检索条件
+ */
+@Data
+@Schema(description = "学习资源检索条件")
+public class StudyResourceSearchDTO {
+    
+    @Schema(description = "关键词，多个词以空格分隔，匹配标题和描述")
+    private String keyword;
+    
+    @Schema(description = "资源分类ID")
+    private Integer categoryId;
+    
+    @Schema(description = "文件格式或文件类型编码")
+    private String format;
+    
+    @Schema(description = "组织ID")
+    private Integer organizationId;
+    
+    @Schema(description = "开始日期(yyyy-MM-dd)")
+    private String startDate;
+    
+    @Schema(description = "结束日期(yyyy-MM-dd)")
+    private String endDate;
+    
+    @Schema(description = "全文查询语句，由服务端根据关键词生成", hidden = true)
+    private String query;
+    
+    @Schema(description = "文件类型包含的格式列表，由服务端根据文件类型编码生成", hidden = true)
+    private List<String> formats;
+    
+    @Schema(description = "当前用户所属组织ID，非管理员时由服务端填充以限定可见范围", hidden = true)
+    private Integer userOrgId;
+}
@@ -69,6 +69,9 @@ public class StudyResourceVO {
     @Schema(description = "下载URL")
     private String downloadUrl;
     
+    @Schema(description = "检索相关度，仅关键词检索时返回")
+    private Double score;
+    
     /**
      * 权限信息内部类
      */
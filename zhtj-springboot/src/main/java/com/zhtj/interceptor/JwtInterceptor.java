@@ -1,6 +1,7 @@
 package com.zhtj.interceptor;
 
 import com.zhtj.config.JwtConfig;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +19,16 @@ public class JwtInterceptor implements HandlerInterceptor {
     
     private static final Logger log = LoggerFactory.getLogger(JwtInterceptor.class);
     
+    /**
+     * 请求属性：已验证的JWT声明
+     */
+    public static final String CLAIMS_ATTRIBUTE = "jwtClaims";
+    
+    /**
+     * 请求属性：已验证的JWT令牌，JwtConfig据此判断能否复用本次请求的声明
+     */
+    public static final String TOKEN_ATTRIBUTE = "jwtToken";
+    
     @Autowired
     private JwtConfig jwtConfig;
     
@@ -45,16 +56,18 @@ public class JwtInterceptor implements HandlerInterceptor {
         
         log.debug("获取到token: {}", token.substring(0, Math.min(token.length(), 10)) + "...");
         
-        // 验证token
-        boolean isValid = jwtConfig.validateToken(token);
-        if (!isValid) {
+        // 验证签名、有效期和吊销状态，令牌摘要只计算一次
+        Claims claims = jwtConfig.verifyToken(token);
+        if (claims == null) {
             log.warn("无效的token: {}", token.substring(0, Math.min(token.length(), 10)) + "...");
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             return false;
         }
         
-        // 获取用户ID，放入请求属性中，便于后续使用
-        Integer userId = jwtConfig.getUserIdFromToken(token);
+        // 将令牌、声明和用户ID放入请求属性中，本次请求后续解析同一令牌时直接复用声明
+        request.setAttribute(TOKEN_ATTRIBUTE, token);
+        request.setAttribute(CLAIMS_ATTRIBUTE, claims);
+        Integer userId = jwtConfig.getUserIdFromClaims(claims);
         if (userId != null) {
             request.setAttribute("userId", userId);
             log.debug("Token验证通过: 用户ID={}", userId);
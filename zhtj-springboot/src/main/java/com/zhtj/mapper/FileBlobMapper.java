@@ -0,0 +1,102 @@
+package com.zhtj.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zhtj.domain.FileBlob;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 文件内容Mapper接口
+ */
+@Mapper
+public interface FileBlobMapper extends BaseMapper<FileBlob> {
+    
+    /**
+     * 登记引用方对内容的引用，已登记过时忽略
+     * @param digest 内容摘要
+     * @param ownerKey 引用方
+     * @param uploaderId 上传人ID
+     * @return 影响行数，为0表示该引用方已登记过
+     */
+    @Insert("INSERT IGNORE INTO file_blob_ref (digest, owner_key, uploader_id, create_time) " +
+            "VALUES (#{digest}, #{ownerKey}, #{uploaderId}, NOW())")
+    int insertOwnerReference(@Param("digest") String digest,
+                             @Param("ownerKey") String ownerKey,
+                             @Param("uploaderId") Integer uploaderId);
+    
+    /**
+     * 删除引用方对内容的引用
+     * @param digest 内容摘要
+     * @param ownerKey 引用方
+     * @return 影响行数，为0表示该引用方未登记或已释放
+     */
+    @Delete("DELETE FROM file_blob_ref WHERE digest = #{digest} AND owner_key = #{ownerKey}")
+    int deleteOwnerReference(@Param("digest") String digest, @Param("ownerKey") String ownerKey);
+    
+    /**
+     * 查询引用方登记内容时的上传人
+     * @param digest 内容摘要
+     * @param ownerKey 引用方
+     * @return 上传人ID
+     */
+    @Select("SELECT uploader_id FROM file_blob_ref WHERE digest = #{digest} AND owner_key = #{ownerKey}")
+    Integer selectUploaderId(@Param("digest") String digest, @Param("ownerKey") String ownerKey);
+    
+    /**
+     * 登记文件内容并累加引用次数，记录已存在时只累加
+     * @param digest 内容摘要
+     * @param storagePath 存储路径
+     * @param fileSize 文件大小
+     * @param delta 引用次数增量，为0时仅确保记录存在
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO file_blob (digest, storage_path, file_size, ref_count, create_time, update_time) " +
+            "VALUES (#{digest}, #{storagePath}, #{fileSize}, #{delta}, NOW(), NOW()) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + #{delta}, update_time = NOW()")
+    int upsertReference(@Param("digest") String digest,
+                        @Param("storagePath") String storagePath,
+                        @Param("fileSize") Long fileSize,
+                        @Param("delta") int delta);
+    
+    /**
+     * 引用次数减一
+     * @param digest 内容摘要
+     * @return 影响行数
+     */
+    @Update("UPDATE file_blob SET ref_count = GREATEST(ref_count - 1, 0), update_time = NOW() " +
+            "WHERE digest = #{digest}")
+    int decrementReference(@Param("digest") String digest);
+    
+    /**
+     * 按存储路径查询文件内容
+     * @param storagePath 存储路径
+     * @return 文件内容，不是去重存储的文件时返回null
+     */
+    @Select("SELECT * FROM file_blob WHERE storage_path = #{storagePath}")
+    FileBlob selectByStoragePath(@Param("storagePath") String storagePath);
+    
+    /**
+     * 查询在指定时间之前就已无引用的文件内容
+     * @param before 截止时间
+     * @param limit 最大数量
+     * @return 文件内容列表
+     */
+    @Select("SELECT * FROM file_blob WHERE ref_count = 0 AND update_time < #{before} LIMIT #{limit}")
+    List<FileBlob> selectUnreferenced(@Param("before") LocalDateTime before, @Param("limit") int limit);
+    
+    /**
+     * 锁定仍然无引用的文件内容，需在事务中调用
+     * 锁定期间并发上传相同内容的登记会等待，回收提交后重新创建记录并写入文件
+     * @param digest 内容摘要
+     * @return 文件内容，期间又被引用时返回null
+     */
+    @Select("SELECT * FROM file_blob WHERE digest = #{digest} AND ref_count = 0 FOR UPDATE")
+    FileBlob lockUnreferenced(@Param("digest") String digest);
+}
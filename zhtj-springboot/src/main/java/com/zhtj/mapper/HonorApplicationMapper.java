@@ -7,6 +7,9 @@ import com.zhtj.domain.HonorApplication;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
 
 /**
  * 荣誉申请Mapper接口
@@ -59,4 +62,28 @@ public interface HonorApplicationMapper extends BaseMapper<HonorApplication> {
             "WHERE d.user_id = #{userId} AND e.evaluation_year = #{year} " +
             "AND d.result = '优秀' AND d.status = '已评议'")
     boolean checkUserEligibility(@Param("userId") Integer userId, @Param("year") String year);
-} 
\ No newline at end of file
+    
+    /**
+     * 批量更新审批状态
+     *
+     * @param ids 申请ID
+     * @param status 审批状态
+     * @param comments 审批意见
+     * @param approverId 审批人ID
+     * @param approverName 审批人姓名
+     * @return 影响行数
+     */
+    @Update("<script>" +
+            "UPDATE honor_application SET status = #{status}, approval_comments = #{comments}, " +
+            "approver_id = #{approverId}, approver_name = #{approverName}, " +
+            "approval_time = NOW(), update_time = NOW() " +
+            "WHERE id IN <foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int batchUpdateStatus(
+        @Param("ids") Collection<Integer> ids,
+        @Param("status") String status,
+        @Param("comments") String comments,
+        @Param("approverId") Integer approverId,
+        @Param("approverName") String approverName
+    );
+}
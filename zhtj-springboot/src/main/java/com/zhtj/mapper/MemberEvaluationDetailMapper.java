@@ -4,9 +4,12 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.zhtj.model.twosystem.MemberEvaluationDetail;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 import java.util.List;
 import java.util.Map;
@@ -114,4 +117,125 @@ public interface MemberEvaluationDetailMapper extends BaseMapper<MemberEvaluatio
             "JOIN user u ON d.user_id = u.id " +
             "WHERE d.evaluation_id = #{evaluationId} AND (d.status IS NULL OR d.status != '已评议')")
     List<Map<String, Object>> findMembersForReminder(@Param("evaluationId") Integer evaluationId);
-} 
\ No newline at end of file
+    
+    /**
+     * 为指定组织的全部成员批量创建未评议记录
+     * 由数据库直接从user表生成记录，一条语句写入多个组织的成员，无需逐条插入
+     * 
+     * @param evaluationId 评议活动ID
+     * @param organizationIds 组织ID列表
+     * @return 插入的记录数
+     */
+    @Insert("<script>" +
+            "INSERT INTO member_evaluation_detail (evaluation_id, user_id, user_name, status, create_time, update_time) " +
+            "SELECT #{evaluationId}, u.id, IFNULL(u.name, ''), '未评议', NOW(), NOW() " +
+            "FROM user u " +
+            "WHERE u.organization IN " +
+            "<foreach collection='organizationIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int insertPendingDetails(@Param("evaluationId") Integer evaluationId,
+                             @Param("organizationIds") List<Integer> organizationIds);
+    
+    /**
+     * 批量写入评议结果，依赖(evaluation_id, user_id)唯一键，已存在的记录更新评议结果，不存在的插入
+     * 
+     * @param details 评议详情列表
+     * @return 受影响的行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO member_evaluation_detail (evaluation_id, user_id, user_name, result, comment, status, " +
+            "evaluator_id, evaluator_name, evaluation_time, create_time, update_time) VALUES " +
+            "<foreach collection='details' item='d' separator=','>" +
+            "(#{d.evaluationId}, #{d.userId}, #{d.userName}, #{d.result}, #{d.comment}, #{d.status}, " +
+            "#{d.evaluatorId}, #{d.evaluatorName}, #{d.evaluationTime}, NOW(), NOW())" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE result = VALUES(result), comment = VALUES(comment), status = VALUES(status), " +
+            "evaluator_id = VALUES(evaluator_id), evaluator_name = VALUES(evaluator_name), " +
+            "evaluation_time = VALUES(evaluation_time), update_time = NOW()" +
+            "</script>")
+    int upsertResults(@Param("details") List<MemberEvaluationDetail> details);
+    
+    /**
+     * 重新汇总评议活动的统计数据并写入统计表
+     * 评议详情变更后调用，统计口径与getEvaluationStatistics一致
+     * 
+     * @param evaluationId 评议活动ID
+     * @return 受影响的行数
+     */
+    @Insert("INSERT INTO member_evaluation_statistics (evaluation_id, organization_id, evaluation_year, total_count, " +
+            "completed_count, excellent_count, qualified_count, basic_qualified_count, unqualified_count, update_time) " +
+            "SELECT e.id, e.organization_id, e.evaluation_year, " +
+            "COUNT(DISTINCT d.user_id), " +
+            "IFNULL(SUM(CASE WHEN d.status = '已评议' THEN 1 ELSE 0 END), 0), " +
+            "IFNULL(SUM(CASE WHEN d.result = '优秀' THEN 1 ELSE 0 END), 0), " +
+            "IFNULL(SUM(CASE WHEN d.result = '合格' THEN 1 ELSE 0 END), 0), " +
+            "IFNULL(SUM(CASE WHEN d.result = '基本合格' THEN 1 ELSE 0 END), 0), " +
+            "IFNULL(SUM(CASE WHEN d.result = '不合格' THEN 1 ELSE 0 END), 0), " +
+            "NOW() " +
+            "FROM member_evaluation e " +
+            "LEFT JOIN member_evaluation_detail d ON d.evaluation_id = e.id " +
+            "WHERE e.id = #{evaluationId} " +
+            "GROUP BY e.id, e.organization_id, e.evaluation_year " +
+            "ON DUPLICATE KEY UPDATE organization_id = VALUES(organization_id), evaluation_year = VALUES(evaluation_year), " +
+            "total_count = VALUES(total_count), completed_count = VALUES(completed_count), " +
+            "excellent_count = VALUES(excellent_count), qualified_count = VALUES(qualified_count), " +
+            "basic_qualified_count = VALUES(basic_qualified_count), unqualified_count = VALUES(unqualified_count), " +
+            "update_time = NOW()")
+    int refreshStatistics(@Param("evaluationId") Integer evaluationId);
+    
+    /**
+     * 按增量调整评议统计数据，避免每次写入都重新汇总整个评议活动
+     * 统计表中尚无该评议活动的记录时不更新任何行，由调用方改为全量汇总
+     * 
+     * @param evaluationId 评议活动ID
+     * @param delta 各统计字段的增量，键与统计表字段的驼峰名一致
+     * @return 受影响的行数
+     */
+    @Update("UPDATE member_evaluation_statistics SET " +
+            "total_count = total_count + #{delta.totalCount}, " +
+            "completed_count = completed_count + #{delta.completedCount}, " +
+            "excellent_count = excellent_count + #{delta.excellentCount}, " +
+            "qualified_count = qualified_count + #{delta.qualifiedCount}, " +
+            "basic_qualified_count = basic_qualified_count + #{delta.basicQualifiedCount}, " +
+            "unqualified_count = unqualified_count + #{delta.unqualifiedCount}, " +
+            "update_time = NOW() " +
+            "WHERE evaluation_id = #{evaluationId}")
+    int applyStatisticsDelta(@Param("evaluationId") Integer evaluationId,
+                             @Param("delta") Map<String, Integer> delta);
+    
+    /**
+     * 读取预先汇总的评议统计数据
+     * 
+     * @param evaluationId 评议活动ID
+     * @return 评议统计数据，尚未汇总时返回null
+     */
+    @Select("SELECT evaluation_id as evaluationId, total_count as totalCount, completed_count as completedCount, " +
+            "excellent_count as excellentCount, qualified_count as qualifiedCount, " +
+            "basic_qualified_count as basicQualifiedCount, unqualified_count as unqualifiedCount " +
+            "FROM member_evaluation_statistics WHERE evaluation_id = #{evaluationId}")
+    Map<String, Object> selectStatistics(@Param("evaluationId") Integer evaluationId);
+    
+    /**
+     * 批量读取预先汇总的评议统计数据
+     * 
+     * @param evaluationIds 评议活动ID列表
+     * @return 评议统计数据列表
+     */
+    @Select("<script>" +
+            "SELECT evaluation_id as evaluationId, total_count as totalCount, completed_count as completedCount, " +
+            "excellent_count as excellentCount, qualified_count as qualifiedCount, " +
+            "basic_qualified_count as basicQualifiedCount, unqualified_count as unqualifiedCount " +
+            "FROM member_evaluation_statistics WHERE evaluation_id IN " +
+            "<foreach collection='evaluationIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<Map<String, Object>> selectStatisticsByEvaluationIds(@Param("evaluationIds") List<Integer> evaluationIds);
+    
+    /**
+     * 删除评议活动的统计数据
+     * 
+     * @param evaluationId 评议活动ID
+     * @return 删除的行数
+     */
+    @Delete("DELETE FROM member_evaluation_statistics WHERE evaluation_id = #{evaluationId}")
+    int deleteStatistics(@Param("evaluationId") Integer evaluationId);
+}
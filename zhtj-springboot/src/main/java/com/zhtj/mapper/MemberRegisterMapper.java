@@ -4,11 +4,14 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.zhtj.model.twosystem.MemberRegister;
+import com.zhtj.util.SeekCursor;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -49,6 +52,36 @@ public interface MemberRegisterMapper extends BaseMapper<MemberRegister> {
                                         @Param("memberName") String memberName,
                                         @Param("status") String status);
     
+    /**
+     * 按游标获取待审批的注册申请列表，从游标位置之后按(创建时间, ID)倒序取limit条
+     * @param batchId 批次ID（可选）
+     * @param organizationIds 组织ID列表
+     * @param memberName 团员姓名（可选）
+     * @param status 状态（可选）
+     * @param cursor 游标，为null时从第一条开始
+     * @param limit 最大数量
+     * @return 申请列表
+     */
+    List<MemberRegister> getApprovalSeek(@Param("batchId") Integer batchId,
+                                         @Param("organizationIds") List<Integer> organizationIds,
+                                         @Param("memberName") String memberName,
+                                         @Param("status") String status,
+                                         @Param("cursor") SeekCursor cursor,
+                                         @Param("limit") int limit);
+    
+    /**
+     * 统计待审批的注册申请数量
+     * @param batchId 批次ID（可选）
+     * @param organizationIds 组织ID列表
+     * @param memberName 团员姓名（可选）
+     * @param status 状态（可选）
+     * @return 申请数量
+     */
+    long countApprovalList(@Param("batchId") Integer batchId,
+                           @Param("organizationIds") List<Integer> organizationIds,
+                           @Param("memberName") String memberName,
+                           @Param("status") String status);
+    
     /**
      * 获取指定批次的成员列表（专用于批次详情页）
      * @param page 分页参数
@@ -81,6 +114,62 @@ public interface MemberRegisterMapper extends BaseMapper<MemberRegister> {
                     @Param("approverId") Integer approverId,
                     @Param("approverName") String approverName);
     
+    /**
+     * 锁定一批注册申请，用于批量审批
+     * @param ids 注册ID
+     * @return 注册申请（仅含ID、组织ID和状态）
+     */
+    @Select("<script>" +
+            "SELECT id, organization_id, status FROM member_register WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "FOR UPDATE" +
+            "</script>")
+    List<MemberRegister> lockByIds(@Param("ids") Collection<Integer> ids);
+    
+    /**
+     * 批量更新注册状态，只更新仍为待审核的申请
+     * @param ids 注册ID
+     * @param status 目标状态
+     * @param comments 审批意见
+     * @param approverId 审批人ID
+     * @param approverName 审批人姓名
+     * @return 影响行数
+     */
+    @Update("<script>" +
+            "UPDATE member_register SET status = #{status}, remark = #{comments}, " +
+            "approver_id = #{approverId}, approver_name = #{approverName}, " +
+            "approval_time = NOW(), update_time = NOW() " +
+            "WHERE id IN <foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "AND status = '待审核'" +
+            "</script>")
+    int batchUpdateStatus(@Param("ids") Collection<Integer> ids,
+                          @Param("status") String status,
+                          @Param("comments") String comments,
+                          @Param("approverId") Integer approverId,
+                          @Param("approverName") String approverName);
+    
+    /**
+     * 批量写入注册审批操作日志
+     * @param ids 注册ID
+     * @param operationType 操作类型
+     * @param content 操作内容
+     * @param approverId 审批人ID
+     * @param approverName 审批人姓名
+     * @return 影响行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO system_log (operation_type, business_type, business_id, user_id, user_name, " +
+            "operation_time, operation_content, status) VALUES " +
+            "<foreach collection='ids' item='id' separator=','>" +
+            "(#{operationType}, '团员注册', #{id}, #{approverId}, #{approverName}, NOW(), #{content}, 1)" +
+            "</foreach>" +
+            "</script>")
+    int insertApprovalLogs(@Param("ids") Collection<Integer> ids,
+                           @Param("operationType") String operationType,
+                           @Param("content") String content,
+                           @Param("approverId") Integer approverId,
+                           @Param("approverName") String approverName);
+    
     /**
      * 获取组织的注册统计数据
      * @param organizationIds 组织ID列表
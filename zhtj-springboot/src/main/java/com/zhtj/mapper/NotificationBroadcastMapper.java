@@ -0,0 +1,38 @@
+package com.zhtj.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zhtj.domain.NotificationBroadcast;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 组织广播通知Mapper接口
+ */
+@Mapper
+public interface NotificationBroadcastMapper extends BaseMapper<NotificationBroadcast> {
+    
+    /**
+     * 标记广播通知为用户已读，已读过的保留首次阅读时间
+     *
+     * @param broadcastId 广播通知ID
+     * @param userId 用户ID
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO notification_broadcast_read (broadcast_id, user_id, read_time, is_deleted, create_time) " +
+            "VALUES (#{broadcastId}, #{userId}, NOW(), 0, NOW()) " +
+            "ON DUPLICATE KEY UPDATE read_time = IFNULL(read_time, NOW())")
+    int markRead(@Param("broadcastId") Integer broadcastId, @Param("userId") Integer userId);
+    
+    /**
+     * 用户删除广播通知，只对该用户隐藏
+     *
+     * @param broadcastId 广播通知ID
+     * @param userId 用户ID
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO notification_broadcast_read (broadcast_id, user_id, read_time, is_deleted, create_time) " +
+            "VALUES (#{broadcastId}, #{userId}, NOW(), 1, NOW()) " +
+            "ON DUPLICATE KEY UPDATE read_time = IFNULL(read_time, NOW()), is_deleted = 1")
+    int hide(@Param("broadcastId") Integer broadcastId, @Param("userId") Integer userId);
+}
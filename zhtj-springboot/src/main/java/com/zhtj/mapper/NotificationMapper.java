@@ -4,10 +4,16 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.zhtj.domain.Notification;
+import com.zhtj.util.SeekCursor;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * 消息通知Mapper接口
  */
@@ -15,36 +21,136 @@ import org.apache.ibatis.annotations.Update;
 public interface NotificationMapper extends BaseMapper<Notification> {
     
     /**
-     * 分页查询用户通知
+     * 分页查询用户通知，包含用户所在组织范围内的广播通知
      *
      * @param page 分页对象
      * @param recipientId 接收者ID
      * @param isRead 是否已读
+     * @param organizationId 用户所属组织ID，为null时不查询广播通知
+     * @param ancestorIds 用户所属组织的上级组织ID
+     * @param roleCodes 用户角色编码
      * @return 分页结果
      */
     IPage<Notification> selectNotificationPage(
         Page<Notification> page,
         @Param("recipientId") Integer recipientId,
-        @Param("isRead") Integer isRead
+        @Param("isRead") Integer isRead,
+        @Param("organizationId") Integer organizationId,
+        @Param("ancestorIds") List<Integer> ancestorIds,
+        @Param("roleCodes") Collection<String> roleCodes
+    );
+    
+    /**
+     * 按游标查询用户通知，从游标位置之后取limit条，包含用户所在组织范围内的广播通知
+     *
+     * @param recipientId 接收者ID
+     * @param isRead 是否已读
+     * @param organizationId 用户所属组织ID，为null时不查询广播通知
+     * @param ancestorIds 用户所属组织的上级组织ID
+     * @param roleCodes 用户角色编码
+     * @param cursor 游标，tag为1表示上一页最后一条是广播通知；为null时从第一条开始
+     * @param limit 最大数量
+     * @return 通知列表
+     */
+    List<Notification> selectNotificationSeek(
+        @Param("recipientId") Integer recipientId,
+        @Param("isRead") Integer isRead,
+        @Param("organizationId") Integer organizationId,
+        @Param("ancestorIds") List<Integer> ancestorIds,
+        @Param("roleCodes") Collection<String> roleCodes,
+        @Param("cursor") SeekCursor cursor,
+        @Param("limit") int limit
+    );
+    
+    /**
+     * 统计用户通知总数，包含用户所在组织范围内的广播通知
+     *
+     * @param recipientId 接收者ID
+     * @param isRead 是否已读
+     * @param organizationId 用户所属组织ID，为null时不统计广播通知
+     * @param ancestorIds 用户所属组织的上级组织ID
+     * @param roleCodes 用户角色编码
+     * @return 通知总数
+     */
+    long countNotifications(
+        @Param("recipientId") Integer recipientId,
+        @Param("isRead") Integer isRead,
+        @Param("organizationId") Integer organizationId,
+        @Param("ancestorIds") List<Integer> ancestorIds,
+        @Param("roleCodes") Collection<String> roleCodes
+    );
+    
+    /**
+     * 查询用户可见的广播通知，字段与通知列表中的广播通知一致；不可见或已删除时返回null
+     *
+     * @param id 广播通知ID
+     * @param recipientId 用户ID
+     * @param organizationId 用户所属组织ID
+     * @param ancestorIds 用户所属组织的上级组织ID
+     * @param roleCodes 用户角色编码
+     * @return 广播通知
+     */
+    Notification selectVisibleBroadcast(
+        @Param("id") Integer id,
+        @Param("recipientId") Integer recipientId,
+        @Param("organizationId") Integer organizationId,
+        @Param("ancestorIds") List<Integer> ancestorIds,
+        @Param("roleCodes") Collection<String> roleCodes
     );
     
     /**
-     * 获取用户未读通知数量
+     * 获取用户未读通知数量，包含未读的广播通知
      *
      * @param recipientId 接收者ID
+     * @param organizationId 用户所属组织ID，为null时不统计广播通知
+     * @param ancestorIds 用户所属组织的上级组织ID
+     * @param roleCodes 用户角色编码
      * @return 未读数量
      */
-    int countUnreadNotifications(@Param("recipientId") Integer recipientId);
+    int countUnreadNotifications(
+        @Param("recipientId") Integer recipientId,
+        @Param("organizationId") Integer organizationId,
+        @Param("ancestorIds") List<Integer> ancestorIds,
+        @Param("roleCodes") Collection<String> roleCodes
+    );
+    
+    /**
+     * 将用户可见的未读广播通知全部标记为已读
+     *
+     * @param recipientId 接收者ID
+     * @param organizationId 用户所属组织ID
+     * @param ancestorIds 用户所属组织的上级组织ID
+     * @param roleCodes 用户角色编码
+     * @return 影响行数
+     */
+    int markAllBroadcastsAsRead(
+        @Param("recipientId") Integer recipientId,
+        @Param("organizationId") Integer organizationId,
+        @Param("ancestorIds") List<Integer> ancestorIds,
+        @Param("roleCodes") Collection<String> roleCodes
+    );
     
     /**
      * 标记通知为已读
      *
      * @param id 通知ID
-     * @return 更新结果
+     * @return 更新结果，通知已读时为0
      */
-    @Update("UPDATE notification SET is_read = 1, read_time = NOW() WHERE id = #{id}")
+    @Update("UPDATE notification SET is_read = 1, read_time = NOW() WHERE id = #{id} AND is_read = 0")
     int markAsRead(@Param("id") Integer id);
     
+    /**
+     * 批量标记用户的通知为已读
+     *
+     * @param userId 接收者ID
+     * @param notificationIds 通知ID列表
+     * @return 由未读变为已读的数量
+     */
+    int batchUpdateReadStatus(
+        @Param("userId") Integer userId,
+        @Param("notificationIds") List<Integer> notificationIds
+    );
+    
     /**
      * 标记用户所有通知为已读
      *
@@ -53,4 +159,23 @@ public interface NotificationMapper extends BaseMapper<Notification> {
      */
     @Update("UPDATE notification SET is_read = 1, read_time = NOW() WHERE recipient_id = #{recipientId} AND is_read = 0")
     int markAllAsRead(@Param("recipientId") Integer recipientId);
-} 
\ No newline at end of file
+    
+    /**
+     * 批量写入通知（多行INSERT）
+     * 自增ID按插入顺序回填到各通知，推送给客户端时需要ID来打开和标记已读
+     *
+     * @param notifications 通知列表
+     * @return 影响行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO notification (title, content, sender_id, sender_name, recipient_id, notification_type, " +
+            "reference_id, reference_type, is_read, priority, expire_time, create_time, update_time) VALUES " +
+            "<foreach collection='notifications' item='item' separator=','>" +
+            "(#{item.title}, #{item.content}, #{item.senderId}, #{item.senderName}, #{item.recipientId}, " +
+            "#{item.notificationType}, #{item.referenceId}, #{item.referenceType}, 0, #{item.priority}, " +
+            "#{item.expireTime}, #{item.createTime}, NOW())" +
+            "</foreach>" +
+            "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "notifications.id", keyColumn = "id")
+    int insertBatch(@Param("notifications") List<Notification> notifications);
+}
@@ -0,0 +1,125 @@
+package com.zhtj.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zhtj.domain.NotificationOutbox;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 消息通知发件箱Mapper接口
+ */
+@Mapper
+public interface NotificationOutboxMapper extends BaseMapper<NotificationOutbox> {
+
+    /**
+     * 批量写入发件箱
+     * @param records 发件箱记录
+     * @return 影响行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO notification_outbox (channel, title, content, sender_id, sender_name, recipient_id, " +
+            "notification_type, reference_id, reference_type, priority, expire_time, status, attempts, " +
+            "next_retry_time, create_time, update_time) VALUES " +
+            "<foreach collection='records' item='item' separator=','>" +
+            "(#{item.channel}, #{item.title}, #{item.content}, #{item.senderId}, #{item.senderName}, #{item.recipientId}, " +
+            "#{item.notificationType}, #{item.referenceId}, #{item.referenceType}, #{item.priority}, #{item.expireTime}, " +
+            "0, 0, NOW(), NOW(), NOW())" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("records") List<NotificationOutbox> records);
+
+    /**
+     * 锁定一批到期待投递的记录，已被其他实例锁定的记录直接跳过
+     * 仅在认领事务中调用，锁随认领事务提交释放，不会在投递期间持有
+     * @param limit 最大数量
+     * @return 发件箱记录
+     */
+    @Select("SELECT * FROM notification_outbox WHERE status = 0 AND next_retry_time <= NOW() " +
+            "ORDER BY next_retry_time, id LIMIT #{limit} FOR UPDATE SKIP LOCKED")
+    List<NotificationOutbox> lockDue(@Param("limit") int limit);
+
+    /**
+     * 将锁定的记录标记为投递中，并设置投递租约
+     * @param ids 记录ID
+     * @param claimToken 投递批次标识
+     * @param leaseSeconds 租约时长(秒)
+     * @return 影响行数
+     */
+    @Update("<script>" +
+            "UPDATE notification_outbox SET status = 3, claim_token = #{claimToken}, " +
+            "lease_until = DATE_ADD(NOW(), INTERVAL #{leaseSeconds} SECOND), update_time = NOW() " +
+            "WHERE id IN <foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int claim(@Param("ids") Collection<Long> ids,
+              @Param("claimToken") String claimToken,
+              @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * 收回租约已到期的投递中记录，计为一次尝试后重新进入待投递状态
+     * 投递实例在记录结果前宕机时由此恢复，达到最大次数的记录不再重试
+     * @param maxAttempts 最大投递次数
+     * @return 影响行数
+     */
+    @Update("UPDATE notification_outbox SET " +
+            "status = CASE WHEN attempts + 1 >= #{maxAttempts} THEN 2 ELSE 0 END, " +
+            "attempts = attempts + 1, claim_token = NULL, lease_until = NULL, next_retry_time = NOW(), " +
+            "last_error = '投递租约已过期', update_time = NOW() " +
+            "WHERE status = 3 AND lease_until <= NOW()")
+    int releaseExpiredLeases(@Param("maxAttempts") int maxAttempts);
+
+    /**
+     * 标记为已投递，只更新仍由本批次认领的记录
+     * @param ids 记录ID
+     * @param claimToken 投递批次标识
+     * @return 影响行数
+     */
+    @Update("<script>" +
+            "UPDATE notification_outbox SET status = 1, attempts = attempts + 1, last_error = NULL, " +
+            "claim_token = NULL, lease_until = NULL, update_time = NOW() " +
+            "WHERE status = 3 AND claim_token = #{claimToken} AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int markDelivered(@Param("ids") Collection<Long> ids, @Param("claimToken") String claimToken);
+
+    /**
+     * 记录一次投递失败，只更新仍由本批次认领的记录
+     * @param id 记录ID
+     * @param claimToken 投递批次标识
+     * @param status 失败后的状态，0表示稍后重试，2表示不再重试
+     * @param nextRetryTime 下次投递时间
+     * @param lastError 失败原因
+     * @return 影响行数
+     */
+    @Update("UPDATE notification_outbox SET status = #{status}, attempts = attempts + 1, " +
+            "next_retry_time = #{nextRetryTime}, last_error = #{lastError}, claim_token = NULL, lease_until = NULL, " +
+            "update_time = NOW() WHERE id = #{id} AND status = 3 AND claim_token = #{claimToken}")
+    int markFailed(@Param("id") Long id,
+                   @Param("claimToken") String claimToken,
+                   @Param("status") int status,
+                   @Param("nextRetryTime") LocalDateTime nextRetryTime,
+                   @Param("lastError") String lastError);
+
+    /**
+     * 统计待投递的记录数
+     * @return 待投递数量
+     */
+    @Select("SELECT COUNT(*) FROM notification_outbox WHERE status IN (0, 3)")
+    long countPending();
+
+    /**
+     * 清理指定时间之前已投递的记录
+     * @param before 截止时间
+     * @param limit 最大数量
+     * @return 影响行数
+     */
+    @Delete("DELETE FROM notification_outbox WHERE status = 1 AND update_time < #{before} LIMIT #{limit}")
+    int deleteDelivered(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
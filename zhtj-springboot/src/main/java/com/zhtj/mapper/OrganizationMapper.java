@@ -4,6 +4,8 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.zhtj.domain.Organization;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -152,4 +154,137 @@ public interface OrganizationMapper extends BaseMapper<Organization> {
             "FROM STRING_SPLIT((SELECT path FROM organization WHERE id = #{organizationId}), ',') " +
             "WHERE value <> ''")
     List<Integer> getAncestorOrganizationIds(@Param("organizationId") Integer organizationId);
-} 
\ No newline at end of file
+    
+    /**
+     * 获取组织及其所有下级组织的ID（基于path前缀，走idx_path索引）
+     * @param organizationId 组织ID
+     * @return 组织及其下级组织ID列表
+     */
+    @Select("SELECT c.id FROM organization p " +
+            "JOIN organization c ON c.path = p.path OR c.path LIKE CONCAT(p.path, ',%') " +
+            "WHERE p.id = #{organizationId}")
+    List<Integer> selectSelfAndDescendantIds(@Param("organizationId") Integer organizationId);
+    
+    /**
+     * 按path前缀查询子树，可限制最大层级
+     * @param path 子树根节点路径
+     * @param maxLevel 最大层级（包含），为空时不限制
+     * @return 子树中的组织（含根节点），按层级排序
+     */
+    @Select("<script>" +
+            "SELECT o.*, p.name as parent_name " +
+            "FROM organization o " +
+            "LEFT JOIN organization p ON o.parent_id = p.id " +
+            "WHERE (o.path = #{path} OR o.path LIKE CONCAT(#{path}, ',%')) " +
+            "<if test='maxLevel != null'> AND o.level &lt;= #{maxLevel} </if> " +
+            "ORDER BY o.level, o.sort_order, o.id" +
+            "</script>")
+    List<Organization> selectSubtreeByPath(@Param("path") String path, @Param("maxLevel") Integer maxLevel);
+    
+    /**
+     * 查询全部组织（含上级组织名称），用于一次性构建组织树
+     * @return 全部组织，按层级排序
+     */
+    @Select("SELECT o.*, p.name as parent_name " +
+            "FROM organization o " +
+            "LEFT JOIN organization p ON o.parent_id = p.id " +
+            "ORDER BY o.level, o.sort_order, o.id")
+    List<Organization> selectAllWithParentName();
+    
+    /**
+     * 统计组织及其所有下级组织的用户总数
+     * @param organizationId 组织ID
+     * @return 用户总数
+     */
+    @Select("SELECT COUNT(*) FROM organization p " +
+            "JOIN organization c ON c.path = p.path OR c.path LIKE CONCAT(p.path, ',%') " +
+            "JOIN user u ON u.organization = c.id " +
+            "WHERE p.id = #{organizationId}")
+    int countUsersInSubtree(@Param("organizationId") Integer organizationId);
+    
+    /**
+     * 移动子树时批量改写路径和层级
+     * @param oldPath 子树根节点原路径
+     * @param newPath 子树根节点新路径
+     * @param levelDelta 层级变化量
+     * @return 影响行数
+     */
+    @Update("UPDATE organization " +
+            "SET path = CONCAT(#{newPath}, SUBSTRING(path, CHAR_LENGTH(#{oldPath}) + 1)), " +
+            "    level = level + #{levelDelta} " +
+            "WHERE path = #{oldPath} OR path LIKE CONCAT(#{oldPath}, ',%')")
+    int updateSubtreePath(@Param("oldPath") String oldPath,
+                          @Param("newPath") String newPath,
+                          @Param("levelDelta") Integer levelDelta);
+    
+    /**
+     * 按organization表同步子树在organization_hierarchy中的记录
+     * @param path 子树根节点路径
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO organization_hierarchy (organization_id, parent_organization_id, level, path) " +
+            "SELECT o.id, o.parent_id, o.level, o.path FROM organization o " +
+            "WHERE o.path = #{path} OR o.path LIKE CONCAT(#{path}, ',%') " +
+            "ON DUPLICATE KEY UPDATE parent_organization_id = o.parent_id, level = o.level, path = o.path")
+    int syncHierarchyByPath(@Param("path") String path);
+    
+    /**
+     * 删除组织在organization_hierarchy中的记录
+     * @param organizationId 组织ID
+     * @return 影响行数
+     */
+    @Delete("DELETE FROM organization_hierarchy WHERE organization_id = #{organizationId}")
+    int deleteHierarchy(@Param("organizationId") Integer organizationId);
+    
+    /**
+     * 删除organization_hierarchy中已不存在组织的记录
+     * @return 影响行数
+     */
+    @Delete("DELETE FROM organization_hierarchy WHERE organization_id NOT IN (SELECT id FROM organization)")
+    int deleteOrphanHierarchy();
+    
+    /**
+     * 按增量调整组织的直属团员数量
+     * @param organizationId 组织ID
+     * @param delta 变化量
+     * @return 影响行数
+     */
+    @Update("UPDATE organization SET member_count = GREATEST(IFNULL(member_count, 0) + #{delta}, 0) " +
+            "WHERE id = #{organizationId}")
+    int incrementMemberCount(@Param("organizationId") Integer organizationId, @Param("delta") Integer delta);
+    
+    /**
+     * 按增量调整若干组织的团员总数，用于沿上级路径累加
+     * @param organizationIds 组织ID列表
+     * @param delta 变化量
+     * @return 影响行数
+     */
+    @Update("<script>" +
+            "UPDATE organization SET total_member_count = GREATEST(IFNULL(total_member_count, 0) + #{delta}, 0) " +
+            "WHERE id IN <foreach collection='organizationIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int incrementTotalMemberCount(@Param("organizationIds") List<Integer> organizationIds, @Param("delta") Integer delta);
+    
+    /**
+     * 按user表重新计算全部组织的直属团员数量，只更新与实际不符的组织
+     * @return 修正的组织数
+     */
+    @Update("UPDATE organization o " +
+            "LEFT JOIN (SELECT organization, COUNT(*) AS cnt FROM user WHERE organization IS NOT NULL GROUP BY organization) d " +
+            "ON d.organization = o.id " +
+            "SET o.member_count = IFNULL(d.cnt, 0) " +
+            "WHERE o.member_count IS NULL OR o.member_count <> IFNULL(d.cnt, 0)")
+    int reconcileMemberCounts();
+    
+    /**
+     * 按直属团员数量重新汇总全部组织的团员总数，只更新与实际不符的组织
+     * @return 修正的组织数
+     */
+    @Update("UPDATE organization o " +
+            "LEFT JOIN (SELECT p.id, SUM(IFNULL(c.member_count, 0)) AS cnt FROM organization p " +
+            "           JOIN organization c ON c.path = p.path OR c.path LIKE CONCAT(p.path, ',%') " +
+            "           GROUP BY p.id) t ON t.id = o.id " +
+            "SET o.total_member_count = IFNULL(t.cnt, 0) " +
+            "WHERE o.total_member_count IS NULL OR o.total_member_count <> IFNULL(t.cnt, 0)")
+    int reconcileTotalMemberCounts();
+}
@@ -6,6 +6,7 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -48,4 +49,18 @@ public interface RegisterBatchOrganizationMapper extends BaseMapper<RegisterBatc
             "</script>")
     int countByBatchIdAndOrganizationPath(@Param("batchId") Integer batchId,
                                          @Param("organizationIds") List<Integer> organizationIds);
-} 
\ No newline at end of file
+    
+    /**
+     * 批量获取多个批次的关联组织
+     * @param batchIds 批次ID列表
+     * @return 批次-组织关联列表
+     */
+    @Select("<script>" +
+            "SELECT batch_id, organization_id FROM member_register_batch_organization " +
+            "WHERE batch_id IN " +
+            "<foreach collection='batchIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    List<RegisterBatchOrganization> selectByBatchIds(@Param("batchIds") Collection<Integer> batchIds);
+}
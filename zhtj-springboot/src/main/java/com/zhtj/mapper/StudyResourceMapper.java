@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.zhtj.domain.StudyResource;
+import com.zhtj.domain.dto.StudyResourceSearchDTO;
 import com.zhtj.domain.vo.StudyResourceVO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
@@ -11,6 +12,7 @@ import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 学习资源Mapper接口
@@ -23,12 +25,14 @@ public interface StudyResourceMapper extends BaseMapper<StudyResource> {
      * 
      * @param page 分页参数
      * @param title 标题关键字
+     * @param titleQuery 标题的全文查询语句，为null时按LIKE匹配标题
      * @param category 资源分类
      * @param orgId 组织ID
      * @return 分页结果
      */
     IPage<StudyResourceVO> selectResourcePage(Page<StudyResource> page, 
                                             @Param("title") String title,
+                                            @Param("titleQuery") String titleQuery,
                                             @Param("category") Integer category,
                                             @Param("orgId") Integer orgId);
     
@@ -51,12 +55,17 @@ public interface StudyResourceMapper extends BaseMapper<StudyResource> {
     /**
      * 根据用户的组织权限查询学习资源
      * 
+     * 标题和关键词优先使用全文索引匹配，全文查询语句为null时回退为LIKE
+     * 
      * @param page 分页参数
      * @param title 资源标题关键字
+     * @param titleQuery 标题的全文查询语句
      * @param categoryId 资源分类ID
      * @param format 文件格式
+     * @param formats 文件类型包含的格式列表，不为空时忽略format
      * @param organizationId 指定查询特定组织的资源，如果为null则查询所有有权限的组织
      * @param keyword 关键词
+     * @param keywordQuery 关键词的全文查询语句
      * @param startDate 开始日期
      * @param endDate 结束日期
      * @param userOrgId 用户所属组织ID
@@ -64,10 +73,16 @@ public interface StudyResourceMapper extends BaseMapper<StudyResource> {
      */
     @Select("<script>SELECT sr.* FROM study_resource sr " +
             "WHERE 1=1 " +
-            "<if test='title != null and title != \"\"'>AND sr.title LIKE CONCAT('%', #{title}, '%') </if> " +
+            "<if test='titleQuery != null'>AND MATCH(sr.title) AGAINST(#{titleQuery} IN BOOLEAN MODE) </if> " +
+            "<if test='titleQuery == null and title != null and title != \"\"'>AND sr.title LIKE CONCAT('%', #{title}, '%') </if> " +
             "<if test='categoryId != null'>AND sr.category_id = #{categoryId} </if> " +
-            "<if test='format != null and format != \"\"'>AND sr.format = #{format} </if> " +
-            "<if test='keyword != null and keyword != \"\"'>AND (sr.title LIKE CONCAT('%', #{keyword}, '%') OR sr.description LIKE CONCAT('%', #{keyword}, '%')) </if> " +
+            "<choose>" +
+            "<when test='formats != null and formats.size() > 0'>AND sr.format IN " +
+            "<foreach collection='formats' item='fmt' open='(' separator=',' close=')'>#{fmt}</foreach> </when>" +
+            "<when test='format != null and format != \"\"'>AND sr.format = #{format} </when>" +
+            "</choose> " +
+            "<if test='keywordQuery != null'>AND MATCH(sr.title, sr.description) AGAINST(#{keywordQuery} IN BOOLEAN MODE) </if> " +
+            "<if test='keywordQuery == null and keyword != null and keyword != \"\"'>AND (sr.title LIKE CONCAT('%', #{keyword}, '%') OR sr.description LIKE CONCAT('%', #{keyword}, '%')) </if> " +
             "<if test='startDate != null and startDate != \"\"'>AND sr.create_time &gt;= #{startDate} </if> " +
             "<if test='endDate != null and endDate != \"\"'>AND sr.create_time &lt;= #{endDate} </if> " +
             "<if test='organizationId != null'>AND sr.organization_id = #{organizationId} </if> " +
@@ -81,14 +96,73 @@ public interface StudyResourceMapper extends BaseMapper<StudyResource> {
     IPage<StudyResource> selectResourcesWithOrgPermission(
             Page<StudyResource> page, 
             @Param("title") String title,
+            @Param("titleQuery") String titleQuery,
             @Param("categoryId") Integer categoryId,
             @Param("format") String format,
+            @Param("formats") List<String> formats,
             @Param("organizationId") Integer organizationId,
             @Param("keyword") String keyword,
+            @Param("keywordQuery") String keywordQuery,
             @Param("startDate") String startDate,
             @Param("endDate") String endDate,
             @Param("userOrgId") Integer userOrgId);
     
+    /**
+     * 按分类汇总资源数量
+     * 
+     * @param orgIds 组织ID列表，为null时汇总全部组织
+     * @return categoryId为分类ID，count为数量
+     */
+    @Select("<script>SELECT sr.category_id AS categoryId, COUNT(*) AS count FROM study_resource sr " +
+            "<if test='orgIds != null'>WHERE sr.organization_id IN " +
+            "<foreach collection='orgIds' item='orgId' open='(' separator=',' close=')'>#{orgId}</foreach> </if>" +
+            "GROUP BY sr.category_id" +
+            "</script>")
+    List<Map<String, Object>> countByCategory(@Param("orgIds") List<Integer> orgIds);
+    
+    /**
+     * 全文检索学习资源
+     * 有关键词时按相关度排序（标题命中的权重更高），否则按创建时间倒序
+     * 
+     * @param page 分页参数
+     * @param q 检索条件
+     * @return 分页结果
+     */
+    IPage<StudyResourceVO> searchResources(Page<StudyResourceVO> page, @Param("q") StudyResourceSearchDTO q);
+    
+    /**
+     * 统计检索结果的分类分布，不受分类条件本身限制
+     * 
+     * @param q 检索条件
+     * @return value为分类ID，count为数量
+     */
+    List<Map<String, Object>> selectCategoryFacet(@Param("q") StudyResourceSearchDTO q);
+    
+    /**
+     * 统计检索结果的文件格式分布，不受格式条件本身限制
+     * 
+     * @param q 检索条件
+     * @return value为文件格式，count为数量
+     */
+    List<Map<String, Object>> selectFormatFacet(@Param("q") StudyResourceSearchDTO q);
+    
+    /**
+     * 统计检索结果的组织分布，不受组织条件本身限制
+     * 
+     * @param q 检索条件
+     * @param limit 最多返回的组织数
+     * @return value为组织ID，label为组织名称，count为数量
+     */
+    List<Map<String, Object>> selectOrganizationFacet(@Param("q") StudyResourceSearchDTO q, @Param("limit") int limit);
+    
+    /**
+     * 统计检索结果按月的分布，不受日期条件本身限制
+     * 
+     * @param q 检索条件
+     * @return value为年月(yyyy-MM)，count为数量
+     */
+    List<Map<String, Object>> selectMonthFacet(@Param("q") StudyResourceSearchDTO q);
+    
     /**
      * 检查用户是否有权限访问指定资源
      * 
@@ -38,4 +38,12 @@ public interface TransferApprovalLogMapper extends BaseMapper<TransferApprovalLo
      */
     TransferApprovalLog getLogByTransferIdAndType(@Param("transferId") Integer transferId, 
                                                  @Param("approvalType") Integer approvalType);
+    
+    /**
+     * 批量写入审批日志
+     * 
+     * @param logs 审批日志列表
+     * @return 影响行数
+     */
+    int insertBatch(@Param("logs") List<TransferApprovalLog> logs);
 } 
\ No newline at end of file
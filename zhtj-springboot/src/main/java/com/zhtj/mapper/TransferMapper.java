@@ -4,10 +4,14 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.zhtj.domain.Transfer;
+import com.zhtj.util.SeekCursor;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -51,6 +55,46 @@ public interface TransferMapper extends BaseMapper<Transfer> {
                                       @Param("statusCode") Integer statusCode,
                                       @Param("organizationId") Integer organizationId);
     
+    /**
+     * 按游标查询转接申请列表，从游标位置之后按(申请时间, ID)倒序取limit条
+     * 
+     * @param userId 用户ID
+     * @param statusCode 状态码
+     * @param organizationId 组织ID
+     * @param cursor 游标，为null时从第一条开始
+     * @param limit 最大数量
+     * @return 转接申请列表
+     */
+    @Select("<script>" +
+            "SELECT t.*, " +
+            "u.name as transferUserName, " +
+            "outOrg.name as transferOutOrgName, " +
+            "outOrg.full_name as transferOutOrgFullName, " +
+            "inOrg.name as transferInOrgName, " +
+            "inOrg.full_name as transferInOrgFullName, " +
+            "outApprover.name as outApproverName, " +
+            "inApprover.name as inApproverName " +
+            "FROM transfer t " +
+            "LEFT JOIN user u ON t.transfer_user_id = u.id " +
+            "LEFT JOIN organization outOrg ON t.transfer_out_org_id = outOrg.id " +
+            "LEFT JOIN organization inOrg ON t.transfer_in_org_id = inOrg.id " +
+            "LEFT JOIN user outApprover ON t.out_approver_id = outApprover.id " +
+            "LEFT JOIN user inApprover ON t.in_approver_id = inApprover.id " +
+            "WHERE 1=1 " +
+            "<if test='userId != null'> AND t.transfer_user_id = #{userId} </if> " +
+            "<if test='statusCode != null'> AND t.status_code = #{statusCode} </if> " +
+            "<if test='organizationId != null'> AND (t.transfer_out_org_id = #{organizationId} OR t.transfer_in_org_id = #{organizationId}) </if> " +
+            "<if test='cursor != null'> AND (t.application_time &lt; #{cursor.time} " +
+            "  OR (t.application_time = #{cursor.time} AND t.id &lt; #{cursor.id})) </if> " +
+            "ORDER BY t.application_time DESC, t.id DESC " +
+            "LIMIT #{limit}" +
+            "</script>")
+    List<Transfer> selectTransferSeek(@Param("userId") Integer userId,
+                                      @Param("statusCode") Integer statusCode,
+                                      @Param("organizationId") Integer organizationId,
+                                      @Param("cursor") SeekCursor cursor,
+                                      @Param("limit") int limit);
+    
     /**
      * 查询用户的转接申请
      * 
@@ -147,4 +191,69 @@ public interface TransferMapper extends BaseMapper<Transfer> {
             "LEFT JOIN user inApprover ON t.in_approver_id = inApprover.id " +
             "WHERE t.id = #{id}")
     Transfer selectTransferDetail(@Param("id") Integer id);
-} 
\ No newline at end of file
+    
+    /**
+     * 按ID顺序查询已过期且仍在审批中的转接申请ID
+     * 
+     * @param currentTime 当前时间
+     * @param afterId 从该ID之后开始查询
+     * @param limit 最大数量
+     * @return 转接申请ID列表
+     */
+    @Select("SELECT id FROM transfer WHERE expire_time < #{currentTime} AND status_code <= 2 " +
+            "AND id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<Integer> selectExpiredIds(@Param("currentTime") LocalDateTime currentTime,
+                                   @Param("afterId") Integer afterId,
+                                   @Param("limit") int limit);
+    
+    /**
+     * 锁定一批已过期且仍在审批中的转接申请，已被审批的记录不会返回
+     * 
+     * @param ids 转接申请ID
+     * @param currentTime 当前时间
+     * @return 转接申请列表
+     */
+    @Select("<script>" +
+            "SELECT * FROM transfer WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "AND expire_time &lt; #{currentTime} AND status_code &lt;= 2 FOR UPDATE" +
+            "</script>")
+    List<Transfer> lockExpired(@Param("ids") Collection<Integer> ids,
+                               @Param("currentTime") LocalDateTime currentTime);
+    
+    /**
+     * 批量拒绝处于转出阶段（申请中、转出审批中）的过期申请，记为系统转出审批不通过
+     * 
+     * @param ids 转接申请ID
+     * @param currentTime 当前时间
+     * @param remark 审批备注
+     * @return 影响行数
+     */
+    @Update("<script>" +
+            "UPDATE transfer SET out_approval_time = #{currentTime}, out_approver_id = 0, out_approved = 0, " +
+            "out_approval_remark = #{remark}, status = '已拒绝', status_code = 4, update_time = #{currentTime} " +
+            "WHERE id IN <foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "AND status_code IN (0, 1)" +
+            "</script>")
+    int rejectExpiredOut(@Param("ids") Collection<Integer> ids,
+                         @Param("currentTime") LocalDateTime currentTime,
+                         @Param("remark") String remark);
+    
+    /**
+     * 批量拒绝处于转入审批中的过期申请，记为系统转入审批不通过
+     * 
+     * @param ids 转接申请ID
+     * @param currentTime 当前时间
+     * @param remark 审批备注
+     * @return 影响行数
+     */
+    @Update("<script>" +
+            "UPDATE transfer SET in_approval_time = #{currentTime}, in_approver_id = 0, in_approved = 0, " +
+            "in_approval_remark = #{remark}, status = '已拒绝', status_code = 4, update_time = #{currentTime} " +
+            "WHERE id IN <foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "AND status_code = 2" +
+            "</script>")
+    int rejectExpiredIn(@Param("ids") Collection<Integer> ids,
+                        @Param("currentTime") LocalDateTime currentTime,
+                        @Param("remark") String remark);
+}
@@ -9,6 +9,7 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -102,6 +103,25 @@ public interface UserMapper extends BaseMapper<User> {
             "WHERE u.id = #{id}")
     User getUserDetail(@Param("id") Integer id);
     
+    /**
+     * 批量获取用户详情，字段与getUserDetail一致
+     * 
+     * @param ids 用户ID列表
+     * @return 用户详情列表
+     */
+    @Select("<script>" +
+            "SELECT u.id, u.name, u.card, u.pwd, u.gender, u.ethnic, u.occupation, " +
+            "u.education_status, u.education_level, u.political_status, u.join_league_date, " +
+            "u.join_party_date, u.work_unit, u.address, u.qq, u.wechat, u.weibo, " +
+            "u.league_position, u.phone, u.email, u.organization, u.previous_organization, " +
+            "u.transfer_date, u.transfer_count, u.create_time, u.update_time, " +
+            "o.name as organization_name FROM user u " +
+            "LEFT JOIN organization o ON u.organization = o.id " +
+            "WHERE u.id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<User> getUserDetailsByIds(@Param("ids") Collection<Integer> ids);
+    
     /**
      * 更新用户密码
      * @param userId 用户ID
@@ -0,0 +1,80 @@
+package com.zhtj.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Predicate;
+
+/**
+ * 文件内容去重服务接口
+ * 按内容摘要寻址存储文件，相同内容只保留一份；引用按引用方登记，引用次数为引用方的数量，降为0后回收
+ */
+public interface FileBlobService {
+    
+    /**
+     * 流式计算内容的SHA-256摘要
+     * @param inputStream 输入流，调用方负责关闭
+     * @return 十六进制摘要
+     * @throws IOException 读取失败
+     */
+    String digest(InputStream inputStream) throws IOException;
+    
+    /**
+     * 根据摘要生成存储路径，格式为 blobs/摘要前两位/摘要.扩展名
+     * @param digest 内容摘要
+     * @param extension 文件扩展名
+     * @return 存储路径
+     */
+    String buildStoragePath(String digest, String extension);
+    
+    /**
+     * 为引用方登记对内容的引用，同一引用方重复登记只计一次
+     * 登记后内容不会被回收，调用方随后检查物理文件，不存在时写入
+     * @param digest 内容摘要
+     * @param extension 文件扩展名
+     * @param fileSize 文件大小
+     * @param owner 引用方，见 {@link #ownerKey(String, Object)}
+     * @param uploaderId 上传人ID
+     * @return 内容的存储路径
+     */
+    String acquire(String digest, String extension, long fileSize, String owner, Integer uploaderId);
+    
+    /**
+     * 释放引用方对内容的引用，重复释放不会重复扣减
+     * @param storagePath 存储路径
+     * @param owner 引用方
+     * @return 是否为去重存储的文件；返回false时由调用方按普通文件删除
+     */
+    boolean release(String storagePath, String owner);
+    
+    /**
+     * 查询引用方登记该内容时的上传人
+     * @param storagePath 存储路径
+     * @param owner 引用方
+     * @return 上传人ID，引用不存在时返回null
+     */
+    Integer getUploaderId(String storagePath, String owner);
+    
+    /**
+     * 判断是否为去重存储的文件路径
+     * @param storagePath 存储路径
+     * @return 是否为去重存储的文件
+     */
+    boolean isBlobPath(String storagePath);
+    
+    /**
+     * 回收已无引用的文件内容
+     * @param deleter 删除存储路径上的物理文件，返回是否成功
+     * @return 回收的数量
+     */
+    int collectGarbage(Predicate<String> deleter);
+    
+    /**
+     * 生成引用方标识，格式为 业务类型:业务ID
+     * @param businessType 业务类型
+     * @param businessId 业务ID
+     * @return 引用方标识
+     */
+    static String ownerKey(String businessType, Object businessId) {
+        return businessType + ":" + businessId;
+    }
+}
@@ -8,6 +8,7 @@ import java.util.Map;
 
 /**
  * 文件服务接口
+ * 上传的文件按内容去重存储，引用按引用方（业务记录）登记，删除文件只释放该引用方的引用，物理文件由回收任务统一清理
  */
 public interface FileService {
     
@@ -16,27 +17,32 @@ public interface FileService {
      * 
      * @param file 文件对象
      * @param directory 存储目录类型（如images、documents、videos等）
+     * @param owner 引用方，见 {@link FileBlobService#ownerKey(String, Object)}
+     * @param uploaderId 上传人ID
      * @return 文件路径
      * @throws IOException 如果上传过程中发生IO异常
      */
-    String uploadFile(MultipartFile file, String directory) throws IOException;
+    String uploadFile(MultipartFile file, String directory, String owner, Integer uploaderId) throws IOException;
     
     /**
      * 上传多个文件
      * @param files 文件列表
      * @param fileType 文件类型（images/documents/videos）
+     * @param owner 引用方
+     * @param uploaderId 上传人ID
      * @return 文件访问URL列表
      * @throws IOException 如果发生IO错误
      */
-    List<String> uploadFiles(List<MultipartFile> files, String fileType) throws IOException;
+    List<String> uploadFiles(List<MultipartFile> files, String fileType, String owner, Integer uploaderId) throws IOException;
     
     /**
      * 删除文件
      * 
      * @param filePath 文件路径
+     * @param owner 引用方，去重存储的文件只释放该引用方的引用
      * @return 是否成功
      */
-    boolean deleteFile(String filePath);
+    boolean deleteFile(String filePath, String owner);
     
     /**
      * 获取文件信息
@@ -53,11 +59,12 @@ public interface FileService {
     boolean fileExists(String fileUrl);
     
     /**
-     * 生成文件的缩略图（仅支持图片）
+     * 获取文件的缩略图（仅支持图片）
+     * 缩略图按 thumbnails/WxH/文件路径 缓存，未生成时提交后台任务并立即返回，不在调用线程中解码图片
      * @param fileUrl 文件URL
-     * @param width 宽度
-     * @param height 高度
-     * @return 缩略图URL
+     * @param width 最大宽度
+     * @param height 最大高度
+     * @return 缩略图URL，尚未生成完成时返回null
      * @throws IOException 如果发生IO错误
      */
     String generateThumbnail(String fileUrl, int width, int height) throws IOException;
@@ -87,4 +94,11 @@ public interface FileService {
      * @return 是否符合大小限制
      */
     boolean isFileSizeAllowed(long fileSize, long maxSizeInMB);
+    
+    /**
+     * 回收去重存储中已无引用的文件
+     * 
+     * @return 回收的文件数量
+     */
+    int collectUnreferencedBlobs();
 } 
\ No newline at end of file
@@ -2,8 +2,11 @@ package com.zhtj.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.zhtj.common.api.BatchResult;
 import com.zhtj.domain.HonorApplication;
 
+import java.util.List;
+
 /**
  * 荣誉申请业务接口
  */
@@ -85,4 +88,15 @@ public interface HonorApplicationService {
      * 审批荣誉申请
      */
     boolean approve(Integer id, String status, String comments, Integer approverId);
+    
+    /**
+     * 批量审批荣誉申请，只审批审批人所在组织及其下级组织的申请
+     * 
+     * @param ids 申请ID
+     * @param status 审批状态（已通过/已拒绝）
+     * @param comments 审批意见
+     * @param approverId 审批人ID
+     * @return 每个申请的处理结果
+     */
+    BatchResult batchApprove(List<Integer> ids, String status, String comments, Integer approverId);
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.zhtj.service;
+
+import com.zhtj.domain.Notification;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 通知推送服务接口
+ * 新通知送达时通过SSE连接推送给在线用户，不支持SSE的客户端使用长轮询；
+ * 推送事件经Redis发布/订阅分发到全部实例，由持有该用户连接的实例推送
+ */
+public interface NotificationPushService {
+
+    /**
+     * 建立SSE连接
+     * @param userId 用户ID
+     * @return SSE连接
+     */
+    SseEmitter subscribe(Integer userId);
+
+    /**
+     * 长轮询等待新的推送事件
+     * @param userId 用户ID
+     * @param since 客户端已收到的最后一个事件的时间戳（毫秒），有更新的事件时立即返回
+     * @return 推送事件列表，等待超时时为空列表
+     */
+    CompletableFuture<List<Map<String, Object>>> poll(Integer userId, Long since);
+
+    /**
+     * 推送新通知给接收者，事务中调用时在提交后推送
+     * @param notification 已写入的通知
+     */
+    void publish(Notification notification);
+
+    /**
+     * 通知全部在线用户有新的广播通知，事务中调用时在提交后推送
+     * 事件不携带广播内容，客户端收到后重新拉取通知列表和未读数，由接口按接收范围过滤
+     */
+    void publishBroadcast();
+}
@@ -2,7 +2,12 @@ package com.zhtj.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.zhtj.common.api.CursorPage;
 import com.zhtj.domain.Notification;
+import com.zhtj.domain.NotificationBroadcast;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 消息通知业务接口
@@ -10,7 +15,7 @@ import com.zhtj.domain.Notification;
 public interface NotificationService {
     
     /**
-     * 分页查询通知列表
+     * 分页查询通知列表，包含接收者所在组织范围内的广播通知
      *
      * @param page 分页对象
      * @param recipientId 接收者ID
@@ -23,6 +28,24 @@ public interface NotificationService {
         Integer isRead
     );
     
+    /**
+     * 按游标分页查询通知列表，包含接收者所在组织范围内的广播通知
+     *
+     * @param recipientId 接收者ID
+     * @param isRead 是否已读
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页数量
+     * @param withTotal 是否统计总数
+     * @return 游标分页结果
+     */
+    CursorPage<Notification> getNotificationCursorPage(
+        Integer recipientId,
+        Integer isRead,
+        String cursor,
+        int size,
+        boolean withTotal
+    );
+    
     /**
      * 根据ID获取通知详情
      *
@@ -32,13 +55,63 @@ public interface NotificationService {
     Notification getById(Integer id);
     
     /**
-     * 发送通知
+     * 获取用户自己的通知详情
+     * 个人通知与广播通知的ID各自独立，需按isBroadcast区分；个人通知须属于该用户，广播通知须在该用户的接收范围内
+     *
+     * @param id 通知ID或广播通知ID
+     * @param isBroadcast 是否为广播通知
+     * @param userId 用户ID
+     * @return 通知详情，不存在或无权查看时返回null
+     */
+    Notification getForRecipient(Integer id, boolean isBroadcast, Integer userId);
+    
+    /**
+     * 发送通知，立即写入通知表
      *
      * @param notification 通知对象
      * @return 新创建的通知ID
      */
     Integer send(Notification notification);
     
+    /**
+     * 将通知写入发件箱，随调用方事务一起提交，由后台投递任务异步写入通知表；
+     * 按配置，重要通知同时经邮件、短信渠道发送
+     *
+     * @param notification 通知对象
+     */
+    void enqueue(Notification notification);
+    
+    /**
+     * 将一批通知写入发件箱，全部记录以一条INSERT写入，随调用方事务一起提交
+     *
+     * @param notifications 通知列表
+     */
+    void enqueueAll(List<Notification> notifications);
+    
+    /**
+     * 投递一批到期的发件箱记录，失败的记录按退避时间稍后重试
+     * 先在短事务中认领记录并设置投递租约，再在事务外发送，最后在短事务中记录结果
+     *
+     * @param batchSize 每批最大数量
+     * @return 本批处理的记录数，小于batchSize表示暂无更多待投递记录
+     */
+    int dispatchPending(int batchSize);
+    
+    /**
+     * 统计发件箱中待投递的记录数
+     *
+     * @return 待投递数量
+     */
+    long countPendingOutbox();
+    
+    /**
+     * 清理指定时间之前已投递的发件箱记录
+     *
+     * @param before 截止时间
+     * @return 清理数量
+     */
+    int purgeDeliveredOutbox(LocalDateTime before);
+    
     /**
      * 标记通知为已读
      *
@@ -48,7 +121,16 @@ public interface NotificationService {
     boolean markAsRead(Integer id);
     
     /**
-     * 标记用户所有通知为已读
+     * 批量标记用户的通知为已读
+     *
+     * @param recipientId 接收者ID
+     * @param ids 通知ID列表
+     * @return 由未读变为已读的数量
+     */
+    int markAsRead(Integer recipientId, List<Integer> ids);
+    
+    /**
+     * 标记用户所有通知为已读，包含广播通知
      *
      * @param recipientId 接收者ID
      * @return 操作是否成功
@@ -64,7 +146,7 @@ public interface NotificationService {
     boolean delete(Integer id);
     
     /**
-     * 获取用户未读通知数量
+     * 获取用户未读通知数量，包含未读的广播通知；优先读取Redis中的计数，计数不存在时从数据库统计并写回
      *
      * @param recipientId 接收者ID
      * @return 未读数量
@@ -72,7 +154,14 @@ public interface NotificationService {
     int countUnreadNotifications(Integer recipientId);
     
     /**
-     * 发送系统通知
+     * 核对Redis中的未读计数，与数据库不一致时校正
+     *
+     * @return 校正的用户数
+     */
+    int reconcileUnreadCounters();
+    
+    /**
+     * 发送系统通知，经发件箱异步投递
      *
      * @param title 标题
      * @param content 内容
@@ -81,9 +170,8 @@ public interface NotificationService {
      * @param referenceId 关联业务ID
      * @param referenceType 关联业务类型
      * @param actionUrl 操作链接
-     * @return 新创建的通知ID
      */
-    Integer sendSystemNotification(
+    void sendSystemNotification(
         String title, 
         String content, 
         Integer recipientId, 
@@ -94,18 +182,47 @@ public interface NotificationService {
     );
     
     /**
-     * 发送转接申请通知
+     * 发送转接申请通知，经发件箱异步投递
      * 
      * @param recipientId 接收者ID
      * @param transferId 转接申请ID
      * @param title 通知标题
      * @param content 通知内容
-     * @return 新创建的通知ID
      */
-    Integer sendTransferNotification(
+    void sendTransferNotification(
         Integer recipientId,
         Integer transferId,
         String title,
         String content
     );
-} 
\ No newline at end of file
+    
+    /**
+     * 向组织成员广播通知
+     * 只写入一条广播记录，接收范围在用户查询时按所属组织和角色计算，阅读状态在用户阅读时才写入
+     *
+     * 发送人须为系统管理员，或为团委书记/副书记、团支书/副书记且目标组织在其所在组织及下级组织范围内
+     *
+     * @param broadcast 广播通知，organizationId必填；includeChildren为空时包含下级组织；roleCode为空时发给全部成员
+     * @param senderId 发送人ID，发送人信息以此为准，忽略broadcast中的发送人字段
+     * @return 新创建的广播通知ID
+     */
+    Integer broadcast(NotificationBroadcast broadcast, Integer senderId);
+    
+    /**
+     * 标记广播通知为已读
+     *
+     * @param broadcastId 广播通知ID
+     * @param userId 用户ID
+     * @return 操作是否成功，广播通知不在该用户接收范围内时返回false
+     */
+    boolean markBroadcastAsRead(Integer broadcastId, Integer userId);
+    
+    /**
+     * 删除广播通知，只对该用户隐藏
+     *
+     * @param broadcastId 广播通知ID
+     * @param userId 用户ID
+     * @return 操作是否成功，广播通知不在该用户接收范围内时返回false
+     */
+    boolean deleteBroadcast(Integer broadcastId, Integer userId);
+}
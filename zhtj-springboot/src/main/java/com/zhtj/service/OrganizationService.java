@@ -5,7 +5,9 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.zhtj.domain.Organization;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 组织服务接口
@@ -94,6 +96,15 @@ public interface OrganizationService extends IService<Organization> {
      */
     Organization getById(Integer id);
     
+    /**
+     * 批量获取组织信息，用于列表数据补全
+     * 返回的组织对象可能来自共享的组织树快照，调用方只能读取不能修改
+     * 
+     * @param ids 组织ID集合
+     * @return 组织ID到组织信息的映射，不存在的组织不包含在内
+     */
+    Map<Integer, Organization> getOrganizationMap(Collection<Integer> ids);
+    
     /**
      * 判断一个组织是否是另一个组织的下级组织
      * 
@@ -119,6 +130,22 @@ public interface OrganizationService extends IService<Organization> {
      */
     int calculateTotalMemberCount(Integer organizationId);
     
+    /**
+     * 团员加入或离开组织时按增量调整成员数量
+     * 组织自身的直属成员数量和团员总数，以及全部上级组织的团员总数同时调整
+     * 
+     * @param organizationId 组织ID
+     * @param delta 变化量，加入为1，离开为-1
+     */
+    void adjustMemberCount(Integer organizationId, int delta);
+    
+    /**
+     * 按user表重新计算全部组织的成员数量，修正增量计数的偏差
+     * 
+     * @return 修正的记录数
+     */
+    int reconcileMemberCounts();
+    
     /**
      * 获取指定组织及其所有子组织的ID列表
      * 
@@ -126,4 +153,28 @@ public interface OrganizationService extends IService<Organization> {
      * @return 组织ID列表，包含自身和所有子组织
      */
     List<Integer> getSelfAndChildrenOrganizationIds(Integer organizationId);
-} 
\ No newline at end of file
+    
+    /**
+     * 获取指定组织的子树，可限制向下展开的层数
+     * 
+     * @param rootId 子树根组织ID
+     * @param depth 向下展开的层数，0表示只返回根节点，为null时不限制
+     * @return 以根组织为唯一元素的树列表
+     */
+    List<Organization> getOrganizationSubtree(Integer rootId, Integer depth);
+    
+    /**
+     * 获取组织的所有上级组织ID，从顶层到直接上级，不包含自身
+     * 
+     * @param organizationId 组织ID
+     * @return 上级组织ID列表
+     */
+    List<Integer> getAncestorOrganizationIds(Integer organizationId);
+    
+    /**
+     * 根据parent_id重新计算全部组织的path和level，并同步organization_hierarchy表
+     * 
+     * @return 修正的组织数量
+     */
+    int rebuildHierarchy();
+}
\ No newline at end of file
@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.zhtj.domain.StudyResource;
 import com.zhtj.domain.dto.StudyResourceDTO;
+import com.zhtj.domain.dto.StudyResourceSearchDTO;
 import com.zhtj.domain.vo.StudyResourceVO;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -89,8 +90,9 @@ public interface StudyResourceService extends IService<StudyResource> {
     
     /**
      * 获取资源统计数据
+     * 按分类统计资源数量及总数，统计范围包含组织自身及全部下级组织
      * 
-     * @param orgId 组织ID
+     * @param orgId 组织ID，为null时统计全部组织
      * @return 统计数据
      */
     Map<String, Object> getResourceStats(Integer orgId);
@@ -121,6 +123,18 @@ public interface StudyResourceService extends IService<StudyResource> {
             Integer currentUserId
     );
     
+    /**
+     * 全文检索学习资源
+     * 返回按相关度排序的分页结果(list、total)，以及分类、文件格式、组织、月份的分布统计(facets)
+     *
+     * @param query 检索条件
+     * @param page 当前页码
+     * @param size 每页大小
+     * @param currentUserId 当前用户ID
+     * @return 检索结果
+     */
+    Map<String, Object> searchResources(StudyResourceSearchDTO query, int page, int size, Integer currentUserId);
+    
     /**
      * 获取资源详情
      *
@@ -132,6 +146,7 @@ public interface StudyResourceService extends IService<StudyResource> {
     
     /**
      * 获取资源下载信息
+     * 返回文件路径(file)、大小(fileSize)和最后修改时间(lastModified)，不读取文件内容
      *
      * @param id 资源ID
      * @param currentUserId 当前用户ID
@@ -0,0 +1,31 @@
+package com.zhtj.service;
+
+import java.util.Date;
+
+/**
+ * JWT令牌吊销服务接口
+ * 统一管理令牌黑名单，按令牌摘要直接查找，避免扫描全部黑名单键
+ */
+public interface TokenRevocationService {
+
+    /**
+     * 吊销令牌，黑名单记录保留到令牌过期为止
+     * @param token JWT令牌
+     * @param expiration 令牌过期时间，为空时使用默认保留时间
+     */
+    void revoke(String token, Date expiration);
+
+    /**
+     * 判断令牌是否已被吊销
+     * @param token JWT令牌
+     * @return 是否已被吊销
+     */
+    boolean isRevoked(String token);
+
+    /**
+     * 按令牌摘要判断令牌是否已被吊销，调用方已计算过摘要时使用，避免重复计算
+     * @param digest 令牌的SHA-256十六进制摘要
+     * @return 是否已被吊销
+     */
+    boolean isDigestRevoked(String digest);
+}
@@ -3,6 +3,7 @@ package com.zhtj.service;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.zhtj.common.api.CursorPage;
 import com.zhtj.domain.Transfer;
 
 import java.time.LocalDateTime;
@@ -24,6 +25,20 @@ public interface TransferService extends IService<Transfer> {
      */
     IPage<Transfer> getTransferPage(Page<Transfer> page, Integer userId, Integer statusCode, Integer organizationId);
     
+    /**
+     * 按游标分页查询转接申请列表
+     * 
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param size 每页数量
+     * @param userId 用户ID
+     * @param statusCode 状态码
+     * @param organizationId 组织ID
+     * @param withTotal 是否统计总数
+     * @return 游标分页结果
+     */
+    CursorPage<Transfer> getTransferCursorPage(String cursor, int size, Integer userId, Integer statusCode,
+                                               Integer organizationId, boolean withTotal);
+    
     /**
      * 获取转接申请详情
      * 
@@ -111,6 +126,26 @@ public interface TransferService extends IService<Transfer> {
      */
     List<Transfer> getExpiredTransfers(LocalDateTime currentTime);
     
+    /**
+     * 按ID顺序分批获取已过期且仍在审批中的转接申请ID
+     * 
+     * @param currentTime 当前时间
+     * @param afterId 从该ID之后开始查询，首批传0
+     * @param limit 最大数量
+     * @return 转接申请ID列表
+     */
+    List<Integer> getExpiredTransferIds(LocalDateTime currentTime, Integer afterId, int limit);
+    
+    /**
+     * 批量拒绝一批过期的转接申请：按所处阶段以集合UPDATE记为系统审批不通过，
+     * 批量写入审批日志并批量发送过期通知，均在同一事务内完成
+     * 
+     * @param ids 转接申请ID
+     * @param currentTime 当前时间
+     * @return 实际处理的申请数量，期间已被审批的申请不计入
+     */
+    int rejectExpiredTransfers(List<Integer> ids, LocalDateTime currentTime);
+    
     /**
      * 检查转接申请是否存在
      * 
@@ -3,12 +3,15 @@ package com.zhtj.service;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.zhtj.common.api.BatchResult;
+import com.zhtj.common.api.CursorPage;
 import com.zhtj.domain.User;
 import com.zhtj.model.twosystem.MemberRegister;
 import com.zhtj.model.twosystem.RegisterBatch;
 import com.zhtj.model.twosystem.MemberEvaluation;
 import com.zhtj.model.twosystem.EvaluationResult;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -211,6 +214,14 @@ public interface UserService extends IService<User> {
      */
     User getById(Integer id);
     
+    /**
+     * 批量获取用户信息，用于列表数据补全
+     * 
+     * @param ids 用户ID集合
+     * @return 用户ID到用户信息的映射，不存在的用户不包含在内
+     */
+    Map<Integer, User> getUserMap(Collection<Integer> ids);
+    
     /**
      * 获取用户角色
      * 
@@ -293,6 +304,12 @@ public interface UserService extends IService<User> {
      */
     Map<String, Object> getApprovalList(User currentUser, Integer page, Integer size, Integer batchId, String memberName, String status);
     
+    /**
+     * 按游标获取注册审批列表，cursor为空表示第一页，withTotal为true时统计总数
+     */
+    CursorPage<MemberRegister> getApprovalCursorPage(User currentUser, String cursor, Integer size, Integer batchId,
+                                                   String memberName, String status, boolean withTotal);
+    
     /**
      * 审批通过
      */
@@ -304,14 +321,14 @@ public interface UserService extends IService<User> {
     boolean rejectRegister(Integer id, User approver, String comments);
     
     /**
-     * 批量审批通过
+     * 批量审批通过，逐条返回处理结果
      */
-    boolean batchApproveRegister(List<Integer> ids, User approver, String comments);
+    BatchResult batchApproveRegister(List<Integer> ids, User approver, String comments);
     
     /**
-     * 批量审批驳回
+     * 批量审批驳回，逐条返回处理结果
      */
-    boolean batchRejectRegister(List<Integer> ids, User approver, String comments);
+    BatchResult batchRejectRegister(List<Integer> ids, User approver, String comments);
     
     /**
      * 获取审批统计数据
@@ -394,6 +411,13 @@ public interface UserService extends IService<User> {
      */
     boolean submitResults(List<EvaluationResult> results);
     
+    /**
+     * 重新汇总统计失败的评议活动
+     * 
+     * @return 重新汇总的评议活动数
+     */
+    int reconcileEvaluationStatistics();
+    
     /**
      * 获取评议统计数据
      */
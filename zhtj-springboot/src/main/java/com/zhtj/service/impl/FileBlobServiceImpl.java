@@ -0,0 +1,131 @@
+package com.zhtj.service.impl;
+
+import cn.hutool.core.io.IORuntimeException;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.zhtj.domain.FileBlob;
+import com.zhtj.mapper.FileBlobMapper;
+import com.zhtj.service.FileBlobService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * 文件内容去重服务实现类
+ * 每个引用方（业务记录）对同一内容只登记一次引用，释放时删除登记，重复上传或删除不会重复计数；
+ * 引用次数降为0的内容保留一段时间后由定时任务回收，回收时在事务中锁定记录并重新确认无引用，
+ * 删除物理文件后再删除记录，并发上传相同内容的登记会等到回收提交后重新创建记录并写入文件。
+ */
+@Slf4j
+@Service
+public class FileBlobServiceImpl implements FileBlobService {
+    
+    // 去重存储的根目录
+    private static final String BLOB_DIRECTORY = "blobs";
+    
+    // 无引用的内容至少保留的时间（分钟），避免与并发上传相同内容冲突
+    private static final long GC_GRACE_MINUTES = 60;
+    
+    // 每次回收的最大数量
+    private static final int GC_BATCH_SIZE = 500;
+    
+    @Autowired
+    private FileBlobMapper fileBlobMapper;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Override
+    public String digest(InputStream inputStream) throws IOException {
+        try {
+            return DigestUtil.sha256Hex(inputStream);
+        } catch (IORuntimeException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public String buildStoragePath(String digest, String extension) {
+        String path = BLOB_DIRECTORY + "/" + digest.substring(0, 2) + "/" + digest;
+        return StringUtils.hasText(extension) ? path + "." + extension.toLowerCase() : path;
+    }
+    
+    @Override
+    public String acquire(String digest, String extension, long fileSize, String owner, Integer uploaderId) {
+        // 先登记引用方，只有首次登记才累加引用次数
+        int added = fileBlobMapper.insertOwnerReference(digest, owner, uploaderId);
+        fileBlobMapper.upsertReference(digest, buildStoragePath(digest, extension), fileSize, added);
+        return fileBlobMapper.selectById(digest).getStoragePath();
+    }
+    
+    @Override
+    public boolean release(String storagePath, String owner) {
+        if (!isBlobPath(storagePath)) {
+            return false;
+        }
+        FileBlob blob = fileBlobMapper.selectByStoragePath(normalize(storagePath));
+        // 只有删除了该引用方的登记才扣减，重复释放不影响其他引用方
+        if (blob != null && fileBlobMapper.deleteOwnerReference(blob.getDigest(), owner) > 0) {
+            fileBlobMapper.decrementReference(blob.getDigest());
+        }
+        return true;
+    }
+    
+    @Override
+    public Integer getUploaderId(String storagePath, String owner) {
+        if (!isBlobPath(storagePath)) {
+            return null;
+        }
+        FileBlob blob = fileBlobMapper.selectByStoragePath(normalize(storagePath));
+        return blob == null ? null : fileBlobMapper.selectUploaderId(blob.getDigest(), owner);
+    }
+    
+    @Override
+    public boolean isBlobPath(String storagePath) {
+        String path = normalize(storagePath);
+        return path != null && path.startsWith(BLOB_DIRECTORY + "/");
+    }
+    
+    @Override
+    public int collectGarbage(Predicate<String> deleter) {
+        List<FileBlob> candidates = fileBlobMapper.selectUnreferenced(
+                LocalDateTime.now().minusMinutes(GC_GRACE_MINUTES), GC_BATCH_SIZE);
+        int collected = 0;
+        for (FileBlob candidate : candidates) {
+            Boolean deleted = transactionTemplate.execute(status -> {
+                // 锁定后重新确认无引用，期间又被引用的内容跳过
+                FileBlob blob = fileBlobMapper.lockUnreferenced(candidate.getDigest());
+                if (blob == null) {
+                    return false;
+                }
+                if (!deleter.test(blob.getStoragePath())) {
+                    log.warn("回收文件失败，稍后重试: {}", blob.getStoragePath());
+                    return false;
+                }
+                fileBlobMapper.deleteById(blob.getDigest());
+                return true;
+            });
+            if (Boolean.TRUE.equals(deleted)) {
+                collected++;
+            }
+        }
+        if (collected > 0) {
+            log.info("已回收 {} 个无引用的文件", collected);
+        }
+        return collected;
+    }
+    
+    private String normalize(String storagePath) {
+        if (storagePath == null) {
+            return null;
+        }
+        return storagePath.startsWith("/") ? storagePath.substring(1) : storagePath;
+    }
+}
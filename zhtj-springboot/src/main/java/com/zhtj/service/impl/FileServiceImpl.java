@@ -2,6 +2,7 @@ package com.zhtj.service.impl;
 
 import com.zhtj.common.exception.BusinessException;
 import com.zhtj.config.FileProperties;
+import com.zhtj.service.FileBlobService;
 import com.zhtj.service.FileService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,13 +11,10 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -24,7 +22,6 @@ import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.List;
 
 /**
  * 文件服务实现类
@@ -37,6 +34,12 @@ public class FileServiceImpl implements FileService {
     @Autowired
     private FileProperties fileProperties;
     
+    @Autowired
+    private FileBlobService fileBlobService;
+    
+    @Autowired
+    private ThumbnailPipeline thumbnailPipeline;
+    
     @Value("${file.upload.base-path:E:/Hunter/Project/zhtj/uploads}")
     private String baseUploadPath;
     
@@ -147,7 +150,7 @@ public class FileServiceImpl implements FileService {
     }
     
     @Override
-    public String uploadFile(MultipartFile file, String directory) throws IOException {
+    public String uploadFile(MultipartFile file, String directory, String owner, Integer uploaderId) throws IOException {
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("上传文件不能为空");
         }
@@ -157,39 +160,46 @@ public class FileServiceImpl implements FileService {
             throw new IllegalArgumentException("不支持的文件类型");
         }
         
-        // 生成日期目录，格式：yyyy/MM/dd
-        String dateDir = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-        
-        // 构建文件存储的完整路径：基础路径 + 文件类型目录 + 日期目录
-        Path uploadDir = Paths.get(baseUploadPath, directory, dateDir);
-        
-        // 确保目录存在
-        if (!Files.exists(uploadDir)) {
-            Files.createDirectories(uploadDir);
+        // 流式计算内容摘要，相同内容已存储时只登记引用，不再写盘
+        String digest;
+        try (InputStream inputStream = file.getInputStream()) {
+            digest = fileBlobService.digest(inputStream);
         }
+        String storagePath = fileBlobService.acquire(digest, getFileExtension(originalFilename), file.getSize(), owner, uploaderId);
         
-        // 生成唯一的文件名：UUID + 原始文件扩展名
-        String fileExtension = getFileExtension(originalFilename);
-        String newFileName = UUID.randomUUID().toString() + "." + fileExtension;
+        // 构建文件存储的完整路径：基础路径 + 去重存储路径
+        Path filePath = Paths.get(baseUploadPath, storagePath);
+        if (!Files.exists(filePath)) {
+            try {
+                Files.createDirectories(filePath.getParent());
+                // 先写入临时文件再改名，避免并发上传相同内容时读到不完整的文件
+                Path tempFile = Files.createTempFile(filePath.getParent(), digest, ".tmp");
+                try (InputStream inputStream = file.getInputStream()) {
+                    Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+                Files.move(tempFile, filePath, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                fileBlobService.release(storagePath, owner);
+                throw e;
+            }
+        }
         
-        // 保存文件
-        Path filePath = uploadDir.resolve(newFileName);
-        file.transferTo(filePath.toFile());
+        scheduleDerivatives(storagePath);
         
         // 返回相对路径，用于存储在数据库中
-        // 格式：/directory/yyyy/MM/dd/filename.ext
-        return "/" + directory + "/" + dateDir + "/" + newFileName;
+        // 格式：/blobs/ab/摘要.ext
+        return "/" + storagePath;
     }
     
     @Override
-    public List<String> uploadFiles(List<MultipartFile> files, String fileType) throws IOException {
+    public List<String> uploadFiles(List<MultipartFile> files, String fileType, String owner, Integer uploaderId) throws IOException {
         if (files == null || files.isEmpty()) {
             throw new BusinessException("文件列表不能为空");
         }
         
         List<String> fileUrls = new ArrayList<>();
         for (MultipartFile file : files) {
-            String fileUrl = uploadFile(file, fileType);
+            String fileUrl = uploadFile(file, fileType, owner, uploaderId);
             fileUrls.add(fileUrl);
         }
         
@@ -197,11 +207,16 @@ public class FileServiceImpl implements FileService {
     }
     
     @Override
-    public boolean deleteFile(String filePath) {
+    public boolean deleteFile(String filePath, String owner) {
         if (StringUtils.isEmpty(filePath)) {
             return false;
         }
         
+        // 去重存储的文件只释放引用，物理文件由回收任务删除
+        if (fileBlobService.release(filePath, owner)) {
+            return true;
+        }
+        
         // 移除路径中的起始斜杠
         if (filePath.startsWith("/")) {
             filePath = filePath.substring(1);
@@ -263,39 +278,76 @@ public class FileServiceImpl implements FileService {
         if (!StringUtils.hasText(fileUrl)) {
             throw new BusinessException("文件URL不能为空");
         }
-        
-        // 获取文件路径
-        Path filePath = getPathFromUrl(fileUrl);
-        
-        if (!Files.exists(filePath)) {
-            throw new BusinessException("文件不存在: " + fileUrl);
+        if (width <= 0 || height <= 0) {
+            throw new BusinessException("缩略图尺寸必须大于0");
         }
         
+        // 兼容完整URL和上传返回的存储路径（/blobs/ab/摘要.ext）
+        String storagePath = fileUrl.contains("/api/files/")
+                ? fileUrl.substring(fileUrl.indexOf("/api/files/") + 11)
+                : fileUrl;
+        
         // 验证是否为图片
-        String extension = getFileExtension(filePath.getFileName().toString());
+        String extension = getFileExtension(storagePath);
         if (!Arrays.asList(getAllowedImageTypes().split(",")).contains(extension.toLowerCase())) {
             throw new BusinessException("不支持的图片类型: ." + extension);
         }
         
-        // 读取原图
-        BufferedImage originalImage = ImageIO.read(filePath.toFile());
-        
-        // 创建缩略图
-        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g = thumbnail.createGraphics();
-        g.drawImage(originalImage, 0, 0, width, height, null);
-        g.dispose();
+        // 请求的尺寸归到配置的固定档位，不为任意尺寸生成和缓存衍生图
+        int[] size = thumbnailPipeline.resolveSize(width, height);
+        width = size[0];
+        height = size[1];
         
-        // 创建缩略图文件名
-        String thumbnailFileName = "thumbnail_" + width + "x" + height + "_" + filePath.getFileName().toString();
-        Path thumbnailPath = filePath.getParent().resolve(thumbnailFileName);
+        // 已生成的衍生图直接返回，不再重新渲染
+        String thumbnailPath = ThumbnailPipeline.derivativePath(storagePath, width, height);
+        if (Files.exists(Paths.get(baseUploadPath, thumbnailPath))) {
+            return "/" + thumbnailPath;
+        }
         
-        // 保存缩略图
-        ImageIO.write(thumbnail, extension, thumbnailPath.toFile());
+        if (!Files.exists(resolveStoragePath(storagePath))) {
+            throw new BusinessException("文件不存在: " + fileUrl);
+        }
         
-        // 生成缩略图URL
-        String fileType = fileUrl.substring(fileUrl.indexOf("/api/files/") + 11, fileUrl.indexOf("/", fileUrl.indexOf("/api/files/") + 11));
-        return createFileUrl(fileType, thumbnailFileName);
+        // 交给后台线程生成，返回null表示尚未生成完成
+        scheduleThumbnail(storagePath, width, height);
+        return null;
+    }
+    
+    /**
+     * 上传图片后预先生成缩略图和预览图
+     */
+    private void scheduleDerivatives(String storagePath) {
+        if (!Arrays.asList(getAllowedImageTypes().split(",")).contains(getFileExtension(storagePath))) {
+            return;
+        }
+        for (int[] size : thumbnailPipeline.presetSizes()) {
+            if (!Files.exists(Paths.get(baseUploadPath, ThumbnailPipeline.derivativePath(storagePath, size[0], size[1])))) {
+                scheduleThumbnail(storagePath, size[0], size[1]);
+            }
+        }
+    }
+    
+    /**
+     * 提交衍生图生成任务，写入临时文件后改名，读取方不会看到不完整的图片
+     */
+    private void scheduleThumbnail(String storagePath, int width, int height) {
+        String thumbnailPath = ThumbnailPipeline.derivativePath(storagePath, width, height);
+        Path targetPath = Paths.get(baseUploadPath, thumbnailPath);
+        thumbnailPipeline.submit(thumbnailPath, width, height, getFileExtension(storagePath),
+                () -> Files.newInputStream(resolveStoragePath(storagePath)),
+                (data, contentType) -> {
+                    Files.createDirectories(targetPath.getParent());
+                    Path tempFile = Files.createTempFile(targetPath.getParent(), "thumb", ".tmp");
+                    Files.write(tempFile, data);
+                    Files.move(tempFile, targetPath, StandardCopyOption.REPLACE_EXISTING);
+                });
+    }
+    
+    /**
+     * 将存储路径转换为上传目录下的文件路径
+     */
+    private Path resolveStoragePath(String storagePath) {
+        return Paths.get(baseUploadPath, storagePath.startsWith("/") ? storagePath.substring(1) : storagePath);
     }
     
     @Override
@@ -331,18 +383,6 @@ public class FileServiceImpl implements FileService {
         return Paths.get(dir + path);
     }
     
-    /**
-     * 创建文件URL
-     */
-    private String createFileUrl(String fileType, String fileName) {
-        String subDir = fileType.toLowerCase() + "/" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-        return ServletUriComponentsBuilder.fromCurrentContextPath()
-                .path("/api/files/")
-                .path(subDir + "/")
-                .path(fileName)
-                .toUriString();
-    }
-    
     @Override
     public boolean isFileTypeAllowed(String fileName) {
         if (StringUtils.isEmpty(fileName)) {
@@ -364,6 +404,35 @@ public class FileServiceImpl implements FileService {
         return fileSize <= maxSizeInBytes;
     }
     
+    @Override
+    public int collectUnreferencedBlobs() {
+        return fileBlobService.collectGarbage(storagePath -> {
+            try {
+                Files.deleteIfExists(Paths.get(baseUploadPath, storagePath));
+                deleteDerivatives(Paths.get(baseUploadPath, ThumbnailPipeline.DERIVATIVE_ROOT), storagePath);
+                return true;
+            } catch (IOException e) {
+                log.error("删除文件失败：{}", e.getMessage());
+                return false;
+            }
+        });
+    }
+    
+    /**
+     * 删除原文件在thumbnails下各尺寸目录中的衍生图，包括不在当前档位配置中的历史尺寸
+     */
+    private void deleteDerivatives(Path derivativeRoot, String storagePath) throws IOException {
+        if (!Files.isDirectory(derivativeRoot)) {
+            return;
+        }
+        String relative = storagePath.startsWith("/") ? storagePath.substring(1) : storagePath;
+        try (DirectoryStream<Path> sizeDirectories = Files.newDirectoryStream(derivativeRoot, Files::isDirectory)) {
+            for (Path sizeDirectory : sizeDirectories) {
+                Files.deleteIfExists(sizeDirectory.resolve(relative));
+            }
+        }
+    }
+    
     /**
      * 获取允许的文件类型集合
      */
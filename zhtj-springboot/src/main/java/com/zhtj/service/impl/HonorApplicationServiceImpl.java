@@ -2,16 +2,27 @@ package com.zhtj.service.impl;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.zhtj.common.api.BatchResult;
 import com.zhtj.domain.HonorApplication;
+import com.zhtj.domain.User;
 import com.zhtj.mapper.HonorApplicationMapper;
 import com.zhtj.service.HonorApplicationService;
 import com.zhtj.service.NotificationService;
+import com.zhtj.service.OrganizationService;
+import com.zhtj.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 荣誉申请业务实现类
@@ -25,6 +36,12 @@ public class HonorApplicationServiceImpl implements HonorApplicationService {
     @Autowired
     private NotificationService notificationService;
     
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private OrganizationService organizationService;
+    
     @Override
     public IPage<HonorApplication> getHonorApplicationPage(
             Page<HonorApplication> page, 
@@ -144,6 +161,48 @@ public class HonorApplicationServiceImpl implements HonorApplicationService {
         return honorApplicationMapper.updateById(honorApplication) > 0;
     }
     
+    @Override
+    @Transactional
+    public BatchResult batchApprove(List<Integer> ids, String status, String comments, Integer approverId) {
+        BatchResult result = new BatchResult();
+        if (ids == null || ids.isEmpty()) {
+            return result;
+        }
+        
+        // 审批人所在组织及其所有下级组织，整批只计算一次
+        User approver = userService.getById(approverId);
+        Set<Integer> authorizedOrgIds = approver != null && approver.getOrganization() != null
+                ? new HashSet<>(organizationService.getSelfAndChildrenOrganizationIds(approver.getOrganization()))
+                : Collections.emptySet();
+        
+        // 一次查询全部申请
+        List<Integer> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Integer, HonorApplication> applications = new HashMap<>();
+        for (HonorApplication application : honorApplicationMapper.selectBatchIds(distinctIds)) {
+            applications.put(application.getId(), application);
+        }
+        
+        List<Integer> approvable = new ArrayList<>();
+        for (Integer id : distinctIds) {
+            HonorApplication application = applications.get(id);
+            if (application == null) {
+                result.fail(id, "申请不存在");
+            } else if (!authorizedOrgIds.contains(application.getOrganizationId())) {
+                result.fail(id, "无权审批该组织的荣誉申请");
+            } else {
+                approvable.add(id);
+            }
+        }
+        
+        // 同一目标状态的申请以一条UPDATE完成审批
+        if (!approvable.isEmpty()) {
+            honorApplicationMapper.batchUpdateStatus(approvable, status, comments, approverId,
+                    approver != null ? approver.getName() : null);
+            approvable.forEach(result::success);
+        }
+        return result;
+    }
+    
     @Override
     @Transactional
     public boolean branchApprove(Integer id, String approvalStatus, String approvalComments, Integer approverId) {
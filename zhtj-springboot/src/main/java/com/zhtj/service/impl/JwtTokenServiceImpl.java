@@ -3,7 +3,7 @@ package com.zhtj.service.impl;
 import com.zhtj.config.JwtConfig;
 import com.zhtj.domain.User;
 import com.zhtj.service.JwtTokenService;
-import com.zhtj.service.RedisService;
+import com.zhtj.service.TokenRevocationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -20,13 +20,7 @@ public class JwtTokenServiceImpl implements JwtTokenService {
     private JwtConfig jwtConfig;
     
     @Autowired
-    private RedisService redisService;
-    
-    // Redis中存储黑名单的前缀
-    private static final String TOKEN_BLACKLIST_PREFIX = "jwt:blacklist:";
-    
-    // Redis中存储令牌的过期时间（比JWT令牌本身多一些，确保过期的令牌也能被识别为黑名单）
-    private static final long TOKEN_BLACKLIST_TTL = 24 * 60 * 60; // 24小时
+    private TokenRevocationService tokenRevocationService;
     
     @Override
     public String generateToken(User user) {
@@ -112,9 +106,8 @@ public class JwtTokenServiceImpl implements JwtTokenService {
             throw new IllegalArgumentException("令牌不能为空");
         }
         
-        // 添加到Redis黑名单
-        String blacklistKey = TOKEN_BLACKLIST_PREFIX + token;
-        redisService.set(blacklistKey, true, TOKEN_BLACKLIST_TTL);
+        // 添加到黑名单，保留到令牌过期为止
+        tokenRevocationService.revoke(token, jwtConfig.getExpirationDateFromToken(token));
         
         return true;
     }
@@ -155,7 +148,6 @@ public class JwtTokenServiceImpl implements JwtTokenService {
      * @return 是否已被吊销
      */
     private boolean isTokenRevoked(String token) {
-        String blacklistKey = TOKEN_BLACKLIST_PREFIX + token;
-        return Boolean.TRUE.equals(redisService.hasKey(blacklistKey));
+        return tokenRevocationService.isRevoked(token);
     }
 } 
\ No newline at end of file
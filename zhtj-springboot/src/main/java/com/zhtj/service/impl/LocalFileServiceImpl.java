@@ -2,6 +2,7 @@ package com.zhtj.service.impl;
 
 import com.zhtj.common.exception.BusinessException;
 import com.zhtj.config.FileProperties;
+import com.zhtj.service.FileBlobService;
 import com.zhtj.service.FileService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,18 +12,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.List;
 
 /**
  * 本地文件存储服务实现类
@@ -36,6 +33,12 @@ public class LocalFileServiceImpl implements FileService {
     @Autowired
     private FileProperties fileProperties;
     
+    @Autowired
+    private FileBlobService fileBlobService;
+    
+    @Autowired
+    private ThumbnailPipeline thumbnailPipeline;
+    
     @Value("${file.local-storage.base-path:${user.home}/zhtj-storage}")
     private String baseStoragePath;
     
@@ -100,25 +103,6 @@ public class LocalFileServiceImpl implements FileService {
         }
     }
 
-    /**
-     * 生成唯一文件名
-     */
-    private String generateUniqueFileName(String originalFileName) {
-        String extension = getFileExtension(originalFileName);
-        String timeStamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        String randomStr = UUID.randomUUID().toString().substring(0, 8);
-
-        return timeStamp + "_" + randomStr + "." + extension;
-    }
-
-    /**
-     * 获取对象存储路径
-     */
-    private String getObjectPath(String fileType, String fileName) {
-        // 不再创建子目录，直接返回文件名
-        return fileName;
-    }
-
     /**
      * 确保目录存在
      */
@@ -134,7 +118,7 @@ public class LocalFileServiceImpl implements FileService {
     }
 
     @Override
-    public String uploadFile(MultipartFile file, String fileType) throws IOException {
+    public String uploadFile(MultipartFile file, String fileType, String owner, Integer uploaderId) throws IOException {
         if (file.isEmpty()) {
             throw new BusinessException("文件不能为空");
         }
@@ -143,49 +127,50 @@ public class LocalFileServiceImpl implements FileService {
         String originalFileName = file.getOriginalFilename();
         validateFileType(originalFileName, fileType);
 
-        // 生成唯一文件名
-        String uniqueFileName = generateUniqueFileName(originalFileName);
-
-        // 构建对象路径
-        String relativePath = getObjectPath(fileType, uniqueFileName);
-        
-        // 检查是否存储到study-resources目录
-        boolean isStudyResource = baseStoragePath.endsWith("study-resources");
-        
-        // 如果是study-resources目录，则直接使用根路径
-        String absolutePath;
-        if (isStudyResource) {
-            absolutePath = baseStoragePath + File.separator + uniqueFileName;
-            relativePath = uniqueFileName; // 更新相对路径为仅文件名
-        } else {
-            absolutePath = baseStoragePath + File.separator + relativePath.replace('/', File.separatorChar);
+        // 流式计算内容摘要，相同内容已存储时只登记引用，不再写盘
+        String digest;
+        try (InputStream inputStream = file.getInputStream()) {
+            digest = fileBlobService.digest(inputStream);
+        }
+        String storagePath = fileBlobService.acquire(digest, getFileExtension(originalFileName), file.getSize(), owner, uploaderId);
+        if (fileExists(storagePath)) {
+            scheduleDerivatives(storagePath);
+            return storagePath;
         }
         
-        // 确保目录存在
-        String directory = absolutePath.substring(0, absolutePath.lastIndexOf(File.separator));
-        ensureDirectoryExists(directory);
+        // 新内容，或物理文件已被回收时写入文件
+        Path targetLocation = resolveStoragePath(storagePath);
+        ensureDirectoryExists(targetLocation.getParent().toString());
 
         try {
-            // 保存文件到本地
-            Path targetLocation = Paths.get(absolutePath);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-
-            // 返回相对路径作为URL
-            return relativePath;
+            // 先写入临时文件再改名，避免并发上传相同内容时读到不完整的文件
+            Path tempFile = Files.createTempFile(targetLocation.getParent(), digest, ".tmp");
+            try (InputStream inputStream = file.getInputStream()) {
+                Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            try {
+                Files.move(tempFile, targetLocation, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            }
         } catch (Exception e) {
+            fileBlobService.release(storagePath, owner);
             throw new BusinessException("上传文件失败: " + e.getMessage());
         }
+        
+        scheduleDerivatives(storagePath);
+        return storagePath;
     }
 
     @Override
-    public List<String> uploadFiles(List<MultipartFile> files, String fileType) throws IOException {
+    public List<String> uploadFiles(List<MultipartFile> files, String fileType, String owner, Integer uploaderId) throws IOException {
         if (files == null || files.isEmpty()) {
             throw new BusinessException("文件列表不能为空");
         }
 
         List<String> fileUrls = new ArrayList<>();
         for (MultipartFile file : files) {
-            String fileUrl = uploadFile(file, fileType);
+            String fileUrl = uploadFile(file, fileType, owner, uploaderId);
             fileUrls.add(fileUrl);
         }
 
@@ -193,15 +178,18 @@ public class LocalFileServiceImpl implements FileService {
     }
 
     @Override
-    public boolean deleteFile(String fileUrl) {
+    public boolean deleteFile(String fileUrl, String owner) {
         if (!StringUtils.hasText(fileUrl)) {
             throw new BusinessException("文件路径不能为空");
         }
 
+        // 去重存储的文件只释放引用，物理文件由回收任务删除
+        if (fileBlobService.release(fileUrl, owner)) {
+            return true;
+        }
+
         try {
-            String absolutePath = baseStoragePath + File.separator + fileUrl.replace('/', File.separatorChar);
-            Path targetPath = Paths.get(absolutePath);
-            return Files.deleteIfExists(targetPath);
+            return Files.deleteIfExists(resolveStoragePath(fileUrl));
         } catch (Exception e) {
             throw new BusinessException("删除文件失败: " + e.getMessage());
         }
@@ -255,12 +243,8 @@ public class LocalFileServiceImpl implements FileService {
         if (!StringUtils.hasText(fileUrl)) {
             throw new BusinessException("文件路径不能为空");
         }
-        
-        String absolutePath = baseStoragePath + File.separator + fileUrl.replace('/', File.separatorChar);
-        Path originalPath = Paths.get(absolutePath);
-        
-        if (!Files.exists(originalPath)) {
-            throw new BusinessException("文件不存在");
+        if (width <= 0 || height <= 0) {
+            throw new BusinessException("缩略图尺寸必须大于0");
         }
         
         // 检查文件是否为图片
@@ -269,32 +253,24 @@ public class LocalFileServiceImpl implements FileService {
             throw new BusinessException("不支持的文件类型，仅支持图片格式");
         }
         
-        // 生成缩略图文件名和路径
-        String thumbFileName = "thumb_" + width + "x" + height + "_" + fileUrl.substring(fileUrl.lastIndexOf("/") + 1);
-        String thumbFileDir = fileUrl.substring(0, fileUrl.lastIndexOf("/"));
-        String thumbRelativePath = thumbFileDir + "/thumbnails/" + thumbFileName;
-        String thumbAbsolutePath = baseStoragePath + File.separator + thumbRelativePath.replace('/', File.separatorChar);
+        // 请求的尺寸归到配置的固定档位，不为任意尺寸生成和缓存衍生图
+        int[] size = thumbnailPipeline.resolveSize(width, height);
+        width = size[0];
+        height = size[1];
         
-        // 确保缩略图目录存在
-        String directory = thumbAbsolutePath.substring(0, thumbAbsolutePath.lastIndexOf(File.separator));
-        ensureDirectoryExists(directory);
-        
-        // 生成缩略图
-        try {
-            BufferedImage originalImage = ImageIO.read(originalPath.toFile());
-            BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-            
-            Graphics2D g = thumbnail.createGraphics();
-            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-            g.drawImage(originalImage, 0, 0, width, height, null);
-            g.dispose();
-            
-            ImageIO.write(thumbnail, extension, new File(thumbAbsolutePath));
-            
+        // 已生成的衍生图直接返回，不再重新渲染
+        String thumbRelativePath = ThumbnailPipeline.derivativePath(fileUrl, width, height);
+        if (Files.exists(resolveStoragePath(thumbRelativePath))) {
             return thumbRelativePath;
-        } catch (Exception e) {
-            throw new BusinessException("生成缩略图失败: " + e.getMessage());
         }
+        
+        if (!Files.exists(resolveStoragePath(fileUrl))) {
+            throw new BusinessException("文件不存在");
+        }
+        
+        // 交给后台线程生成，返回null表示尚未生成完成
+        scheduleThumbnail(fileUrl, width, height);
+        return null;
     }
 
     @Override
@@ -315,6 +291,71 @@ public class LocalFileServiceImpl implements FileService {
         return fileSize <= maxSizeInBytes;
     }
 
+    @Override
+    public int collectUnreferencedBlobs() {
+        return fileBlobService.collectGarbage(storagePath -> {
+            try {
+                Files.deleteIfExists(resolveStoragePath(storagePath));
+                deleteDerivatives(resolveStoragePath(ThumbnailPipeline.DERIVATIVE_ROOT), storagePath);
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * 删除原文件在thumbnails下各尺寸目录中的衍生图，包括不在当前档位配置中的历史尺寸
+     */
+    private void deleteDerivatives(Path derivativeRoot, String storagePath) throws IOException {
+        if (!Files.isDirectory(derivativeRoot)) {
+            return;
+        }
+        String relative = storagePath.startsWith("/") ? storagePath.substring(1) : storagePath;
+        try (DirectoryStream<Path> sizeDirectories = Files.newDirectoryStream(derivativeRoot, Files::isDirectory)) {
+            for (Path sizeDirectory : sizeDirectories) {
+                Files.deleteIfExists(sizeDirectory.resolve(relative));
+            }
+        }
+    }
+
+    /**
+     * 上传图片后预先生成缩略图和预览图
+     */
+    private void scheduleDerivatives(String storagePath) {
+        if (!getAllowedFileExtensions("images").contains(getFileExtension(storagePath))) {
+            return;
+        }
+        for (int[] size : thumbnailPipeline.presetSizes()) {
+            if (!Files.exists(resolveStoragePath(ThumbnailPipeline.derivativePath(storagePath, size[0], size[1])))) {
+                scheduleThumbnail(storagePath, size[0], size[1]);
+            }
+        }
+    }
+
+    /**
+     * 提交衍生图生成任务，写入临时文件后改名，读取方不会看到不完整的图片
+     */
+    private void scheduleThumbnail(String storagePath, int width, int height) {
+        String thumbRelativePath = ThumbnailPipeline.derivativePath(storagePath, width, height);
+        Path thumbPath = resolveStoragePath(thumbRelativePath);
+        thumbnailPipeline.submit(thumbRelativePath, width, height, getFileExtension(storagePath),
+                () -> Files.newInputStream(resolveStoragePath(storagePath)),
+                (data, contentType) -> {
+                    Files.createDirectories(thumbPath.getParent());
+                    Path tempFile = Files.createTempFile(thumbPath.getParent(), "thumb", ".tmp");
+                    Files.write(tempFile, data);
+                    Files.move(tempFile, thumbPath, StandardCopyOption.REPLACE_EXISTING);
+                });
+    }
+
+    /**
+     * 将存储路径转换为本地文件路径
+     */
+    private Path resolveStoragePath(String storagePath) {
+        return Paths.get(baseStoragePath + File.separator + storagePath.replace('/', File.separatorChar));
+    }
+
     @Override
     public boolean isFileTypeAllowed(String fileName) {
         if (!StringUtils.hasText(fileName)) {
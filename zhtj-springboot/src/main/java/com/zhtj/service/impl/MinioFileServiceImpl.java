@@ -3,9 +3,11 @@ package com.zhtj.service.impl;
 import com.zhtj.common.exception.BusinessException;
 import com.zhtj.config.FileProperties;
 import com.zhtj.config.MinioConfig;
+import com.zhtj.service.FileBlobService;
 import com.zhtj.service.FileService;
 import io.minio.*;
 import io.minio.http.Method;
+import io.minio.messages.Item;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Primary;
@@ -13,14 +15,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.io.*;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -37,6 +33,12 @@ public class MinioFileServiceImpl implements FileService {
     @Autowired
     private FileProperties fileProperties;
 
+    @Autowired
+    private FileBlobService fileBlobService;
+
+    @Autowired
+    private ThumbnailPipeline thumbnailPipeline;
+
     private String getBucketName() {
         return minioConfig.getBucketName();
     }
@@ -99,26 +101,6 @@ public class MinioFileServiceImpl implements FileService {
         }
     }
 
-    /**
-     * 生成唯一文件名
-     */
-    private String generateUniqueFileName(String originalFileName) {
-        String extension = getFileExtension(originalFileName);
-        String timeStamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        String randomStr = UUID.randomUUID().toString().substring(0, 8);
-
-        return timeStamp + "_" + randomStr + "." + extension;
-    }
-
-    /**
-     * 获取对象存储路径
-     */
-    private String getObjectPath(String fileType, String fileName) {
-        String subDir = fileType.toLowerCase() + "/" 
-                      + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-        return subDir + "/" + fileName;
-    }
-
     /**
      * 初始化存储桶
      */
@@ -139,7 +121,7 @@ public class MinioFileServiceImpl implements FileService {
     }
 
     @Override
-    public String uploadFile(MultipartFile file, String fileType) throws IOException {
+    public String uploadFile(MultipartFile file, String fileType, String owner, Integer uploaderId) throws IOException {
         if (file.isEmpty()) {
             throw new BusinessException("文件不能为空");
         }
@@ -148,40 +130,47 @@ public class MinioFileServiceImpl implements FileService {
         String originalFileName = file.getOriginalFilename();
         validateFileType(originalFileName, fileType);
 
-        // 生成唯一文件名
-        String uniqueFileName = generateUniqueFileName(originalFileName);
+        // 流式计算内容摘要，相同内容已存储时只登记引用，不再上传
+        String digest;
+        try (InputStream inputStream = file.getInputStream()) {
+            digest = fileBlobService.digest(inputStream);
+        }
+        String objectPath = fileBlobService.acquire(digest, getFileExtension(originalFileName), file.getSize(), owner, uploaderId);
+        if (fileExists(objectPath)) {
+            scheduleDerivatives(objectPath);
+            return objectPath;
+        }
 
         // 确保存储桶存在
         initializeBucket();
 
-        // 构建对象路径
-        String objectPath = getObjectPath(fileType, uniqueFileName);
-
-        try {
+        try (InputStream inputStream = file.getInputStream()) {
             // 上传文件到MinIO
             minioClient.putObject(PutObjectArgs.builder()
                     .bucket(getBucketName())
                     .object(objectPath)
-                    .stream(file.getInputStream(), file.getSize(), -1)
+                    .stream(inputStream, file.getSize(), -1)
                     .contentType(file.getContentType())
                     .build());
-
-            // 返回可访问的URL
-            return objectPath;
         } catch (Exception e) {
+            fileBlobService.release(objectPath, owner);
             throw new BusinessException("上传文件失败: " + e.getMessage());
         }
+
+        scheduleDerivatives(objectPath);
+        // 返回可访问的URL
+        return objectPath;
     }
 
     @Override
-    public List<String> uploadFiles(List<MultipartFile> files, String fileType) throws IOException {
+    public List<String> uploadFiles(List<MultipartFile> files, String fileType, String owner, Integer uploaderId) throws IOException {
         if (files == null || files.isEmpty()) {
             throw new BusinessException("文件列表不能为空");
         }
 
         List<String> fileUrls = new ArrayList<>();
         for (MultipartFile file : files) {
-            String fileUrl = uploadFile(file, fileType);
+            String fileUrl = uploadFile(file, fileType, owner, uploaderId);
             fileUrls.add(fileUrl);
         }
 
@@ -189,11 +178,16 @@ public class MinioFileServiceImpl implements FileService {
     }
 
     @Override
-    public boolean deleteFile(String fileUrl) {
+    public boolean deleteFile(String fileUrl, String owner) {
         if (!StringUtils.hasText(fileUrl)) {
             throw new BusinessException("文件路径不能为空");
         }
 
+        // 去重存储的文件只释放引用，对象由回收任务删除
+        if (fileBlobService.release(fileUrl, owner)) {
+            return true;
+        }
+
         try {
             minioClient.removeObject(RemoveObjectArgs.builder()
                     .bucket(getBucketName())
@@ -253,6 +247,9 @@ public class MinioFileServiceImpl implements FileService {
         if (!StringUtils.hasText(fileUrl)) {
             throw new BusinessException("文件路径不能为空");
         }
+        if (width <= 0 || height <= 0) {
+            throw new BusinessException("缩略图尺寸必须大于0");
+        }
 
         // 验证是否为图片
         String extension = getFileExtension(fileUrl);
@@ -260,48 +257,57 @@ public class MinioFileServiceImpl implements FileService {
             throw new BusinessException("不支持的图片类型: ." + extension);
         }
 
-        try {
-            // 读取原图
-            GetObjectResponse response = minioClient.getObject(GetObjectArgs.builder()
-                    .bucket(getBucketName())
-                    .object(fileUrl)
-                    .build());
-
-            BufferedImage originalImage = ImageIO.read(response);
+        // 请求的尺寸归到配置的固定档位，不为任意尺寸生成和缓存衍生图
+        int[] size = thumbnailPipeline.resolveSize(width, height);
+        width = size[0];
+        height = size[1];
 
-            // 创建缩略图
-            BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-            Graphics2D g = thumbnail.createGraphics();
-            g.drawImage(originalImage, 0, 0, width, height, null);
-            g.dispose();
-
-            // 创建缩略图文件名
-            String fileName = fileUrl.substring(fileUrl.lastIndexOf("/") + 1);
-            String thumbnailFileName = "thumbnail_" + width + "x" + height + "_" + fileName;
-            
-            // 提取目录路径
-            String directoryPath = fileUrl.substring(0, fileUrl.lastIndexOf("/") + 1);
-            String thumbnailPath = directoryPath + thumbnailFileName;
-
-            // 保存缩略图到临时文件
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ImageIO.write(thumbnail, extension, baos);
-            byte[] thumbnailBytes = baos.toByteArray();
+        // 已生成的衍生图直接返回，不再重新渲染
+        String thumbnailPath = ThumbnailPipeline.derivativePath(fileUrl, width, height);
+        if (fileExists(thumbnailPath)) {
+            return thumbnailPath;
+        }
+        if (!fileExists(fileUrl)) {
+            throw new BusinessException("文件不存在");
+        }
 
-            // 上传到MinIO
-            minioClient.putObject(PutObjectArgs.builder()
-                    .bucket(getBucketName())
-                    .object(thumbnailPath)
-                    .stream(new ByteArrayInputStream(thumbnailBytes), thumbnailBytes.length, -1)
-                    .contentType("image/" + extension.toLowerCase())
-                    .build());
+        // 交给后台线程生成，返回null表示尚未生成完成
+        scheduleThumbnail(fileUrl, width, height);
+        return null;
+    }
 
-            return thumbnailPath;
-        } catch (Exception e) {
-            throw new BusinessException("生成缩略图失败: " + e.getMessage());
+    /**
+     * 上传图片后预先生成缩略图和预览图
+     */
+    private void scheduleDerivatives(String objectPath) {
+        if (!Arrays.asList(getAllowedImageTypes().split(",")).contains(getFileExtension(objectPath))) {
+            return;
+        }
+        for (int[] size : thumbnailPipeline.presetSizes()) {
+            if (!fileExists(ThumbnailPipeline.derivativePath(objectPath, size[0], size[1]))) {
+                scheduleThumbnail(objectPath, size[0], size[1]);
+            }
         }
     }
 
+    /**
+     * 提交衍生图生成任务，原图在后台线程中流式读取
+     */
+    private void scheduleThumbnail(String objectPath, int width, int height) {
+        String thumbnailPath = ThumbnailPipeline.derivativePath(objectPath, width, height);
+        thumbnailPipeline.submit(thumbnailPath, width, height, getFileExtension(objectPath),
+                () -> minioClient.getObject(GetObjectArgs.builder()
+                        .bucket(getBucketName())
+                        .object(objectPath)
+                        .build()),
+                (data, contentType) -> minioClient.putObject(PutObjectArgs.builder()
+                        .bucket(getBucketName())
+                        .object(thumbnailPath)
+                        .stream(new ByteArrayInputStream(data), data.length, -1)
+                        .contentType(contentType)
+                        .build()));
+    }
+
     @Override
     public String getPublicUrl(String fileUrl, long expireInSeconds) {
         if (!StringUtils.hasText(fileUrl)) {
@@ -320,6 +326,41 @@ public class MinioFileServiceImpl implements FileService {
         }
     }
 
+    @Override
+    public int collectUnreferencedBlobs() {
+        return fileBlobService.collectGarbage(objectPath -> {
+            try {
+                minioClient.removeObject(RemoveObjectArgs.builder()
+                        .bucket(getBucketName())
+                        .object(objectPath)
+                        .build());
+                // 按thumbnails下的尺寸目录逐个删除衍生图，覆盖全部已生成的尺寸
+                Iterable<Result<Item>> sizeDirectories = minioClient.listObjects(ListObjectsArgs.builder()
+                        .bucket(getBucketName())
+                        .prefix(ThumbnailPipeline.DERIVATIVE_ROOT + "/")
+                        .recursive(false)
+                        .build());
+                for (Result<Item> result : sizeDirectories) {
+                    Item item = result.get();
+                    if (!item.isDir()) {
+                        continue;
+                    }
+                    String sizeDirectory = item.objectName().substring(ThumbnailPipeline.DERIVATIVE_ROOT.length() + 1);
+                    if (sizeDirectory.endsWith("/")) {
+                        sizeDirectory = sizeDirectory.substring(0, sizeDirectory.length() - 1);
+                    }
+                    minioClient.removeObject(RemoveObjectArgs.builder()
+                            .bucket(getBucketName())
+                            .object(ThumbnailPipeline.derivativePath(objectPath, sizeDirectory))
+                            .build());
+                }
+                return true;
+            } catch (Exception e) {
+                return false;
+            }
+        });
+    }
+
     @Override
     public boolean isFileSizeAllowed(long fileSize, long maxSizeInMB) {
         // 转换MB为字节
@@ -0,0 +1,502 @@
+package com.zhtj.service.impl;
+
+import com.zhtj.common.constant.RedisKeyConstant;
+import com.zhtj.domain.Notification;
+import com.zhtj.service.NotificationPushService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 通知推送业务实现类
+ * SSE连接和长轮询请求都以Servlet异步请求挂起，空闲连接不占用线程；
+ * 每个SSE连接有独立的有界发送缓冲区，由少量发送线程轮流写出，慢连接不会阻塞事件分发，
+ * 缓冲区溢出时丢弃积压的事件并通知客户端重新拉取。
+ * 单次写出超过发送超时的连接视为卡住，将被移除并中断其发送线程；仍卡在写出中的线程不计入发送线程数，
+ * 发送线程池相应扩容（不超过上限），少数卡住的客户端不会拖慢其他连接。
+ * 广播通知的接收范围需按用户组织和角色计算，推送时不携带内容，客户端收到后经接口重新拉取。
+ */
+@Slf4j
+@Service
+public class NotificationPushServiceImpl implements NotificationPushService {
+
+    private static final String EVENT_CONNECTED = "connected";
+    private static final String EVENT_NOTIFICATION = "notification";
+    private static final String EVENT_BROADCAST = "broadcast";
+    // 缓冲区溢出，客户端需重新拉取未读数和通知列表
+    private static final String EVENT_RESYNC = "resync";
+
+    // 心跳标记，写出为SSE注释行，不作为事件推送给客户端
+    private static final Map<String, Object> HEARTBEAT = Collections.emptyMap();
+
+    private static final long HEARTBEAT_INTERVAL = 25 * 1000;
+
+    private static final long STALL_CHECK_INTERVAL = 5 * 1000;
+
+    // 没有连接且超过该时间未轮询的用户，清理其最近事件
+    private static final long IDLE_CHANNEL_TTL = 5 * 60 * 1000;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // SSE连接超时时间（毫秒），超时后客户端自动重连
+    @Value("${notification.push.sse-timeout:1800000}")
+    private long sseTimeout;
+
+    // 长轮询最长等待时间（毫秒），需小于网关和Servlet异步请求超时
+    @Value("${notification.push.poll-timeout:25000}")
+    private long pollTimeout;
+
+    // 每个SSE连接的发送缓冲区大小
+    @Value("${notification.push.buffer-size:64}")
+    private int bufferSize;
+
+    // 每个用户保留的最近事件数，供长轮询补发
+    @Value("${notification.push.recent-events:20}")
+    private int recentEventLimit;
+
+    @Value("${notification.push.sender-threads:4}")
+    private int senderThreads;
+
+    // 发送线程数上限，卡在写出中的线程较多时在senderThreads基础上扩容
+    @Value("${notification.push.max-sender-threads:64}")
+    private int maxSenderThreads;
+
+    // 单次写出的超时时间（毫秒），超时的连接将被移除
+    @Value("${notification.push.send-timeout:10000}")
+    private long sendTimeout;
+
+    private final Map<Integer, UserChannel> channels = new ConcurrentHashMap<>();
+
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    private ThreadPoolExecutor sender;
+
+    // 已被移除但发送线程仍卡在写出中的连接
+    private final Set<SseConnection> stalledConnections = ConcurrentHashMap.newKeySet();
+
+    private Counter sentEvents;
+    private Counter droppedEvents;
+    private Counter evictedConnections;
+
+    /**
+     * 单个用户在本实例上的SSE连接、挂起的长轮询请求和最近事件
+     */
+    private static class UserChannel {
+        private final Set<SseConnection> connections = ConcurrentHashMap.newKeySet();
+        private final Queue<CompletableFuture<List<Map<String, Object>>>> waiting = new ConcurrentLinkedQueue<>();
+        private final Deque<Map<String, Object>> recent = new ArrayDeque<>();
+        private volatile long lastActive = System.currentTimeMillis();
+
+        private synchronized void record(Map<String, Object> event, int limit) {
+            recent.addLast(event);
+            while (recent.size() > limit) {
+                recent.removeFirst();
+            }
+        }
+
+        private synchronized List<Map<String, Object>> recentSince(long since) {
+            List<Map<String, Object>> result = new ArrayList<>();
+            for (Map<String, Object> event : recent) {
+                Object timestamp = event.get("timestamp");
+                if (timestamp instanceof Number && ((Number) timestamp).longValue() > since) {
+                    result.add(event);
+                }
+            }
+            return result;
+        }
+
+        private boolean isIdle(long now) {
+            return connections.isEmpty() && waiting.isEmpty() && now - lastActive > IDLE_CHANNEL_TTL;
+        }
+    }
+
+    /**
+     * 单个SSE连接，事件先进入有界缓冲区，同一时刻最多一个发送线程写出
+     */
+    private class SseConnection {
+        private final Integer userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Map<String, Object>> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // 当前写出开始的时间，未在写出时为0
+        private volatile long sendStartedAt;
+        // 正在写出的线程，读写时持有连接锁，保证中断不会落到已转去服务其他连接的线程上
+        private Thread sendingThread;
+        private volatile boolean evicted;
+
+        private SseConnection(Integer userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private void offer(Map<String, Object> event) {
+            if (evicted) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                // 客户端消费过慢，丢弃积压事件，改为提示客户端重新拉取
+                droppedEvents.increment(buffer.size());
+                buffer.clear();
+                buffer.offer(event(EVENT_RESYNC, null));
+            }
+            scheduleDrain();
+        }
+
+        private void heartbeat() {
+            if (buffer.isEmpty()) {
+                buffer.offer(HEARTBEAT);
+                scheduleDrain();
+            }
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            synchronized (this) {
+                sendingThread = Thread.currentThread();
+            }
+            try {
+                Map<String, Object> event;
+                while (!evicted && (event = buffer.poll()) != null) {
+                    sendStartedAt = System.currentTimeMillis();
+                    if (event == HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(event.get("timestamp")))
+                                .name(String.valueOf(event.get("type")))
+                                .data(event, MediaType.APPLICATION_JSON));
+                        sentEvents.increment();
+                    }
+                    sendStartedAt = 0;
+                }
+            } catch (Exception e) {
+                // 客户端已断开或写出超时被移除
+                removeConnection(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                sendStartedAt = 0;
+                synchronized (this) {
+                    sendingThread = null;
+                    // 清除移除连接时设置的中断标记，线程继续服务其他连接
+                    Thread.interrupted();
+                }
+                stalledConnections.remove(this);
+                draining.set(false);
+            }
+            if (evicted) {
+                // 连接已被移除，由本线程在写出结束后关闭
+                if (draining.compareAndSet(false, true)) {
+                    emitter.complete();
+                }
+                return;
+            }
+            if (!buffer.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private boolean isStalled(long now) {
+            long startedAt = sendStartedAt;
+            return startedAt > 0 && now - startedAt > sendTimeout;
+        }
+
+        /**
+         * 移除写出超时的连接，不再接收事件，并中断其发送线程；连接由发送线程在写出返回后关闭
+         */
+        private void evict() {
+            evicted = true;
+            removeConnection(this);
+            buffer.clear();
+            evictedConnections.increment();
+            synchronized (this) {
+                if (sendingThread != null) {
+                    stalledConnections.add(this);
+                    sendingThread.interrupt();
+                    return;
+                }
+            }
+            // 写出已在检查后结束，没有发送线程负责关闭连接
+            if (draining.compareAndSet(false, true)) {
+                emitter.complete();
+            }
+        }
+
+        private synchronized boolean isSending() {
+            return sendingThread != null;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        sender = new ThreadPoolExecutor(senderThreads, Math.max(senderThreads, maxSenderThreads),
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "notification-push-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            Object payload = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (payload instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) payload;
+                Object userId = map.get("userId");
+                Object event = map.get("event");
+                if (event instanceof Map) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> eventMap = (Map<String, Object>) event;
+                    deliverLocal(userId != null ? Integer.valueOf(userId.toString()) : null, eventMap);
+                }
+            }
+        }, new ChannelTopic(RedisKeyConstant.NOTIFICATION_PUSH_CHANNEL));
+
+        sentEvents = Counter.builder("zhtj.notification.push.events").tag("result", "sent")
+                .description("通知推送事件数").register(meterRegistry);
+        droppedEvents = Counter.builder("zhtj.notification.push.events").tag("result", "dropped")
+                .description("通知推送事件数").register(meterRegistry);
+        evictedConnections = Counter.builder("zhtj.notification.push.evicted")
+                .description("写出超时被移除的SSE连接数").register(meterRegistry);
+        Gauge.builder("zhtj.notification.push.connections", connectionCount, AtomicInteger::get)
+                .description("本实例的SSE连接数").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (UserChannel channel : channels.values()) {
+            for (SseConnection connection : channel.connections) {
+                connection.emitter.complete();
+            }
+        }
+        sender.shutdownNow();
+    }
+
+    @Override
+    public SseEmitter subscribe(Integer userId) {
+        SseEmitter emitter = new SseEmitter(sseTimeout);
+        SseConnection connection = new SseConnection(userId, emitter);
+        UserChannel channel = channels.computeIfAbsent(userId, key -> new UserChannel());
+        channel.connections.add(connection);
+        channel.lastActive = System.currentTimeMillis();
+        connectionCount.incrementAndGet();
+
+        emitter.onCompletion(() -> removeConnection(connection));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> removeConnection(connection));
+
+        // 连接建立后立即推送一次，客户端据此确认连接可用并刷新未读数
+        connection.offer(event(EVENT_CONNECTED, null));
+        return emitter;
+    }
+
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> poll(Integer userId, Long since) {
+        UserChannel channel = channels.computeIfAbsent(userId, key -> new UserChannel());
+        channel.lastActive = System.currentTimeMillis();
+        if (since != null) {
+            List<Map<String, Object>> missed = channel.recentSince(since);
+            if (!missed.isEmpty()) {
+                return CompletableFuture.completedFuture(missed);
+            }
+        }
+
+        CompletableFuture<List<Map<String, Object>>> result = new CompletableFuture<>();
+        result.completeOnTimeout(Collections.emptyList(), pollTimeout, TimeUnit.MILLISECONDS);
+        result.whenComplete((events, e) -> channel.waiting.remove(result));
+        channel.waiting.add(result);
+
+        // 检查与挂起之间可能有事件到达
+        if (since != null) {
+            List<Map<String, Object>> missed = channel.recentSince(since);
+            if (!missed.isEmpty()) {
+                result.complete(missed);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void publish(Notification notification) {
+        if (notification.getRecipientId() == null) {
+            return;
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", notification.getId());
+        data.put("title", notification.getTitle());
+        data.put("notificationType", notification.getNotificationType());
+        data.put("referenceId", notification.getReferenceId());
+        data.put("referenceType", notification.getReferenceType());
+        data.put("priority", notification.getPriority());
+        Map<String, Object> event = event(EVENT_NOTIFICATION, data);
+        afterCommit(() -> publishEvent(notification.getRecipientId(), event));
+    }
+
+    @Override
+    public void publishBroadcast() {
+        // 不携带广播内容，接收范围由客户端重新拉取时按用户组织和角色过滤
+        Map<String, Object> event = event(EVENT_BROADCAST, null);
+        afterCommit(() -> publishEvent(null, event));
+    }
+
+    /**
+     * 定时向全部SSE连接发送心跳，防止空闲连接被代理断开，同时清理空闲用户
+     */
+    @Scheduled(fixedDelay = HEARTBEAT_INTERVAL, initialDelay = HEARTBEAT_INTERVAL)
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        channels.forEach((userId, channel) -> {
+            channel.connections.forEach(SseConnection::heartbeat);
+            if (channel.isIdle(now)) {
+                channels.remove(userId, channel);
+            }
+        });
+    }
+
+    /**
+     * 移除写出超时的连接，并按仍卡在写出中的线程数调整发送线程池，保证其余连接有足够的发送线程
+     */
+    @Scheduled(fixedDelay = STALL_CHECK_INTERVAL, initialDelay = STALL_CHECK_INTERVAL)
+    public void evictStalledConnections() {
+        long now = System.currentTimeMillis();
+        int evicted = 0;
+        for (UserChannel channel : channels.values()) {
+            for (SseConnection connection : channel.connections) {
+                if (connection.isStalled(now)) {
+                    connection.evict();
+                    evicted++;
+                }
+            }
+        }
+        if (evicted > 0) {
+            log.warn("移除写出超时的SSE连接 {} 个", evicted);
+        }
+        stalledConnections.removeIf(connection -> !connection.isSending());
+        int corePoolSize = Math.min(senderThreads + stalledConnections.size(), sender.getMaximumPoolSize());
+        if (sender.getCorePoolSize() != corePoolSize) {
+            sender.setCorePoolSize(corePoolSize);
+        }
+    }
+
+    /**
+     * 经Redis分发到全部实例，Redis不可用时只推送给本实例上的连接
+     */
+    private void publishEvent(Integer userId, Map<String, Object> event) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("userId", userId);
+        payload.put("event", event);
+        try {
+            redisTemplate.convertAndSend(RedisKeyConstant.NOTIFICATION_PUSH_CHANNEL, payload);
+        } catch (Exception e) {
+            log.warn("广播通知推送事件失败，只推送本实例连接: {}", e.getMessage());
+            deliverLocal(userId, event);
+        }
+    }
+
+    /**
+     * 推送给本实例上的连接，userId为null时推送给全部用户
+     */
+    private void deliverLocal(Integer userId, Map<String, Object> event) {
+        if (userId == null) {
+            channels.values().forEach(channel -> deliverToChannel(channel, event));
+            return;
+        }
+        UserChannel channel = channels.get(userId);
+        if (channel != null) {
+            deliverToChannel(channel, event);
+        }
+    }
+
+    private void deliverToChannel(UserChannel channel, Map<String, Object> event) {
+        channel.record(event, recentEventLimit);
+        CompletableFuture<List<Map<String, Object>>> waiting;
+        while ((waiting = channel.waiting.poll()) != null) {
+            waiting.complete(Collections.singletonList(event));
+        }
+        for (SseConnection connection : channel.connections) {
+            connection.offer(event);
+        }
+    }
+
+    private void removeConnection(SseConnection connection) {
+        UserChannel channel = channels.get(connection.userId);
+        if (channel != null && channel.connections.remove(connection)) {
+            connectionCount.decrementAndGet();
+            channel.lastActive = System.currentTimeMillis();
+        }
+    }
+
+    private static Map<String, Object> event(String type, Map<String, Object> data) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", type);
+        event.put("timestamp", System.currentTimeMillis());
+        if (data != null) {
+            event.put("data", data);
+        }
+        return event;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
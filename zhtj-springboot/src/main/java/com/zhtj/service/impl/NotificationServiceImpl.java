@@ -2,27 +2,166 @@ package com.zhtj.service.impl;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.zhtj.common.api.CursorPage;
+import com.zhtj.common.exception.BusinessException;
 import com.zhtj.domain.Notification;
+import com.zhtj.domain.NotificationBroadcast;
+import com.zhtj.domain.NotificationOutbox;
+import com.zhtj.domain.User;
+import com.zhtj.mapper.NotificationBroadcastMapper;
 import com.zhtj.mapper.NotificationMapper;
+import com.zhtj.mapper.NotificationOutboxMapper;
+import com.zhtj.service.EmailService;
+import com.zhtj.service.NotificationPushService;
 import com.zhtj.service.NotificationService;
+import com.zhtj.service.OrganizationService;
+import com.zhtj.service.RoleService;
+import com.zhtj.service.SmsService;
+import com.zhtj.service.UserService;
+import com.zhtj.util.SeekCursor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * 消息通知业务实现类
  */
+@Slf4j
 @Service
 public class NotificationServiceImpl implements NotificationService {
     
+    private static final String DISPATCH_METRIC = "zhtj.notification.dispatch";
+    
+    // 重试间隔上限
+    private static final long MAX_RETRY_DELAY_SECONDS = 3600;
+    
+    private static final int LAST_ERROR_MAX_LENGTH = 500;
+    
     @Autowired
     private NotificationMapper notificationMapper;
     
+    @Autowired
+    private NotificationOutboxMapper notificationOutboxMapper;
+    
+    @Autowired
+    private NotificationBroadcastMapper notificationBroadcastMapper;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private OrganizationService organizationService;
+    
+    @Autowired
+    private RoleService roleService;
+    
+    @Autowired
+    private EmailService emailService;
+    
+    @Autowired(required = false)
+    private SmsService smsService;
+    
+    @Autowired
+    private UnreadNotificationCounter unreadCounter;
+    
+    @Autowired
+    private NotificationPushService notificationPushService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    // 是否同时通过邮件发送重要通知
+    @Value("${notification.dispatch.email-enabled:false}")
+    private boolean emailEnabled;
+    
+    // 是否同时通过短信发送重要通知
+    @Value("${notification.dispatch.sms-enabled:false}")
+    private boolean smsEnabled;
+    
+    // 达到该优先级的通知才经邮件、短信发送
+    @Value("${notification.dispatch.external-min-priority:1}")
+    private int externalMinPriority;
+    
+    @Value("${notification.dispatch.max-attempts:5}")
+    private int maxAttempts;
+    
+    // 首次重试间隔，之后每次失败翻倍
+    @Value("${notification.dispatch.retry-base-seconds:30}")
+    private long retryBaseSeconds;
+    
+    // 认领后的投递租约时长，超时仍未记录结果的记录由后续批次重新投递
+    @Value("${notification.dispatch.lease-seconds:300}")
+    private long leaseSeconds;
+    
+    @Value("${aliyun.sms.template-code.notification:}")
+    private String smsTemplateCode;
+    
+    // 每次核对未读数时最多核对的用户数
+    @Value("${notification.unread.reconcile-limit:5000}")
+    private int unreadReconcileLimit;
+    
+    private final AtomicLong pendingOutbox = new AtomicLong();
+    
+    @PostConstruct
+    public void init() {
+        Gauge.builder("zhtj.notification.outbox.pending", pendingOutbox, AtomicLong::get)
+                .description("发件箱待投递记录数").register(meterRegistry);
+    }
+    
+    /**
+     * 广播通知的接收范围：用户所属组织、其上级组织和用户角色
+     */
+    private static class BroadcastAudience {
+        private Integer organizationId;
+        private List<Integer> ancestorIds = Collections.emptyList();
+        private Set<String> roleCodes = Collections.emptySet();
+    }
+    
     @Override
     public IPage<Notification> getNotificationPage(Page<Notification> page, Integer recipientId, Integer isRead) {
-        return notificationMapper.selectNotificationPage(page, recipientId, isRead);
+        BroadcastAudience audience = resolveAudience(recipientId);
+        return notificationMapper.selectNotificationPage(page, recipientId, isRead,
+                audience.organizationId, audience.ancestorIds, audience.roleCodes);
+    }
+    
+    @Override
+    public CursorPage<Notification> getNotificationCursorPage(Integer recipientId, Integer isRead, String cursor,
+                                                              int size, boolean withTotal) {
+        BroadcastAudience audience = resolveAudience(recipientId);
+        List<Notification> rows = notificationMapper.selectNotificationSeek(recipientId, isRead,
+                audience.organizationId, audience.ancestorIds, audience.roleCodes, SeekCursor.decode(cursor), size + 1);
+        CursorPage<Notification> result = SeekCursor.page(rows, size, notification -> new SeekCursor(
+                notification.getCreateTime(), notification.getId(),
+                notification.getIsBroadcast() != null ? notification.getIsBroadcast() : 0));
+        if (withTotal) {
+            result.setTotal(notificationMapper.countNotifications(recipientId, isRead,
+                    audience.organizationId, audience.ancestorIds, audience.roleCodes));
+        }
+        return result;
     }
     
     @Override
@@ -32,6 +171,22 @@ public class NotificationServiceImpl implements NotificationService {
         return notification;
     }
     
+    @Override
+    public Notification getForRecipient(Integer id, boolean isBroadcast, Integer userId) {
+        if (id == null || userId == null) {
+            return null;
+        }
+        if (isBroadcast) {
+            return selectVisibleBroadcast(id, userId);
+        }
+        Notification notification = notificationMapper.selectById(id);
+        if (notification == null || !userId.equals(notification.getRecipientId())) {
+            return null;
+        }
+        notification.setIsBroadcast(0);
+        return notification;
+    }
+    
     @Override
     @Transactional
     public Integer send(Notification notification) {
@@ -41,41 +196,241 @@ public class NotificationServiceImpl implements NotificationService {
         notification.setUpdateTime(LocalDateTime.now());
         
         notificationMapper.insert(notification);
+        unreadCounter.increment(notification.getRecipientId(), 1);
+        notificationPushService.publish(notification);
         return notification.getId();
     }
     
+    @Override
+    @Transactional
+    public void enqueue(Notification notification) {
+        List<NotificationOutbox> records = new ArrayList<>();
+        addOutboxRecords(notification, records);
+        notificationOutboxMapper.insertBatch(records);
+    }
+    
+    @Override
+    @Transactional
+    public void enqueueAll(List<Notification> notifications) {
+        if (notifications == null || notifications.isEmpty()) {
+            return;
+        }
+        List<NotificationOutbox> records = new ArrayList<>();
+        for (Notification notification : notifications) {
+            addOutboxRecords(notification, records);
+        }
+        notificationOutboxMapper.insertBatch(records);
+    }
+    
+    /**
+     * 生成通知的发件箱记录：站内信必发，按配置为重要通知追加邮件、短信
+     */
+    private void addOutboxRecords(Notification notification, List<NotificationOutbox> records) {
+        records.add(toOutbox(notification, NotificationOutbox.CHANNEL_SITE));
+        
+        int priority = notification.getPriority() != null ? notification.getPriority() : 0;
+        if (priority >= externalMinPriority) {
+            if (emailEnabled) {
+                records.add(toOutbox(notification, NotificationOutbox.CHANNEL_EMAIL));
+            }
+            if (smsEnabled) {
+                records.add(toOutbox(notification, NotificationOutbox.CHANNEL_SMS));
+            }
+        }
+    }
+    
+    @Override
+    public int dispatchPending(int batchSize) {
+        String claimToken = UUID.randomUUID().toString().replace("-", "");
+        // 短事务内锁定并认领一批记录，提交后即释放行锁，发送邮件、短信期间不持有数据库锁和事务
+        List<NotificationOutbox> claimed = transactionTemplate.execute(status -> {
+            notificationOutboxMapper.releaseExpiredLeases(maxAttempts);
+            List<NotificationOutbox> due = notificationOutboxMapper.lockDue(batchSize);
+            if (!due.isEmpty()) {
+                notificationOutboxMapper.claim(due.stream().map(NotificationOutbox::getId).collect(Collectors.toList()),
+                        claimToken, leaseSeconds);
+            }
+            return due;
+        });
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+        claimed.forEach(record -> record.setClaimToken(claimToken));
+        
+        Map<Boolean, List<NotificationOutbox>> partitioned = claimed.stream()
+                .collect(Collectors.partitioningBy(record -> NotificationOutbox.CHANNEL_SITE.equals(record.getChannel())));
+        deliverToSite(partitioned.get(true));
+        deliverToExternal(partitioned.get(false));
+        return claimed.size();
+    }
+    
+    @Override
+    public long countPendingOutbox() {
+        long pending = notificationOutboxMapper.countPending();
+        pendingOutbox.set(pending);
+        return pending;
+    }
+    
+    @Override
+    public int purgeDeliveredOutbox(LocalDateTime before) {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = notificationOutboxMapper.deleteDelivered(before, 1000);
+            total += deleted;
+        } while (deleted > 0);
+        return total;
+    }
+    
     @Override
     @Transactional
     public boolean markAsRead(Integer id) {
-        return notificationMapper.markAsRead(id) > 0;
+        Notification notification = notificationMapper.selectById(id);
+        if (notification == null) {
+            return false;
+        }
+        if (notificationMapper.markAsRead(id) > 0) {
+            unreadCounter.increment(notification.getRecipientId(), -1);
+        }
+        return true;
+    }
+    
+    @Override
+    @Transactional
+    public int markAsRead(Integer recipientId, List<Integer> ids) {
+        if (recipientId == null || ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        int updated = notificationMapper.batchUpdateReadStatus(recipientId, ids);
+        unreadCounter.increment(recipientId, -updated);
+        return updated;
     }
     
     @Override
     @Transactional
     public boolean markAllAsRead(Integer recipientId) {
-        return notificationMapper.markAllAsRead(recipientId) > 0;
+        int updated = notificationMapper.markAllAsRead(recipientId);
+        BroadcastAudience audience = resolveAudience(recipientId);
+        if (audience.organizationId != null) {
+            updated += notificationMapper.markAllBroadcastsAsRead(recipientId,
+                    audience.organizationId, audience.ancestorIds, audience.roleCodes);
+        }
+        // 事务执行期间可能有新通知送达，删除计数由下次读取时重建，而不是直接置0
+        unreadCounter.invalidate(recipientId);
+        return updated > 0;
     }
     
     @Override
     @Transactional
     public boolean delete(Integer id) {
-        return notificationMapper.deleteById(id) > 0;
+        Notification notification = notificationMapper.selectById(id);
+        if (notification == null || notificationMapper.deleteById(id) == 0) {
+            return false;
+        }
+        if (notification.getIsRead() == null || notification.getIsRead() == 0) {
+            unreadCounter.increment(notification.getRecipientId(), -1);
+        }
+        return true;
     }
     
     @Override
     public int countUnreadNotifications(Integer recipientId) {
-        return notificationMapper.countUnreadNotifications(recipientId);
+        if (recipientId == null) {
+            return 0;
+        }
+        Integer cached = unreadCounter.get(recipientId);
+        if (cached != null) {
+            return cached;
+        }
+        int count = countUnreadFromDb(recipientId);
+        unreadCounter.rebuild(recipientId, count);
+        return count;
+    }
+    
+    @Override
+    public int reconcileUnreadCounters() {
+        int corrected = 0;
+        for (Integer userId : unreadCounter.trackedUserIds(unreadReconcileLimit)) {
+            Integer cached = unreadCounter.get(userId);
+            if (cached == null) {
+                continue;
+            }
+            int actual = countUnreadFromDb(userId);
+            if (actual != cached) {
+                unreadCounter.overwrite(userId, actual);
+                corrected++;
+            }
+        }
+        return corrected;
+    }
+    
+    @Override
+    @Transactional
+    public Integer broadcast(NotificationBroadcast broadcast, Integer senderId) {
+        if (broadcast.getOrganizationId() == null) {
+            throw new BusinessException("广播目标组织不能为空");
+        }
+        if (organizationService.getById(broadcast.getOrganizationId()) == null) {
+            throw new BusinessException("广播目标组织不存在");
+        }
+        User sender = senderId != null ? userService.getById(senderId) : null;
+        if (sender == null) {
+            throw new BusinessException("发送人不存在");
+        }
+        checkBroadcastPermission(sender, broadcast.getOrganizationId());
+        // 发送人以登录用户为准，不信任请求中的发送人字段
+        broadcast.setSenderId(sender.getId());
+        broadcast.setSenderName(sender.getName());
+        if (!StringUtils.hasText(broadcast.getRoleCode())) {
+            broadcast.setRoleCode(null);
+        }
+        if (broadcast.getIncludeChildren() == null) {
+            broadcast.setIncludeChildren(1);
+        }
+        if (broadcast.getPriority() == null) {
+            broadcast.setPriority(0);
+        }
+        broadcast.setStatus(1);
+        broadcast.setCreateTime(LocalDateTime.now());
+        broadcast.setUpdateTime(LocalDateTime.now());
+        
+        notificationBroadcastMapper.insert(broadcast);
+        unreadCounter.invalidateAll();
+        notificationPushService.publishBroadcast();
+        return broadcast.getId();
+    }
+    
+    @Override
+    @Transactional
+    public boolean markBroadcastAsRead(Integer broadcastId, Integer userId) {
+        if (selectVisibleBroadcast(broadcastId, userId) == null) {
+            return false;
+        }
+        boolean result = notificationBroadcastMapper.markRead(broadcastId, userId) > 0;
+        unreadCounter.invalidate(userId);
+        return result;
+    }
+    
+    @Override
+    @Transactional
+    public boolean deleteBroadcast(Integer broadcastId, Integer userId) {
+        if (selectVisibleBroadcast(broadcastId, userId) == null) {
+            return false;
+        }
+        boolean result = notificationBroadcastMapper.hide(broadcastId, userId) > 0;
+        unreadCounter.invalidate(userId);
+        return result;
     }
     
     @Override
     @Transactional
-    public Integer sendSystemNotification(
-            String title, 
-            String content, 
-            Integer recipientId, 
-            String notificationType, 
-            Integer referenceId, 
-            String referenceType, 
+    public void sendSystemNotification(
+            String title,
+            String content,
+            Integer recipientId,
+            String notificationType,
+            Integer referenceId,
+            String referenceType,
             String actionUrl) {
         
         Notification notification = new Notification();
@@ -87,19 +442,15 @@ public class NotificationServiceImpl implements NotificationService {
         notification.setNotificationType(notificationType);
         notification.setReferenceId(referenceId);
         notification.setReferenceType(referenceType);
-        notification.setIsRead(0); // 未读
         notification.setPriority(0); // 普通优先级
         notification.setActionUrl(actionUrl);
-        notification.setCreateTime(LocalDateTime.now());
-        notification.setUpdateTime(LocalDateTime.now());
         
-        notificationMapper.insert(notification);
-        return notification.getId();
+        enqueue(notification);
     }
-
+    
     @Override
     @Transactional
-    public Integer sendTransferNotification(
+    public void sendTransferNotification(
             Integer recipientId,
             Integer transferId,
             String title,
@@ -114,12 +465,296 @@ public class NotificationServiceImpl implements NotificationService {
         notification.setNotificationType("转接申请");
         notification.setReferenceId(transferId);
         notification.setReferenceType("transfer");
-        notification.setIsRead(0); // 未读
         notification.setPriority(1); // 重要优先级
         notification.setActionUrl("/dashboard/transfers/detail/" + transferId);
-        notification.setCreateTime(LocalDateTime.now());
-        notification.setUpdateTime(LocalDateTime.now());
         
-        return send(notification);
+        enqueue(notification);
+    }
+    
+    /**
+     * 从数据库统计用户未读通知数，包含未读的广播通知
+     */
+    private int countUnreadFromDb(Integer recipientId) {
+        BroadcastAudience audience = resolveAudience(recipientId);
+        return notificationMapper.countUnreadNotifications(recipientId,
+                audience.organizationId, audience.ancestorIds, audience.roleCodes);
+    }
+    
+    /**
+     * 查询用户接收范围内且未删除的广播通知
+     */
+    private Notification selectVisibleBroadcast(Integer broadcastId, Integer userId) {
+        BroadcastAudience audience = resolveAudience(userId);
+        if (broadcastId == null || audience.organizationId == null) {
+            return null;
+        }
+        return notificationMapper.selectVisibleBroadcast(broadcastId, userId,
+                audience.organizationId, audience.ancestorIds, audience.roleCodes);
+    }
+    
+    /**
+     * 校验广播权限：系统管理员不限组织；团委书记/副书记、团支书/副书记只能向所在组织及下级组织广播
+     */
+    private void checkBroadcastPermission(User sender, Integer organizationId) {
+        if (userService.isAdmin(sender.getId())) {
+            return;
+        }
+        Set<String> roles = userService.getUserRoles(sender.getId());
+        String position = sender.getLeaguePosition();
+        boolean isApprover = roles.contains("COMMITTEE_SECRETARY") || roles.contains("DEPUTY_COMMITTEE_SECRETARY")
+                || roles.contains("BRANCH_SECRETARY") || roles.contains("DEPUTY_BRANCH_SECRETARY")
+                || "团委书记".equals(position) || "团委副书记".equals(position)
+                || "团支书".equals(position) || "团支部副书记".equals(position);
+        if (!isApprover) {
+            throw new BusinessException("无权发送广播通知");
+        }
+        if (sender.getOrganization() == null
+                || !organizationService.getSelfAndChildrenOrganizationIds(sender.getOrganization()).contains(organizationId)) {
+            throw new BusinessException("无权向该组织发送广播通知");
+        }
+    }
+    
+    /**
+     * 计算用户可见广播通知的范围，用户、组织和角色均来自缓存；用户不存在或未加入组织时不查询广播通知
+     */
+    private BroadcastAudience resolveAudience(Integer userId) {
+        BroadcastAudience audience = new BroadcastAudience();
+        if (userId == null) {
+            return audience;
+        }
+        User user = userService.getById(userId);
+        if (user == null || user.getOrganization() == null) {
+            return audience;
+        }
+        audience.organizationId = user.getOrganization();
+        audience.ancestorIds = organizationService.getAncestorOrganizationIds(user.getOrganization());
+        audience.roleCodes = roleService.getUserRoleCodes(userId);
+        return audience;
+    }
+    
+    /**
+     * 站内信：整批一条多行INSERT写入通知表，与标记已投递在同一短事务中提交；失败时逐条写入以隔离出错的记录
+     * 认领的租约已失效（记录已被收回）时回滚写入，由重新认领的批次投递，避免重复
+     */
+    private void deliverToSite(List<NotificationOutbox> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        List<Notification> notifications = records.stream().map(this::toNotification).collect(Collectors.toList());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                notificationMapper.insertBatch(notifications);
+                if (markDelivered(records) != records.size()) {
+                    throw new IllegalStateException("部分记录的投递租约已失效");
+                }
+            });
+            recordDelivered(records);
+            onSiteDelivered(notifications);
+            return;
+        } catch (Exception e) {
+            log.warn("批量写入站内通知失败，改为逐条写入: {}", e.getMessage());
+        }
+        
+        List<NotificationOutbox> delivered = new ArrayList<>();
+        List<Notification> inserted = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            NotificationOutbox record = records.get(i);
+            Notification notification = notifications.get(i);
+            // 整批写入回滚后自增主键已回填到对象上，逐条写入前清除
+            notification.setId(null);
+            try {
+                Boolean written = transactionTemplate.execute(status -> {
+                    notificationMapper.insert(notification);
+                    if (markDelivered(Collections.singletonList(record)) == 0) {
+                        status.setRollbackOnly();
+                        return false;
+                    }
+                    return true;
+                });
+                if (Boolean.TRUE.equals(written)) {
+                    delivered.add(record);
+                    inserted.add(notification);
+                }
+            } catch (Exception e) {
+                markFailed(record, e.getMessage(), true);
+            }
+        }
+        recordDelivered(delivered);
+        onSiteDelivered(inserted);
+    }
+    
+    /**
+     * 站内信写入后按接收者汇总增加未读计数，并推送给在线的接收者
+     */
+    private void onSiteDelivered(List<Notification> notifications) {
+        notifications.stream()
+                .filter(notification -> notification.getRecipientId() != null)
+                .collect(Collectors.groupingBy(Notification::getRecipientId, Collectors.counting()))
+                .forEach((recipientId, count) -> unreadCounter.increment(recipientId, count.intValue()));
+        notifications.forEach(notificationPushService::publish);
+    }
+    
+    /**
+     * 邮件、短信：批量查询接收者联系方式后在事务外逐条发送，接收者没有联系方式时不再重试
+     * 全部发送完成后在一个短事务中记录投递结果
+     */
+    private void deliverToExternal(List<NotificationOutbox> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        Map<Integer, User> recipients = userService.getUserMap(records.stream()
+                .map(NotificationOutbox::getRecipientId).collect(Collectors.toSet()));
+        
+        List<NotificationOutbox> delivered = new ArrayList<>();
+        List<DeliveryFailure> failures = new ArrayList<>();
+        for (NotificationOutbox record : records) {
+            User recipient = recipients.get(record.getRecipientId());
+            try {
+                if (NotificationOutbox.CHANNEL_EMAIL.equals(record.getChannel())) {
+                    if (recipient == null || !StringUtils.hasText(recipient.getEmail())) {
+                        failures.add(new DeliveryFailure(record, "接收者未设置电子邮箱", false));
+                    } else if (emailService.sendSimpleEmail(recipient.getEmail(), record.getTitle(), record.getContent())) {
+                        delivered.add(record);
+                    } else {
+                        failures.add(new DeliveryFailure(record, "邮件发送失败", true));
+                    }
+                } else if (NotificationOutbox.CHANNEL_SMS.equals(record.getChannel())) {
+                    if (smsService == null || !StringUtils.hasText(smsTemplateCode)) {
+                        failures.add(new DeliveryFailure(record, "短信服务未启用", false));
+                    } else if (recipient == null || !StringUtils.hasText(recipient.getPhone())) {
+                        failures.add(new DeliveryFailure(record, "接收者未设置手机号码", false));
+                    } else {
+                        Map<String, String> params = new HashMap<>();
+                        params.put("title", record.getTitle());
+                        if (smsService.sendNotification(recipient.getPhone(), smsTemplateCode, params)) {
+                            delivered.add(record);
+                        } else {
+                            failures.add(new DeliveryFailure(record, "短信发送失败", true));
+                        }
+                    }
+                } else {
+                    failures.add(new DeliveryFailure(record, "未知的投递渠道: " + record.getChannel(), false));
+                }
+            } catch (Exception e) {
+                failures.add(new DeliveryFailure(record, e.getMessage(), true));
+            }
+        }
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            markDelivered(delivered);
+            failures.forEach(failure -> markFailed(failure.record, failure.error, failure.retryable));
+        });
+        recordDelivered(delivered);
+    }
+    
+    /**
+     * 标记已投递，同一批次的记录共用认领标识
+     *
+     * @return 仍由本批次认领、被标记为已投递的记录数
+     */
+    private int markDelivered(List<NotificationOutbox> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+        return notificationOutboxMapper.markDelivered(
+                records.stream().map(NotificationOutbox::getId).collect(Collectors.toList()),
+                records.get(0).getClaimToken());
+    }
+    
+    /**
+     * 投递结果提交后记录投递次数和耗时
+     */
+    private void recordDelivered(List<NotificationOutbox> records) {
+        LocalDateTime now = LocalDateTime.now();
+        for (NotificationOutbox record : records) {
+            dispatchCounter(record.getChannel(), "delivered").increment();
+            if (record.getCreateTime() != null) {
+                Timer.builder("zhtj.notification.delivery.latency")
+                        .tag("channel", record.getChannel())
+                        .description("通知从写入发件箱到投递完成的耗时")
+                        .register(meterRegistry)
+                        .record(Duration.between(record.getCreateTime(), now));
+            }
+        }
+    }
+    
+    /**
+     * 记录投递失败：可重试时按指数退避安排下次投递，超过最大次数或不可重试时标记为投递失败
+     */
+    private void markFailed(NotificationOutbox record, String error, boolean retryable) {
+        int attempts = (record.getAttempts() != null ? record.getAttempts() : 0) + 1;
+        boolean giveUp = !retryable || attempts >= maxAttempts;
+        long delay = Math.min(retryBaseSeconds << Math.min(attempts - 1, 20), MAX_RETRY_DELAY_SECONDS);
+        String lastError = error == null ? "未知错误" : error;
+        if (lastError.length() > LAST_ERROR_MAX_LENGTH) {
+            lastError = lastError.substring(0, LAST_ERROR_MAX_LENGTH);
+        }
+        
+        notificationOutboxMapper.markFailed(record.getId(), record.getClaimToken(),
+                giveUp ? NotificationOutbox.STATUS_FAILED : NotificationOutbox.STATUS_PENDING,
+                LocalDateTime.now().plusSeconds(delay), lastError);
+        dispatchCounter(record.getChannel(), giveUp ? "failed" : "retry").increment();
+        if (giveUp) {
+            log.warn("通知投递失败，不再重试: outboxId={}, channel={}, recipientId={}, error={}",
+                    record.getId(), record.getChannel(), record.getRecipientId(), lastError);
+        }
+    }
+    
+    /**
+     * 邮件、短信发送失败的记录，发送全部完成后统一写入
+     */
+    private static class DeliveryFailure {
+        private final NotificationOutbox record;
+        private final String error;
+        private final boolean retryable;
+        
+        private DeliveryFailure(NotificationOutbox record, String error, boolean retryable) {
+            this.record = record;
+            this.error = error;
+            this.retryable = retryable;
+        }
+    }
+    
+    private Counter dispatchCounter(String channel, String result) {
+        return Counter.builder(DISPATCH_METRIC)
+                .tag("channel", channel)
+                .tag("result", result)
+                .description("通知投递次数")
+                .register(meterRegistry);
+    }
+    
+    private static NotificationOutbox toOutbox(Notification notification, String channel) {
+        NotificationOutbox record = new NotificationOutbox();
+        record.setChannel(channel);
+        record.setTitle(notification.getTitle());
+        record.setContent(notification.getContent());
+        record.setSenderId(notification.getSenderId());
+        record.setSenderName(notification.getSenderName());
+        record.setRecipientId(notification.getRecipientId());
+        record.setNotificationType(notification.getNotificationType());
+        record.setReferenceId(notification.getReferenceId());
+        record.setReferenceType(notification.getReferenceType());
+        record.setPriority(notification.getPriority() != null ? notification.getPriority() : 0);
+        record.setExpireTime(notification.getExpireTime());
+        return record;
+    }
+    
+    private Notification toNotification(NotificationOutbox record) {
+        Notification notification = new Notification();
+        notification.setTitle(record.getTitle());
+        notification.setContent(record.getContent());
+        notification.setSenderId(record.getSenderId());
+        notification.setSenderName(record.getSenderName());
+        notification.setRecipientId(record.getRecipientId());
+        notification.setNotificationType(record.getNotificationType());
+        notification.setReferenceId(record.getReferenceId());
+        notification.setReferenceType(record.getReferenceType());
+        notification.setIsRead(0); // 未读
+        notification.setPriority(record.getPriority());
+        notification.setExpireTime(record.getExpireTime());
+        // 以写入发件箱的时间作为通知时间，保持与业务发生顺序一致
+        notification.setCreateTime(record.getCreateTime() != null ? record.getCreateTime() : LocalDateTime.now());
+        notification.setUpdateTime(LocalDateTime.now());
+        return notification;
     }
-} 
\ No newline at end of file
+}
@@ -4,27 +4,45 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zhtj.common.constant.RedisKeyConstant;
 import com.zhtj.common.exception.BusinessException;
 import com.zhtj.common.exception.ResourceNotFoundException;
 import com.zhtj.domain.Organization;
 import com.zhtj.mapper.OrganizationMapper;
 import com.zhtj.service.OrganizationService;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * 组织服务实现类
+ * 组织树、子树、上级及下级ID查询由内存中的组织树快照提供，不访问数据库；
+ * 组织变更提交后递增Redis中的版本号并广播，各实例据此更新或重新加载快照。
+ * 成员数量变动频繁，不纳入快照版本：提交后只重新读取受影响组织的计数，其他实例的变动由定期加载同步。
  */
 @Service
 public class OrganizationServiceImpl extends ServiceImpl<OrganizationMapper, Organization> implements OrganizationService {
@@ -33,6 +51,78 @@ public class OrganizationServiceImpl extends ServiceImpl<OrganizationMapper, Org
 
     @Autowired
     private OrganizationMapper organizationMapper;
+    
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+    
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+    
+    // 定期核对Redis中组织树版本号的间隔（毫秒），用于补齐丢失的广播
+    private static final long TREE_VERSION_CHECK_INTERVAL = 30 * 1000;
+    
+    // 当前组织树快照，读取时无锁，变更时整体替换
+    private volatile OrganizationTreeSnapshot treeSnapshot;
+    
+    // 已知的最新组织树版本号，大于快照版本时下次读取会重新加载快照
+    private final AtomicLong latestTreeVersion = new AtomicLong();
+    
+    private final Object treeSnapshotLock = new Object();
+    
+    // 定期重新加载成员计数的间隔（毫秒）
+    private static final long MEMBER_COUNT_RELOAD_INTERVAL = 30 * 1000;
+    
+    // 组织ID -> 直属团员数量、团员总数，读取时覆盖快照中的计数
+    private final Map<Integer, Integer> directMemberCounts = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> totalMemberCounts = new ConcurrentHashMap<>();
+    
+    /**
+     * 组织树快照的变更类型
+     */
+    private enum TreeChange {
+        // 单个组织的属性变化
+        NODE,
+        // 组织及其整棵子树的path、level变化
+        SUBTREE,
+        // 组织被删除
+        REMOVED,
+        // 需要全量重新加载
+        ALL
+    }
+    
+    @PostConstruct
+    public void initTreeSnapshot() {
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            Object payload = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (payload != null) {
+                markTreeVersion(Long.parseLong(payload.toString()));
+            }
+        }, new ChannelTopic(RedisKeyConstant.ORGANIZATION_TREE_CHANNEL));
+    }
+    
+    /**
+     * 定期核对组织树版本号，防止错过其他实例的变更广播
+     */
+    @Scheduled(fixedDelay = TREE_VERSION_CHECK_INTERVAL, initialDelay = TREE_VERSION_CHECK_INTERVAL)
+    public void checkTreeVersion() {
+        markTreeVersion(readTreeVersion());
+    }
+    
+    /**
+     * 定期重新加载全部组织的成员计数，同步其他实例的成员变动
+     */
+    @Scheduled(fixedDelay = MEMBER_COUNT_RELOAD_INTERVAL)
+    public void reloadMemberCounts() {
+        try {
+            List<Organization> counts = organizationMapper.selectList(memberCountQuery());
+            putMemberCounts(counts);
+            Set<Integer> ids = counts.stream().map(Organization::getId).collect(Collectors.toSet());
+            directMemberCounts.keySet().retainAll(ids);
+            totalMemberCounts.keySet().retainAll(ids);
+        } catch (Exception e) {
+            log.warn("加载组织成员计数失败: {}", e.getMessage());
+        }
+    }
 
     // 辅助方法，通过名称获取组织ID，不是接口方法
     @Override
@@ -86,7 +176,15 @@ public class OrganizationServiceImpl extends ServiceImpl<OrganizationMapper, Org
         if (count == null || count < 0) {
             throw new BusinessException("团员数量必须大于等于0");
         }
-        return organizationMapper.updateMemberCount(organizationId, count) > 0;
+        Organization organization = this.getById(organizationId);
+        if (organization == null) {
+            return false;
+        }
+        boolean updated = organizationMapper.updateMemberCount(organizationId, count) > 0;
+        if (updated) {
+            adjustTotalMemberCount(organizationId, count - nullToZero(organization.getMemberCount()));
+        }
+        return updated;
     }
     
     @Override
@@ -103,6 +201,7 @@ public class OrganizationServiceImpl extends ServiceImpl<OrganizationMapper, Org
     }
     
     // 辅助方法，保存组织信息，不是接口方法
+    @Transactional(rollbackFor = Exception.class)
     public boolean saveOrganization(Organization organization) {
         if (organization == null) {
             throw new BusinessException("组织信息不能为空");
@@ -125,40 +224,27 @@ public class OrganizationServiceImpl extends ServiceImpl<OrganizationMapper, Org
             organization.setIsLeaf(true); // 默认为叶子节点
         }
         
-        // 如果有父组织，设置path和level
+        // 如果有父组织，设置level
+        Organization parent = null;
         if (organization.getParentId() != null) {
-            Organization parent = super.getById(organization.getParentId());
+            parent = super.getById(organization.getParentId());
             if (parent == null) {
                 throw new ResourceNotFoundException("父组织", "id", organization.getParentId());
             }
             
-            // 将父组织设置为非叶子节点
-            if (parent.getIsLeaf()) {
-                parent.setIsLeaf(false);
-                this.updateById(parent);
-            }
-            
-            // 设置path
-            if (StringUtils.hasText(parent.getPath())) {
-                organization.setPath(parent.getPath() + "," + parent.getId());
-            } else {
-                organization.setPath(parent.getId().toString());
-            }
-            
             // 设置level
             organization.setLevel(parent.getLevel() != null ? parent.getLevel() + 1 : 1);
         } else {
             // 根组织
             organization.setLevel(0);
-            // 保存后再设置path
         }
         
         boolean result = this.save(organization);
         
-        // 对于根组织，需要在保存后设置path（因为需要用到自己的ID）
-        if (result && organization.getParentId() == null) {
-            organization.setPath(organization.getId().toString());
-            this.updateById(organization);
+        // path包含自身ID，需要在保存后设置
+        if (result) {
+            applyHierarchy(organization, parent);
+            refreshTreeSnapshot(organization.getId(), TreeChange.NODE);
         }
         
         return result;
@@ -193,7 +279,77 @@ public class OrganizationServiceImpl extends ServiceImpl<OrganizationMapper, Org
         }
         organization.setLevel(existingOrg.getLevel());
         
-        return this.updateById(organization);
+        // 成员数量由团员变动增量维护，不接受外部传入
+        organization.setMemberCount(null);
+        organization.setTotalMemberCount(null);
+        
+        // 上级组织变更时，整棵子树的path和level随之移动
+        Integer newParentId = organization.getParentId();
+        boolean moved = newParentId != null && !newParentId.equals(existingOrg.getParentId());
+        if (moved) {
+            moveSubtree(existingOrg, newParentId, organization);
+        }
+        
+        boolean result = this.updateById(organization);
+        
+        if (moved && StringUtils.hasText(organization.getPath())) {
+            organizationMapper.syncHierarchyByPath(organization.getPath());
+        }
+        
+        if (result) {
+            refreshTreeSnapshot(organization.getId(), moved ? TreeChange.SUBTREE : TreeChange.NODE);
+        }
+        return result;
+    }
+    
+    /**
+     * 将组织及其子树移动到新的上级组织下，一条UPDATE改写整棵子树的path和level
+     * 
+     * @param existingOrg 移动前的组织
+     * @param newParentId 新上级组织ID
+     * @param target 待更新的组织对象，写入新的path和level
+     */
+    private void moveSubtree(Organization existingOrg, Integer newParentId, Organization target) {
+        if (newParentId.equals(existingOrg.getId())) {
+            throw new BusinessException("不能将组织设置为自身的上级组织");
+        }
+        
+        Organization newParent = this.getById(newParentId);
+        if (newParent == null) {
+            throw new ResourceNotFoundException("上级组织", "id", newParentId);
+        }
+        
+        String oldPath = existingOrg.getPath();
+        if (isPathInSubtree(newParent.getPath(), oldPath)) {
+            throw new BusinessException("不能将组织移动到其下级组织中");
+        }
+        
+        String newPath = pathOf(newParent) + "," + existingOrg.getId();
+        int newLevel = (newParent.getLevel() != null ? newParent.getLevel() : 0) + 1;
+        int oldLevel = existingOrg.getLevel() != null ? existingOrg.getLevel() : 0;
+        
+        // 子树的团员总数从原上级链路移到新上级链路
+        int subtreeMembers = nullToZero(existingOrg.getTotalMemberCount());
+        if (subtreeMembers != 0) {
+            applyTotalMemberCountDelta(getAncestorOrganizationIds(existingOrg.getId()), -subtreeMembers);
+            List<Integer> newAncestors = new ArrayList<>(getAncestorOrganizationIds(newParentId));
+            newAncestors.add(newParentId);
+            applyTotalMemberCountDelta(newAncestors, subtreeMembers);
+        }
+        
+        if (StringUtils.hasText(oldPath)) {
+            organizationMapper.updateSubtreePath(oldPath, newPath, newLevel - oldLevel);
+        }
+        target.setPath(newPath);
+        target.setLevel(newLevel);
+        
+        // 维护新旧上级组织的叶子节点状态
+        if (newParent.getIsLeaf() == null || newParent.getIsLeaf()) {
+            updateLeafFlag(newParentId, false);
+        }
+        if (existingOrg.getParentId() != null) {
+            refreshLeafFlag(existingOrg.getParentId(), existingOrg.getId());
+        }
     }
     
     @Override
@@ -221,23 +377,89 @@ public class OrganizationServiceImpl extends ServiceImpl<OrganizationMapper, Org
         
         // 更新父组织状态
         if (org.getParentId() != null) {
-            // 检查父组织下是否还有其他子组织
-            LambdaQueryWrapper<Organization> parentQueryWrapper = new LambdaQueryWrapper<>();
-            parentQueryWrapper.eq(Organization::getParentId, org.getParentId());
-            parentQueryWrapper.ne(Organization::getId, id);
-            long siblingCount = this.count(parentQueryWrapper);
+            refreshLeafFlag(org.getParentId(), id);
+        }
+        
+        // 上级组织的团员总数扣除该组织的成员
+        applyTotalMemberCountDelta(getAncestorOrganizationIds(id), -nullToZero(org.getTotalMemberCount()));
+        
+        organizationMapper.deleteHierarchy(id);
+        boolean result = this.removeById(id);
+        if (result) {
+            refreshTreeSnapshot(id, TreeChange.REMOVED);
+        }
+        return result;
+    }
+    
+    /**
+     * 若上级组织除指定组织外已没有其他子组织，将其设置为叶子节点
+     * 
+     * @param parentId 上级组织ID
+     * @param excludeId 排除的子组织ID（正在删除或移出的组织）
+     */
+    private void refreshLeafFlag(Integer parentId, Integer excludeId) {
+        // 检查父组织下是否还有其他子组织
+        LambdaQueryWrapper<Organization> parentQueryWrapper = new LambdaQueryWrapper<>();
+        parentQueryWrapper.eq(Organization::getParentId, parentId);
+        parentQueryWrapper.ne(Organization::getId, excludeId);
+        long siblingCount = this.count(parentQueryWrapper);
+        
+        // 如果没有其他子组织，将父组织设置为叶子节点
+        if (siblingCount == 0) {
+            updateLeafFlag(parentId, true);
+        }
+    }
+    
+    /**
+     * 只更新组织的叶子节点标记
+     * 不能用读出的整个实体回写，否则会覆盖期间以增量方式修改的成员数量
+     */
+    private void updateLeafFlag(Integer organizationId, boolean isLeaf) {
+        Organization update = new Organization();
+        update.setId(organizationId);
+        update.setIsLeaf(isLeaf);
+        this.updateById(update);
+    }
+    
+    /**
+     * 保存组织后写入path并同步organization_hierarchy，path格式为"顶层ID,...,自身ID"
+     * 
+     * @param organization 已保存的组织
+     * @param parent 上级组织，根组织为null
+     */
+    private void applyHierarchy(Organization organization, Organization parent) {
+        if (parent != null) {
+            organization.setPath(pathOf(parent) + "," + organization.getId());
             
-            // 如果没有其他子组织，将父组织设置为叶子节点
-            if (siblingCount == 0) {
-                Organization parent = this.getById(org.getParentId());
-                if (parent != null) {
-                    parent.setIsLeaf(true);
-                    this.updateById(parent);
-                }
+            // 将父组织设置为非叶子节点
+            if (parent.getIsLeaf() == null || parent.getIsLeaf()) {
+                updateLeafFlag(parent.getId(), false);
             }
+        } else {
+            organization.setPath(organization.getId().toString());
         }
-        
-        return this.removeById(id);
+        Organization update = new Organization();
+        update.setId(organization.getId());
+        update.setPath(organization.getPath());
+        this.updateById(update);
+        organizationMapper.syncHierarchyByPath(organization.getPath());
+    }
+    
+    /**
+     * 获取组织的path，path缺失时退回使用自身ID
+     */
+    private String pathOf(Organization organization) {
+        return StringUtils.hasText(organization.getPath()) ? organization.getPath() : organization.getId().toString();
+    }
+    
+    /**
+     * 判断path是否位于以rootPath为根的子树中（包括根节点本身）
+     */
+    private boolean isPathInSubtree(String path, String rootPath) {
+        if (!StringUtils.hasText(path) || !StringUtils.hasText(rootPath)) {
+            return false;
+        }
+        return path.equals(rootPath) || path.startsWith(rootPath + ",");
     }
     
     // 辅助方法，构建组织树，不是接口方法
@@ -275,61 +497,33 @@ public class OrganizationServiceImpl extends ServiceImpl<OrganizationMapper, Org
         List<Organization> result = new ArrayList<>();
         
         try {
-            if (rootId == null) {
-                // 如果不指定根节点，获取所有顶级组织
-                List<Organization> roots = this.getRootOrganizations();
+            OrganizationTreeSnapshot snapshot = rootId == null ? currentTreeSnapshot() : null;
+            if (snapshot != null) {
+                for (Organization root : snapshot.roots()) {
+                    result.add(applyMemberCounts(root));
+                }
+            } else if (rootId == null) {
+                // 快照不可用时，一次查询全部组织后在内存中组装
+                List<Organization> allOrgs = organizationMapper.selectAllWithParentName();
+                List<Organization> roots = allOrgs.stream()
+                        .filter(org -> org.getParentId() == null)
+                        .collect(Collectors.toList());
                 
                 // 检查是否有根组织
-                if (roots == null || roots.isEmpty()) {
+                if (roots.isEmpty() && !allOrgs.isEmpty()) {
                     log.warn("未找到任何根组织，尝试查找任何组织作为根");
-                    
-                    // 尝试获取任何组织作为根
-                    LambdaQueryWrapper<Organization> queryWrapper = new LambdaQueryWrapper<>();
-                    queryWrapper.last("LIMIT 1");
-                    Organization anyOrg = this.getOne(queryWrapper);
-                    
-                    if (anyOrg != null) {
-                        log.info("将组织ID={}设置为根组织", anyOrg.getId());
-                        // 可以选择修复数据，但这里为了安全只在内存中处理
-                        anyOrg.setParentId(null);
-                        roots = new ArrayList<>();
-                        roots.add(anyOrg);
-                    }
+                    Organization anyOrg = allOrgs.get(0);
+                    log.info("将组织ID={}设置为根组织", anyOrg.getId());
+                    // 可以选择修复数据，但这里为了安全只在内存中处理
+                    anyOrg.setParentId(null);
+                    roots.add(anyOrg);
                 }
                 
-                // 构建每一个根的树结构
-                for (Organization root : roots) {
-                    try {
-                        buildOrganizationTree(root);
-                        result.add(root);
-                    } catch (Exception e) {
-                        log.error("构建组织树出错，根ID={}: {}", root.getId(), e.getMessage());
-                        // 至少添加根节点
-                        if (root.getChildren() == null) {
-                            root.setChildren(new ArrayList<>());
-                        }
-                        result.add(root);
-                    }
-                }
+                assembleTree(allOrgs, null);
+                result.addAll(roots);
             } else {
                 // 指定根节点，只构建该节点及其子节点的树
-                Organization root = organizationMapper.selectOrganizationDetail(rootId);
-                if (root == null) {
-                    log.warn("未找到ID={}的组织", rootId);
-                    throw new ResourceNotFoundException("组织", "id", rootId);
-                }
-                
-                try {
-                    buildOrganizationTree(root);
-                    result.add(root);
-                } catch (Exception e) {
-                    log.error("构建组织树出错，根ID={}: {}", rootId, e.getMessage());
-                    // 至少添加根节点
-                    if (root.getChildren() == null) {
-                        root.setChildren(new ArrayList<>());
-                    }
-                    result.add(root);
-                }
+                result.addAll(getOrganizationSubtree(rootId, null));
             }
         } catch (Exception e) {
             log.error("获取组织树失败: {}", e.getMessage());
@@ -345,73 +539,196 @@ public class OrganizationServiceImpl extends ServiceImpl<OrganizationMapper, Org
         return result;
     }
     
+    @Override
+    public List<Organization> getOrganizationSubtree(Integer rootId, Integer depth) {
+        if (rootId == null) {
+            throw new BusinessException("组织ID不能为空");
+        }
+        
+        OrganizationTreeSnapshot snapshot = currentTreeSnapshot();
+        if (snapshot != null && snapshot.contains(rootId)) {
+            List<Organization> result = new ArrayList<>();
+            result.add(applyMemberCounts(snapshot.subtree(rootId, depth)));
+            return result;
+        }
+        
+        // 快照不可用或尚未包含该组织（其他实例刚创建）时查询数据库
+        Organization root = organizationMapper.selectOrganizationDetail(rootId);
+        if (root == null) {
+            log.warn("未找到ID={}的组织", rootId);
+            throw new ResourceNotFoundException("组织", "id", rootId);
+        }
+        
+        Integer maxLevel = null;
+        if (depth != null) {
+            maxLevel = (root.getLevel() != null ? root.getLevel() : 0) + Math.max(depth, 0);
+        }
+        
+        List<Organization> nodes;
+        if (StringUtils.hasText(root.getPath())) {
+            // 按path前缀一次查询整棵子树
+            nodes = organizationMapper.selectSubtreeByPath(root.getPath(), maxLevel);
+        } else {
+            log.warn("组织ID={}的path缺失，退回全表加载构建子树", rootId);
+            nodes = organizationMapper.selectAllWithParentName();
+        }
+        
+        // 使用查询结果中的根节点，保证与子节点引用一致
+        Organization treeRoot = nodes.stream()
+                .filter(org -> rootId.equals(org.getId()))
+                .findFirst()
+                .orElse(null);
+        if (treeRoot == null) {
+            treeRoot = root;
+            nodes.add(0, treeRoot);
+        }
+        
+        assembleTree(nodes, maxLevel);
+        
+        List<Organization> result = new ArrayList<>();
+        result.add(treeRoot);
+        return result;
+    }
+    
     /**
-     * 递归构建组织树 - 增强错误处理
+     * 在内存中按parentId组装树结构，设置每个节点的children和叶子状态
      * 
-     * @param organization 当前组织节点
+     * @param nodes 已按层级排序的组织列表
+     * @param maxLevel 子树的最大层级，处于该层级的节点保留数据库中的叶子状态；为null表示完整树
      */
-    private void buildOrganizationTree(Organization organization) {
+    private void assembleTree(List<Organization> nodes, Integer maxLevel) {
+        Map<Integer, Organization> nodeMap = new HashMap<>();
+        for (Organization node : nodes) {
+            node.setChildren(new ArrayList<>());
+            nodeMap.put(node.getId(), node);
+        }
+        
+        for (Organization node : nodes) {
+            Organization parent = node.getParentId() != null ? nodeMap.get(node.getParentId()) : null;
+            if (parent != null) {
+                parent.getChildren().add(node);
+            }
+            
+            // path缺失时只在内存中补全，持久化修复由rebuildHierarchy完成
+            if (!StringUtils.hasText(node.getPath())) {
+                node.setPath(parent != null ? pathOf(parent) + "," + node.getId() : node.getId().toString());
+            }
+        }
+        
+        for (Organization node : nodes) {
+            boolean atBoundary = maxLevel != null && node.getLevel() != null && node.getLevel() >= maxLevel;
+            if (!atBoundary) {
+                node.setIsLeaf(node.getChildren().isEmpty());
+            }
+        }
+    }
+    
+    @Override
+    public List<Integer> getAncestorOrganizationIds(Integer organizationId) {
+        OrganizationTreeSnapshot snapshot = currentTreeSnapshot();
+        if (snapshot != null && snapshot.contains(organizationId)) {
+            return snapshot.ancestorIds(organizationId);
+        }
+        
+        List<Integer> result = new ArrayList<>();
+        Organization organization = this.getById(organizationId);
         if (organization == null) {
-            log.warn("无法为null组织构建树");
-            return;
+            return result;
         }
         
-        try {
-            // 检查当前节点是否有path，如果没有尝试修复
-            if (organization.getPath() == null || organization.getPath().isEmpty()) {
-                if (organization.getParentId() == null) {
-                    // 根节点的path就是自己的ID
-                    organization.setPath(organization.getId().toString());
-                } else {
-                    // 需要查询父节点获取path
-                    Organization parent = this.getById(organization.getParentId());
-                    if (parent != null && parent.getPath() != null) {
-                        organization.setPath(parent.getPath() + "," + organization.getId());
-                    } else {
-                        // 父节点不可用，使用自己的ID作为path
-                        organization.setPath(organization.getId().toString());
-                    }
+        if (StringUtils.hasText(organization.getPath())) {
+            for (String id : organization.getPath().split(",")) {
+                if (StringUtils.hasText(id) && !id.trim().equals(organizationId.toString())) {
+                    result.add(Integer.valueOf(id.trim()));
                 }
             }
+            return result;
+        }
+        
+        // path缺失时沿parent_id逐级向上查找
+        Set<Integer> visited = new HashSet<>();
+        Integer parentId = organization.getParentId();
+        while (parentId != null && visited.add(parentId)) {
+            result.add(0, parentId);
+            Organization parent = this.getById(parentId);
+            parentId = parent != null ? parent.getParentId() : null;
+        }
+        return result;
+    }
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int rebuildHierarchy() {
+        List<Organization> allOrgs = this.list();
+        Map<Integer, Organization> orgMap = allOrgs.stream()
+                .collect(Collectors.toMap(Organization::getId, Function.identity()));
+        
+        Set<Integer> parentIds = allOrgs.stream()
+                .map(Organization::getParentId)
+                .filter(orgMap::containsKey)
+                .collect(Collectors.toSet());
+        
+        Map<Integer, String> paths = new HashMap<>();
+        List<Organization> changed = new ArrayList<>();
+        for (Organization org : allOrgs) {
+            String path = resolvePath(org, orgMap, paths, new HashSet<>());
+            int level = path.split(",").length - 1;
+            boolean hasChildren = parentIds.contains(org.getId());
             
-            // 获取子节点
-            List<Organization> children = organizationMapper.selectChildrenByParentId(organization.getId());
-            
-            // 确保children不为null
-            if (children == null) {
-                children = new ArrayList<>();
+            if (!path.equals(org.getPath()) || org.getLevel() == null || org.getLevel() != level
+                    || org.getIsLeaf() == null || org.getIsLeaf() == hasChildren) {
+                Organization update = new Organization();
+                update.setId(org.getId());
+                update.setPath(path);
+                update.setLevel(level);
+                update.setIsLeaf(!hasChildren);
+                changed.add(update);
             }
-            
-            if (!children.isEmpty()) {
-                // 如果有子节点，设置非叶子状态
-                if (organization.getIsLeaf() == null || organization.getIsLeaf()) {
-                    organization.setIsLeaf(false);
-                }
-                
-                organization.setChildren(children);
-                
-                // 递归处理子节点
-                for (Organization child : children) {
-                    try {
-                        buildOrganizationTree(child);
-                    } catch (Exception e) {
-                        log.error("构建子组织树出错，ID={}: {}", child.getId(), e.getMessage());
-                        // 为出错的子节点设置空子列表
-                        child.setChildren(new ArrayList<>());
-                    }
-                }
-            } else {
-                // 没有子节点，设置为叶子节点
-                organization.setChildren(new ArrayList<>());
-                if (organization.getIsLeaf() == null || !organization.getIsLeaf()) {
-                    organization.setIsLeaf(true);
-                }
+        }
+        
+        if (!changed.isEmpty()) {
+            this.updateBatchById(changed);
+        }
+        
+        // 以各根节点为起点同步organization_hierarchy
+        organizationMapper.deleteOrphanHierarchy();
+        for (Organization org : allOrgs) {
+            String path = paths.get(org.getId());
+            if (path != null && !path.contains(",")) {
+                organizationMapper.syncHierarchyByPath(path);
             }
-        } catch (Exception e) {
-            log.error("构建组织树过程中出错，组织ID={}: {}", organization.getId(), e.getMessage());
-            // 确保children不为null
-            organization.setChildren(new ArrayList<>());
         }
+        
+        refreshTreeSnapshot((Integer) null, TreeChange.ALL);
+        log.info("组织层级重建完成，共修正 {} 个组织", changed.size());
+        return changed.size();
+    }
+    
+    /**
+     * 沿parent_id计算组织的path，检测到环或上级缺失时将该节点视为根节点
+     */
+    private String resolvePath(Organization org, Map<Integer, Organization> orgMap,
+                               Map<Integer, String> paths, Set<Integer> visiting) {
+        String cached = paths.get(org.getId());
+        if (cached != null) {
+            return cached;
+        }
+        
+        String path;
+        Organization parent = org.getParentId() != null ? orgMap.get(org.getParentId()) : null;
+        if (parent == null || !visiting.add(org.getId())) {
+            if (parent != null) {
+                log.warn("组织ID={}的上级关系存在环，按根节点处理", org.getId());
+            }
+            path = org.getId().toString();
+        } else {
+            String parentPath = resolvePath(parent, orgMap, paths, visiting);
+            // 环上的节点可能已在递归中被确定为根节点
+            String resolved = paths.get(org.getId());
+            path = resolved != null ? resolved : parentPath + "," + org.getId();
+        }
+        paths.put(org.getId(), path);
+        return path;
     }
     
     @Override
@@ -431,8 +748,9 @@ public class OrganizationServiceImpl extends ServiceImpl<OrganizationMapper, Org
         }
         
         // 计算组织层级
+        Organization parent = null;
         if (organization.getParentId() != null) {
-            Organization parent = this.getById(organization.getParentId());
+            parent = this.getById(organization.getParentId());
             if (parent == null) {
                 throw new ResourceNotFoundException("上级组织", "id", organization.getParentId());
             }
@@ -449,7 +767,15 @@ public class OrganizationServiceImpl extends ServiceImpl<OrganizationMapper, Org
         organization.setCreateTime(now);
         organization.setUpdateTime(now);
         
-        return this.save(organization);
+        boolean result = this.save(organization);
+        
+        // path包含自身ID，需要在保存后设置
+        if (result) {
+            applyHierarchy(organization, parent);
+            refreshTreeSnapshot(organization.getId(), TreeChange.NODE);
+        }
+        
+        return result;
     }
     
     @Override
@@ -465,10 +791,123 @@ public class OrganizationServiceImpl extends ServiceImpl<OrganizationMapper, Org
         }
         
         int count = organizationMapper.countUsersByOrganizationId(organizationId);
-        organization.setMemberCount(count);
-        organization.setUpdateTime(LocalDateTime.now());
+        int delta = count - nullToZero(organization.getMemberCount());
         
-        return this.updateById(organization);
+        Organization update = new Organization();
+        update.setId(organizationId);
+        update.setMemberCount(count);
+        update.setUpdateTime(LocalDateTime.now());
+        
+        boolean result = this.updateById(update);
+        if (result) {
+            adjustTotalMemberCount(organizationId, delta);
+        }
+        return result;
+    }
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void adjustMemberCount(Integer organizationId, int delta) {
+        if (organizationId == null || delta == 0) {
+            return;
+        }
+        if (organizationMapper.incrementMemberCount(organizationId, delta) > 0) {
+            adjustTotalMemberCount(organizationId, delta);
+        }
+    }
+    
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int reconcileMemberCounts() {
+        // 先修正直属成员数量，再据此汇总团员总数
+        int directFixed = organizationMapper.reconcileMemberCounts();
+        int totalFixed = organizationMapper.reconcileTotalMemberCounts();
+        if (directFixed + totalFixed > 0) {
+            log.warn("组织成员数量存在偏差，已修正直属成员数量 {} 个、团员总数 {} 个", directFixed, totalFixed);
+            runAfterCommit(this::reloadMemberCounts);
+        }
+        return directFixed + totalFixed;
+    }
+    
+    /**
+     * 调整组织自身及其全部上级组织的团员总数，写入次数与组织层级深度相同
+     */
+    private void adjustTotalMemberCount(Integer organizationId, int delta) {
+        List<Integer> chain = new ArrayList<>(getAncestorOrganizationIds(organizationId));
+        chain.add(organizationId);
+        if (delta != 0) {
+            applyTotalMemberCountDelta(chain, delta);
+        } else {
+            refreshMemberCounts(Collections.singletonList(organizationId));
+        }
+    }
+    
+    private void applyTotalMemberCountDelta(List<Integer> organizationIds, int delta) {
+        if (organizationIds.isEmpty() || delta == 0) {
+            return;
+        }
+        organizationMapper.incrementTotalMemberCount(organizationIds, delta);
+        refreshMemberCounts(organizationIds);
+    }
+    
+    /**
+     * 成员数量变动提交后重新读取受影响组织的计数，不递增组织树版本
+     */
+    private void refreshMemberCounts(List<Integer> organizationIds) {
+        runAfterCommit(() -> {
+            try {
+                putMemberCounts(organizationMapper.selectList(memberCountQuery().in(Organization::getId, organizationIds)));
+            } catch (Exception e) {
+                log.warn("读取组织成员计数失败，将在下次定期加载时同步: {}", e.getMessage());
+            }
+        });
+    }
+    
+    private LambdaQueryWrapper<Organization> memberCountQuery() {
+        return new LambdaQueryWrapper<Organization>()
+                .select(Organization::getId, Organization::getMemberCount, Organization::getTotalMemberCount);
+    }
+    
+    private void putMemberCounts(List<Organization> counts) {
+        for (Organization org : counts) {
+            putCount(directMemberCounts, org.getId(), org.getMemberCount());
+            putCount(totalMemberCounts, org.getId(), org.getTotalMemberCount());
+        }
+    }
+    
+    private void putCount(Map<Integer, Integer> counts, Integer organizationId, Integer count) {
+        if (count != null) {
+            counts.put(organizationId, count);
+        } else {
+            counts.remove(organizationId);
+        }
+    }
+    
+    /**
+     * 用最新的成员计数覆盖快照副本中的计数，包括全部已展开的下级组织
+     */
+    private Organization applyMemberCounts(Organization organization) {
+        if (organization == null) {
+            return null;
+        }
+        Integer memberCount = directMemberCounts.get(organization.getId());
+        if (memberCount != null) {
+            organization.setMemberCount(memberCount);
+        }
+        Integer totalMemberCount = totalMemberCounts.get(organization.getId());
+        if (totalMemberCount != null) {
+            organization.setTotalMemberCount(totalMemberCount);
+        }
+        if (organization.getChildren() != null) {
+            for (Organization child : organization.getChildren()) {
+                applyMemberCounts(child);
+            }
+        }
+        return organization;
+    }
+    
+    private int nullToZero(Integer value) {
+        return value != null ? value : 0;
     }
 
     @Override
@@ -477,6 +916,11 @@ public class OrganizationServiceImpl extends ServiceImpl<OrganizationMapper, Org
             return false;
         }
         
+        OrganizationTreeSnapshot snapshot = currentTreeSnapshot();
+        if (snapshot != null && snapshot.contains(childId)) {
+            return snapshot.isAncestor(parentId, childId);
+        }
+        
         Organization child = this.getById(childId);
         if (child == null || !StringUtils.hasText(child.getPath())) {
             return false;
@@ -501,14 +945,52 @@ public class OrganizationServiceImpl extends ServiceImpl<OrganizationMapper, Org
         return super.getById(id);
     }
 
+    @Override
+    public Map<Integer, Organization> getOrganizationMap(Collection<Integer> ids) {
+        Map<Integer, Organization> organizations = new HashMap<>();
+        if (ids == null || ids.isEmpty()) {
+            return organizations;
+        }
+        
+        // 优先从组织树快照读取，快照中没有的再批量查询数据库
+        OrganizationTreeSnapshot snapshot = currentTreeSnapshot();
+        List<Integer> missingIds = new ArrayList<>();
+        for (Integer id : ids) {
+            if (id == null) {
+                continue;
+            }
+            if (snapshot != null && snapshot.contains(id)) {
+                organizations.put(id, applyMemberCounts(snapshot.get(id)));
+            } else {
+                missingIds.add(id);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            for (Organization organization : super.listByIds(missingIds)) {
+                organizations.put(organization.getId(), organization);
+            }
+        }
+        return organizations;
+    }
+
     @Override
     public int countDirectMembersByOrganizationId(Integer organizationId) {
         if (organizationId == null) {
             throw new BusinessException("组织ID不能为空");
         }
         
-        // 从Mapper中获取直接隶属于当前组织的用户数量
-        return organizationMapper.countUsersByOrganizationId(organizationId);
+        // 直属成员数量由团员变动增量维护，直接读取计数
+        Integer memberCount = directMemberCounts.get(organizationId);
+        if (memberCount != null) {
+            return memberCount;
+        }
+        OrganizationTreeSnapshot snapshot = currentTreeSnapshot();
+        Organization organization = snapshot != null && snapshot.contains(organizationId)
+                ? snapshot.get(organizationId) : this.getById(organizationId);
+        if (organization == null || organization.getMemberCount() == null) {
+            return organizationMapper.countUsersByOrganizationId(organizationId);
+        }
+        return organization.getMemberCount();
     }
     
     @Override
@@ -517,20 +999,18 @@ public class OrganizationServiceImpl extends ServiceImpl<OrganizationMapper, Org
             throw new BusinessException("组织ID不能为空");
         }
         
-        // 先计算直属成员数量
-        int totalCount = countDirectMembersByOrganizationId(organizationId);
-        
-        // 获取所有子组织
-        List<Organization> children = getChildrenByParentId(organizationId);
-        
-        // 递归统计所有子组织的成员数量
-        if (children != null && !children.isEmpty()) {
-            for (Organization child : children) {
-                totalCount += calculateTotalMemberCount(child.getId());
-            }
+        // 团员总数沿上级路径增量维护，直接读取计数；计数缺失时按path前缀统计整棵子树
+        Integer totalMemberCount = totalMemberCounts.get(organizationId);
+        if (totalMemberCount != null) {
+            return totalMemberCount;
         }
-        
-        return totalCount;
+        OrganizationTreeSnapshot snapshot = currentTreeSnapshot();
+        Organization organization = snapshot != null && snapshot.contains(organizationId)
+                ? snapshot.get(organizationId) : this.getById(organizationId);
+        if (organization == null || organization.getTotalMemberCount() == null) {
+            return organizationMapper.countUsersInSubtree(organizationId);
+        }
+        return organization.getTotalMemberCount();
     }
 
     /**
@@ -550,32 +1030,161 @@ public class OrganizationServiceImpl extends ServiceImpl<OrganizationMapper, Org
             return result; // 如果ID为空，返回空列表
         }
         
-        // 递归收集所有子组织ID
-        collectChildOrganizationIds(organizationId, result);
+        OrganizationTreeSnapshot snapshot = currentTreeSnapshot();
+        if (snapshot != null && snapshot.contains(organizationId)) {
+            return snapshot.selfAndDescendantIds(organizationId);
+        }
+        
+        // 按path前缀一次查询所有下级组织，path缺失时退回按parent_id递归查询
+        List<Integer> subtreeIds = organizationMapper.selectSelfAndDescendantIds(organizationId);
+        if (subtreeIds == null || subtreeIds.isEmpty()) {
+            subtreeIds = organizationMapper.getSubOrganizationIds(organizationId);
+        }
+        for (Integer id : subtreeIds) {
+            if (!organizationId.equals(id)) {
+                result.add(id);
+            }
+        }
         
         return result;
     }
 
+    
+    /**
+     * 获取当前组织树快照，快照不存在或已落后于最新版本时重新加载
+     * 
+     * @return 组织树快照，加载失败时返回null，由调用方退回查询数据库
+     */
+    private OrganizationTreeSnapshot currentTreeSnapshot() {
+        OrganizationTreeSnapshot snapshot = treeSnapshot;
+        if (snapshot != null && snapshot.version() >= latestTreeVersion.get()) {
+            return snapshot;
+        }
+        synchronized (treeSnapshotLock) {
+            snapshot = treeSnapshot;
+            if (snapshot != null && snapshot.version() >= latestTreeVersion.get()) {
+                return snapshot;
+            }
+            try {
+                // 先读版本号再加载数据，加载期间发生的变更会使版本号继续递增并触发下一次加载
+                long version = Math.max(readTreeVersion(), latestTreeVersion.get());
+                snapshot = OrganizationTreeSnapshot.build(version, organizationMapper.selectAllWithParentName());
+                treeSnapshot = snapshot;
+                log.debug("组织树快照加载完成，版本 {}", version);
+                return snapshot;
+            } catch (Exception e) {
+                log.error("加载组织树快照失败: {}", e.getMessage());
+                return null;
+            }
+        }
+    }
+    
+    private void refreshTreeSnapshot(Integer organizationId, TreeChange change) {
+        refreshTreeSnapshot(Collections.singletonList(organizationId), change);
+    }
+    
     /**
-     * 递归收集所有子组织ID
+     * 组织变更后更新组织树快照，事务中调用时在提交后执行
      * 
-     * @param parentId 父组织ID
-     * @param resultList 结果列表，方法将向此列表添加元素
+     * @param organizationIds 变更的组织ID
+     * @param change 变更类型
+     */
+    private void refreshTreeSnapshot(List<Integer> organizationIds, TreeChange change) {
+        runAfterCommit(() -> doRefreshTreeSnapshot(organizationIds, change));
+    }
+    
+    /**
+     * 事务中调用时在提交后执行，否则立即执行
      */
-    private void collectChildOrganizationIds(Integer parentId, List<Integer> resultList) {
-        // 获取直接子组织
-        List<Organization> children = getChildrenByParentId(parentId);
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+    
+    private void doRefreshTreeSnapshot(List<Integer> organizationIds, TreeChange change) {
+        long version;
+        try {
+            Long incremented = redisTemplate.opsForValue().increment(RedisKeyConstant.ORGANIZATION_TREE_VERSION);
+            version = incremented != null ? incremented : latestTreeVersion.get() + 1;
+        } catch (Exception e) {
+            // 无法递增版本号时只丢弃本地快照，其他实例将在下次核对版本号时感知不到本次变更
+            log.warn("递增组织树版本号失败，本地快照将重新加载: {}", e.getMessage());
+            treeSnapshot = null;
+            return;
+        }
         
-        if (children != null && !children.isEmpty()) {
-            for (Organization child : children) {
-                Integer childId = child.getId();
-                
-                // 添加子组织ID
-                resultList.add(childId);
-                
-                // 递归收集子组织的子组织
-                collectChildOrganizationIds(childId, resultList);
+        synchronized (treeSnapshotLock) {
+            OrganizationTreeSnapshot snapshot = treeSnapshot;
+            // 只有快照恰好是上一版本时才能增量更新，否则留待下次读取时全量加载
+            if (snapshot != null && snapshot.version() == version - 1) {
+                try {
+                    treeSnapshot = applyTreeChange(snapshot, version, organizationIds, change);
+                } catch (Exception e) {
+                    log.warn("增量更新组织树快照失败，将全量重新加载: {}", e.getMessage());
+                    treeSnapshot = null;
+                }
             }
+            markTreeVersion(version);
         }
+        
+        try {
+            redisTemplate.convertAndSend(RedisKeyConstant.ORGANIZATION_TREE_CHANNEL, version);
+        } catch (Exception e) {
+            log.warn("广播组织树版本失败，其他实例将在下次核对版本号时同步: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 只重新读取受影响的组织，在当前快照的基础上生成新版本的快照
+     */
+    private OrganizationTreeSnapshot applyTreeChange(OrganizationTreeSnapshot snapshot, long version,
+                                                     List<Integer> organizationIds, TreeChange change) {
+        Integer organizationId = organizationIds.get(0);
+        if (change == TreeChange.ALL || organizationId == null) {
+            return null;
+        }
+        if (change == TreeChange.REMOVED) {
+            return snapshot.withRemoved(version, organizationId);
+        }
+        
+        if (change == TreeChange.SUBTREE) {
+            Organization organization = organizationMapper.selectOrganizationDetail(organizationId);
+            if (organization == null) {
+                return snapshot.withRemoved(version, organizationId);
+            }
+            if (StringUtils.hasText(organization.getPath())) {
+                return snapshot.withUpserted(version, organizationMapper.selectSubtreeByPath(organization.getPath(), null));
+            }
+            return snapshot.withUpserted(version, Collections.singletonList(organization));
+        }
+        
+        List<Organization> organizations = organizationMapper.selectBatchIds(organizationIds);
+        if (organizations.size() < organizationIds.size()) {
+            // 部分组织已不存在，全量重新加载
+            return null;
+        }
+        return snapshot.withUpserted(version, organizations);
+    }
+    
+    private long readTreeVersion() {
+        try {
+            Object value = redisTemplate.opsForValue().get(RedisKeyConstant.ORGANIZATION_TREE_VERSION);
+            return value != null ? Long.parseLong(value.toString()) : 0L;
+        } catch (Exception e) {
+            log.warn("读取组织树版本号失败: {}", e.getMessage());
+            return latestTreeVersion.get();
+        }
+    }
+    
+    private void markTreeVersion(long version) {
+        latestTreeVersion.accumulateAndGet(version, Math::max);
     }
-} 
\ No newline at end of file
+}
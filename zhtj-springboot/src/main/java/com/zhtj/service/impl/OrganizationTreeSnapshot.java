@@ -0,0 +1,241 @@
+package com.zhtj.service.impl;
+
+import com.zhtj.domain.Organization;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 组织树快照
+ * 构建后不再修改，变更时复制出新的快照（copy-on-write），可在线程间无锁共享。
+ * 快照中的Organization对象只在内部共享，对外一律返回副本，调用方修改返回值不会影响快照。
+ */
+final class OrganizationTreeSnapshot {
+
+    private final long version;
+
+    // 原始组织数据（不含children），保持查询时的排序，用于生成下一个快照
+    private final Map<Integer, Organization> source;
+
+    // id -> 已链接children的树节点
+    private final Map<Integer, Organization> nodes;
+
+    // parentId -> 直接子组织ID
+    private final Map<Integer, List<Integer>> childIds;
+
+    private final List<Organization> roots;
+
+    private OrganizationTreeSnapshot(long version, Map<Integer, Organization> source) {
+        this.version = version;
+        this.source = source;
+        this.nodes = new HashMap<>(source.size() * 2);
+        this.childIds = new HashMap<>();
+
+        Map<Integer, List<Organization>> childrenByParent = new HashMap<>();
+        for (Organization raw : source.values()) {
+            Organization node = copyOf(raw);
+            nodes.put(node.getId(), node);
+        }
+
+        List<Organization> rootList = new ArrayList<>();
+        // 按source顺序挂接子节点，保证同级排序稳定
+        for (Organization raw : source.values()) {
+            Organization node = nodes.get(raw.getId());
+            Integer parentId = node.getParentId();
+            if (parentId != null && nodes.containsKey(parentId)) {
+                // 上级组织名称以快照中的上级节点为准，上级改名时无需重新读取其子组织
+                node.setParentName(nodes.get(parentId).getName());
+                childrenByParent.computeIfAbsent(parentId, k -> new ArrayList<>()).add(node);
+                childIds.computeIfAbsent(parentId, k -> new ArrayList<>()).add(node.getId());
+            } else if (parentId == null) {
+                rootList.add(node);
+            }
+        }
+
+        // 没有根组织时，取第一个组织作为根，与原有树构建逻辑一致
+        if (rootList.isEmpty() && !source.isEmpty()) {
+            Organization first = nodes.get(source.keySet().iterator().next());
+            first.setParentId(null);
+            rootList.add(first);
+        }
+
+        for (Organization node : nodes.values()) {
+            List<Organization> children = childrenByParent.getOrDefault(node.getId(), Collections.emptyList());
+            node.setChildren(Collections.unmodifiableList(children));
+            node.setIsLeaf(children.isEmpty());
+        }
+        fillMissingPaths(rootList);
+
+        this.roots = Collections.unmodifiableList(rootList);
+    }
+
+    /**
+     * 根据全部组织构建快照
+     */
+    static OrganizationTreeSnapshot build(long version, Collection<Organization> organizations) {
+        Map<Integer, Organization> source = new LinkedHashMap<>();
+        for (Organization org : organizations) {
+            source.put(org.getId(), copyOf(org));
+        }
+        return new OrganizationTreeSnapshot(version, source);
+    }
+
+    /**
+     * 新增或替换若干组织，返回新的快照
+     */
+    OrganizationTreeSnapshot withUpserted(long newVersion, Collection<Organization> changed) {
+        Map<Integer, Organization> next = new LinkedHashMap<>(source);
+        for (Organization org : changed) {
+            next.put(org.getId(), copyOf(org));
+        }
+        return new OrganizationTreeSnapshot(newVersion, next);
+    }
+
+    /**
+     * 移除组织，返回新的快照
+     */
+    OrganizationTreeSnapshot withRemoved(long newVersion, Integer organizationId) {
+        Map<Integer, Organization> next = new LinkedHashMap<>(source);
+        next.remove(organizationId);
+        return new OrganizationTreeSnapshot(newVersion, next);
+    }
+
+    long version() {
+        return version;
+    }
+
+    boolean contains(Integer organizationId) {
+        return organizationId != null && nodes.containsKey(organizationId);
+    }
+
+    /**
+     * 获取组织节点的副本，不含children
+     */
+    Organization get(Integer organizationId) {
+        Organization node = organizationId != null ? nodes.get(organizationId) : null;
+        return node != null ? copyOf(node) : null;
+    }
+
+    /**
+     * 全部根组织及其完整子树的副本
+     */
+    List<Organization> roots() {
+        List<Organization> result = new ArrayList<>(roots.size());
+        for (Organization root : roots) {
+            result.add(copyWithDepth(root, Integer.MAX_VALUE));
+        }
+        return result;
+    }
+
+    /**
+     * 获取以指定组织为根的子树
+     *
+     * @param rootId 根组织ID
+     * @param depth 向下展开的层数，为null时返回完整子树
+     * @return 子树根节点的副本，组织不存在时返回null
+     */
+    Organization subtree(Integer rootId, Integer depth) {
+        Organization root = nodes.get(rootId);
+        if (root == null) {
+            return null;
+        }
+        return copyWithDepth(root, depth != null ? Math.max(depth, 0) : Integer.MAX_VALUE);
+    }
+
+    /**
+     * 获取组织自身及全部下级组织ID，自身在首位
+     */
+    List<Integer> selfAndDescendantIds(Integer organizationId) {
+        List<Integer> result = new ArrayList<>();
+        if (!contains(organizationId)) {
+            return result;
+        }
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(organizationId);
+        while (!queue.isEmpty()) {
+            Integer id = queue.poll();
+            result.add(id);
+            queue.addAll(childIds.getOrDefault(id, Collections.emptyList()));
+        }
+        return result;
+    }
+
+    /**
+     * 获取组织的全部上级组织ID，从顶层到直接上级
+     */
+    List<Integer> ancestorIds(Integer organizationId) {
+        List<Integer> result = new ArrayList<>();
+        Organization node = nodes.get(organizationId);
+        Set<Integer> visited = new HashSet<>();
+        while (node != null && node.getParentId() != null && visited.add(node.getId())) {
+            Organization parent = nodes.get(node.getParentId());
+            if (parent == null) {
+                break;
+            }
+            result.add(0, parent.getId());
+            node = parent;
+        }
+        return result;
+    }
+
+    /**
+     * 判断ancestorId是否为organizationId的上级组织（不含自身）
+     */
+    boolean isAncestor(Integer ancestorId, Integer organizationId) {
+        if (ancestorId == null || ancestorId.equals(organizationId)) {
+            return false;
+        }
+        return ancestorIds(organizationId).contains(ancestorId);
+    }
+
+    private Organization copyWithDepth(Organization node, int depth) {
+        Organization copy = copyOf(node);
+        List<Organization> children = new ArrayList<>();
+        if (depth > 0) {
+            for (Organization child : node.getChildren()) {
+                children.add(copyWithDepth(child, depth - 1));
+            }
+        }
+        copy.setChildren(children);
+        return copy;
+    }
+
+    private void fillMissingPaths(List<Organization> rootList) {
+        for (Organization root : rootList) {
+            if (!StringUtils.hasText(root.getPath())) {
+                root.setPath(root.getId().toString());
+            }
+        }
+        Deque<Organization> queue = new ArrayDeque<>(rootList);
+        Set<Integer> visited = new HashSet<>();
+        while (!queue.isEmpty()) {
+            Organization node = queue.poll();
+            if (!visited.add(node.getId())) {
+                continue;
+            }
+            for (Organization child : node.getChildren()) {
+                if (!StringUtils.hasText(child.getPath())) {
+                    child.setPath(node.getPath() + "," + child.getId());
+                }
+                queue.add(child);
+            }
+        }
+    }
+
+    private static Organization copyOf(Organization org) {
+        Organization copy = new Organization();
+        BeanUtils.copyProperties(org, copy, "children");
+        return copy;
+    }
+}
@@ -0,0 +1,130 @@
+package com.zhtj.service.impl;
+
+import com.zhtj.common.constant.RedisKeyConstant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 学习资源分类统计缓存
+ * 每个组织的各分类资源数（含全部下级组织）保存在Redis Hash中，缺失时由调用方从数据库汇总重建；
+ * 资源上传、删除或修改分类时，在事务提交后对该组织及其全部上级组织的统计原子增减。
+ * 组织调整上级等结构变化不在此维护，由过期时间兜底。
+ */
+@Slf4j
+@Component
+class ResourceCategoryStats {
+
+    private static final long STATS_TTL_HOURS = 6;
+
+    private static final String ALL_ORGANIZATIONS = "all";
+
+    // 只增减已存在的统计，避免在缺失的统计上从0开始累加；结果为负说明统计已偏离，删除后重建
+    private static final DefaultRedisScript<Long> INCREMENT_IF_PRESENT = new DefaultRedisScript<>(
+            "for _, key in ipairs(KEYS) do " +
+            "if redis.call('EXISTS', key) == 1 and redis.call('HINCRBY', key, ARGV[1], ARGV[2]) < 0 then " +
+            "redis.call('DEL', key) end " +
+            "end " +
+            "return 0", Long.class);
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 读取组织的分类统计，统计不存在或Redis不可用时返回null
+     *
+     * @param orgId 组织ID，为null时表示全部组织
+     * @return 分类ID到资源数的映射
+     */
+    Map<Integer, Long> get(Integer orgId) {
+        try {
+            Map<Object, Object> entries = redisTemplate.opsForHash().entries(key(orgId));
+            if (entries.isEmpty()) {
+                return null;
+            }
+            Map<Integer, Long> counts = new HashMap<>();
+            for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+                if (entry.getValue() instanceof Number) {
+                    counts.put(Integer.valueOf(entry.getKey().toString()), ((Number) entry.getValue()).longValue());
+                }
+            }
+            return counts;
+        } catch (Exception e) {
+            log.warn("读取资源分类统计失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 写入从数据库汇总的分类统计，应包含全部分类（数量为0的分类也需写入）
+     */
+    void rebuild(Integer orgId, Map<Integer, Long> counts) {
+        try {
+            // 以Integer写入，序列化结果为纯数字，HINCRBY才能直接增减
+            Map<String, Object> fields = new HashMap<>();
+            counts.forEach((categoryId, count) -> fields.put(String.valueOf(categoryId), count.intValue()));
+            String key = key(orgId);
+            redisTemplate.opsForHash().putAll(key, fields);
+            redisTemplate.expire(key, STATS_TTL_HOURS, TimeUnit.HOURS);
+        } catch (Exception e) {
+            log.warn("写入资源分类统计失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 在事务提交后增减组织及其上级组织的分类统计
+     *
+     * @param orgId 资源所属组织ID
+     * @param ancestorIds 上级组织ID
+     * @param categoryId 分类ID
+     * @param delta 增减数量
+     */
+    void increment(Integer orgId, List<Integer> ancestorIds, Integer categoryId, int delta) {
+        if (categoryId == null || delta == 0) {
+            return;
+        }
+        List<String> keys = new ArrayList<>();
+        keys.add(key(null));
+        if (orgId != null) {
+            keys.add(key(orgId));
+        }
+        if (ancestorIds != null) {
+            ancestorIds.forEach(id -> keys.add(key(id)));
+        }
+        afterCommit(() -> redisTemplate.execute(INCREMENT_IF_PRESENT, keys, categoryId, delta));
+    }
+
+    private String key(Integer orgId) {
+        return String.format(RedisKeyConstant.STUDY_RESOURCE_CATEGORY_STATS, orgId != null ? orgId : ALL_ORGANIZATIONS);
+    }
+
+    private void afterCommit(Runnable action) {
+        Runnable safeAction = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.warn("更新资源分类统计失败，将在统计过期后重建: {}", e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeAction.run();
+                }
+            });
+        } else {
+            safeAction.run();
+        }
+    }
+}
@@ -1,25 +1,42 @@
 package com.zhtj.service.impl;
 
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zhtj.common.constant.RedisKeyConstant;
 import com.zhtj.domain.SystemRole;
 import com.zhtj.domain.UserRole;
 import com.zhtj.mapper.SystemRoleMapper;
 import com.zhtj.mapper.UserRoleMapper;
 import com.zhtj.service.RoleService;
+import com.zhtj.util.PermissionTrie;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 角色服务实现类
@@ -35,6 +52,27 @@ public class RoleServiceImpl extends ServiceImpl<SystemRoleMapper, SystemRole> i
     @Autowired
     private UserRoleMapper userRoleMapper;
     
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+    
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+    
+    // 本地近端缓存：用户ID -> 角色编码及编译后的权限前缀树
+    private static final int LOCAL_CACHE_CAPACITY = 10000;
+    private static final long LOCAL_CACHE_TTL = 60 * 1000;
+    
+    // Redis中用户角色编码的缓存时间（秒）
+    private static final long REDIS_CACHE_TTL = 30 * 60;
+    
+    // 广播消息：清空全部用户的角色缓存
+    private static final String EVICT_ALL = "*";
+    
+    private final LRUCache<Integer, UserAuthorization> localCache = CacheUtil.newLRUCache(LOCAL_CACHE_CAPACITY, LOCAL_CACHE_TTL);
+    
+    // 角色编码 -> 编译后的权限前缀树
+    private final Map<String, PermissionTrie> rolePermissionIndex = new ConcurrentHashMap<>();
+    
     // 角色和权限的映射关系，实际项目中这可能来自数据库
     // 简化实现，在实际项目中应该使用专门的权限表和角色权限关联表
     private static final java.util.Map<String, Set<String>> ROLE_PERMISSIONS = new java.util.HashMap<>();
@@ -114,6 +152,19 @@ public class RoleServiceImpl extends ServiceImpl<SystemRoleMapper, SystemRole> i
         ROLE_PERMISSIONS.put("DEPUTY_BRANCH_SECRETARY", deputyBranchSecretaryPermissions);
     }
 
+    @PostConstruct
+    public void init() {
+        ROLE_PERMISSIONS.forEach((roleCode, permissions) -> rolePermissionIndex.put(roleCode, new PermissionTrie(permissions)));
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            Object payload = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (payload == null || EVICT_ALL.equals(payload.toString())) {
+                localCache.clear();
+            } else {
+                localCache.remove(Integer.valueOf(payload.toString()));
+            }
+        }, new ChannelTopic(RedisKeyConstant.USER_ROLES_CHANNEL));
+    }
+
     @Override
     public IPage<SystemRole> getRolePage(Page<SystemRole> page, String roleName) {
         return systemRoleMapper.selectRolePage(page, roleName);
@@ -142,7 +193,10 @@ public class RoleServiceImpl extends ServiceImpl<SystemRoleMapper, SystemRole> i
     @Transactional
     public boolean updateRole(SystemRole role) {
         role.setUpdateTime(LocalDateTime.now());
-        return updateById(role);
+        boolean updated = updateById(role);
+        // 角色状态变化会影响所有持有该角色的用户
+        evictAllUserAuthorizations();
+        return updated;
     }
 
     @Override
@@ -157,7 +211,9 @@ public class RoleServiceImpl extends ServiceImpl<SystemRoleMapper, SystemRole> i
             log.warn("角色ID:{} 有用户关联，无法删除", id);
             return false;
         }
-        return removeById(id);
+        boolean removed = removeById(id);
+        evictAllUserAuthorizations();
+        return removed;
     }
 
     @Override
@@ -172,7 +228,10 @@ public class RoleServiceImpl extends ServiceImpl<SystemRoleMapper, SystemRole> i
 
     @Override
     public Set<String> getUserRoleCodes(Integer userId) {
-        return userRoleMapper.selectUserRoleCodes(userId);
+        if (userId == null) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(getUserAuthorization(userId).roleCodes);
     }
 
     @Override
@@ -202,13 +261,17 @@ public class RoleServiceImpl extends ServiceImpl<SystemRoleMapper, SystemRole> i
         userRole.setCreateTime(LocalDateTime.now());
         userRole.setUpdateTime(LocalDateTime.now());
         
-        return userRoleMapper.insert(userRole) > 0;
+        boolean inserted = userRoleMapper.insert(userRole) > 0;
+        evictUserAuthorization(userRole.getUserId());
+        return inserted;
     }
 
     @Override
     @Transactional
     public boolean removeUserRole(Integer userId, Integer roleId) {
-        return userRoleMapper.deleteUserRole(userId, roleId) > 0;
+        boolean removed = userRoleMapper.deleteUserRole(userId, roleId) > 0;
+        evictUserAuthorization(userId);
+        return removed;
     }
 
     @Override
@@ -217,8 +280,7 @@ public class RoleServiceImpl extends ServiceImpl<SystemRoleMapper, SystemRole> i
             return false;
         }
         
-        Set<String> userRoleCodes = getUserRoleCodes(userId);
-        return userRoleCodes.contains(roleCode);
+        return getUserAuthorization(userId).roleCodes.contains(roleCode);
     }
 
     @Override
@@ -227,33 +289,7 @@ public class RoleServiceImpl extends ServiceImpl<SystemRoleMapper, SystemRole> i
             return false;
         }
         
-        // 获取用户的角色
-        Set<String> userRoleCodes = getUserRoleCodes(userId);
-        
-        // 遍历用户的角色，检查是否有符合要求的权限
-        for (String roleCode : userRoleCodes) {
-            Set<String> permissions = ROLE_PERMISSIONS.get(roleCode);
-            if (permissions == null) {
-                continue;
-            }
-            
-            // 直接匹配权限
-            if (permissions.contains(permission)) {
-                return true;
-            }
-            
-            // 支持通配符匹配，例如 "user:*" 可以匹配 "user:list", "user:create" 等
-            for (String rolePermission : permissions) {
-                if (rolePermission.endsWith(":*")) {
-                    String permPrefix = rolePermission.substring(0, rolePermission.lastIndexOf(":"));
-                    if (permission.startsWith(permPrefix + ":")) {
-                        return true;
-                    }
-                }
-            }
-        }
-        
-        return false;
+        return getUserAuthorization(userId).permissions.matches(permission);
     }
     
     @Override
@@ -262,29 +298,14 @@ public class RoleServiceImpl extends ServiceImpl<SystemRoleMapper, SystemRole> i
             return false;
         }
         
-        // 获取角色的权限集合
-        Set<String> permissions = ROLE_PERMISSIONS.get(roleCode);
+        // 获取角色编译后的权限前缀树
+        PermissionTrie permissions = rolePermissionIndex.get(roleCode);
         if (permissions == null) {
             log.warn("角色不存在或没有权限: {}", roleCode);
             return false;
         }
         
-        // 直接匹配权限
-        if (permissions.contains(permission)) {
-            return true;
-        }
-        
-        // 支持通配符匹配
-        for (String rolePermission : permissions) {
-            if (rolePermission.endsWith(":*")) {
-                String permPrefix = rolePermission.substring(0, rolePermission.lastIndexOf(":"));
-                if (permission.startsWith(permPrefix + ":")) {
-                    return true;
-                }
-            }
-        }
-        
-        return false;
+        return permissions.matches(permission);
     }
 
     /**
@@ -315,7 +336,113 @@ public class RoleServiceImpl extends ServiceImpl<SystemRoleMapper, SystemRole> i
         }
         
         permissions.add(permissionCode);
+        rolePermissionIndex.put(roleCode, new PermissionTrie(permissions));
+        // 权限前缀树随用户缓存编译，需要全部重建
+        evictAllUserAuthorizations();
         log.info("成功为角色 {} 添加权限 {}", roleCode, permissionCode);
         return true;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 获取用户的角色与权限，依次查找本地缓存、Redis和数据库
+     */
+    @SuppressWarnings("unchecked")
+    private UserAuthorization getUserAuthorization(Integer userId) {
+        UserAuthorization authorization = localCache.get(userId, false);
+        if (authorization != null) {
+            return authorization;
+        }
+        
+        String redisKey = String.format(RedisKeyConstant.USER_ROLES, userId);
+        Collection<String> roleCodes = null;
+        try {
+            Object cached = redisTemplate.opsForValue().get(redisKey);
+            if (cached instanceof Collection) {
+                roleCodes = (Collection<String>) cached;
+            }
+        } catch (Exception e) {
+            log.warn("读取用户角色缓存失败: {}", e.getMessage());
+        }
+        
+        if (roleCodes == null) {
+            roleCodes = userRoleMapper.selectUserRoleCodes(userId);
+            try {
+                redisTemplate.opsForValue().set(redisKey, new ArrayList<>(roleCodes), REDIS_CACHE_TTL, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                log.warn("写入用户角色缓存失败: {}", e.getMessage());
+            }
+        }
+        
+        authorization = new UserAuthorization(roleCodes);
+        localCache.put(userId, authorization);
+        return authorization;
+    }
+    
+    /**
+     * 清除单个用户的角色缓存，事务中调用时在提交后再清除一次，防止并发读取把旧数据写回缓存
+     */
+    private void evictUserAuthorization(Integer userId) {
+        if (userId == null) {
+            return;
+        }
+        doEvictUserAuthorization(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvictUserAuthorization(userId);
+                }
+            });
+        }
+    }
+    
+    private void doEvictUserAuthorization(Integer userId) {
+        localCache.remove(userId);
+        try {
+            redisTemplate.delete(String.format(RedisKeyConstant.USER_ROLES, userId));
+            redisTemplate.convertAndSend(RedisKeyConstant.USER_ROLES_CHANNEL, userId.toString());
+        } catch (Exception e) {
+            log.warn("清除用户角色缓存失败: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 清除全部用户的角色缓存，用于角色本身或角色权限发生变化时
+     */
+    private void evictAllUserAuthorizations() {
+        localCache.clear();
+        try {
+            String pattern = String.format(RedisKeyConstant.USER_ROLES, "*");
+            List<String> keys = new ArrayList<>();
+            try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(pattern).count(1000).build())) {
+                cursor.forEachRemaining(keys::add);
+            }
+            if (!keys.isEmpty()) {
+                redisTemplate.delete(keys);
+            }
+            redisTemplate.convertAndSend(RedisKeyConstant.USER_ROLES_CHANNEL, EVICT_ALL);
+        } catch (Exception e) {
+            log.warn("清除全部用户角色缓存失败: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 用户角色编码及其权限前缀树
+     */
+    private static class UserAuthorization {
+        private final Set<String> roleCodes;
+        private final PermissionTrie permissions;
+        
+        UserAuthorization(Collection<String> roleCodes) {
+            this.roleCodes = new HashSet<>(roleCodes);
+            List<String> allPermissions = new ArrayList<>();
+            for (String roleCode : this.roleCodes) {
+                Set<String> rolePermissions = ROLE_PERMISSIONS.get(roleCode);
+                if (rolePermissions != null) {
+                    allPermissions.addAll(rolePermissions);
+                }
+            }
+            this.permissions = new PermissionTrie(allPermissions);
+        }
+    }
+}
\ No newline at end of file
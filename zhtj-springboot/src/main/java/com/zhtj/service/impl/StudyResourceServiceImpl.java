@@ -9,13 +9,16 @@ import com.zhtj.domain.Organization;
 import com.zhtj.domain.StudyResource;
 import com.zhtj.domain.User;
 import com.zhtj.domain.dto.StudyResourceDTO;
+import com.zhtj.domain.dto.StudyResourceSearchDTO;
 import com.zhtj.domain.enums.ResourceCategory;
 import com.zhtj.domain.vo.StudyResourceVO;
 import com.zhtj.mapper.StudyResourceMapper;
+import com.zhtj.service.FileBlobService;
 import com.zhtj.service.FileService;
 import com.zhtj.service.OrganizationService;
 import com.zhtj.service.StudyResourceService;
 import com.zhtj.service.UserService;
+import com.zhtj.util.FullTextQuery;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -57,6 +60,15 @@ public class StudyResourceServiceImpl extends ServiceImpl<StudyResourceMapper, S
     @Autowired
     private OrganizationService organizationService;
     
+    @Autowired
+    private ResourceCategoryStats categoryStats;
+    
+    // 检索结果中组织分布最多返回的组织数
+    private static final int ORGANIZATION_FACET_LIMIT = 20;
+    
+    // 资源文件在去重存储中的引用方业务类型
+    private static final String FILE_OWNER_TYPE = "study_resource";
+    
     @Value("${file.upload.study-resource.max-size:104857600}")
     private long maxFileSize; // 默认100MB
     
@@ -66,7 +78,7 @@ public class StudyResourceServiceImpl extends ServiceImpl<StudyResourceMapper, S
     @Override
     public IPage<StudyResourceVO> pageResource(int current, int size, String title, Integer category, Integer orgId) {
         Page<StudyResource> page = new Page<>(current, size);
-        return studyResourceMapper.selectResourcePage(page, title, category, orgId);
+        return studyResourceMapper.selectResourcePage(page, title, FullTextQuery.toBooleanQuery(title), category, orgId);
     }
     
     @Override
@@ -119,15 +131,13 @@ public class StudyResourceServiceImpl extends ServiceImpl<StudyResourceMapper, S
             fileType = "documents";
         }
         
-        String filePath = fileService.uploadFile(file, fileType);
-        
         // 创建资源实体
         StudyResource resource = new StudyResource();
         resource.setTitle(dto.getTitle());
         resource.setDescription(dto.getDescription());
         // 将ResourceCategory转换为对应的categoryId
         resource.setCategoryId(dto.getCategory().getCode());
-        resource.setFileUrl(filePath);
+        resource.setFileUrl("");
         resource.setFileName(originalFilename);
         resource.setFileSize(file.getSize());
         resource.setFormat(getFileFormat(originalFilename));
@@ -139,8 +149,13 @@ public class StudyResourceServiceImpl extends ServiceImpl<StudyResourceMapper, S
         resource.setCreateTime(new Date());
         resource.setUpdateTime(new Date());
         
-        // 保存到数据库
+        // 先保存记录取得ID，文件引用登记在该资源名下
         save(resource);
+        String filePath = fileService.uploadFile(file, fileType,
+                FileBlobService.ownerKey(FILE_OWNER_TYPE, resource.getId()), userId.intValue());
+        resource.setFileUrl(filePath);
+        updateById(resource);
+        categoryStats.increment(orgId, organizationService.getAncestorOrganizationIds(orgId), resource.getCategoryId(), 1);
         
         return resource.getId().longValue();
     }
@@ -158,6 +173,7 @@ public class StudyResourceServiceImpl extends ServiceImpl<StudyResourceMapper, S
         }
         
         // 更新基本信息
+        Integer oldCategoryId = resource.getCategoryId();
         resource.setTitle(dto.getTitle());
         resource.setDescription(dto.getDescription());
         resource.setCategoryId(dto.getCategory().getCode());
@@ -174,7 +190,7 @@ public class StudyResourceServiceImpl extends ServiceImpl<StudyResourceMapper, S
             
             // 删除旧文件
             if (StringUtils.hasText(resource.getFileUrl())) {
-                fileService.deleteFile(resource.getFileUrl());
+                fileService.deleteFile(resource.getFileUrl(), FileBlobService.ownerKey(FILE_OWNER_TYPE, resource.getId()));
             }
             
             // 上传新文件
@@ -195,7 +211,8 @@ public class StudyResourceServiceImpl extends ServiceImpl<StudyResourceMapper, S
                 fileType = "documents";
             }
             
-            String filePath = fileService.uploadFile(file, fileType);
+            String filePath = fileService.uploadFile(file, fileType,
+                    FileBlobService.ownerKey(FILE_OWNER_TYPE, resource.getId()), resource.getCreatorId());
             
             // 更新文件信息
             resource.setFileUrl(filePath);
@@ -204,7 +221,14 @@ public class StudyResourceServiceImpl extends ServiceImpl<StudyResourceMapper, S
             resource.setFormat(getFileFormat(file.getOriginalFilename()));
         }
         
-        return updateById(resource);
+        boolean updated = updateById(resource);
+        if (updated && !resource.getCategoryId().equals(oldCategoryId)) {
+            Integer orgId = resource.getOrganizationId();
+            List<Integer> ancestorIds = organizationService.getAncestorOrganizationIds(orgId);
+            categoryStats.increment(orgId, ancestorIds, oldCategoryId, -1);
+            categoryStats.increment(orgId, ancestorIds, resource.getCategoryId(), 1);
+        }
+        return updated;
     }
     
     @Override
@@ -219,7 +243,7 @@ public class StudyResourceServiceImpl extends ServiceImpl<StudyResourceMapper, S
         if (resource.getFileUrl() != null && !resource.getFileUrl().isEmpty()) {
             try {
                 // 调用文件服务删除物理文件
-                fileService.deleteFile(resource.getFileUrl());
+                fileService.deleteFile(resource.getFileUrl(), FileBlobService.ownerKey(FILE_OWNER_TYPE, resource.getId()));
                 log.info("物理文件删除成功: {}", resource.getFileUrl());
             } catch (Exception e) {
                 log.error("删除物理文件失败: {}, 错误: {}", resource.getFileUrl(), e.getMessage());
@@ -228,7 +252,12 @@ public class StudyResourceServiceImpl extends ServiceImpl<StudyResourceMapper, S
         }
         
         // 删除数据库记录
-        return removeById(id.intValue());
+        boolean removed = removeById(id.intValue());
+        if (removed) {
+            Integer orgId = resource.getOrganizationId();
+            categoryStats.increment(orgId, organizationService.getAncestorOrganizationIds(orgId), resource.getCategoryId(), -1);
+        }
+        return removed;
     }
     
     @Override
@@ -261,29 +290,51 @@ public class StudyResourceServiceImpl extends ServiceImpl<StudyResourceMapper, S
     
     @Override
     public Map<String, Object> getResourceStats(Integer orgId) {
-        Map<String, Object> stats = new HashMap<>();
+        Map<Integer, Long> counts = categoryStats.get(orgId);
+        if (counts == null) {
+            counts = countByCategory(orgId);
+            categoryStats.rebuild(orgId, counts);
+        }
         
-        // 查询各分类资源数量
+        Map<String, Object> stats = new HashMap<>();
+        long total = 0;
         for (ResourceCategory category : ResourceCategory.values()) {
-            LambdaQueryWrapper<StudyResource> wrapper = new LambdaQueryWrapper<>();
-            wrapper.eq(StudyResource::getCategoryId, category.getCode());
-            
-            if (orgId != null) {
-                wrapper.eq(StudyResource::getOrganizationId, orgId);
-            }
-            
-            long count = count(wrapper);
+            long count = counts.getOrDefault(category.getCode(), 0L);
             stats.put(category.getName(), count);
+            total += count;
         }
+        stats.put("total", total);
         
-        // 总资源数量
-        LambdaQueryWrapper<StudyResource> wrapper = new LambdaQueryWrapper<>();
+        return stats;
+    }
+    
+    /**
+     * 从数据库按分类汇总资源数量，统计范围包含组织自身及全部下级组织
+     * 
+     * @param orgId 组织ID，为null时汇总全部组织
+     * @return 分类ID到资源数的映射，包含全部分类
+     */
+    private Map<Integer, Long> countByCategory(Integer orgId) {
+        List<Integer> orgIds = null;
         if (orgId != null) {
-            wrapper.eq(StudyResource::getOrganizationId, orgId);
+            orgIds = new ArrayList<>(organizationService.getSelfAndChildrenOrganizationIds(orgId));
+            if (orgIds.isEmpty()) {
+                orgIds.add(orgId);
+            }
         }
-        stats.put("total", count(wrapper));
         
-        return stats;
+        Map<Integer, Long> counts = new HashMap<>();
+        for (ResourceCategory category : ResourceCategory.values()) {
+            counts.put(category.getCode(), 0L);
+        }
+        for (Map<String, Object> row : studyResourceMapper.countByCategory(orgIds)) {
+            Object categoryId = row.get("categoryId");
+            Object count = row.get("count");
+            if (categoryId instanceof Number && count instanceof Number) {
+                counts.put(((Number) categoryId).intValue(), ((Number) count).longValue());
+            }
+        }
+        return counts;
     }
     
     @Override
@@ -325,7 +376,10 @@ public class StudyResourceServiceImpl extends ServiceImpl<StudyResourceMapper, S
         if (isAdmin) {
             // 管理员可以查看所有资源，使用常规查询
             LambdaQueryWrapper<StudyResource> wrapper = new LambdaQueryWrapper<>();
-            if (StringUtils.hasText(title)) {
+            String titleQuery = FullTextQuery.toBooleanQuery(title);
+            if (titleQuery != null) {
+                wrapper.apply("MATCH(title) AGAINST({0} IN BOOLEAN MODE)", titleQuery);
+            } else if (StringUtils.hasText(title)) {
                 wrapper.like(StudyResource::getTitle, title);
             }
             if (categoryId != null) {
@@ -341,7 +395,10 @@ public class StudyResourceServiceImpl extends ServiceImpl<StudyResourceMapper, S
                 wrapper.eq(StudyResource::getFormat, format);
             }
             
-            if (StringUtils.hasText(keyword)) {
+            String keywordQuery = FullTextQuery.toBooleanQuery(keyword);
+            if (keywordQuery != null) {
+                wrapper.apply("MATCH(title, description) AGAINST({0} IN BOOLEAN MODE)", keywordQuery);
+            } else if (StringUtils.hasText(keyword)) {
                 wrapper.and(w -> w.like(StudyResource::getTitle, keyword)
                               .or()
                               .like(StudyResource::getDescription, keyword));
@@ -367,6 +424,44 @@ public class StudyResourceServiceImpl extends ServiceImpl<StudyResourceMapper, S
         }
     }
     
+    @Override
+    public Map<String, Object> searchResources(StudyResourceSearchDTO query, int page, int size, Integer currentUserId) {
+        query.setQuery(FullTextQuery.toBooleanQuery(query.getKeyword()));
+        query.setFormats(getFormatListByFileType(query.getFormat()));
+        
+        // 非管理员只能检索本组织及上下级组织的资源
+        query.setUserOrgId(null);
+        if (currentUserId != null && !userService.isAdmin(currentUserId)) {
+            User user = userService.getById(currentUserId);
+            if (user != null) {
+                query.setUserOrgId(user.getOrganization());
+            }
+        }
+        
+        IPage<StudyResourceVO> result = studyResourceMapper.searchResources(new Page<>(page, size), query);
+        
+        // 分布统计使用相同的检索条件，但不受所统计维度自身的筛选条件限制
+        List<Map<String, Object>> categoryFacet = studyResourceMapper.selectCategoryFacet(query);
+        for (Map<String, Object> item : categoryFacet) {
+            Object value = item.get("value");
+            ResourceCategory category = value instanceof Number
+                    ? ResourceCategory.getByCode(((Number) value).intValue()) : null;
+            item.put("label", category != null ? category.getName() : "未知");
+        }
+        
+        Map<String, Object> facets = new HashMap<>();
+        facets.put("category", categoryFacet);
+        facets.put("format", studyResourceMapper.selectFormatFacet(query));
+        facets.put("organization", studyResourceMapper.selectOrganizationFacet(query, ORGANIZATION_FACET_LIMIT));
+        facets.put("month", studyResourceMapper.selectMonthFacet(query));
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("list", result.getRecords());
+        response.put("total", result.getTotal());
+        response.put("facets", facets);
+        return response;
+    }
+    
     /**
      * 获取文件类型编码对应的格式列表
      */
@@ -402,32 +497,13 @@ public class StudyResourceServiceImpl extends ServiceImpl<StudyResourceMapper, S
             String endDate,
             Integer userOrgId) {
         
-        // 如果没有格式列表筛选条件，直接调用Mapper方法
-        if (formatList == null || formatList.isEmpty()) {
-            return studyResourceMapper.selectResourcesWithOrgPermission(
-                page, title, categoryId, format, organizationId, 
-                keyword, startDate, endDate, userOrgId);
-        } 
-        
-        // 有格式列表条件，先查询然后再过滤
-        IPage<StudyResource> result = studyResourceMapper.selectResourcesWithOrgPermission(
-            page, title, categoryId, null, organizationId, 
-            keyword, startDate, endDate, userOrgId);
-        
-        // 过滤符合格式的记录
-        List<StudyResource> filteredList = new ArrayList<>();
-        for (StudyResource resource : result.getRecords()) {
-            if (formatList.contains(resource.getFormat())) {
-                filteredList.add(resource);
-            }
-        }
+        String titleQuery = FullTextQuery.toBooleanQuery(title);
+        String keywordQuery = FullTextQuery.toBooleanQuery(keyword);
         
-        // 创建新的分页结果
-        Page<StudyResource> filteredPage = new Page<>(page.getCurrent(), page.getSize());
-        filteredPage.setRecords(filteredList);
-        filteredPage.setTotal(filteredList.size()); // 注意：这里的总数可能不准确
-        
-        return filteredPage;
+        // 文件类型组的格式列表与其他条件一起在数据库中筛选，分页和总数由数据库计算
+        return studyResourceMapper.selectResourcesWithOrgPermission(
+            page, title, titleQuery, categoryId, format, formatList, organizationId, 
+            keyword, keywordQuery, startDate, endDate, userOrgId);
     }
     
     @Override
@@ -785,8 +861,14 @@ public class StudyResourceServiceImpl extends ServiceImpl<StudyResourceMapper, S
         }
         
         // 构建完整的文件系统路径 - 直接使用资源路径和文件路径
-        Path fileSystemPath = Paths.get(resourcePath, filePath);
-        byte[] fileData = Files.readAllBytes(fileSystemPath);
+        Path basePath = Paths.get(resourcePath).toAbsolutePath().normalize();
+        Path fileSystemPath = basePath.resolve(filePath).normalize();
+        if (!fileSystemPath.startsWith(basePath)) {
+            throw new BusinessException("资源文件路径不合法");
+        }
+        if (!Files.isRegularFile(fileSystemPath)) {
+            throw new BusinessException("资源文件不存在");
+        }
         
         // 处理下载URL
         String downloadUrl;
@@ -802,7 +884,10 @@ public class StudyResourceServiceImpl extends ServiceImpl<StudyResourceMapper, S
         result.put("fileName", resource.getFileName());
         result.put("filePath", filePath);
         result.put("downloadUrl", downloadUrl);
-        result.put("fileData", fileData);
+        // 只返回文件路径，由调用方流式输出，避免将整个文件读入内存
+        result.put("file", fileSystemPath);
+        result.put("fileSize", Files.size(fileSystemPath));
+        result.put("lastModified", Files.getLastModifiedTime(fileSystemPath).toMillis());
         result.put("contentType", getContentTypeByFormat(resource.getFormat()));
         
         return result;
@@ -0,0 +1,266 @@
+package com.zhtj.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 图片衍生图（缩略图、预览图）生成流水线
+ * 衍生图按 thumbnails/WxH/原文件存储路径 缓存，尺寸只取配置中的固定档位，生成任务在有界线程池中执行，
+ * 队列已满时直接拒绝（调用方稍后再次请求时重新排队），请求线程不做任何图片解码。
+ * 解码时按目标尺寸做源图下采样，大图不会整幅读入内存。
+ */
+@Slf4j
+@Component
+class ThumbnailPipeline {
+
+    static final String DERIVATIVE_ROOT = "thumbnails";
+
+    @Value("${file.thumbnail.pool-size:2}")
+    private int poolSize;
+
+    @Value("${file.thumbnail.queue-capacity:200}")
+    private int queueCapacity;
+
+    // 上传图片时预先生成的衍生图尺寸，WxH，多个以逗号分隔
+    @Value("${file.thumbnail.upload-sizes:200x200,800x800}")
+    private String uploadSizes;
+
+    // 允许按需生成的衍生图尺寸，WxH，多个以逗号分隔；请求的尺寸会归到这些档位，避免缓存任意尺寸
+    @Value("${file.thumbnail.allowed-sizes:100x100,200x200,400x400,800x800}")
+    private String allowedSizes;
+
+    private ThreadPoolExecutor executor;
+
+    private List<int[]> presetSizes = Collections.emptyList();
+
+    // 按需生成可用的全部尺寸（含上传预生成尺寸），按面积从小到大排列
+    private List<int[]> sizeBuckets = Collections.emptyList();
+
+    // 排队或生成中的衍生图路径，避免同一衍生图重复排队
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 打开原图输入流
+     */
+    @FunctionalInterface
+    interface SourceOpener {
+        InputStream open() throws Exception;
+    }
+
+    /**
+     * 保存生成好的衍生图
+     */
+    @FunctionalInterface
+    interface DerivativeWriter {
+        void write(byte[] data, String contentType) throws Exception;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        presetSizes = parseSizes(uploadSizes);
+        sizeBuckets = mergeSizes(presetSizes, parseSizes(allowedSizes));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 获取衍生图的存储路径：thumbnails/WxH/原存储路径
+     */
+    static String derivativePath(String sourcePath, int width, int height) {
+        return derivativePath(sourcePath, width + "x" + height);
+    }
+
+    /**
+     * 获取指定尺寸目录（thumbnails下的WxH目录名）中的衍生图存储路径
+     */
+    static String derivativePath(String sourcePath, String sizeDirectory) {
+        String relative = sourcePath.startsWith("/") ? sourcePath.substring(1) : sourcePath;
+        return DERIVATIVE_ROOT + "/" + sizeDirectory + "/" + relative;
+    }
+
+    /**
+     * 上传时预先生成的衍生图尺寸
+     */
+    List<int[]> presetSizes() {
+        return presetSizes;
+    }
+
+    /**
+     * 将请求的尺寸归到不小于它的最小档位，超出全部档位时取最大档位
+     */
+    int[] resolveSize(int width, int height) {
+        return resolveSize(sizeBuckets, width, height);
+    }
+
+    static int[] resolveSize(List<int[]> buckets, int width, int height) {
+        if (buckets.isEmpty()) {
+            throw new IllegalStateException("未配置缩略图尺寸");
+        }
+        for (int[] size : buckets) {
+            if (size[0] >= width && size[1] >= height) {
+                return size;
+            }
+        }
+        return buckets.get(buckets.size() - 1);
+    }
+
+    /**
+     * 提交衍生图生成任务，不等待任务执行
+     *
+     * @param derivativePath 衍生图存储路径，同一路径同时只会有一个任务
+     * @param extension 原图扩展名，决定输出格式
+     * @return 是否已在队列中；队列已满被拒绝时返回false
+     */
+    boolean submit(String derivativePath, int width, int height, String extension,
+                   SourceOpener source, DerivativeWriter writer) {
+        if (!pending.add(derivativePath)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try (InputStream inputStream = source.open()) {
+                    String format = outputFormat(extension);
+                    writer.write(render(inputStream, width, height, format), "image/" + format);
+                } catch (Exception e) {
+                    log.warn("生成衍生图失败: {}, {}", derivativePath, e.getMessage());
+                } finally {
+                    pending.remove(derivativePath);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            pending.remove(derivativePath);
+            log.warn("衍生图生成队列已满，暂不生成: {}", derivativePath);
+            return false;
+        }
+    }
+
+    /**
+     * 按目标尺寸下采样解码原图，等比缩放到不超过WxH后编码
+     */
+    static byte[] render(InputStream source, int width, int height, String format) throws IOException {
+        BufferedImage image;
+        try (ImageInputStream imageInput = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = imageInput != null ? ImageIO.getImageReaders(imageInput) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("无法识别的图片格式");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+                // 下采样为最近邻取样，保留约两倍目标尺寸再做双线性缩放，兼顾内存与画质
+                int ratio = Math.min(sourceWidth / Math.max(width, 1), sourceHeight / Math.max(height, 1));
+                int step = Math.max(1, ratio / 2);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                image = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        double scale = Math.min(1.0, Math.min((double) width / image.getWidth(), (double) height / image.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        boolean opaque = "jpg".equals(format) || "bmp".equals(format);
+        BufferedImage thumbnail = new BufferedImage(targetWidth, targetHeight,
+                opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = thumbnail.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, targetWidth, targetHeight, null);
+        g.dispose();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        if (!ImageIO.write(thumbnail, format, output)) {
+            throw new IOException("不支持的输出格式: " + format);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * ImageIO没有对应编码器的格式（如webp）统一输出png
+     */
+    private static String outputFormat(String extension) {
+        String format = extension == null ? "" : extension.toLowerCase();
+        if ("jpeg".equals(format)) {
+            return "jpg";
+        }
+        return ImageIO.getImageWritersByFormatName(format).hasNext() ? format : "png";
+    }
+
+    static List<int[]> mergeSizes(List<int[]> first, List<int[]> second) {
+        List<int[]> merged = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (List<int[]> sizes : Arrays.asList(first, second)) {
+            for (int[] size : sizes) {
+                if (size[0] > 0 && size[1] > 0 && seen.add(size[0] + "x" + size[1])) {
+                    merged.add(size);
+                }
+            }
+        }
+        merged.sort(Comparator.comparingLong(size -> (long) size[0] * size[1]));
+        return Collections.unmodifiableList(merged);
+    }
+
+    private static List<int[]> parseSizes(String sizes) {
+        List<int[]> result = new ArrayList<>();
+        if (sizes == null) {
+            return result;
+        }
+        for (String size : sizes.split(",")) {
+            String[] parts = size.trim().toLowerCase().split("x");
+            if (parts.length != 2) {
+                continue;
+            }
+            try {
+                result.add(new int[]{Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim())});
+            } catch (NumberFormatException e) {
+                log.warn("忽略无效的衍生图尺寸配置: {}", size);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
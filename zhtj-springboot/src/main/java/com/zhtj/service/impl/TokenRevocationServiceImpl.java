@@ -0,0 +1,231 @@
+package com.zhtj.service.impl;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.zhtj.common.constant.RedisKeyConstant;
+import com.zhtj.service.TokenRevocationService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * JWT令牌吊销服务实现类
+ * 黑名单以令牌SHA-256摘要为键（jwt:revoked:&lt;digest&gt;）存储，查询时直接EXISTS；
+ * 本地维护一个布隆过滤器，未命中时无需访问Redis即可判定"未吊销"。
+ * 各实例通过Redis发布/订阅同步新吊销的摘要，并定期从Redis重建过滤器以修正遗漏的消息。
+ */
+@Slf4j
+@Service
+public class TokenRevocationServiceImpl implements TokenRevocationService, MessageListener {
+
+    private static final String REVOKED_KEY_PREFIX = String.format(RedisKeyConstant.JWT_REVOKED, "");
+
+    // 旧版黑名单键前缀，启动时迁移到新的键格式
+    private static final String LEGACY_BLACKLIST_PREFIX = "jwt:blacklist:";
+
+    // 无法获取令牌过期时间时黑名单的保留时间（秒）
+    private static final long DEFAULT_REVOKE_TTL = 24 * 60 * 60;
+
+    // 黑名单最小保留时间（秒）
+    private static final long MIN_REVOKE_TTL = 30;
+
+    // 布隆过滤器预期容量与误判率
+    private static final int BLOOM_EXPECTED_INSERTIONS = 100_000;
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.001;
+
+    // 布隆过滤器重建间隔（毫秒）
+    private static final long BLOOM_REBUILD_INTERVAL = 5 * 60 * 1000;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private volatile DigestBloomFilter bloomFilter = newBloomFilter();
+
+    // 重建期间同时写入新过滤器，避免重建过程中吊销的令牌丢失
+    private volatile DigestBloomFilter rebuildingFilter;
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(RedisKeyConstant.JWT_REVOKED_CHANNEL));
+        try {
+            migrateLegacyBlacklist();
+        } catch (Exception e) {
+            log.warn("迁移旧版JWT黑名单失败: {}", e.getMessage());
+        }
+        rebuildBloomFilter();
+    }
+
+    @Override
+    public void revoke(String token, Date expiration) {
+        long ttl = DEFAULT_REVOKE_TTL;
+        if (expiration != null) {
+            ttl = Math.max(MIN_REVOKE_TTL, (expiration.getTime() - System.currentTimeMillis()) / 1000);
+        }
+        String digest = digest(token);
+        redisTemplate.opsForValue().set(REVOKED_KEY_PREFIX + digest, 1, ttl, TimeUnit.SECONDS);
+        remember(digest);
+        try {
+            redisTemplate.convertAndSend(RedisKeyConstant.JWT_REVOKED_CHANNEL, digest);
+        } catch (Exception e) {
+            log.warn("广播令牌吊销消息失败，其他实例将在下次重建过滤器时同步: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isRevoked(String token) {
+        return isDigestRevoked(digest(token));
+    }
+
+    @Override
+    public boolean isDigestRevoked(String digest) {
+        if (!bloomFilter.mightContain(digest)) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(REVOKED_KEY_PREFIX + digest));
+        } catch (Exception e) {
+            log.error("检查token是否已吊销时出错: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 接收其他实例广播的吊销摘要
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object digest = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (digest != null) {
+            remember(digest.toString());
+        }
+    }
+
+    /**
+     * 定期从Redis重建布隆过滤器，清除已过期的吊销记录并补齐丢失的广播
+     */
+    @Scheduled(fixedDelay = BLOOM_REBUILD_INTERVAL, initialDelay = BLOOM_REBUILD_INTERVAL)
+    public void rebuildBloomFilter() {
+        DigestBloomFilter next = newBloomFilter();
+        rebuildingFilter = next;
+        int count = 0;
+        try (Cursor<String> cursor = redisTemplate.scan(
+                ScanOptions.scanOptions().match(REVOKED_KEY_PREFIX + "*").count(1000).build())) {
+            while (cursor.hasNext()) {
+                next.put(cursor.next().substring(REVOKED_KEY_PREFIX.length()));
+                count++;
+            }
+            bloomFilter = next;
+            log.debug("JWT吊销布隆过滤器重建完成，共 {} 条记录", count);
+        } catch (Exception e) {
+            log.warn("重建JWT吊销布隆过滤器失败: {}", e.getMessage());
+        } finally {
+            rebuildingFilter = null;
+        }
+    }
+
+    /**
+     * 将旧版 jwt:blacklist:* 记录迁移为按摘要存储的新格式
+     * 旧格式有两种：键后缀为令牌本身（值为true），或键后缀为随机串（值为令牌）
+     */
+    private void migrateLegacyBlacklist() {
+        int migrated = 0;
+        try (Cursor<String> cursor = redisTemplate.scan(
+                ScanOptions.scanOptions().match(LEGACY_BLACKLIST_PREFIX + "*").count(1000).build())) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                Object value = redisTemplate.opsForValue().get(key);
+                String token = value instanceof String ? (String) value : key.substring(LEGACY_BLACKLIST_PREFIX.length());
+                Long ttl = redisTemplate.getExpire(key, TimeUnit.SECONDS);
+                long revokeTtl = ttl != null && ttl > 0 ? ttl : DEFAULT_REVOKE_TTL;
+                redisTemplate.opsForValue().set(REVOKED_KEY_PREFIX + digest(token), 1, revokeTtl, TimeUnit.SECONDS);
+                redisTemplate.delete(key);
+                migrated++;
+            }
+        }
+        if (migrated > 0) {
+            log.info("已迁移 {} 条旧版JWT黑名单记录", migrated);
+        }
+    }
+
+    private void remember(String digest) {
+        DigestBloomFilter current;
+        do {
+            current = bloomFilter;
+            current.put(digest);
+            DigestBloomFilter rebuilding = rebuildingFilter;
+            if (rebuilding != null) {
+                rebuilding.put(digest);
+            }
+        } while (current != bloomFilter);
+    }
+
+    private String digest(String token) {
+        return DigestUtil.sha256Hex(token);
+    }
+
+    private static DigestBloomFilter newBloomFilter() {
+        return new DigestBloomFilter(BLOOM_EXPECTED_INSERTIONS, BLOOM_FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * 基于SHA-256十六进制摘要的线程安全布隆过滤器
+     * 摘要本身已均匀分布，直接取前两段64位作为双重哈希的种子
+     */
+    private static final class DigestBloomFilter {
+
+        private final AtomicLongArray words;
+        private final long bitSize;
+        private final int hashCount;
+
+        DigestBloomFilter(int expectedInsertions, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray((int) ((bits + 63) / 64));
+            this.bitSize = (long) words.length() * 64;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+        }
+
+        void put(String digest) {
+            long h1 = Long.parseUnsignedLong(digest.substring(0, 16), 16);
+            long h2 = Long.parseUnsignedLong(digest.substring(16, 32), 16);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitSize);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long old;
+                do {
+                    old = words.get(index);
+                    if ((old & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(index, old, old | mask));
+            }
+        }
+
+        boolean mightContain(String digest) {
+            long h1 = Long.parseUnsignedLong(digest.substring(0, 16), 16);
+            long h2 = Long.parseUnsignedLong(digest.substring(16, 32), 16);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitSize);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -4,22 +4,32 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zhtj.common.api.CursorPage;
 import com.zhtj.common.exception.BusinessException;
 import com.zhtj.common.exception.ResourceNotFoundException;
 import com.zhtj.domain.Organization;
 import com.zhtj.domain.Transfer;
+import com.zhtj.domain.TransferApprovalLog;
 import com.zhtj.domain.User;
+import com.zhtj.mapper.TransferApprovalLogMapper;
 import com.zhtj.mapper.TransferMapper;
 import com.zhtj.service.OrganizationService;
 import com.zhtj.service.RoleService;
 import com.zhtj.service.TransferService;
 import com.zhtj.service.UserService;
+import com.zhtj.util.BatchLookup;
+import com.zhtj.util.SeekCursor;
+import com.zhtj.utils.TransferNotificationHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * 团员关系转接服务实现类
@@ -27,6 +37,8 @@ import java.util.List;
 @Service
 public class TransferServiceImpl extends ServiceImpl<TransferMapper, Transfer> implements TransferService {
 
+    private static final String EXPIRED_REMARK = "申请已过期自动拒绝";
+    
     @Autowired
     private TransferMapper transferMapper;
     
@@ -39,60 +51,42 @@ public class TransferServiceImpl extends ServiceImpl<TransferMapper, Transfer> i
     @Autowired
     private RoleService roleService;
     
+    @Autowired
+    private TransferApprovalLogMapper transferApprovalLogMapper;
+    
+    @Autowired
+    private TransferNotificationHelper notificationHelper;
+    
     @Override
     public IPage<Transfer> getTransferPage(Page<Transfer> page, Integer userId, Integer statusCode, Integer organizationId) {
         IPage<Transfer> pageResult = transferMapper.selectTransferPage(page, userId, statusCode, organizationId);
         
         // 确保每条记录的组织名称字段都有值
-        if (pageResult.getRecords() != null && !pageResult.getRecords().isEmpty()) {
-            for (Transfer transfer : pageResult.getRecords()) {
-                // 处理申请人姓名
-                if ((transfer.getTransferUserName() == null || transfer.getTransferUserName().isEmpty()) && transfer.getTransferUserId() != null) {
-                    User user = userService.getById(transfer.getTransferUserId());
-                    if (user != null) {
-                        transfer.setTransferUserName(user.getName());
-                        // 设置关联的用户对象，便于前端使用
-                        transfer.setTransferUser(user);
-                    } else {
-                        // 如果用户不存在，使用ID作为默认显示
-                        transfer.setTransferUserName("用户ID:" + transfer.getTransferUserId());
-                    }
-                }
-                
-                // 处理转出组织名称
-                if ((transfer.getTransferOutOrgName() == null || transfer.getTransferOutOrgName().isEmpty()) && transfer.getTransferOutOrgId() != null) {
-                    Organization outOrg = organizationService.getById(transfer.getTransferOutOrgId());
-                    if (outOrg != null) {
-                        transfer.setTransferOutOrgName(outOrg.getName());
-                        transfer.setTransferOutOrgFullName(outOrg.getFullName());
-                    }
-                }
-                
-                // 处理转入组织名称
-                if ((transfer.getTransferInOrgName() == null || transfer.getTransferInOrgName().isEmpty()) && transfer.getTransferInOrgId() != null) {
-                    Organization inOrg = organizationService.getById(transfer.getTransferInOrgId());
-                    if (inOrg != null) {
-                        transfer.setTransferInOrgName(inOrg.getName());
-                        transfer.setTransferInOrgFullName(inOrg.getFullName());
-                    }
-                }
-                
-                // 如果仍然没有组织名称（可能是因为组织被删除），设置一个默认值
-                if (transfer.getTransferOutOrgName() == null || transfer.getTransferOutOrgName().isEmpty()) {
-                    transfer.setTransferOutOrgName("未知组织");
-                    transfer.setTransferOutOrgFullName("未知组织");
-                }
-                
-                if (transfer.getTransferInOrgName() == null || transfer.getTransferInOrgName().isEmpty()) {
-                    transfer.setTransferInOrgName("未知组织");
-                    transfer.setTransferInOrgFullName("未知组织");
-                }
-            }
-        }
+        processTransferList(pageResult.getRecords());
         
         return pageResult;
     }
     
+    @Override
+    public CursorPage<Transfer> getTransferCursorPage(String cursor, int size, Integer userId, Integer statusCode,
+                                                      Integer organizationId, boolean withTotal) {
+        List<Transfer> rows = transferMapper.selectTransferSeek(
+                userId, statusCode, organizationId, SeekCursor.decode(cursor), size + 1);
+        CursorPage<Transfer> result = SeekCursor.page(rows, size,
+                transfer -> new SeekCursor(transfer.getApplicationTime(), transfer.getId(), 0));
+        processTransferList(result.getList());
+        
+        if (withTotal) {
+            LambdaQueryWrapper<Transfer> wrapper = new LambdaQueryWrapper<Transfer>()
+                    .eq(userId != null, Transfer::getTransferUserId, userId)
+                    .eq(statusCode != null, Transfer::getStatusCode, statusCode)
+                    .and(organizationId != null, w -> w.eq(Transfer::getTransferOutOrgId, organizationId)
+                            .or().eq(Transfer::getTransferInOrgId, organizationId));
+            result.setTotal(transferMapper.selectCount(wrapper));
+        }
+        return result;
+    }
+    
     @Override
     public Transfer getTransferDetail(Integer id) {
         Transfer transfer = transferMapper.selectTransferDetail(id);
@@ -239,8 +233,12 @@ public class TransferServiceImpl extends ServiceImpl<TransferMapper, Transfer> i
             // 更新用户组织
             User user = userService.getById(transfer.getTransferUserId());
             if (user != null) {
+                Integer previousOrganization = user.getOrganization();
                 user.setOrganization(transfer.getTransferInOrgId());
-                userService.updateById(user);
+                if (userService.updateById(user) && !transfer.getTransferInOrgId().equals(previousOrganization)) {
+                    organizationService.adjustMemberCount(previousOrganization, -1);
+                    organizationService.adjustMemberCount(transfer.getTransferInOrgId(), 1);
+                }
             }
         } else {
             // 转入审批不通过，状态变为已拒绝
@@ -284,10 +282,17 @@ public class TransferServiceImpl extends ServiceImpl<TransferMapper, Transfer> i
             return transfers;
         }
         
+        // 整页记录缺少的用户和组织各用一次批量查询补全
+        Map<Integer, User> users = userService.getUserMap(BatchLookup.collectKeys(transfers,
+                t -> !StringUtils.hasText(t.getTransferUserName()) ? t.getTransferUserId() : null));
+        Map<Integer, Organization> organizations = organizationService.getOrganizationMap(BatchLookup.collectKeys(transfers,
+                t -> !StringUtils.hasText(t.getTransferOutOrgName()) ? t.getTransferOutOrgId() : null,
+                t -> !StringUtils.hasText(t.getTransferInOrgName()) ? t.getTransferInOrgId() : null));
+        
         for (Transfer transfer : transfers) {
             // 处理申请人姓名
-            if ((transfer.getTransferUserName() == null || transfer.getTransferUserName().isEmpty()) && transfer.getTransferUserId() != null) {
-                User user = userService.getById(transfer.getTransferUserId());
+            if (!StringUtils.hasText(transfer.getTransferUserName()) && transfer.getTransferUserId() != null) {
+                User user = users.get(transfer.getTransferUserId());
                 if (user != null) {
                     transfer.setTransferUserName(user.getName());
                     // 设置关联的用户对象，便于前端使用
@@ -299,8 +304,8 @@ public class TransferServiceImpl extends ServiceImpl<TransferMapper, Transfer> i
             }
             
             // 处理转出组织名称
-            if ((transfer.getTransferOutOrgName() == null || transfer.getTransferOutOrgName().isEmpty()) && transfer.getTransferOutOrgId() != null) {
-                Organization outOrg = organizationService.getById(transfer.getTransferOutOrgId());
+            if (!StringUtils.hasText(transfer.getTransferOutOrgName()) && transfer.getTransferOutOrgId() != null) {
+                Organization outOrg = organizations.get(transfer.getTransferOutOrgId());
                 if (outOrg != null) {
                     transfer.setTransferOutOrgName(outOrg.getName());
                     transfer.setTransferOutOrgFullName(outOrg.getFullName());
@@ -308,8 +313,8 @@ public class TransferServiceImpl extends ServiceImpl<TransferMapper, Transfer> i
             }
             
             // 处理转入组织名称
-            if ((transfer.getTransferInOrgName() == null || transfer.getTransferInOrgName().isEmpty()) && transfer.getTransferInOrgId() != null) {
-                Organization inOrg = organizationService.getById(transfer.getTransferInOrgId());
+            if (!StringUtils.hasText(transfer.getTransferInOrgName()) && transfer.getTransferInOrgId() != null) {
+                Organization inOrg = organizations.get(transfer.getTransferInOrgId());
                 if (inOrg != null) {
                     transfer.setTransferInOrgName(inOrg.getName());
                     transfer.setTransferInOrgFullName(inOrg.getFullName());
@@ -366,6 +371,69 @@ public class TransferServiceImpl extends ServiceImpl<TransferMapper, Transfer> i
                .le(Transfer::getStatusCode, 2);  // 状态小于等于2表示申请正在进行中
         return list(wrapper);
     }
+    
+    @Override
+    public List<Integer> getExpiredTransferIds(LocalDateTime currentTime, Integer afterId, int limit) {
+        return transferMapper.selectExpiredIds(currentTime, afterId, limit);
+    }
+    
+    @Override
+    @Transactional
+    public int rejectExpiredTransfers(List<Integer> ids, LocalDateTime currentTime) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        // 锁定后再更新，期间已被人工审批的申请不会被选中
+        List<Transfer> expired = transferMapper.lockExpired(ids, currentTime);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        
+        List<Transfer> outStage = new ArrayList<>();
+        List<Transfer> inStage = new ArrayList<>();
+        for (Transfer transfer : expired) {
+            if (transfer.getStatusCode() == Transfer.STATUS_CODE_IN_APPROVING) {
+                inStage.add(transfer);
+            } else {
+                outStage.add(transfer);
+            }
+        }
+        
+        List<TransferApprovalLog> logs = new ArrayList<>(expired.size());
+        if (!outStage.isEmpty()) {
+            transferMapper.rejectExpiredOut(ids(outStage), currentTime, EXPIRED_REMARK);
+            outStage.forEach(transfer -> logs.add(expiredLog(transfer, 1, currentTime)));
+        }
+        if (!inStage.isEmpty()) {
+            transferMapper.rejectExpiredIn(ids(inStage), currentTime, EXPIRED_REMARK);
+            inStage.forEach(transfer -> logs.add(expiredLog(transfer, 2, currentTime)));
+        }
+        transferApprovalLogMapper.insertBatch(logs);
+        
+        notificationHelper.sendExpiredNotifications(outStage, "转出组织");
+        notificationHelper.sendExpiredNotifications(inStage, "转入组织");
+        return expired.size();
+    }
+    
+    private static List<Integer> ids(List<Transfer> transfers) {
+        return transfers.stream().map(Transfer::getId).collect(Collectors.toList());
+    }
+    
+    /**
+     * 过期自动拒绝的审批日志，审批人ID为0表示系统操作
+     */
+    private static TransferApprovalLog expiredLog(Transfer transfer, int approvalType, LocalDateTime currentTime) {
+        TransferApprovalLog logRecord = new TransferApprovalLog();
+        logRecord.setTransferId(transfer.getId());
+        logRecord.setApprovalType(approvalType);
+        logRecord.setApproverId(0);
+        logRecord.setApproverName("系统");
+        logRecord.setApproved(false);
+        logRecord.setApprovalRemark(EXPIRED_REMARK);
+        logRecord.setApprovalTime(currentTime);
+        logRecord.setCreateTime(currentTime);
+        return logRecord;
+    }
 
     @Override
     public boolean exists(Integer transferId) {
@@ -0,0 +1,199 @@
+package com.zhtj.service.impl;
+
+import com.zhtj.common.constant.RedisKeyConstant;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户未读通知计数器
+ * 每个用户的未读数（含广播通知）保存在Redis中，通知新增、已读、删除时在事务提交后原子增减；
+ * 计数不存在时由调用方从数据库重建。新增广播通知会影响大量用户，此时只递增广播版本号，
+ * 计数键名包含版本号，旧版本的计数自然失效并按需重建。
+ */
+@Slf4j
+@Component
+class UnreadNotificationCounter {
+
+    private static final long COUNTER_TTL_HOURS = 24;
+
+    private static final long EPOCH_CHECK_INTERVAL = 60 * 1000;
+
+    // 计数存在时才增减，避免在缺失的计数上从0开始累加；结果为负说明计数已偏离，删除后重建
+    private static final DefaultRedisScript<Long> INCREMENT_IF_PRESENT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return nil end " +
+            "local value = redis.call('INCRBY', KEYS[1], ARGV[1]) " +
+            "if value < 0 then redis.call('DEL', KEYS[1]) return nil end " +
+            "return value", Long.class);
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private final AtomicLong broadcastEpoch = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            Object payload = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (payload != null) {
+                markEpoch(Long.parseLong(payload.toString()));
+            }
+        }, new ChannelTopic(RedisKeyConstant.NOTIFICATION_BROADCAST_CHANNEL));
+        markEpoch(readEpoch());
+    }
+
+    /**
+     * 定期核对广播版本号，防止错过其他实例的变更广播
+     */
+    @Scheduled(fixedDelay = EPOCH_CHECK_INTERVAL, initialDelay = EPOCH_CHECK_INTERVAL)
+    public void checkEpoch() {
+        markEpoch(readEpoch());
+    }
+
+    /**
+     * 读取用户未读数，计数不存在或Redis不可用时返回null
+     */
+    Integer get(Integer userId) {
+        try {
+            Object value = redisTemplate.opsForValue().get(key(userId));
+            return value instanceof Number ? ((Number) value).intValue() : null;
+        } catch (Exception e) {
+            log.warn("读取未读通知数失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 写入从数据库重建的未读数，已有计数时不覆盖
+     */
+    void rebuild(Integer userId, int count) {
+        try {
+            redisTemplate.opsForValue().setIfAbsent(key(userId), count, COUNTER_TTL_HOURS, TimeUnit.HOURS);
+        } catch (Exception e) {
+            log.warn("写入未读通知数失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 校正未读数，覆盖已有计数
+     */
+    void overwrite(Integer userId, int count) {
+        try {
+            redisTemplate.opsForValue().set(key(userId), count, COUNTER_TTL_HOURS, TimeUnit.HOURS);
+        } catch (Exception e) {
+            log.warn("校正未读通知数失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 在事务提交后增减用户未读数
+     */
+    void increment(Integer userId, int delta) {
+        if (userId == null || delta == 0) {
+            return;
+        }
+        afterCommit(() -> redisTemplate.execute(INCREMENT_IF_PRESENT, Collections.singletonList(key(userId)), delta));
+    }
+
+    /**
+     * 在事务提交后删除用户未读数，下次读取时重建
+     */
+    void invalidate(Integer userId) {
+        if (userId == null) {
+            return;
+        }
+        afterCommit(() -> redisTemplate.delete(key(userId)));
+    }
+
+    /**
+     * 在事务提交后递增广播版本号，使全部用户的未读数失效
+     */
+    void invalidateAll() {
+        afterCommit(() -> {
+            Long epoch = redisTemplate.opsForValue().increment(RedisKeyConstant.NOTIFICATION_BROADCAST_EPOCH);
+            if (epoch != null) {
+                markEpoch(epoch);
+                redisTemplate.convertAndSend(RedisKeyConstant.NOTIFICATION_BROADCAST_CHANNEL, epoch);
+            }
+        });
+    }
+
+    /**
+     * 当前版本下已有未读数的用户
+     *
+     * @param limit 最大数量
+     */
+    List<Integer> trackedUserIds(int limit) {
+        String prefix = String.format(RedisKeyConstant.NOTIFICATION_UNREAD, broadcastEpoch.get(), "");
+        List<Integer> userIds = new ArrayList<>();
+        try (Cursor<String> cursor = redisTemplate.scan(
+                ScanOptions.scanOptions().match(prefix + "*").count(1000).build())) {
+            while (cursor.hasNext() && userIds.size() < limit) {
+                String suffix = cursor.next().substring(prefix.length());
+                try {
+                    userIds.add(Integer.valueOf(suffix));
+                } catch (NumberFormatException e) {
+                    // 忽略格式不符的键
+                }
+            }
+        }
+        return userIds;
+    }
+
+    private String key(Integer userId) {
+        return String.format(RedisKeyConstant.NOTIFICATION_UNREAD, broadcastEpoch.get(), userId);
+    }
+
+    private void afterCommit(Runnable action) {
+        Runnable safeAction = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.warn("更新未读通知数失败，将在下次核对时校正: {}", e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeAction.run();
+                }
+            });
+        } else {
+            safeAction.run();
+        }
+    }
+
+    private long readEpoch() {
+        try {
+            Object value = redisTemplate.opsForValue().get(RedisKeyConstant.NOTIFICATION_BROADCAST_EPOCH);
+            return value != null ? Long.parseLong(value.toString()) : 0L;
+        } catch (Exception e) {
+            log.warn("读取广播通知版本号失败: {}", e.getMessage());
+            return broadcastEpoch.get();
+        }
+    }
+
+    private void markEpoch(long epoch) {
+        broadcastEpoch.accumulateAndGet(epoch, Math::max);
+    }
+}
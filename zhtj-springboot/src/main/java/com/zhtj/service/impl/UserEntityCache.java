@@ -0,0 +1,195 @@
+package com.zhtj.service.impl;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.zhtj.common.constant.RedisKeyConstant;
+import com.zhtj.domain.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 用户实体缓存
+ * 两级读取：同一请求内的备忘表，以及进程内有界、带过期时间的共享缓存，均未命中时再查询数据库。
+ * 用户数据变更时清除本地缓存并通过Redis广播通知其他实例；缓存中的对象不对外暴露，每次读取返回副本。
+ */
+@Slf4j
+@Component
+class UserEntityCache {
+
+    private static final int CACHE_CAPACITY = 10000;
+    private static final long CACHE_TTL = 60 * 1000;
+
+    // 请求属性名：当前请求内已读取的用户
+    private static final String REQUEST_MEMO_ATTRIBUTE = UserEntityCache.class.getName() + ".memo";
+
+    // 广播消息：清空全部用户缓存
+    private static final String EVICT_ALL = "*";
+
+    private static final String METRIC_NAME = "zhtj.user.cache.gets";
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final LRUCache<Integer, User> sharedCache = CacheUtil.newLRUCache(CACHE_CAPACITY, CACHE_TTL);
+
+    private Counter requestHits;
+    private Counter sharedHits;
+    private Counter misses;
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            Object payload = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (payload == null || EVICT_ALL.equals(payload.toString())) {
+                sharedCache.clear();
+            } else {
+                sharedCache.remove(Integer.valueOf(payload.toString()));
+            }
+        }, new ChannelTopic(RedisKeyConstant.USER_ENTITY_CHANNEL));
+
+        requestHits = Counter.builder(METRIC_NAME).tag("result", "hit").tag("level", "request")
+                .description("用户实体缓存读取次数").register(meterRegistry);
+        sharedHits = Counter.builder(METRIC_NAME).tag("result", "hit").tag("level", "shared")
+                .description("用户实体缓存读取次数").register(meterRegistry);
+        misses = Counter.builder(METRIC_NAME).tag("result", "miss").tag("level", "shared")
+                .description("用户实体缓存读取次数").register(meterRegistry);
+        Gauge.builder("zhtj.user.cache.size", sharedCache, LRUCache::size)
+                .description("用户实体共享缓存条目数").register(meterRegistry);
+    }
+
+    /**
+     * 读取用户，未命中时通过loader加载，不存在的用户不缓存
+     */
+    User get(Integer userId, Function<Integer, User> loader) {
+        Map<Integer, User> memo = requestMemo();
+        User user = memo != null ? memo.get(userId) : null;
+        if (user != null) {
+            requestHits.increment();
+            return copyOf(user);
+        }
+
+        user = sharedCache.get(userId, false);
+        if (user != null) {
+            sharedHits.increment();
+        } else {
+            misses.increment();
+            user = loader.apply(userId);
+            if (user == null) {
+                return null;
+            }
+            sharedCache.put(userId, user);
+        }
+        if (memo != null) {
+            memo.put(userId, user);
+        }
+        return copyOf(user);
+    }
+
+    /**
+     * 批量读取用户，未命中的用户通过loader一次性加载
+     */
+    Map<Integer, User> getAll(Collection<Integer> userIds, Function<List<Integer>, List<User>> loader) {
+        Map<Integer, User> result = new HashMap<>();
+        List<Integer> missingIds = new ArrayList<>();
+        for (Integer userId : userIds) {
+            if (userId == null) {
+                continue;
+            }
+            User user = sharedCache.get(userId, false);
+            if (user != null) {
+                sharedHits.increment();
+                result.put(userId, copyOf(user));
+            } else {
+                missingIds.add(userId);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            misses.increment(missingIds.size());
+            for (User user : loader.apply(missingIds)) {
+                sharedCache.put(user.getId(), user);
+                result.put(user.getId(), copyOf(user));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 清除单个用户的缓存，事务中调用时在提交后再清除一次，防止并发读取把旧数据写回缓存
+     */
+    void evict(Integer userId) {
+        if (userId == null) {
+            return;
+        }
+        doEvict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvict(userId);
+                }
+            });
+        }
+    }
+
+    private void doEvict(Integer userId) {
+        sharedCache.remove(userId);
+        Map<Integer, User> memo = requestMemo();
+        if (memo != null) {
+            memo.remove(userId);
+        }
+        try {
+            redisTemplate.convertAndSend(RedisKeyConstant.USER_ENTITY_CHANNEL, userId.toString());
+        } catch (Exception e) {
+            log.warn("广播用户缓存失效消息失败，其他实例将在缓存过期后更新: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 当前请求的用户备忘表，不在请求线程中时返回null
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Integer, User> requestMemo() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object memo = attributes.getAttribute(REQUEST_MEMO_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (memo == null) {
+            memo = new HashMap<Integer, User>();
+            attributes.setAttribute(REQUEST_MEMO_ATTRIBUTE, memo, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (Map<Integer, User>) memo;
+    }
+
+    private static User copyOf(User user) {
+        User copy = new User();
+        BeanUtils.copyProperties(user, copy);
+        return copy;
+    }
+}
@@ -4,6 +4,9 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zhtj.common.api.BatchResult;
+import com.zhtj.common.api.CursorPage;
+import com.zhtj.common.constant.RedisKeyConstant;
 import com.zhtj.common.exception.BusinessException;
 import com.zhtj.common.exception.ResourceNotFoundException;
 import com.zhtj.common.exception.UnauthorizedException;
@@ -24,7 +27,10 @@ import com.zhtj.model.twosystem.RegisterBatch;
 import com.zhtj.model.twosystem.RegisterBatchOrganization;
 import com.zhtj.service.OrganizationService;
 import com.zhtj.service.RoleService;
+import com.zhtj.service.TokenRevocationService;
 import com.zhtj.service.UserService;
+import com.zhtj.util.BatchLookup;
+import com.zhtj.util.SeekCursor;
 import com.zhtj.config.JwtConfig;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,16 +43,20 @@ import org.springframework.util.DigestUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.time.LocalDate;
 import java.lang.reflect.Field;
@@ -60,6 +70,15 @@ import jakarta.servlet.http.HttpServletRequest;
 @SuppressWarnings("unchecked")
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements UserService {
     
+    // 生成评议记录时每条INSERT语句覆盖的组织数
+    private static final int EVALUATION_SEED_BATCH_SIZE = 200;
+    
+    // 批量写入评议结果时每条语句的记录数
+    private static final int EVALUATION_UPSERT_BATCH_SIZE = 500;
+    
+    // 批量审批注册申请时每条语句覆盖的申请数
+    private static final int BATCH_APPROVAL_SIZE = 1000;
+    
     // 从配置文件中读取开发环境万能密码
     @Value("${dev.auth.master-password.password}")
     private String devMasterPassword;
@@ -71,6 +90,9 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     @Autowired
     private UserMapper userMapper;
     
+    @Autowired
+    private UserEntityCache userEntityCache;
+    
     @Autowired
     private OrganizationService organizationService;
     
@@ -89,6 +111,9 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     @Autowired
     private RoleService roleService;
     
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -162,7 +187,12 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             throw new BusinessException("用户ID不能为空");
         }
         
-        return this.removeById(id);
+        User existingUser = this.getById(id);
+        boolean result = this.removeById(id);
+        if (result && existingUser != null) {
+            organizationService.adjustMemberCount(existingUser.getOrganization(), -1);
+        }
+        return result;
     }
 
     @Override
@@ -172,10 +202,12 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             throw new BusinessException("证件号不能为空");
         }
         
-        LambdaQueryWrapper<User> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(User::getCard, card);
+        User existingUser = this.getByCard(card);
+        if (existingUser == null) {
+            return false;
+        }
         
-        return this.remove(queryWrapper);
+        return this.removeById(existingUser.getId());
     }
 
     @Override
@@ -208,7 +240,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             throw new BusinessException("用户ID不能为空");
         }
         
-        User user = userMapper.getUserDetail(id);
+        User user = this.getById(id);
         if (user == null) {
             throw new ResourceNotFoundException("用户", "id", id);
         }
@@ -221,8 +253,37 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         if (id == null) {
             return null;
         }
-        // 使用自定义查询方法代替MyBatis-Plus默认的查询
-        return userMapper.getUserDetail(id);
+        // 使用自定义查询方法代替MyBatis-Plus默认的查询，结果经用户实体缓存读取
+        return userEntityCache.get(id, userMapper::getUserDetail);
+    }
+
+    @Override
+    public Map<Integer, User> getUserMap(Collection<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new HashMap<>();
+        }
+        return userEntityCache.getAll(ids, userMapper::getUserDetailsByIds);
+    }
+
+    /**
+     * 更新用户后清除用户实体缓存，本类及其他服务经updateById修改用户时都会经过这里
+     */
+    @Override
+    public boolean updateById(User entity) {
+        boolean result = super.updateById(entity);
+        if (entity != null) {
+            userEntityCache.evict(entity.getId());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        if (id instanceof Integer) {
+            userEntityCache.evict((Integer) id);
+        }
+        return result;
     }
 
     @Override
@@ -267,7 +328,9 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         
         // 更新密码
         String encodedNewPwd = passwordEncoder.encode(newPwd);
-        return userMapper.updatePassword(id, encodedNewPwd) > 0;
+        boolean result = userMapper.updatePassword(id, encodedNewPwd) > 0;
+        userEntityCache.evict(id);
+        return result;
     }
 
     @Override
@@ -305,7 +368,12 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         user.setTransferCount(user.getTransferCount() == null ? 1 : user.getTransferCount() + 1);
         user.setUpdateTime(LocalDateTime.now());
         
-        return this.updateById(user);
+        boolean result = this.updateById(user);
+        if (result && !newOrganizationId.equals(previousOrganization)) {
+            organizationService.adjustMemberCount(previousOrganization, -1);
+            organizationService.adjustMemberCount(newOrganizationId, 1);
+        }
+        return result;
     }
 
     @Override
@@ -391,7 +459,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         
         // 更新组织的成员数量
         if (result && user.getOrganization() != null) {
-            organizationService.updateMemberCount(user.getOrganization());
+            organizationService.adjustMemberCount(user.getOrganization(), 1);
         }
         
         return result;
@@ -435,10 +503,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         // 如果组织变更，更新相关组织的成员数量
         if (result && user.getOrganization() != null 
                 && !user.getOrganization().equals(oldOrganizationId)) {
-            if (oldOrganizationId != null) {
-                organizationService.updateMemberCount(oldOrganizationId);
-            }
-            organizationService.updateMemberCount(user.getOrganization());
+            organizationService.adjustMemberCount(oldOrganizationId, -1);
+            organizationService.adjustMemberCount(user.getOrganization(), 1);
         }
         
         return result;
@@ -462,7 +528,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         
         // 更新组织的成员数量
         if (result && existingUser.getOrganization() != null) {
-            organizationService.updateMemberCount(existingUser.getOrganization());
+            organizationService.adjustMemberCount(existingUser.getOrganization(), -1);
         }
         
         return result;
@@ -743,15 +809,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         log.info("用户 {} 的新令牌信息已保存到Redis", userId);
         
         // 8. 将旧令牌加入黑名单
-        Date oldExpirationDate = jwtConfig.getExpirationDateFromToken(oldToken);
-        long remainingTime = 0;
-        if (oldExpirationDate != null) {
-            remainingTime = Math.max(0, oldExpirationDate.getTime() - System.currentTimeMillis()) / 1000;
-        }
-        remainingTime = Math.max(30, remainingTime); // 最小30秒有效期
-        
-        String blacklistKey = String.format("jwt:blacklist:%s", generateShortUuid());
-        redisTemplate.opsForValue().set(blacklistKey, oldToken, remainingTime, TimeUnit.SECONDS);
+        tokenRevocationService.revoke(oldToken, jwtConfig.getExpirationDateFromToken(oldToken));
         
         log.info("用户 {} 的旧令牌已加入黑名单", userId);
         
@@ -796,21 +854,9 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             }
             
             // 4. 将令牌加入黑名单，直到过期
-            // 从令牌中获取过期时间
-            Date expirationDate = jwtConfig.getExpirationDateFromToken(token);
-            long remainingTime = 0;
-            if (expirationDate != null) {
-                remainingTime = Math.max(0, expirationDate.getTime() - System.currentTimeMillis()) / 1000;
-            }
-            
-            // 如果令牌即将过期，设置最小黑名单有效期为30秒
-            remainingTime = Math.max(30, remainingTime);
-            
-            // 生成黑名单令牌的键
-            String blacklistKey = String.format("jwt:blacklist:%s", generateShortUuid());
-            redisTemplate.opsForValue().set(blacklistKey, token, remainingTime, TimeUnit.SECONDS);
+            tokenRevocationService.revoke(token, jwtConfig.getExpirationDateFromToken(token));
             
-            log.info("用户 {} 的令牌已加入黑名单，有效期 {} 秒", userId, remainingTime);
+            log.info("用户 {} 的令牌已加入黑名单", userId);
             return true;
         } catch (Exception e) {
             log.error("登出过程中发生错误", e);
@@ -818,13 +864,6 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         }
     }
     
-    /**
-     * 生成短UUID，用于黑名单键
-     */
-    private String generateShortUuid() {
-        return UUID.randomUUID().toString().replace("-", "").substring(0, 16);
-    }
-
     @Override
     public Integer getUserIdFromToken(String token) {
         return jwtConfig.getUserIdFromToken(token);
@@ -880,11 +919,19 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             Page<RegisterBatch> pageParam = new Page<>(page, size);
             IPage<RegisterBatch> pageResult = registerBatchMapper.selectBatchPage(pageParam, batchName, registerYear, status, organizationId);
             
+            // 一次查询整页批次关联的组织ID
+            Map<Integer, List<Integer>> organizationIdsByBatch = new HashMap<>();
+            Set<Integer> batchIds = BatchLookup.collectKeys(pageResult.getRecords(), RegisterBatch::getId);
+            if (!batchIds.isEmpty()) {
+                for (RegisterBatchOrganization relation : registerBatchOrganizationMapper.selectByBatchIds(batchIds)) {
+                    organizationIdsByBatch.computeIfAbsent(relation.getBatchId(), k -> new ArrayList<>())
+                            .add(relation.getOrganizationId());
+                }
+            }
+            
             // 处理每个批次，添加目标组织ID列表
             for (RegisterBatch batch : pageResult.getRecords()) {
-                // 获取批次关联的组织ID列表
-                List<Integer> organizationIds = registerBatchOrganizationMapper.getOrganizationIdsByBatchId(batch.getId());
-                batch.setTargetOrganizationIds(organizationIds);
+                batch.setTargetOrganizationIds(organizationIdsByBatch.getOrDefault(batch.getId(), new ArrayList<>()));
                 
                 // 设置前端兼容字段
                 batch.setBatchCode(batch.getBatchName());
@@ -1261,16 +1308,21 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             Page<MemberRegister> pageParam = new Page<>(page, size);
             IPage<MemberRegister> pageResult = memberRegisterMapper.getRegisterHistory(pageParam, userId);
             
-            // 处理每条记录，设置兼容字段
-            for (MemberRegister register : pageResult.getRecords()) {
-                if (register.getBatchCode() == null && register.getBatchId() != null) {
-                    // 查询批次信息设置batchCode
-                    RegisterBatch batch = registerBatchMapper.selectById(register.getBatchId());
-                    if (batch != null) {
-                        register.setBatchCode(batch.getBatchName());
-                    }
-                }
-            }
+            // 缺少batchCode的记录批量查询批次信息补全
+            BatchLookup.enrich(pageResult.getRecords(),
+                    register -> register.getBatchCode() == null ? register.getBatchId() : null,
+                    ids -> {
+                        Map<Integer, RegisterBatch> batches = new HashMap<>();
+                        for (RegisterBatch batch : registerBatchMapper.selectBatchIds(ids)) {
+                            batches.put(batch.getId(), batch);
+                        }
+                        return batches;
+                    },
+                    (register, batch) -> {
+                        if (batch != null) {
+                            register.setBatchCode(batch.getBatchName());
+                        }
+                    });
             
         Map<String, Object> result = new HashMap<>();
             result.put("list", pageResult.getRecords());
@@ -1393,47 +1445,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             log.debug("获取注册审批列表: userId={}, page={}, size={}, batchId={}, memberName={}, status={}", 
                     currentUser.getId(), page, size, batchId, memberName, status);
             
-            // 获取当前用户可以管理的组织ID列表
-            List<Integer> managedOrgIds = new ArrayList<>();
-            
-            // 特殊处理：用于批次成员列表API，跳过组织权限检查
-            if (currentUser.getId() == 0) {
-                log.debug("批次成员列表接口调用，跳过组织权限检查");
-                
-                // 查询所有组织批次成员
-                Page<MemberRegister> pageParam = new Page<>(page, size);
-                IPage<MemberRegister> pageResult = memberRegisterMapper.getApprovalList(
-                        pageParam, batchId, null, memberName, status);
-                
-                Map<String, Object> result = new HashMap<>();
-                result.put("list", pageResult.getRecords());
-                result.put("total", pageResult.getTotal());
-                
-                return result;
-            }
-            
-            // 普通审批列表调用 - 进行权限检查
-            // 获取用户角色
-            Set<String> roles = getUserRoles(currentUser.getId());
-            boolean isCommitteeAdmin = roles.contains("COMMITTEE_SECRETARY") || roles.contains("DEPUTY_COMMITTEE_SECRETARY")
-                                     || "团委书记".equals(currentUser.getLeaguePosition()) || "团委副书记".equals(currentUser.getLeaguePosition());
-            boolean isBranchAdmin = roles.contains("BRANCH_SECRETARY") || roles.contains("DEPUTY_BRANCH_SECRETARY")
-                                  || "团支书".equals(currentUser.getLeaguePosition()) || "团支部副书记".equals(currentUser.getLeaguePosition());
-            
-            if (isCommitteeAdmin || isBranchAdmin) {
-                // 如果是团委书记/副书记或团支书/副书记，可以管理自己所在组织及下级组织
-                if (currentUser.getOrganization() != null) {
-                    // 添加自己所在组织
-                    managedOrgIds.add(currentUser.getOrganization());
-                    // 添加下级组织
-                    List<Integer> subOrgIds = organizationMapper.getSubOrganizationIds(currentUser.getOrganization());
-                    if (subOrgIds != null && !subOrgIds.isEmpty()) {
-                        managedOrgIds.addAll(subOrgIds);
-                    }
-                }
-            }
-            
-            if (managedOrgIds.isEmpty()) {
+            List<Integer> managedOrgIds = getApprovalOrganizationIds(currentUser);
+            if (managedOrgIds != null && managedOrgIds.isEmpty()) {
                 // 如果用户没有管理权限，返回空列表
                 log.warn("获取注册审批列表失败: 用户没有管理权限, userId={}", currentUser.getId());
                 return Map.of("list", new ArrayList<>(), "total", 0);
@@ -1455,6 +1468,70 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         }
     }
     
+    @Override
+    public CursorPage<MemberRegister> getApprovalCursorPage(User currentUser, String cursor, Integer size, Integer batchId,
+                                                          String memberName, String status, boolean withTotal) {
+        log.debug("按游标获取注册审批列表: userId={}, cursor={}, size={}, batchId={}, memberName={}, status={}", 
+                currentUser.getId(), cursor, size, batchId, memberName, status);
+        
+        SeekCursor seek = SeekCursor.decode(cursor);
+        List<Integer> managedOrgIds = getApprovalOrganizationIds(currentUser);
+        if (managedOrgIds != null && managedOrgIds.isEmpty()) {
+            log.warn("获取注册审批列表失败: 用户没有管理权限, userId={}", currentUser.getId());
+            CursorPage<MemberRegister> empty = new CursorPage<>(new ArrayList<>(), null, false);
+            if (withTotal) {
+                empty.setTotal(0L);
+            }
+            return empty;
+        }
+        
+        List<MemberRegister> rows = memberRegisterMapper.getApprovalSeek(
+                batchId, managedOrgIds, memberName, status, seek, size + 1);
+        CursorPage<MemberRegister> result = SeekCursor.page(rows, size,
+                register -> new SeekCursor(register.getCreateTime(), register.getId(), 0));
+        if (withTotal) {
+            result.setTotal(memberRegisterMapper.countApprovalList(batchId, managedOrgIds, memberName, status));
+        }
+        return result;
+    }
+    
+    /**
+     * 获取用户可审批的组织ID：团委书记/副书记、团支书/副书记可管理自己所在组织及下级组织；
+     * 批次成员列表接口以ID为0的用户调用，返回null表示不限组织；无管理权限时返回空列表
+     */
+    private List<Integer> getApprovalOrganizationIds(User currentUser) {
+        // 特殊处理：用于批次成员列表API，跳过组织权限检查
+        if (currentUser.getId() == 0) {
+            log.debug("批次成员列表接口调用，跳过组织权限检查");
+            return null;
+        }
+        
+        // 获取当前用户可以管理的组织ID列表
+        List<Integer> managedOrgIds = new ArrayList<>();
+        
+        // 普通审批列表调用 - 进行权限检查
+        // 获取用户角色
+        Set<String> roles = getUserRoles(currentUser.getId());
+        boolean isCommitteeAdmin = roles.contains("COMMITTEE_SECRETARY") || roles.contains("DEPUTY_COMMITTEE_SECRETARY")
+                                 || "团委书记".equals(currentUser.getLeaguePosition()) || "团委副书记".equals(currentUser.getLeaguePosition());
+        boolean isBranchAdmin = roles.contains("BRANCH_SECRETARY") || roles.contains("DEPUTY_BRANCH_SECRETARY")
+                              || "团支书".equals(currentUser.getLeaguePosition()) || "团支部副书记".equals(currentUser.getLeaguePosition());
+        
+        if (isCommitteeAdmin || isBranchAdmin) {
+            // 如果是团委书记/副书记或团支书/副书记，可以管理自己所在组织及下级组织
+            if (currentUser.getOrganization() != null) {
+                // 添加自己所在组织
+                managedOrgIds.add(currentUser.getOrganization());
+                // 添加下级组织
+                List<Integer> subOrgIds = organizationMapper.getSubOrganizationIds(currentUser.getOrganization());
+                if (subOrgIds != null && !subOrgIds.isEmpty()) {
+                    managedOrgIds.addAll(subOrgIds);
+                }
+            }
+        }
+        return managedOrgIds;
+    }
+    
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean approveRegister(Integer id, User approver, String comments) {
@@ -1580,44 +1657,117 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     
     @Override
     @Transactional(rollbackFor = Exception.class)
-    public boolean batchApproveRegister(List<Integer> ids, User approver, String comments) {
-        try {
-            log.debug("批量审批通过注册申请: ids={}, approverId={}", ids, approver.getId());
-            
-            if (ids == null || ids.isEmpty()) {
-        return true;
-            }
-            
-            for (Integer id : ids) {
-                approveRegister(id, approver, comments);
-            }
-            
-            return true;
-        } catch (Exception e) {
-            log.error("批量审批通过注册申请失败: {}", e.getMessage(), e);
-            throw new RuntimeException("批量审批通过注册申请失败", e);
+    public BatchResult batchApproveRegister(List<Integer> ids, User approver, String comments) {
+        log.debug("批量审批通过注册申请: count={}, approverId={}", ids != null ? ids.size() : 0, approver.getId());
+        
+        BatchResult result = new BatchResult();
+        if (ids == null || ids.isEmpty()) {
+            return result;
+        }
+        
+        // 判断用户是否有权限审批，整批只判断一次
+        Set<String> roles = getUserRoles(approver.getId());
+        boolean isCommitteeAdmin = roles.contains("COMMITTEE_SECRETARY") || roles.contains("DEPUTY_COMMITTEE_SECRETARY")
+                                 || "团委书记".equals(approver.getLeaguePosition()) || "团委副书记".equals(approver.getLeaguePosition());
+        boolean isBranchAdmin = roles.contains("BRANCH_SECRETARY") || roles.contains("DEPUTY_BRANCH_SECRETARY")
+                              || "团支书".equals(approver.getLeaguePosition()) || "团支部副书记".equals(approver.getLeaguePosition());
+        if (!isCommitteeAdmin && !isBranchAdmin) {
+            log.warn("批量审批通过注册申请失败: 用户没有审批权限, approverId={}", approver.getId());
+            throw new BusinessException("您没有审批权限");
         }
+        
+        // 团支书审批通过，还需要团委审批；团委书记审批直接通过
+        String newStatus = isBranchAdmin && !isCommitteeAdmin ? "团支部已审核" : "已通过";
+        applyBatchApproval(ids, approver, comments, newStatus, "注册审批通过", "只有待审核的申请才能审批", result);
+        
+        log.info("批量审批通过注册申请完成: approverId={}, 成功 {} 条, 失败 {} 条", 
+                approver.getId(), result.getSuccessCount(), result.getFailureCount());
+        return result;
     }
     
     @Override
     @Transactional(rollbackFor = Exception.class)
-    public boolean batchRejectRegister(List<Integer> ids, User approver, String comments) {
-        try {
-            log.debug("批量驳回注册申请: ids={}, approverId={}", ids, approver.getId());
-            
-            if (ids == null || ids.isEmpty()) {
-        return true;
+    public BatchResult batchRejectRegister(List<Integer> ids, User approver, String comments) {
+        log.debug("批量驳回注册申请: count={}, approverId={}", ids != null ? ids.size() : 0, approver.getId());
+        
+        BatchResult result = new BatchResult();
+        if (ids == null || ids.isEmpty()) {
+            return result;
+        }
+        
+        // 判断用户是否有权限审批，整批只判断一次
+        Set<String> roles = getUserRoles(approver.getId());
+        boolean isCommitteeAdmin = roles.contains("COMMITTEE_SECRETARY") || roles.contains("DEPUTY_COMMITTEE_SECRETARY");
+        boolean isBranchAdmin = roles.contains("BRANCH_SECRETARY") || roles.contains("DEPUTY_BRANCH_SECRETARY");
+        if (!isCommitteeAdmin && !isBranchAdmin) {
+            log.warn("批量驳回注册申请失败: 用户没有审批权限, approverId={}", approver.getId());
+            throw new BusinessException("您没有审批权限");
+        }
+        
+        applyBatchApproval(ids, approver, comments, "已驳回", "注册审批驳回", "只有待审核的申请才能驳回", result);
+        
+        log.info("批量驳回注册申请完成: approverId={}, 成功 {} 条, 失败 {} 条", 
+                approver.getId(), result.getSuccessCount(), result.getFailureCount());
+        return result;
+    }
+    
+    /**
+     * 批量审批注册申请：一次锁定全部申请，按预先计算的组织范围逐条校验，
+     * 通过校验的申请以一条条件UPDATE变更为目标状态，审批日志一次批量写入
+     */
+    private void applyBatchApproval(List<Integer> ids, User approver, String comments, String newStatus,
+                                    String operationType, String statusError, BatchResult result) {
+        Set<Integer> scope = getRegisterApprovalScope(approver);
+        List<Integer> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        
+        Map<Integer, MemberRegister> registers = new HashMap<>();
+        for (int from = 0; from < distinctIds.size(); from += BATCH_APPROVAL_SIZE) {
+            List<Integer> batch = distinctIds.subList(from, Math.min(from + BATCH_APPROVAL_SIZE, distinctIds.size()));
+            for (MemberRegister register : memberRegisterMapper.lockByIds(batch)) {
+                registers.put(register.getId(), register);
             }
-            
-            for (Integer id : ids) {
-                rejectRegister(id, approver, comments);
+        }
+        
+        List<Integer> approvable = new ArrayList<>();
+        for (Integer id : distinctIds) {
+            MemberRegister register = registers.get(id);
+            if (register == null) {
+                result.fail(id, "注册申请不存在");
+            } else if (!"待审核".equals(register.getStatus())) {
+                result.fail(id, statusError);
+            } else if (register.getOrganizationId() != null && !scope.contains(register.getOrganizationId())) {
+                result.fail(id, "您没有该组织的审批权限");
+            } else {
+                approvable.add(id);
             }
-            
-            return true;
-        } catch (Exception e) {
-            log.error("批量驳回注册申请失败: {}", e.getMessage(), e);
-            throw new RuntimeException("批量驳回注册申请失败", e);
         }
+        if (approvable.isEmpty()) {
+            return;
+        }
+        
+        String content = StringUtils.hasText(comments) ? newStatus + "：" + comments : newStatus;
+        for (int from = 0; from < approvable.size(); from += BATCH_APPROVAL_SIZE) {
+            List<Integer> batch = approvable.subList(from, Math.min(from + BATCH_APPROVAL_SIZE, approvable.size()));
+            // 申请已被锁定，状态不会在此期间变化
+            memberRegisterMapper.batchUpdateStatus(batch, newStatus, comments, approver.getId(), approver.getName());
+            memberRegisterMapper.insertApprovalLogs(batch, operationType, content, approver.getId(), approver.getName());
+        }
+        approvable.forEach(result::success);
+    }
+    
+    /**
+     * 审批人可审批的组织：所在组织及其直接下级组织
+     */
+    private Set<Integer> getRegisterApprovalScope(User approver) {
+        if (approver.getOrganization() == null) {
+            return Collections.emptySet();
+        }
+        Set<Integer> scope = new HashSet<>();
+        scope.add(approver.getOrganization());
+        for (Organization child : organizationService.getChildrenByParentId(approver.getOrganization())) {
+            scope.add(child.getId());
+        }
+        return scope;
     }
     
     @Override
@@ -1686,6 +1836,18 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             
             List<MemberEvaluation> evaluations = memberEvaluationMapper.selectList(queryWrapper);
             
+            // 一次读取全部评议活动的预汇总统计，不再逐个评议活动聚合详情表
+            Map<Integer, Map<String, Object>> statisticsById = new HashMap<>();
+            if (!evaluations.isEmpty()) {
+                List<Integer> evaluationIds = new ArrayList<>();
+                for (MemberEvaluation evaluation : evaluations) {
+                    evaluationIds.add(evaluation.getId());
+                }
+                for (Map<String, Object> statistics : memberEvaluationDetailMapper.selectStatisticsByEvaluationIds(evaluationIds)) {
+                    statisticsById.put(((Number) statistics.get("evaluationId")).intValue(), statistics);
+                }
+            }
+            
             List<Map<String, Object>> data = new ArrayList<>();
             for (MemberEvaluation evaluation : evaluations) {
                 Map<String, Object> item = new HashMap<>();
@@ -1697,8 +1859,11 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
                 item.put("startTime", evaluation.getStartTime());
                 item.put("endTime", evaluation.getEndTime());
                 
-                // 使用MemberEvaluationDetailMapper获取统计数据
-                Map<String, Object> statistics = memberEvaluationDetailMapper.getEvaluationStatistics(evaluation.getId());
+                // 统计表中尚无记录的历史评议活动，先汇总再读取
+                Map<String, Object> statistics = statisticsById.get(evaluation.getId());
+                if (statistics == null) {
+                    statistics = loadEvaluationStatistics(evaluation.getId());
+                }
                 
                 // 处理可能为null的统计数据
                 Long totalCount = statistics != null ? ((Number) statistics.getOrDefault("totalCount", 0)).longValue() : 0L;
@@ -1764,19 +1929,34 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     }
     
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean resetEvaluation(Integer evaluationId, Integer memberId) {
         log.info("重置评议结果: evaluationId={}, memberId={}", evaluationId, memberId);
         try {
-            // 使用MyBatis-Plus删除评议结果
+            // 锁定待删除的评议记录，按其原有状态和结果扣减统计
             LambdaQueryWrapper<MemberEvaluationDetail> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper.eq(MemberEvaluationDetail::getEvaluationId, evaluationId)
-                       .eq(MemberEvaluationDetail::getUserId, memberId);
+            queryWrapper.select(MemberEvaluationDetail::getId, MemberEvaluationDetail::getEvaluationId,
+                            MemberEvaluationDetail::getUserId, MemberEvaluationDetail::getResult, MemberEvaluationDetail::getStatus)
+                       .eq(MemberEvaluationDetail::getEvaluationId, evaluationId)
+                       .eq(MemberEvaluationDetail::getUserId, memberId)
+                       .last("FOR UPDATE");
+            List<MemberEvaluationDetail> existing = memberEvaluationDetailMapper.selectList(queryWrapper);
+            if (existing.isEmpty()) {
+                return false;
+            }
             
-            int result = memberEvaluationDetailMapper.delete(queryWrapper);
+            List<Integer> ids = new ArrayList<>();
+            Map<String, Integer> delta = newStatisticsDelta();
+            for (MemberEvaluationDetail detail : existing) {
+                ids.add(detail.getId());
+                accumulateStatisticsDelta(delta, detail, -1);
+            }
+            int result = memberEvaluationDetailMapper.deleteBatchIds(ids);
+            applyEvaluationStatisticsDelta(evaluationId, delta);
             return result > 0;
         } catch (Exception e) {
             log.error("重置评议结果失败", e);
-            return false;
+            throw new RuntimeException("重置评议结果失败", e);
         }
     }
     
@@ -2022,34 +2202,10 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             int result = memberEvaluationMapper.insert(evaluation);
             
             if (result > 0 && evaluation.getOrganizationId() != null) {
-                // 创建成功后，将所有组织成员添加到评议详情表
+                // 创建成功后，将组织及全部下级组织的成员添加到评议详情表
                 try {
-                    log.debug("开始为组织{}的成员创建评议记录", evaluation.getOrganizationId());
-                    
-                    // 获取该组织的所有成员
-                    List<User> members = this.getUsersByOrganization(evaluation.getOrganizationId());
-                    
-                    if (members != null && !members.isEmpty()) {
-                        int count = 0;
-                        for (User member : members) {
-                            try {
-                                // 创建未评议状态的记录
-                                MemberEvaluationDetail detail = new MemberEvaluationDetail();
-                                detail.setEvaluationId(evaluation.getId());
-                                detail.setUserId(member.getId());
-                                detail.setUserName(member.getName()); // 设置用户姓名
-                                detail.setStatus("未评议"); // 设置初始状态为未评议
-                                detail.setCreateTime(LocalDateTime.now());
-                                detail.setUpdateTime(LocalDateTime.now());
-                                
-                                // 保存评议详情
-                                memberEvaluationDetailMapper.insert(detail);
-                                count++;
-                            } catch (Exception e) {
-                                log.warn("为成员{}创建评议记录失败: {}", member.getId(), e.getMessage());
-                            }
-                        }
-                        
+                    int count = seedEvaluationDetails(evaluation.getId(), evaluation.getOrganizationId());
+                    if (count > 0) {
                         log.info("已为评议活动{}创建{}条成员评议记录", evaluation.getId(), count);
                     } else {
                         log.warn("组织{}没有找到成员，无法创建评议记录", evaluation.getOrganizationId());
@@ -2058,6 +2214,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
                     log.error("创建成员评议记录时出错: {}", e.getMessage());
                     // 记录错误但不影响评议活动的创建结果
                 }
+                refreshEvaluationStatistics(evaluation.getId());
             }
             
             return result > 0;
@@ -2067,6 +2224,31 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         }
     }
 
+    /**
+     * 按组织分批为成员生成未评议记录
+     * 每批组织的成员由一条INSERT ... SELECT写入，单批失败时记录日志并继续处理后续批次
+     *
+     * @return 创建的记录数
+     */
+    private int seedEvaluationDetails(Integer evaluationId, Integer organizationId) {
+        List<Integer> organizationIds = organizationService.getSelfAndChildrenOrganizationIds(organizationId);
+        if (organizationIds == null || organizationIds.isEmpty()) {
+            organizationIds = Collections.singletonList(organizationId);
+        }
+        
+        int count = 0;
+        for (int from = 0; from < organizationIds.size(); from += EVALUATION_SEED_BATCH_SIZE) {
+            List<Integer> batch = organizationIds.subList(from, Math.min(from + EVALUATION_SEED_BATCH_SIZE, organizationIds.size()));
+            try {
+                count += memberEvaluationDetailMapper.insertPendingDetails(evaluationId, batch);
+                log.debug("评议活动{}成员记录生成进度: {}/{}个组织", evaluationId, from + batch.size(), organizationIds.size());
+            } catch (Exception e) {
+                log.warn("为组织{}的成员创建评议记录失败: {}", batch, e.getMessage());
+            }
+        }
+        return count;
+    }
+
     @Override
     public boolean updateEvaluation(MemberEvaluation evaluation) {
         try {
@@ -2083,6 +2265,10 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             
             // 更新数据库
             int result = memberEvaluationMapper.updateById(evaluation);
+            if (result > 0) {
+                // 统计表冗余了评议组织和年度，需要同步
+                refreshEvaluationStatistics(evaluation.getId());
+            }
             return result > 0;
         } catch (Exception e) {
             log.error("更新评议活动失败: {}", e.getMessage(), e);
@@ -2106,6 +2292,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
             LambdaQueryWrapper<MemberEvaluationDetail> queryWrapper = new LambdaQueryWrapper<>();
             queryWrapper.eq(MemberEvaluationDetail::getEvaluationId, id);
             memberEvaluationDetailMapper.delete(queryWrapper);
+            memberEvaluationDetailMapper.deleteStatistics(id);
             
             // 删除评议活动
             int result = memberEvaluationMapper.deleteById(id);
@@ -2201,8 +2388,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         try {
             log.debug("从数据库获取评议结果: evaluationId={}", evaluationId);
             
-            // 使用MemberEvaluationDetailMapper获取统计数据
-            Map<String, Object> statistics = memberEvaluationDetailMapper.getEvaluationStatistics(evaluationId);
+            // 读取预汇总的统计数据
+            Map<String, Object> statistics = loadEvaluationStatistics(evaluationId);
             
             // 计算总体进度
             Long totalCount = ((Number) statistics.getOrDefault("totalCount", 0)).longValue();
@@ -2257,6 +2444,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean submitResults(List<EvaluationResult> results) {
         try {
             log.debug("提交评议结果: 共{}条", results.size());
@@ -2265,72 +2453,257 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
                 return true;
             }
             
+            // 按ID提交的结果一次性查出对应的评议记录，确定其评议活动和团员
+            Set<Integer> detailIds = new HashSet<>();
             for (EvaluationResult result : results) {
-                // 直接使用ID更新记录
                 if (result.getId() != null) {
-                    // 查询现有评议结果
-                    MemberEvaluationDetail detail = memberEvaluationDetailMapper.selectById(result.getId());
-                    
-                    if (detail != null) {
-                        // 更新现有评议结果
-                        detail.setResult(result.getResult());
-                        detail.setComment(result.getComment());
-                        detail.setEvaluatorId(result.getEvaluatorId());
-                        detail.setEvaluatorName(result.getEvaluatorName());
-                        detail.setEvaluationTime(result.getEvaluationTime());
-                        detail.setStatus("已评议");
-                        detail.setUpdateTime(LocalDateTime.now());
-                        
-                        memberEvaluationDetailMapper.updateById(detail);
-                        log.debug("更新评议结果: id={}, result={}", detail.getId(), detail.getResult());
-                    } else {
+                    detailIds.add(result.getId());
+                }
+            }
+            Map<Integer, MemberEvaluationDetail> detailsById = new HashMap<>();
+            if (!detailIds.isEmpty()) {
+                for (MemberEvaluationDetail detail : memberEvaluationDetailMapper.selectBatchIds(detailIds)) {
+                    detailsById.put(detail.getId(), detail);
+                }
+            }
+            
+            // 以(评议活动, 团员)为键合并同一批次中的重复提交，后提交的覆盖先提交的
+            Map<String, MemberEvaluationDetail> rows = new LinkedHashMap<>();
+            for (EvaluationResult result : results) {
+                MemberEvaluationDetail detail = new MemberEvaluationDetail();
+                if (result.getId() != null) {
+                    MemberEvaluationDetail existing = detailsById.get(result.getId());
+                    if (existing == null) {
                         log.warn("更新评议结果失败: 未找到ID为{}的评议记录", result.getId());
+                        continue;
                     }
+                    detail.setEvaluationId(existing.getEvaluationId());
+                    detail.setUserId(existing.getUserId());
+                    detail.setUserName(existing.getUserName());
                 } else {
-                // 查询是否已存在评议结果
-                LambdaQueryWrapper<MemberEvaluationDetail> queryWrapper = new LambdaQueryWrapper<>();
-                queryWrapper.eq(MemberEvaluationDetail::getEvaluationId, result.getEvaluationId())
-                          .eq(MemberEvaluationDetail::getUserId, result.getMemberId());
-                
-                MemberEvaluationDetail detail = memberEvaluationDetailMapper.selectOne(queryWrapper);
-                
-                if (detail != null) {
-                    // 更新现有评议结果
-                    detail.setResult(result.getResult());
-                        detail.setComment(result.getComment());
-                    detail.setEvaluatorId(result.getEvaluatorId());
-                    detail.setEvaluatorName(result.getEvaluatorName());
-                    detail.setEvaluationTime(result.getEvaluationTime());
-                    detail.setStatus("已评议");
-                    detail.setUpdateTime(LocalDateTime.now());
-                    
-                    memberEvaluationDetailMapper.updateById(detail);
-                        log.debug("更新评议结果: id={}, result={}", detail.getId(), detail.getResult());
-                } else {
-                    // 插入新的评议结果
-                    detail = new MemberEvaluationDetail();
+                    if (result.getEvaluationId() == null || result.getMemberId() == null) {
+                        log.warn("评议结果缺少评议活动ID或团员ID，已跳过");
+                        continue;
+                    }
                     detail.setEvaluationId(result.getEvaluationId());
                     detail.setUserId(result.getMemberId());
-                    detail.setResult(result.getResult());
-                        detail.setComment(result.getComment());
-                    detail.setEvaluatorId(result.getEvaluatorId());
-                    detail.setEvaluatorName(result.getEvaluatorName());
-                    detail.setEvaluationTime(result.getEvaluationTime());
-                    detail.setStatus("已评议");
-                    detail.setCreateTime(LocalDateTime.now());
-                    detail.setUpdateTime(LocalDateTime.now());
-                    
-                    memberEvaluationDetailMapper.insert(detail);
-                        log.debug("插入新评议结果: evaluationId={}, userId={}, result={}", 
-                                detail.getEvaluationId(), detail.getUserId(), detail.getResult());
-                }
+                    detail.setUserName(result.getMemberName());
                 }
+                detail.setResult(result.getResult());
+                detail.setComment(result.getComment());
+                detail.setEvaluatorId(result.getEvaluatorId());
+                detail.setEvaluatorName(result.getEvaluatorName());
+                detail.setEvaluationTime(result.getEvaluationTime());
+                detail.setStatus("已评议");
+                rows.put(detail.getEvaluationId() + ":" + detail.getUserId(), detail);
+            }
+            
+            if (rows.isEmpty()) {
+                return true;
+            }
+            fillEvaluationDetailUserNames(rows.values());
+            
+            // 写入前锁定已有记录，按新旧状态和结果的差值增量维护统计，不再逐次全量汇总
+            Map<Integer, Map<String, Integer>> deltas = computeSubmitStatisticsDeltas(rows);
+            
+            List<MemberEvaluationDetail> details = new ArrayList<>(rows.values());
+            int affected = 0;
+            for (int from = 0; from < details.size(); from += EVALUATION_UPSERT_BATCH_SIZE) {
+                affected += memberEvaluationDetailMapper.upsertResults(
+                        details.subList(from, Math.min(from + EVALUATION_UPSERT_BATCH_SIZE, details.size())));
             }
+            log.debug("提交评议结果完成: 共{}条记录, 受影响行数={}", details.size(), affected);
+            
+            // 统计与评议结果在同一事务中写入，任一失败整体回滚
+            deltas.forEach(this::applyEvaluationStatisticsDelta);
             
             return true;
         } catch (Exception e) {
             log.error("提交评议结果失败: {}", e.getMessage(), e);
-            return false;
+            throw new RuntimeException("提交评议结果失败", e);
+        }
+    }
+
+    /**
+     * 查询并锁定本次提交涉及的已有评议记录，计算各评议活动的统计增量
+     */
+    private Map<Integer, Map<String, Integer>> computeSubmitStatisticsDeltas(Map<String, MemberEvaluationDetail> rows) {
+        Set<Integer> evaluationIds = new HashSet<>();
+        Set<Integer> userIds = new HashSet<>();
+        for (MemberEvaluationDetail detail : rows.values()) {
+            evaluationIds.add(detail.getEvaluationId());
+            userIds.add(detail.getUserId());
+        }
+        
+        Map<String, MemberEvaluationDetail> previous = new HashMap<>();
+        List<Integer> userIdList = new ArrayList<>(userIds);
+        for (int from = 0; from < userIdList.size(); from += EVALUATION_UPSERT_BATCH_SIZE) {
+            LambdaQueryWrapper<MemberEvaluationDetail> wrapper = new LambdaQueryWrapper<>();
+            wrapper.select(MemberEvaluationDetail::getEvaluationId, MemberEvaluationDetail::getUserId,
+                            MemberEvaluationDetail::getResult, MemberEvaluationDetail::getStatus)
+                    .in(MemberEvaluationDetail::getEvaluationId, evaluationIds)
+                    .in(MemberEvaluationDetail::getUserId,
+                            userIdList.subList(from, Math.min(from + EVALUATION_UPSERT_BATCH_SIZE, userIdList.size())))
+                    .last("FOR UPDATE");
+            for (MemberEvaluationDetail existing : memberEvaluationDetailMapper.selectList(wrapper)) {
+                previous.put(existing.getEvaluationId() + ":" + existing.getUserId(), existing);
+            }
+        }
+        
+        Map<Integer, Map<String, Integer>> deltas = new LinkedHashMap<>();
+        rows.forEach((key, detail) -> {
+            Map<String, Integer> delta = deltas.computeIfAbsent(detail.getEvaluationId(), id -> newStatisticsDelta());
+            MemberEvaluationDetail old = previous.get(key);
+            if (old != null) {
+                accumulateStatisticsDelta(delta, old, -1);
+            }
+            accumulateStatisticsDelta(delta, detail, 1);
+        });
+        return deltas;
+    }
+
+    private Map<String, Integer> newStatisticsDelta() {
+        Map<String, Integer> delta = new HashMap<>();
+        delta.put("totalCount", 0);
+        delta.put("completedCount", 0);
+        delta.put("excellentCount", 0);
+        delta.put("qualifiedCount", 0);
+        delta.put("basicQualifiedCount", 0);
+        delta.put("unqualifiedCount", 0);
+        return delta;
+    }
+
+    /**
+     * 将一条评议记录计入(sign=1)或移出(sign=-1)统计增量，口径与refreshStatistics一致
+     */
+    private void accumulateStatisticsDelta(Map<String, Integer> delta, MemberEvaluationDetail detail, int sign) {
+        delta.merge("totalCount", sign, Integer::sum);
+        if ("已评议".equals(detail.getStatus())) {
+            delta.merge("completedCount", sign, Integer::sum);
+        }
+        String column = null;
+        if ("优秀".equals(detail.getResult())) {
+            column = "excellentCount";
+        } else if ("合格".equals(detail.getResult())) {
+            column = "qualifiedCount";
+        } else if ("基本合格".equals(detail.getResult())) {
+            column = "basicQualifiedCount";
+        } else if ("不合格".equals(detail.getResult())) {
+            column = "unqualifiedCount";
+        }
+        if (column != null) {
+            delta.merge(column, sign, Integer::sum);
+        }
+    }
+
+    /**
+     * 在当前事务中按增量更新统计表，统计表中尚无记录时改为全量汇总
+     * 失败时异常向上抛出，由调用方的事务整体回滚
+     */
+    private void applyEvaluationStatisticsDelta(Integer evaluationId, Map<String, Integer> delta) {
+        if (memberEvaluationDetailMapper.applyStatisticsDelta(evaluationId, delta) == 0) {
+            memberEvaluationDetailMapper.refreshStatistics(evaluationId);
+        }
+    }
+
+    /**
+     * 评议活动变更后重新汇总统计表
+     * 汇总失败时记录待汇总的评议活动，由定时任务重新汇总，不影响评议活动本身的写入
+     */
+    private void refreshEvaluationStatistics(Integer evaluationId) {
+        try {
+            memberEvaluationDetailMapper.refreshStatistics(evaluationId);
+        } catch (Exception e) {
+            log.warn("汇总评议统计数据失败，等待定时任务重新汇总: evaluationId={}, {}", evaluationId, e.getMessage());
+            try {
+                redisTemplate.opsForSet().add(RedisKeyConstant.EVALUATION_STATISTICS_STALE, evaluationId);
+            } catch (Exception ex) {
+                log.error("记录待汇总评议活动失败: evaluationId={}", evaluationId, ex);
+            }
+        }
+    }
+
+    @Override
+    public int reconcileEvaluationStatistics() {
+        Set<Object> staleIds = redisTemplate.opsForSet().members(RedisKeyConstant.EVALUATION_STATISTICS_STALE);
+        if (staleIds == null || staleIds.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        for (Object staleId : staleIds) {
+            Integer evaluationId = Integer.valueOf(staleId.toString());
+            try {
+                memberEvaluationDetailMapper.refreshStatistics(evaluationId);
+                redisTemplate.opsForSet().remove(RedisKeyConstant.EVALUATION_STATISTICS_STALE, staleId);
+                count++;
+            } catch (Exception e) {
+                log.warn("重新汇总评议统计数据失败: evaluationId={}, {}", evaluationId, e.getMessage());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 读取评议活动的预汇总统计，统计表中尚无记录时先汇总一次
+     */
+    private Map<String, Object> loadEvaluationStatistics(Integer evaluationId) {
+        Map<String, Object> statistics = memberEvaluationDetailMapper.selectStatistics(evaluationId);
+        if (statistics == null) {
+            memberEvaluationDetailMapper.refreshStatistics(evaluationId);
+            statistics = memberEvaluationDetailMapper.selectStatistics(evaluationId);
+        }
+        return statistics != null ? new HashMap<>(statistics) : new HashMap<>();
+    }
+
+    /**
+     * 为缺少团员姓名的评议记录补全姓名
+     * 优先取已有评议记录中的姓名，仍缺少时再从用户表查询，均为一次批量查询
+     */
+    private void fillEvaluationDetailUserNames(Collection<MemberEvaluationDetail> details) {
+        Set<Integer> evaluationIds = new HashSet<>();
+        Set<Integer> userIds = new HashSet<>();
+        for (MemberEvaluationDetail detail : details) {
+            if (!StringUtils.hasText(detail.getUserName())) {
+                evaluationIds.add(detail.getEvaluationId());
+                userIds.add(detail.getUserId());
+            }
+        }
+        if (userIds.isEmpty()) {
+            return;
+        }
+        
+        Map<String, String> existingNames = new HashMap<>();
+        LambdaQueryWrapper<MemberEvaluationDetail> detailWrapper = new LambdaQueryWrapper<>();
+        detailWrapper.select(MemberEvaluationDetail::getEvaluationId, MemberEvaluationDetail::getUserId, MemberEvaluationDetail::getUserName)
+                .in(MemberEvaluationDetail::getEvaluationId, evaluationIds)
+                .in(MemberEvaluationDetail::getUserId, userIds);
+        for (MemberEvaluationDetail existing : memberEvaluationDetailMapper.selectList(detailWrapper)) {
+            existingNames.put(existing.getEvaluationId() + ":" + existing.getUserId(), existing.getUserName());
+        }
+        
+        Set<Integer> missingUserIds = new HashSet<>();
+        for (MemberEvaluationDetail detail : details) {
+            if (!StringUtils.hasText(detail.getUserName())) {
+                detail.setUserName(existingNames.get(detail.getEvaluationId() + ":" + detail.getUserId()));
+                if (!StringUtils.hasText(detail.getUserName())) {
+                    missingUserIds.add(detail.getUserId());
+                }
+            }
+        }
+        if (missingUserIds.isEmpty()) {
+            return;
+        }
+        
+        Map<Integer, String> userNames = new HashMap<>();
+        LambdaQueryWrapper<User> userWrapper = new LambdaQueryWrapper<>();
+        userWrapper.select(User::getId, User::getName).in(User::getId, missingUserIds);
+        for (User user : userMapper.selectList(userWrapper)) {
+            userNames.put(user.getId(), user.getName());
+        }
+        for (MemberEvaluationDetail detail : details) {
+            if (!StringUtils.hasText(detail.getUserName())) {
+                detail.setUserName(userNames.getOrDefault(detail.getUserId(), ""));
+            }
         }
     }
 
@@ -0,0 +1,36 @@
+package com.zhtj.task;
+
+import com.zhtj.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 评议统计补偿定时任务
+ * 评议活动变更后汇总统计失败的记录，定期重新汇总以修正统计表
+ */
+@Component
+public class EvaluationStatisticsTask {
+    
+    private static final Logger logger = LoggerFactory.getLogger(EvaluationStatisticsTask.class);
+    
+    @Autowired
+    private UserService userService;
+    
+    /**
+     * 每5分钟执行一次
+     */
+    @Scheduled(initialDelay = 60 * 1000, fixedDelay = 5 * 60 * 1000)
+    public void reconcileEvaluationStatistics() {
+        try {
+            int count = userService.reconcileEvaluationStatistics();
+            if (count > 0) {
+                logger.info("评议统计补偿完成，重新汇总 {} 个评议活动", count);
+            }
+        } catch (Exception e) {
+            logger.error("评议统计补偿失败", e);
+        }
+    }
+}
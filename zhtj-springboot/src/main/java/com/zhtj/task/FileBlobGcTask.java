@@ -0,0 +1,34 @@
+package com.zhtj.task;
+
+import com.zhtj.service.FileService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 去重存储文件回收定时任务
+ * 删除已无引用的文件内容
+ */
+@Component
+public class FileBlobGcTask {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FileBlobGcTask.class);
+    
+    @Autowired
+    private FileService fileService;
+    
+    /**
+     * 每小时执行一次
+     */
+    @Scheduled(cron = "0 15 * * * ?")
+    public void collectUnreferencedBlobs() {
+        try {
+            int collected = fileService.collectUnreferencedBlobs();
+            logger.debug("去重存储文件回收完成，共回收 {} 个文件", collected);
+        } catch (Exception e) {
+            logger.error("去重存储文件回收失败", e);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.zhtj.task;
+
+import com.zhtj.service.NotificationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 消息通知定时任务
+ * 将发件箱中的通知批量投递到站内信、邮件、短信；多实例部署时各实例认领不同的批次，互不重复，
+ * 认领后实例宕机的批次在投递租约到期后重新投递。
+ * 同时定期核对Redis中的未读通知计数
+ */
+@Component
+public class NotificationDispatchTask {
+    
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatchTask.class);
+    
+    @Autowired
+    private NotificationService notificationService;
+    
+    @Value("${notification.dispatch.batch-size:200}")
+    private int batchSize;
+    
+    // 单次执行最多处理的批数，避免积压较多时长时间占用调度线程
+    @Value("${notification.dispatch.max-batches:50}")
+    private int maxBatches;
+    
+    // 已投递记录的保留天数
+    @Value("${notification.dispatch.retention-days:7}")
+    private int retentionDays;
+    
+    /**
+     * 上次执行结束后间隔指定时间再次执行，默认2秒
+     */
+    @Scheduled(fixedDelayString = "${notification.dispatch.interval:2000}")
+    public void dispatch() {
+        try {
+            int total = 0;
+            for (int i = 0; i < maxBatches; i++) {
+                int processed = notificationService.dispatchPending(batchSize);
+                total += processed;
+                if (processed < batchSize) {
+                    break;
+                }
+            }
+            long pending = notificationService.countPendingOutbox();
+            if (total > 0) {
+                logger.debug("通知投递完成，本次处理 {} 条，剩余待投递 {} 条", total, pending);
+            }
+        } catch (Exception e) {
+            logger.error("通知投递失败", e);
+        }
+    }
+    
+    /**
+     * 每小时核对一次未读通知计数，校正与数据库不一致的计数
+     */
+    @Scheduled(cron = "0 40 * * * ?")
+    public void reconcileUnreadCounters() {
+        try {
+            int corrected = notificationService.reconcileUnreadCounters();
+            if (corrected > 0) {
+                logger.info("未读通知计数核对完成，校正 {} 个用户", corrected);
+            }
+        } catch (Exception e) {
+            logger.error("未读通知计数核对失败", e);
+        }
+    }
+    
+    /**
+     * 每天凌晨3点清理已投递的发件箱记录
+     */
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void purgeDelivered() {
+        try {
+            int purged = notificationService.purgeDeliveredOutbox(LocalDateTime.now().minusDays(retentionDays));
+            logger.info("发件箱清理完成，共清理 {} 条已投递记录", purged);
+        } catch (Exception e) {
+            logger.error("发件箱清理失败", e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.zhtj.task;
+
+import com.zhtj.service.OrganizationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 组织成员数量校准定时任务
+ * 成员数量按团员变动增量维护，定期按user表重新统计以修正偏差
+ */
+@Component
+public class OrganizationMemberCountTask {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrganizationMemberCountTask.class);
+    
+    @Autowired
+    private OrganizationService organizationService;
+    
+    /**
+     * 启动1分钟后执行一次，之后每小时执行一次
+     */
+    @Scheduled(initialDelay = 60 * 1000, fixedDelay = 60 * 60 * 1000)
+    public void reconcileMemberCounts() {
+        try {
+            int fixed = organizationService.reconcileMemberCounts();
+            logger.info("组织成员数量校准完成，修正 {} 条记录", fixed);
+        } catch (Exception e) {
+            logger.error("组织成员数量校准失败", e);
+        }
+    }
+}
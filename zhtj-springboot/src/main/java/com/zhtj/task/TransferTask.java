@@ -1,31 +1,87 @@
 package com.zhtj.task;
 
-import com.zhtj.domain.Transfer;
+import com.zhtj.common.constant.RedisKeyConstant;
 import com.zhtj.service.TransferService;
-import com.zhtj.utils.TransferNotificationHelper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 团员关系转接定时任务
- * 用于处理过期的团员关系转接申请
+ * 用于处理过期的团员关系转接申请。过期申请按ID分批，每批以集合UPDATE拒绝并批量写入日志和通知，
+ * 各批在有界线程池中并行处理；多实例部署时通过Redis租约保证只有一个实例执行
  */
 @Component
 public class TransferTask {
     
     private static final Logger logger = LoggerFactory.getLogger(TransferTask.class);
     
+    // 租约持有者一致时才续期或释放，避免误删其他实例在租约过期后取得的租约
+    private static final DefaultRedisScript<Long> RENEW_LEASE = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "return redis.call('PEXPIRE', KEYS[1], ARGV[2]) else return 0 end", Long.class);
+    
+    private static final DefaultRedisScript<Long> RELEASE_LEASE = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "return redis.call('DEL', KEYS[1]) else return 0 end", Long.class);
+    
     @Autowired
     private TransferService transferService;
     
     @Autowired
-    private TransferNotificationHelper notificationHelper;
+    private RedisTemplate<String, Object> redisTemplate;
+    
+    // 每批处理的申请数量
+    @Value("${transfer.expire.batch-size:200}")
+    private int batchSize;
+    
+    // 并行处理的线程数
+    @Value("${transfer.expire.threads:4}")
+    private int threads;
+    
+    // 租约时长，每取一批ID续期一次
+    @Value("${transfer.expire.lease-seconds:300}")
+    private long leaseSeconds;
+    
+    private ThreadPoolExecutor executor;
+    
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 队列满时由调度线程自己处理，限制已取出但未处理的批数
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "transfer-expire-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
     
     /**
      * 每天凌晨1点执行一次，检查过期的转接申请
@@ -33,35 +89,80 @@ public class TransferTask {
      */
     @Scheduled(cron = "0 0 1 * * ?")
     public void handleExpiredTransfers() {
+        String token = UUID.randomUUID().toString();
+        if (!acquireLease(token)) {
+            logger.info("其他实例正在处理过期转接申请，本实例跳过");
+            return;
+        }
         logger.info("开始执行过期转接申请处理任务");
         
         try {
             LocalDateTime now = LocalDateTime.now();
-            List<Transfer> expiredTransfers = transferService.getExpiredTransfers(now);
-            
-            logger.info("找到 {} 条过期的转接申请", expiredTransfers.size());
+            AtomicInteger processed = new AtomicInteger();
+            AtomicInteger failed = new AtomicInteger();
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            Integer afterId = 0;
             
-            for (Transfer transfer : expiredTransfers) {
-                // 获取当前状态，设置适当的拒绝消息
-                String rejectMessage = "申请已过期自动拒绝";
-                Integer transferId = transfer.getId();
-                Integer transferUserId = transfer.getTransferUserId();
-                
-                // 根据当前状态码判断应该执行哪种拒绝操作
-                if (transfer.getStatusCode() == 0) { // 申请中
-                    transferService.outApprove(transferId, false, 0, rejectMessage); // 0表示系统操作
-                    notificationHelper.sendExpiredNotification(transfer, "转出组织");
-                } else if (transfer.getStatusCode() == 1) { // 转出审批中
-                    transferService.inApprove(transferId, false, 0, rejectMessage);
-                    notificationHelper.sendExpiredNotification(transfer, "转入组织");
+            while (true) {
+                List<Integer> ids = transferService.getExpiredTransferIds(now, afterId, batchSize);
+                if (ids.isEmpty()) {
+                    break;
                 }
+                afterId = ids.get(ids.size() - 1);
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        processed.addAndGet(transferService.rejectExpiredTransfers(ids, now));
+                    } catch (Exception e) {
+                        // 单批失败不影响其他批次，未处理的申请下次执行时重试
+                        failed.addAndGet(ids.size());
+                        logger.error("处理过期转接申请失败, ID范围: {} - {}", ids.get(0), ids.get(ids.size() - 1), e);
+                    }
+                }, executor));
                 
-                logger.info("已处理过期转接申请 ID: {}, 申请人ID: {}", transferId, transferUserId);
+                if (ids.size() < batchSize) {
+                    break;
+                }
+                if (!renewLease(token)) {
+                    logger.warn("过期转接申请处理租约已失效，停止提交新的批次");
+                    break;
+                }
             }
             
-            logger.info("过期转接申请处理任务执行完成");
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            logger.info("过期转接申请处理任务执行完成，共处理 {} 条，失败 {} 条", processed.get(), failed.get());
         } catch (Exception e) {
             logger.error("处理过期转接申请时发生错误: {}", e.getMessage(), e);
+        } finally {
+            releaseLease(token);
+        }
+    }
+    
+    private boolean acquireLease(String token) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue()
+                    .setIfAbsent(RedisKeyConstant.TRANSFER_EXPIRE_LEASE, token, leaseSeconds, TimeUnit.SECONDS));
+        } catch (Exception e) {
+            logger.error("获取过期转接申请处理租约失败: {}", e.getMessage());
+            return false;
+        }
+    }
+    
+    private boolean renewLease(String token) {
+        try {
+            Long renewed = redisTemplate.execute(RENEW_LEASE,
+                    Collections.singletonList(RedisKeyConstant.TRANSFER_EXPIRE_LEASE), token, leaseSeconds * 1000);
+            return renewed != null && renewed > 0;
+        } catch (Exception e) {
+            logger.warn("续期过期转接申请处理租约失败: {}", e.getMessage());
+            return false;
+        }
+    }
+    
+    private void releaseLease(String token) {
+        try {
+            redisTemplate.execute(RELEASE_LEASE, Collections.singletonList(RedisKeyConstant.TRANSFER_EXPIRE_LEASE), token);
+        } catch (Exception e) {
+            logger.warn("释放过期转接申请处理租约失败: {}", e.getMessage());
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,66 @@
+package com.zhtj.util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 列表数据批量补全工具
+ * 先收集整页记录需要补全的关联键，一次批量查询后再逐条回填，避免逐条记录查询数据库（N+1）。
+ */
+public final class BatchLookup {
+
+    private BatchLookup() {
+    }
+
+    /**
+     * 收集记录中需要查询的关联键
+     *
+     * @param records 记录列表
+     * @param keyExtractors 关联键提取函数，返回null表示该记录无需查询
+     * @return 去重后的关联键集合
+     */
+    @SafeVarargs
+    public static <T, K> Set<K> collectKeys(Collection<T> records, Function<T, K>... keyExtractors) {
+        if (records == null || records.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<K> keys = new LinkedHashSet<>();
+        for (T record : records) {
+            for (Function<T, K> extractor : keyExtractors) {
+                K key = extractor.apply(record);
+                if (key != null) {
+                    keys.add(key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 批量查询关联数据并回填到记录
+     *
+     * @param records 记录列表
+     * @param keyExtractor 关联键提取函数，返回null表示该记录无需补全
+     * @param loader 按关联键批量查询，返回关联键到数据的映射
+     * @param filler 回填函数，关联数据不存在时传入null
+     */
+    public static <T, K, V> void enrich(Collection<T> records, Function<T, K> keyExtractor,
+                                        Function<Set<K>, Map<K, V>> loader, BiConsumer<T, V> filler) {
+        Set<K> keys = collectKeys(records, keyExtractor);
+        if (keys.isEmpty()) {
+            return;
+        }
+        Map<K, V> values = loader.apply(keys);
+        for (T record : records) {
+            K key = keyExtractor.apply(record);
+            if (key != null) {
+                filler.accept(record, values != null ? values.get(key) : null);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.zhtj.util;
+
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 全文检索查询语句构造
+ * 将用户输入的关键词转换为MySQL FULLTEXT布尔模式查询：按空白拆分为多个词，每个词作为短语且必须出现，
+ * 结果与原先的LIKE子串匹配一致。ngram分词器无法检索短于分词长度的词（如单个汉字），此时返回null，
+ * 由调用方回退为LIKE查询。
+ * 全文索引应在关闭innodb_ft_enable_stopword时创建（见zhtj.sql）；未关闭时ngram分词器会丢弃包含停用词的词元，
+ * 如"Java"、"AI"的全部词元都含有停用词"a"，这类词同样返回null回退为LIKE查询。
+ */
+public final class FullTextQuery {
+
+    /**
+     * 与MySQL的ngram_token_size保持一致（默认2）
+     */
+    private static final int NGRAM_TOKEN_SIZE = 2;
+
+    // 布尔模式下有特殊含义的字符
+    private static final String OPERATORS = "+-<>()~*\"@";
+
+    // InnoDB默认停用词表（INFORMATION_SCHEMA.INNODB_FT_DEFAULT_STOPWORD）
+    private static final List<String> DEFAULT_STOPWORDS = List.of(
+            "a", "about", "an", "are", "as", "at", "be", "by", "com", "de", "en", "for", "from", "how",
+            "i", "in", "is", "it", "la", "of", "on", "or", "that", "the", "this", "to", "was", "what",
+            "when", "where", "who", "will", "with", "und", "www");
+
+    private FullTextQuery() {
+    }
+
+    /**
+     * 构造布尔模式查询语句
+     *
+     * @param text 用户输入的关键词
+     * @return 查询语句；关键词为空或包含无法全文检索的短词时返回null
+     */
+    public static String toBooleanQuery(String text) {
+        if (!StringUtils.hasText(text)) {
+            return null;
+        }
+        List<String> terms = new ArrayList<>();
+        for (String raw : text.trim().split("\\s+")) {
+            StringBuilder term = new StringBuilder();
+            for (char c : raw.toCharArray()) {
+                if (OPERATORS.indexOf(c) < 0) {
+                    term.append(c);
+                }
+            }
+            if (term.length() == 0) {
+                continue;
+            }
+            if (term.codePointCount(0, term.length()) < NGRAM_TOKEN_SIZE || isFullyStopped(term.toString())) {
+                return null;
+            }
+            terms.add("+\"" + term + "\"");
+        }
+        return terms.isEmpty() ? null : String.join(" ", terms);
+    }
+
+    /**
+     * 判断词的每个ngram词元是否都包含停用词，即在启用停用词的索引中无法检索
+     */
+    private static boolean isFullyStopped(String term) {
+        int[] codePoints = term.toLowerCase(Locale.ROOT).codePoints().toArray();
+        for (int i = 0; i + NGRAM_TOKEN_SIZE <= codePoints.length; i++) {
+            String token = new String(codePoints, i, NGRAM_TOKEN_SIZE);
+            if (DEFAULT_STOPWORDS.stream().noneMatch(token::contains)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,71 @@
+package com.zhtj.util;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 权限前缀树
+ * 按":"分段存储权限编码，末段为"*"的权限（如 user:*）匹配该前缀下的任意权限，
+ * 判断时间只与权限的段数有关，与权限总数无关。构建完成后只读，可在线程间共享。
+ */
+public class PermissionTrie {
+
+    private static final String SEPARATOR = ":";
+    private static final String WILDCARD = "*";
+
+    private final Node root = new Node();
+
+    public PermissionTrie(Collection<String> permissions) {
+        if (permissions != null) {
+            permissions.forEach(this::add);
+        }
+    }
+
+    /**
+     * 判断是否包含指定权限（支持通配符匹配）
+     *
+     * @param permission 权限编码
+     * @return 是否匹配
+     */
+    public boolean matches(String permission) {
+        if (permission == null) {
+            return false;
+        }
+        String[] segments = permission.split(SEPARATOR, -1);
+        Node node = root;
+        for (String segment : segments) {
+            // 通配符节点至少要再匹配一段，与 "user:*" 只匹配 "user:xxx" 的原有语义一致
+            if (node.wildcard) {
+                return true;
+            }
+            node = node.children.get(segment);
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.terminal;
+    }
+
+    private void add(String permission) {
+        if (permission == null || permission.isEmpty()) {
+            return;
+        }
+        String[] segments = permission.split(SEPARATOR, -1);
+        Node node = root;
+        for (int i = 0; i < segments.length; i++) {
+            if (i == segments.length - 1 && WILDCARD.equals(segments[i]) && i > 0) {
+                node.wildcard = true;
+                return;
+            }
+            node = node.children.computeIfAbsent(segments[i], k -> new Node());
+        }
+        node.terminal = true;
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private boolean terminal;
+        private boolean wildcard;
+    }
+}
@@ -0,0 +1,88 @@
+package com.zhtj.util;
+
+import com.zhtj.common.api.CursorPage;
+import com.zhtj.common.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页的定位键
+ * 列表按(时间, ID)倒序排列，下一页从上一页最后一条记录的(时间, ID)之后开始；
+ * tag用于区分合并排序的不同来源（如个人通知和广播通知），同一来源内为0。
+ * 时间可能为空，为空的记录在倒序中排在最后，编码时时间部分留空。
+ * 对外以不透明的Base64字符串传递，客户端不应解析其内容。
+ */
+public final class SeekCursor {
+
+    private final LocalDateTime time;
+    private final Integer id;
+    private final int tag;
+
+    public SeekCursor(LocalDateTime time, Integer id, int tag) {
+        this.time = time;
+        this.id = id;
+        this.tag = tag;
+    }
+
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public int getTag() {
+        return tag;
+    }
+
+    /**
+     * 编码为游标字符串
+     */
+    public String encode() {
+        String raw = (time == null ? "" : time.toString()) + "|" + id + "|" + tag;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标字符串，为空表示第一页，返回null
+     *
+     * @throws BusinessException 游标格式不正确
+     */
+    public static SeekCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3) {
+                throw new BusinessException("无效的分页游标");
+            }
+            LocalDateTime time = parts[0].isEmpty() ? null : LocalDateTime.parse(parts[0]);
+            return new SeekCursor(time, Integer.valueOf(parts[1]), Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessException("无效的分页游标");
+        }
+    }
+
+    /**
+     * 由多查询一条的结果生成游标分页结果：查询时取size+1条，多出的一条说明还有下一页
+     *
+     * @param rows 按(时间, ID)倒序查询的size+1条记录
+     * @param size 每页数量
+     * @param cursorOf 由记录生成定位键
+     */
+    public static <T> CursorPage<T> page(List<T> rows, int size, Function<T, SeekCursor> cursorOf) {
+        boolean hasMore = rows.size() > size;
+        List<T> list = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = hasMore && !list.isEmpty() ? cursorOf.apply(list.get(list.size() - 1)).encode() : null;
+        return new CursorPage<>(list, nextCursor, hasMore);
+    }
+}
@@ -7,10 +7,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 转接通知辅助类
- * 用于处理团员关系转接相关的通知发送
+ * 用于处理团员关系转接相关的通知发送，通知写入发件箱随审批事务一起提交，由后台任务异步投递
  */
 @Component
 public class TransferNotificationHelper {
@@ -37,7 +39,7 @@ public class TransferNotificationHelper {
         notification.setPriority(1); // 重要
         notification.setActionUrl("/dashboard/transfers/approve");
         
-        notificationService.send(notification);
+        notificationService.enqueue(notification);
         
         // 通知申请人
         notification = new Notification();
@@ -52,7 +54,7 @@ public class TransferNotificationHelper {
         notification.setPriority(0); // 普通
         notification.setActionUrl("/dashboard/transfers/detail/" + transfer.getId());
         
-        notificationService.send(notification);
+        notificationService.enqueue(notification);
     }
     
     /**
@@ -80,7 +82,7 @@ public class TransferNotificationHelper {
         notification.setPriority(1); // 重要
         notification.setActionUrl("/dashboard/transfers/detail/" + transfer.getId());
         
-        notificationService.send(notification);
+        notificationService.enqueue(notification);
         
         // 如果批准，通知转入组织管理员
         if (approved) {
@@ -96,7 +98,7 @@ public class TransferNotificationHelper {
             notification.setPriority(1); // 重要
             notification.setActionUrl("/dashboard/transfers/approve");
             
-            notificationService.send(notification);
+            notificationService.enqueue(notification);
         }
     }
     
@@ -125,7 +127,7 @@ public class TransferNotificationHelper {
         notification.setPriority(1); // 重要
         notification.setActionUrl("/dashboard/transfers/detail/" + transfer.getId());
         
-        notificationService.send(notification);
+        notificationService.enqueue(notification);
         
         // 通知转出组织管理员
         title = approved ? "转接申请已完成" : "转接申请被转入组织拒绝";
@@ -145,7 +147,7 @@ public class TransferNotificationHelper {
         notification.setPriority(0); // 普通
         notification.setActionUrl("/dashboard/transfers/detail/" + transfer.getId());
         
-        notificationService.send(notification);
+        notificationService.enqueue(notification);
     }
     
     /**
@@ -155,6 +157,27 @@ public class TransferNotificationHelper {
      * @param stage 过期的阶段（"转出组织"或"转入组织"）
      */
     public void sendExpiredNotification(Transfer transfer, String stage) {
+        notificationService.enqueue(buildExpiredNotification(transfer, stage));
+    }
+    
+    /**
+     * 批量发送转接申请过期通知，全部通知一次写入发件箱
+     * 
+     * @param transfers 转接申请列表
+     * @param stage 过期的阶段（"转出组织"或"转入组织"）
+     */
+    public void sendExpiredNotifications(List<Transfer> transfers, String stage) {
+        if (transfers.isEmpty()) {
+            return;
+        }
+        List<Notification> notifications = new ArrayList<>(transfers.size());
+        for (Transfer transfer : transfers) {
+            notifications.add(buildExpiredNotification(transfer, stage));
+        }
+        notificationService.enqueueAll(notifications);
+    }
+    
+    private Notification buildExpiredNotification(Transfer transfer, String stage) {
         // 通知申请人
         Notification notification = new Notification();
         notification.setTitle("转接申请已过期");
@@ -168,7 +191,6 @@ public class TransferNotificationHelper {
         notification.setReferenceType("transfer");
         notification.setPriority(1); // 重要
         notification.setActionUrl("/dashboard/transfers/detail/" + transfer.getId());
-        
-        notificationService.send(notification);
+        return notification;
     }
-} 
\ No newline at end of file
+} 
@@ -0,0 +1,205 @@
+package com.zhtj.service;
+
+import com.zhtj.common.constant.RedisKeyConstant;
+import com.zhtj.domain.Notification;
+import com.zhtj.mapper.NotificationMapper;
+import com.zhtj.service.impl.NotificationPushServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.annotations.Options;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 通知推送服务测试
+ */
+public class NotificationPushServiceTest {
+
+    private NotificationPushServiceImpl pushService;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    public void setup() {
+        mocks = MockitoAnnotations.openMocks(this);
+        pushService = new NotificationPushServiceImpl();
+        ReflectionTestUtils.setField(pushService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(pushService, "redisMessageListenerContainer", redisMessageListenerContainer);
+        ReflectionTestUtils.setField(pushService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(pushService, "sseTimeout", 60000L);
+        ReflectionTestUtils.setField(pushService, "pollTimeout", 1000L);
+        ReflectionTestUtils.setField(pushService, "bufferSize", 8);
+        ReflectionTestUtils.setField(pushService, "recentEventLimit", 5);
+        ReflectionTestUtils.setField(pushService, "senderThreads", 1);
+        ReflectionTestUtils.setField(pushService, "maxSenderThreads", 4);
+        ReflectionTestUtils.setField(pushService, "sendTimeout", 1000L);
+        pushService.init();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        pushService.shutdown();
+        mocks.close();
+    }
+
+    private static Notification notification(Integer id, Integer recipientId) {
+        Notification notification = new Notification();
+        notification.setId(id);
+        notification.setRecipientId(recipientId);
+        notification.setTitle("转接申请已通过");
+        return notification;
+    }
+
+    /**
+     * Redis不可用时事件只推送给本实例
+     */
+    private void givenRedisUnavailable() {
+        when(redisTemplate.convertAndSend(anyString(), any())).thenThrow(new RuntimeException("连接超时"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> data(Map<String, Object> event) {
+        return (Map<String, Object>) event.get("data");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPublishedNotificationCarriesId() {
+        Notification notification = new Notification();
+        notification.setId(42);
+        notification.setRecipientId(7);
+        notification.setTitle("转接申请已通过");
+
+        pushService.publish(notification);
+
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).convertAndSend(eq(RedisKeyConstant.NOTIFICATION_PUSH_CHANNEL), payload.capture());
+        Map<String, Object> message = (Map<String, Object>) payload.getValue();
+        Map<String, Object> event = (Map<String, Object>) message.get("event");
+        Map<String, Object> data = (Map<String, Object>) event.get("data");
+        assertEquals(7, message.get("userId"));
+        assertEquals("notification", event.get("type"));
+        assertEquals(42, data.get("id"));
+    }
+
+    @Test
+    public void testBatchInsertReturnsGeneratedIds() throws Exception {
+        // 通过发件箱写入的站内信经批量INSERT入库，推送前需要回填自增ID
+        Options options = NotificationMapper.class.getMethod("insertBatch", List.class).getAnnotation(Options.class);
+
+        assertNotNull(options);
+        assertTrue(options.useGeneratedKeys());
+        assertEquals("notifications.id", options.keyProperty());
+    }
+
+    @Test
+    public void testPollCompletesOnLocalDelivery() {
+        givenRedisUnavailable();
+        CompletableFuture<List<Map<String, Object>>> waiting = pushService.poll(7, null);
+        CompletableFuture<List<Map<String, Object>>> other = pushService.poll(8, null);
+        assertFalse(waiting.isDone());
+
+        pushService.publish(notification(42, 7));
+
+        List<Map<String, Object>> events = waiting.getNow(null);
+        assertNotNull(events);
+        assertEquals(1, events.size());
+        assertEquals("notification", events.get(0).get("type"));
+        assertEquals(42, data(events.get(0)).get("id"));
+        // 其他用户挂起的请求不受影响
+        assertFalse(other.isDone());
+    }
+
+    @Test
+    public void testBroadcastReachesEveryUserWithoutContent() {
+        givenRedisUnavailable();
+        CompletableFuture<List<Map<String, Object>>> first = pushService.poll(7, null);
+        CompletableFuture<List<Map<String, Object>>> second = pushService.poll(8, null);
+
+        pushService.publishBroadcast();
+
+        for (CompletableFuture<List<Map<String, Object>>> waiting : Arrays.asList(first, second)) {
+            Map<String, Object> event = waiting.getNow(null).get(0);
+            assertEquals("broadcast", event.get("type"));
+            assertFalse(event.containsKey("data"));
+        }
+    }
+
+    @Test
+    public void testPollReplaysRecentEvents() {
+        givenRedisUnavailable();
+        pushService.poll(7, null);
+        for (int id = 1; id <= 6; id++) {
+            pushService.publish(notification(id, 7));
+        }
+
+        // 只保留最近5条事件，按发生顺序补发
+        CompletableFuture<List<Map<String, Object>>> replay = pushService.poll(7, 0L);
+        assertTrue(replay.isDone());
+        List<Map<String, Object>> events = replay.getNow(null);
+        assertEquals(5, events.size());
+        assertEquals(2, data(events.get(0)).get("id"));
+        assertEquals(6, data(events.get(4)).get("id"));
+
+        // 客户端已收到全部事件时挂起等待
+        long latest = ((Number) events.get(4).get("timestamp")).longValue();
+        assertFalse(pushService.poll(7, latest).isDone());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDeliversEventsRelayedThroughRedis() {
+        ArgumentCaptor<MessageListener> listener = ArgumentCaptor.forClass(MessageListener.class);
+        verify(redisMessageListenerContainer).addMessageListener(listener.capture(), any(Topic.class));
+        RedisSerializer<Object> serializer = mock(RedisSerializer.class);
+        doReturn(serializer).when(redisTemplate).getValueSerializer();
+
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", "notification");
+        event.put("timestamp", System.currentTimeMillis());
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("userId", 7);
+        payload.put("event", event);
+        byte[] body = new byte[]{1};
+        Message message = mock(Message.class);
+        when(message.getBody()).thenReturn(body);
+        when(serializer.deserialize(body)).thenReturn(payload);
+
+        CompletableFuture<List<Map<String, Object>>> waiting = pushService.poll(7, null);
+        listener.getValue().onMessage(message, null);
+
+        assertEquals(Collections.singletonList(event), waiting.getNow(null));
+    }
+}
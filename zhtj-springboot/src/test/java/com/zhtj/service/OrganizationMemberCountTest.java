@@ -0,0 +1,177 @@
+package com.zhtj.service;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.zhtj.domain.Organization;
+import com.zhtj.mapper.OrganizationMapper;
+import com.zhtj.service.impl.OrganizationServiceImpl;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 组织成员计数测试
+ * 成员数量沿上级链路增量维护，移动子树时团员总数从原上级链路转到新上级链路
+ */
+public class OrganizationMemberCountTest {
+
+    private OrganizationServiceImpl organizationService;
+
+    @Mock
+    private OrganizationMapper organizationMapper;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    @Mock
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private AutoCloseable mocks;
+
+    @BeforeAll
+    public static void initTableInfo() {
+        // 成员计数查询使用Lambda条件，需要实体的表信息
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Organization.class);
+    }
+
+    @BeforeEach
+    public void setup() {
+        mocks = MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.increment(anyString())).thenReturn(1L);
+        when(organizationMapper.updateById(any(Organization.class))).thenReturn(1);
+
+        organizationService = new OrganizationServiceImpl();
+        ReflectionTestUtils.setField(organizationService, "organizationMapper", organizationMapper);
+        ReflectionTestUtils.setField(organizationService, "baseMapper", organizationMapper);
+        ReflectionTestUtils.setField(organizationService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(organizationService, "redisMessageListenerContainer", redisMessageListenerContainer);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    private static Organization org(Integer id, Integer parentId, String path, Integer level,
+                                    Integer memberCount, Integer totalMemberCount) {
+        Organization organization = new Organization();
+        organization.setId(id);
+        organization.setParentId(parentId);
+        organization.setPath(path);
+        organization.setLevel(level);
+        organization.setMemberCount(memberCount);
+        organization.setTotalMemberCount(totalMemberCount);
+        return organization;
+    }
+
+    private static Organization counts(Integer id, Integer memberCount, Integer totalMemberCount) {
+        return org(id, null, null, null, memberCount, totalMemberCount);
+    }
+
+    @Test
+    public void testAdjustMemberCountUpdatesAncestorChain() {
+        when(organizationMapper.selectAllWithParentName()).thenReturn(Arrays.asList(
+                org(1, null, "1", 1, 0, 3), org(2, 1, "1,2", 2, 0, 3), org(3, 2, "1,2,3", 3, 3, 3)));
+        when(organizationMapper.incrementMemberCount(3, 2)).thenReturn(1);
+        when(organizationMapper.selectList(any())).thenReturn(Arrays.asList(
+                counts(1, 0, 5), counts(2, 0, 5), counts(3, 5, 5)));
+
+        organizationService.adjustMemberCount(3, 2);
+
+        verify(organizationMapper).incrementTotalMemberCount(Arrays.asList(1, 2, 3), 2);
+        // 提交后重新读取的计数覆盖快照中的旧计数
+        assertEquals(5, organizationService.countDirectMembersByOrganizationId(3));
+        assertEquals(5, organizationService.calculateTotalMemberCount(1));
+        assertEquals(5, organizationService.getOrganizationMap(Collections.singletonList(2)).get(2).getTotalMemberCount());
+    }
+
+    @Test
+    public void testAdjustMemberCountSkipsMissingOrganization() {
+        when(organizationMapper.incrementMemberCount(9, 1)).thenReturn(0);
+
+        organizationService.adjustMemberCount(9, 1);
+        organizationService.adjustMemberCount(9, 0);
+        organizationService.adjustMemberCount(null, 1);
+
+        verify(organizationMapper, never()).incrementTotalMemberCount(anyList(), anyInt());
+    }
+
+    @Test
+    public void testMoveSubtreeTransfersTotalMemberCount() {
+        Organization child = org(3, 1, "1,3", 2, 5, 5);
+        Organization newParent = org(2, null, "2", 1, 0, 0);
+        newParent.setIsLeaf(true);
+        when(organizationMapper.selectAllWithParentName()).thenReturn(Arrays.asList(
+                org(1, null, "1", 1, 0, 5), newParent, child));
+        when(organizationMapper.selectById(3)).thenReturn(child);
+        when(organizationMapper.selectById(2)).thenReturn(newParent);
+        Organization moved = org(3, 2, "2,3", 2, 5, 5);
+        when(organizationMapper.selectOrganizationDetail(3)).thenReturn(moved);
+        when(organizationMapper.selectSubtreeByPath("2,3", null)).thenReturn(Collections.singletonList(moved));
+
+        Organization update = new Organization();
+        update.setId(3);
+        update.setParentId(2);
+        // 外部传入的成员数量不会被写入
+        update.setMemberCount(100);
+        assertTrue(organizationService.updateOrganization(update));
+
+        verify(organizationMapper).incrementTotalMemberCount(Collections.singletonList(1), -5);
+        verify(organizationMapper).incrementTotalMemberCount(Collections.singletonList(2), 5);
+        verify(organizationMapper).updateSubtreePath("1,3", "2,3", 0);
+        verify(organizationMapper).syncHierarchyByPath("2,3");
+
+        ArgumentCaptor<Organization> written = ArgumentCaptor.forClass(Organization.class);
+        verify(organizationMapper, atLeastOnce()).updateById(written.capture());
+        Map<Integer, Organization> writes = new HashMap<>();
+        for (Organization organization : written.getAllValues()) {
+            writes.put(organization.getId(), organization);
+        }
+        // 新旧上级组织只更新叶子标记，不回写读出的成员数量
+        assertEquals(Boolean.FALSE, writes.get(2).getIsLeaf());
+        assertEquals(Boolean.TRUE, writes.get(1).getIsLeaf());
+        for (Integer parentId : Arrays.asList(1, 2)) {
+            assertNull(writes.get(parentId).getMemberCount());
+            assertNull(writes.get(parentId).getTotalMemberCount());
+            assertNull(writes.get(parentId).getPath());
+        }
+        assertEquals("2,3", writes.get(3).getPath());
+        assertNull(writes.get(3).getMemberCount());
+        assertNull(writes.get(3).getTotalMemberCount());
+
+        // 快照按新的path更新
+        List<Integer> ancestors = organizationService.getAncestorOrganizationIds(3);
+        assertEquals(Collections.singletonList(2), ancestors);
+        assertTrue(organizationService.isSubOrganization(2, 3));
+        assertFalse(organizationService.isSubOrganization(1, 3));
+    }
+}
@@ -0,0 +1,121 @@
+package com.zhtj.service;
+
+import com.zhtj.domain.Organization;
+import com.zhtj.mapper.OrganizationMapper;
+import com.zhtj.service.impl.OrganizationServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 组织子树查询测试
+ * 组织树快照中没有目标组织时，按物化路径查询下级和上级组织
+ */
+public class OrganizationSubtreeQueryTest {
+
+    private OrganizationServiceImpl organizationService;
+
+    @Mock
+    private OrganizationMapper organizationMapper;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    @Mock
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    public void setup() {
+        mocks = MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        // 快照为空，所有查询都走数据库
+        when(organizationMapper.selectAllWithParentName()).thenReturn(Collections.emptyList());
+
+        organizationService = new OrganizationServiceImpl();
+        ReflectionTestUtils.setField(organizationService, "organizationMapper", organizationMapper);
+        ReflectionTestUtils.setField(organizationService, "baseMapper", organizationMapper);
+        ReflectionTestUtils.setField(organizationService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(organizationService, "redisMessageListenerContainer", redisMessageListenerContainer);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    private static Organization org(Integer id, Integer parentId, String path) {
+        Organization organization = new Organization();
+        organization.setId(id);
+        organization.setParentId(parentId);
+        organization.setPath(path);
+        return organization;
+    }
+
+    @Test
+    public void testDescendantsByPathPrefix() {
+        when(organizationMapper.selectSelfAndDescendantIds(5)).thenReturn(Arrays.asList(5, 6, 7));
+
+        assertEquals(Arrays.asList(5, 6, 7), organizationService.getSelfAndChildrenOrganizationIds(5));
+        verify(organizationMapper, never()).getSubOrganizationIds(anyInt());
+    }
+
+    @Test
+    public void testDescendantsFallBackToParentId() {
+        // path缺失时按path查不到任何组织，退回按parent_id递归查询
+        when(organizationMapper.selectSelfAndDescendantIds(5)).thenReturn(Collections.emptyList());
+        when(organizationMapper.getSubOrganizationIds(5)).thenReturn(Collections.singletonList(6));
+
+        assertEquals(Arrays.asList(5, 6), organizationService.getSelfAndChildrenOrganizationIds(5));
+    }
+
+    @Test
+    public void testAncestorsFromPath() {
+        when(organizationMapper.selectById(5)).thenReturn(org(5, 4, "1,4,5"));
+
+        assertEquals(Arrays.asList(1, 4), organizationService.getAncestorOrganizationIds(5));
+        assertTrue(organizationService.isSubOrganization(1, 5));
+        assertTrue(organizationService.isSubOrganization(4, 5));
+        assertFalse(organizationService.isSubOrganization(6, 5));
+        assertFalse(organizationService.isSubOrganization(5, 5));
+    }
+
+    @Test
+    public void testAncestorsFallBackToParentId() {
+        when(organizationMapper.selectById(5)).thenReturn(org(5, 4, null));
+        when(organizationMapper.selectById(4)).thenReturn(org(4, 1, null));
+        when(organizationMapper.selectById(1)).thenReturn(org(1, null, null));
+
+        assertEquals(Arrays.asList(1, 4), organizationService.getAncestorOrganizationIds(5));
+    }
+
+    @Test
+    public void testSnapshotAnswersWithoutQuery() {
+        when(organizationMapper.selectAllWithParentName()).thenReturn(Arrays.asList(
+                org(1, null, "1"), org(4, 1, "1,4"), org(5, 4, "1,4,5")));
+
+        assertEquals(Arrays.asList(4, 5), organizationService.getSelfAndChildrenOrganizationIds(4));
+        assertEquals(Arrays.asList(1, 4), organizationService.getAncestorOrganizationIds(5));
+        verify(organizationMapper, never()).selectSelfAndDescendantIds(anyInt());
+        verify(organizationMapper, never()).selectById(anyInt());
+    }
+}
@@ -0,0 +1,232 @@
+package com.zhtj.service.impl;
+
+import com.zhtj.domain.NotificationOutbox;
+import com.zhtj.domain.User;
+import com.zhtj.mapper.NotificationMapper;
+import com.zhtj.mapper.NotificationOutboxMapper;
+import com.zhtj.service.EmailService;
+import com.zhtj.service.NotificationPushService;
+import com.zhtj.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 通知发件箱投递测试
+ * 记录先认领后在事务外发送，失败时按指数退避重试，超过最大次数后不再重试
+ */
+public class NotificationOutboxDispatchTest {
+
+    private NotificationServiceImpl notificationService;
+
+    @Mock
+    private NotificationMapper notificationMapper;
+
+    @Mock
+    private NotificationOutboxMapper notificationOutboxMapper;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private UnreadNotificationCounter unreadCounter;
+
+    @Mock
+    private NotificationPushService notificationPushService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    public void setup() {
+        mocks = MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        User recipient = new User();
+        recipient.setId(7);
+        recipient.setEmail("member@example.com");
+        when(userService.getUserMap(anyCollection())).thenReturn(Collections.singletonMap(7, recipient));
+
+        notificationService = new NotificationServiceImpl();
+        ReflectionTestUtils.setField(notificationService, "notificationMapper", notificationMapper);
+        ReflectionTestUtils.setField(notificationService, "notificationOutboxMapper", notificationOutboxMapper);
+        ReflectionTestUtils.setField(notificationService, "userService", userService);
+        ReflectionTestUtils.setField(notificationService, "emailService", emailService);
+        ReflectionTestUtils.setField(notificationService, "unreadCounter", unreadCounter);
+        ReflectionTestUtils.setField(notificationService, "notificationPushService", notificationPushService);
+        ReflectionTestUtils.setField(notificationService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(notificationService, "transactionTemplate", new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(notificationService, "maxAttempts", 5);
+        ReflectionTestUtils.setField(notificationService, "retryBaseSeconds", 30L);
+        ReflectionTestUtils.setField(notificationService, "leaseSeconds", 300L);
+        ReflectionTestUtils.setField(notificationService, "smsTemplateCode", "");
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    private static NotificationOutbox record(long id, String channel, int attempts) {
+        NotificationOutbox record = new NotificationOutbox();
+        record.setId(id);
+        record.setChannel(channel);
+        record.setTitle("转接申请已通过");
+        record.setContent("您的组织关系转接申请已通过");
+        record.setRecipientId(7);
+        record.setAttempts(attempts);
+        record.setCreateTime(LocalDateTime.now());
+        return record;
+    }
+
+    private void givenDue(NotificationOutbox record) {
+        when(notificationOutboxMapper.lockDue(10)).thenReturn(Collections.singletonList(record));
+    }
+
+    @Test
+    public void testClaimsBeforeSendingAndRecordsWithSameToken() {
+        givenDue(record(1L, NotificationOutbox.CHANNEL_EMAIL, 0));
+        when(emailService.sendSimpleEmail(anyString(), anyString(), anyString())).thenReturn(true);
+        when(notificationOutboxMapper.markDelivered(anyCollection(), anyString())).thenReturn(1);
+
+        assertEquals(1, notificationService.dispatchPending(10));
+
+        ArgumentCaptor<String> claimToken = ArgumentCaptor.forClass(String.class);
+        InOrder order = inOrder(notificationOutboxMapper, emailService, transactionManager);
+        order.verify(notificationOutboxMapper).releaseExpiredLeases(5);
+        order.verify(notificationOutboxMapper).claim(eq(Collections.singletonList(1L)), claimToken.capture(), eq(300L));
+        order.verify(transactionManager).commit(any());
+        // 邮件在认领事务提交后、结果事务开始前发送
+        order.verify(emailService).sendSimpleEmail("member@example.com", "转接申请已通过", "您的组织关系转接申请已通过");
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(notificationOutboxMapper).markDelivered(Collections.singletonList(1L), claimToken.getValue());
+    }
+
+    @Test
+    public void testRetryableFailureBacksOffExponentially() {
+        givenDue(record(1L, NotificationOutbox.CHANNEL_EMAIL, 2));
+        when(emailService.sendSimpleEmail(anyString(), anyString(), anyString())).thenReturn(false);
+
+        LocalDateTime before = LocalDateTime.now();
+        notificationService.dispatchPending(10);
+
+        // 第3次失败，间隔为 30 << 2 = 120 秒
+        ArgumentCaptor<LocalDateTime> nextRetryTime = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(notificationOutboxMapper).markFailed(eq(1L), anyString(), eq(NotificationOutbox.STATUS_PENDING),
+                nextRetryTime.capture(), eq("邮件发送失败"));
+        long delay = Duration.between(before, nextRetryTime.getValue()).getSeconds();
+        assertTrue(delay >= 119 && delay <= 121, "实际间隔: " + delay);
+    }
+
+    @Test
+    public void testRetryDelayIsCapped() {
+        ReflectionTestUtils.setField(notificationService, "maxAttempts", 100);
+        givenDue(record(1L, NotificationOutbox.CHANNEL_EMAIL, 30));
+        when(emailService.sendSimpleEmail(anyString(), anyString(), anyString())).thenThrow(new RuntimeException("连接超时"));
+
+        LocalDateTime before = LocalDateTime.now();
+        notificationService.dispatchPending(10);
+
+        ArgumentCaptor<LocalDateTime> nextRetryTime = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(notificationOutboxMapper).markFailed(eq(1L), anyString(), eq(NotificationOutbox.STATUS_PENDING),
+                nextRetryTime.capture(), eq("连接超时"));
+        long delay = Duration.between(before, nextRetryTime.getValue()).getSeconds();
+        assertTrue(delay >= 3599 && delay <= 3601, "实际间隔: " + delay);
+    }
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() {
+        givenDue(record(1L, NotificationOutbox.CHANNEL_EMAIL, 4));
+        when(emailService.sendSimpleEmail(anyString(), anyString(), anyString())).thenReturn(false);
+
+        notificationService.dispatchPending(10);
+
+        verify(notificationOutboxMapper).markFailed(eq(1L), anyString(), eq(NotificationOutbox.STATUS_FAILED),
+                any(LocalDateTime.class), eq("邮件发送失败"));
+    }
+
+    @Test
+    public void testMissingContactIsNotRetried() {
+        when(userService.getUserMap(anyCollection())).thenReturn(Collections.singletonMap(7, new User()));
+        givenDue(record(1L, NotificationOutbox.CHANNEL_EMAIL, 0));
+
+        notificationService.dispatchPending(10);
+
+        verify(emailService, never()).sendSimpleEmail(anyString(), anyString(), anyString());
+        verify(notificationOutboxMapper).markFailed(eq(1L), anyString(), eq(NotificationOutbox.STATUS_FAILED),
+                any(LocalDateTime.class), eq("接收者未设置电子邮箱"));
+    }
+
+    @Test
+    public void testSmsDisabledIsNotRetried() {
+        givenDue(record(1L, NotificationOutbox.CHANNEL_SMS, 0));
+
+        notificationService.dispatchPending(10);
+
+        verify(notificationOutboxMapper).markFailed(eq(1L), anyString(), eq(NotificationOutbox.STATUS_FAILED),
+                any(LocalDateTime.class), eq("短信服务未启用"));
+    }
+
+    @Test
+    public void testSiteDeliveryWithLostLeaseIsRolledBack() {
+        List<SimpleTransactionStatus> transactions = new ArrayList<>();
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            SimpleTransactionStatus status = new SimpleTransactionStatus();
+            transactions.add(status);
+            return status;
+        });
+        givenDue(record(1L, NotificationOutbox.CHANNEL_SITE, 0));
+        // 租约已被收回，本批次无法再标记为已投递
+        when(notificationOutboxMapper.markDelivered(anyCollection(), anyString())).thenReturn(0);
+
+        notificationService.dispatchPending(10);
+
+        // 认领、整批写入、逐条写入三个事务：整批写入抛出异常回滚，逐条写入标记为仅回滚
+        assertEquals(3, transactions.size());
+        verify(transactionManager).rollback(transactions.get(1));
+        assertTrue(transactions.get(2).isRollbackOnly());
+        verify(notificationOutboxMapper, never()).markFailed(anyLong(), anyString(), anyInt(), any(), any());
+        verify(notificationPushService, never()).publish(any());
+        verify(unreadCounter, never()).increment(anyInt(), anyInt());
+    }
+
+    @Test
+    public void testNothingDue() {
+        when(notificationOutboxMapper.lockDue(10)).thenReturn(Collections.emptyList());
+
+        assertEquals(0, notificationService.dispatchPending(10));
+        verify(notificationOutboxMapper, never()).claim(anyCollection(), anyString(), anyLong());
+    }
+}
@@ -0,0 +1,151 @@
+package com.zhtj.service.impl;
+
+import com.zhtj.domain.Organization;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 组织树快照测试
+ */
+public class OrganizationTreeSnapshotTest {
+
+    private static Organization org(Integer id, Integer parentId, String name, String path) {
+        Organization organization = new Organization();
+        organization.setId(id);
+        organization.setParentId(parentId);
+        organization.setName(name);
+        organization.setPath(path);
+        return organization;
+    }
+
+    /**
+     * 1
+     * ├── 2
+     * │   └── 4
+     * └── 3
+     */
+    private static OrganizationTreeSnapshot sample() {
+        return OrganizationTreeSnapshot.build(1, Arrays.asList(
+                org(1, null, "校团委", "1"),
+                org(2, 1, "计算机学院团委", "1,2"),
+                org(3, 1, "外国语学院团委", "1,3"),
+                org(4, 2, "软件工程团支部", "1,2,4")));
+    }
+
+    @Test
+    public void testBuildLinksChildrenAndLeafFlags() {
+        OrganizationTreeSnapshot snapshot = sample();
+
+        List<Organization> roots = snapshot.roots();
+        assertEquals(1, roots.size());
+        Organization root = roots.get(0);
+        assertEquals(1, root.getId());
+        assertFalse(root.getIsLeaf());
+        assertEquals(Arrays.asList(2, 3), Arrays.asList(root.getChildren().get(0).getId(), root.getChildren().get(1).getId()));
+        assertTrue(root.getChildren().get(1).getIsLeaf());
+        // 上级组织名称取自快照中的上级节点
+        assertEquals("校团委", snapshot.get(2).getParentName());
+    }
+
+    @Test
+    public void testFillsMissingPathFromParent() {
+        OrganizationTreeSnapshot snapshot = OrganizationTreeSnapshot.build(1, Arrays.asList(
+                org(1, null, "校团委", null),
+                org(2, 1, "计算机学院团委", null)));
+
+        assertEquals("1", snapshot.get(1).getPath());
+        assertEquals("1,2", snapshot.get(2).getPath());
+    }
+
+    @Test
+    public void testSubtreeDepth() {
+        OrganizationTreeSnapshot snapshot = sample();
+
+        Organization full = snapshot.subtree(1, null);
+        assertEquals(4, full.getChildren().get(0).getChildren().get(0).getId());
+
+        Organization oneLevel = snapshot.subtree(1, 1);
+        assertEquals(2, oneLevel.getChildren().size());
+        assertTrue(oneLevel.getChildren().get(0).getChildren().isEmpty());
+
+        assertNull(snapshot.subtree(99, null));
+    }
+
+    @Test
+    public void testDescendantsAndAncestors() {
+        OrganizationTreeSnapshot snapshot = sample();
+
+        assertEquals(Arrays.asList(1, 2, 3, 4), snapshot.selfAndDescendantIds(1));
+        assertEquals(Arrays.asList(2, 4), snapshot.selfAndDescendantIds(2));
+        assertTrue(snapshot.selfAndDescendantIds(99).isEmpty());
+
+        assertEquals(Arrays.asList(1, 2), snapshot.ancestorIds(4));
+        assertTrue(snapshot.ancestorIds(1).isEmpty());
+        assertTrue(snapshot.isAncestor(1, 4));
+        assertFalse(snapshot.isAncestor(3, 4));
+        assertFalse(snapshot.isAncestor(4, 4));
+    }
+
+    @Test
+    public void testWithUpsertedMovesSubtree() {
+        OrganizationTreeSnapshot snapshot = sample();
+
+        // 将2及其下级4移动到3下
+        OrganizationTreeSnapshot moved = snapshot.withUpserted(2, Arrays.asList(
+                org(2, 3, "计算机学院团委", "1,3,2"),
+                org(4, 2, "软件工程团支部", "1,3,2,4")));
+
+        assertEquals(2, moved.version());
+        assertEquals(Arrays.asList(1, 3, 2), moved.ancestorIds(4));
+        assertEquals(Arrays.asList(3, 2, 4), moved.selfAndDescendantIds(3));
+        assertEquals("外国语学院团委", moved.get(2).getParentName());
+        assertFalse(moved.subtree(3, 0).getIsLeaf());
+
+        // 原快照不受影响
+        assertEquals(Arrays.asList(1, 2), snapshot.ancestorIds(4));
+        assertEquals(1, snapshot.version());
+    }
+
+    @Test
+    public void testWithRemoved() {
+        OrganizationTreeSnapshot snapshot = sample();
+
+        OrganizationTreeSnapshot removed = snapshot.withRemoved(2, 3);
+
+        assertFalse(removed.contains(3));
+        assertEquals(Arrays.asList(1, 2, 4), removed.selfAndDescendantIds(1));
+        assertTrue(snapshot.contains(3));
+    }
+
+    @Test
+    public void testReturnedCopiesDoNotChangeSnapshot() {
+        OrganizationTreeSnapshot snapshot = sample();
+
+        Organization copy = snapshot.get(2);
+        copy.setName("已修改");
+        copy.setMemberCount(100);
+        Organization subtree = snapshot.subtree(1, null);
+        subtree.getChildren().clear();
+        snapshot.roots().get(0).setName("已修改");
+
+        assertEquals("计算机学院团委", snapshot.get(2).getName());
+        assertNull(snapshot.get(2).getMemberCount());
+        assertEquals(2, snapshot.subtree(1, null).getChildren().size());
+        assertEquals("校团委", snapshot.roots().get(0).getName());
+    }
+
+    @Test
+    public void testEmptySnapshot() {
+        OrganizationTreeSnapshot snapshot = OrganizationTreeSnapshot.build(0, Collections.emptyList());
+
+        assertTrue(snapshot.roots().isEmpty());
+        assertFalse(snapshot.contains(1));
+        assertFalse(snapshot.contains(null));
+        assertNull(snapshot.get(1));
+    }
+}
@@ -0,0 +1,168 @@
+package com.zhtj.service.impl;
+
+import com.zhtj.common.constant.RedisKeyConstant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 未读通知计数器测试
+ * 计数只在存在时由Lua脚本原子增减，广播版本号递增后计数键整体切换
+ */
+public class UnreadNotificationCounterTest {
+
+    private UnreadNotificationCounter counter;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    @Mock
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Mock
+    private RedisSerializer<Object> valueSerializer;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    public void setup() {
+        mocks = MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        doReturn(valueSerializer).when(redisTemplate).getValueSerializer();
+        when(valueOperations.get(RedisKeyConstant.NOTIFICATION_BROADCAST_EPOCH)).thenReturn("3");
+
+        counter = new UnreadNotificationCounter();
+        ReflectionTestUtils.setField(counter, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(counter, "redisMessageListenerContainer", redisMessageListenerContainer);
+        counter.init();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    private static String key(long epoch, Integer userId) {
+        return String.format(RedisKeyConstant.NOTIFICATION_UNREAD, epoch, userId);
+    }
+
+    /**
+     * 模拟收到其他实例发布的广播版本号
+     */
+    private void receiveEpoch(long epoch) {
+        ArgumentCaptor<MessageListener> listener = ArgumentCaptor.forClass(MessageListener.class);
+        verify(redisMessageListenerContainer).addMessageListener(listener.capture(), any(Topic.class));
+        byte[] body = String.valueOf(epoch).getBytes();
+        Message message = mock(Message.class);
+        when(message.getBody()).thenReturn(body);
+        when(valueSerializer.deserialize(body)).thenReturn(epoch);
+        listener.getValue().onMessage(message, null);
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void testIncrementRunsScriptOnCurrentEpochKey() {
+        counter.increment(7, 2);
+
+        ArgumentCaptor<RedisScript> script = ArgumentCaptor.forClass(RedisScript.class);
+        verify(redisTemplate).execute(script.capture(), eq(Collections.singletonList(key(3, 7))), eq(2));
+        // 计数不存在时不累加，结果为负时删除计数
+        String lua = script.getValue().getScriptAsString();
+        assertTrue(lua.contains("EXISTS"));
+        assertTrue(lua.contains("INCRBY"));
+        assertTrue(lua.contains("DEL"));
+        assertEquals(Long.class, script.getValue().getResultType());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testIncrementIgnoresEmptyChanges() {
+        counter.increment(null, 1);
+        counter.increment(7, 0);
+
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testIncrementWaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            counter.increment(7, 1);
+            verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any());
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+            verify(redisTemplate).execute(any(RedisScript.class), eq(Collections.singletonList(key(3, 7))), eq(1));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRedisFailureIsSwallowed() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any())).thenThrow(new RuntimeException("连接超时"));
+        when(valueOperations.get(key(3, 7))).thenThrow(new RuntimeException("连接超时"));
+
+        assertDoesNotThrow(() -> counter.increment(7, 1));
+        assertNull(counter.get(7));
+    }
+
+    @Test
+    public void testInvalidateAllSwitchesToNextEpoch() {
+        when(valueOperations.increment(RedisKeyConstant.NOTIFICATION_BROADCAST_EPOCH)).thenReturn(4L);
+        when(valueOperations.get(key(4, 7))).thenReturn(5);
+
+        counter.invalidateAll();
+
+        verify(redisTemplate).convertAndSend(RedisKeyConstant.NOTIFICATION_BROADCAST_CHANNEL, 4L);
+        assertEquals(5, counter.get(7));
+        counter.rebuild(8, 2);
+        verify(valueOperations).setIfAbsent(eq(key(4, 8)), eq(2), eq(24L), any());
+    }
+
+    @Test
+    public void testEpochNeverMovesBackwards() {
+        when(valueOperations.get(key(6, 7))).thenReturn(1);
+
+        receiveEpoch(6);
+        assertEquals(1, counter.get(7));
+
+        // 迟到的旧版本号和定期核对读到的旧值都不会使计数键回退
+        receiveEpoch(2);
+        counter.checkEpoch();
+        assertEquals(1, counter.get(7));
+        verify(valueOperations, never()).get(key(3, 7));
+    }
+}
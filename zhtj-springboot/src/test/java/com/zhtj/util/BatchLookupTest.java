@@ -0,0 +1,115 @@
+package com.zhtj.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 列表数据批量补全工具测试
+ */
+public class BatchLookupTest {
+
+    @Test
+    public void testCollectKeysDeduplicatesAndSkipsNull() {
+        List<Row> rows = Arrays.asList(new Row(1, 2), new Row(2, null), new Row(null, 3), new Row(1, 1));
+
+        Set<Integer> keys = BatchLookup.collectKeys(rows, Row::getUserId, Row::getApproverId);
+
+        assertEquals(List.of(1, 2, 3), new ArrayList<>(keys));
+    }
+
+    @Test
+    public void testCollectKeysFromEmptyRecords() {
+        assertTrue(BatchLookup.collectKeys(null, Row::getUserId).isEmpty());
+        assertTrue(BatchLookup.collectKeys(Collections.<Row>emptyList(), Row::getUserId).isEmpty());
+    }
+
+    @Test
+    public void testEnrichFillsMissingIdsWithNull() {
+        Row first = new Row(1, null);
+        Row missing = new Row(2, null);
+        Row duplicate = new Row(1, null);
+        Row noKey = new Row(null, null);
+        List<Set<Integer>> loadedKeys = new ArrayList<>();
+
+        BatchLookup.enrich(Arrays.asList(first, missing, duplicate, noKey), Row::getUserId, keys -> {
+            loadedKeys.add(keys);
+            Map<Integer, String> names = new HashMap<>();
+            names.put(1, "张三");
+            return names;
+        }, Row::setUserName);
+
+        // 只查询一次，关联键去重
+        assertEquals(1, loadedKeys.size());
+        assertEquals(Set.of(1, 2), loadedKeys.get(0));
+        assertEquals("张三", first.getUserName());
+        assertEquals("张三", duplicate.getUserName());
+        assertNull(missing.getUserName());
+        assertTrue(missing.isFilled());
+        // 无关联键的记录不回填
+        assertFalse(noKey.isFilled());
+    }
+
+    @Test
+    public void testEnrichWithNullResult() {
+        Row row = new Row(1, null);
+
+        BatchLookup.enrich(List.of(row), Row::getUserId, keys -> null, Row::setUserName);
+
+        assertTrue(row.isFilled());
+        assertNull(row.getUserName());
+    }
+
+    @Test
+    public void testEnrichSkipsLoaderWithoutKeys() {
+        Row row = new Row(null, null);
+
+        BatchLookup.enrich(List.of(row), Row::getUserId, keys -> {
+            fail("没有关联键时不应查询");
+            return null;
+        }, Row::setUserName);
+
+        assertFalse(row.isFilled());
+    }
+
+    private static class Row {
+        private final Integer userId;
+        private final Integer approverId;
+        private String userName;
+        private boolean filled;
+
+        Row(Integer userId, Integer approverId) {
+            this.userId = userId;
+            this.approverId = approverId;
+        }
+
+        Integer getUserId() {
+            return userId;
+        }
+
+        Integer getApproverId() {
+            return approverId;
+        }
+
+        String getUserName() {
+            return userName;
+        }
+
+        void setUserName(String userName) {
+            this.userName = userName;
+            this.filled = true;
+        }
+
+        boolean isFilled() {
+            return filled;
+        }
+    }
+}
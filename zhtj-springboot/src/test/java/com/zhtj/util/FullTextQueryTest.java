@@ -0,0 +1,54 @@
+package com.zhtj.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 全文检索查询语句构造测试
+ */
+public class FullTextQueryTest {
+
+    @Test
+    public void testTermsBecomeRequiredPhrases() {
+        assertEquals("+\"共青团\" +\"历史\"", FullTextQuery.toBooleanQuery("共青团 历史"));
+        assertEquals("+\"团课\"", FullTextQuery.toBooleanQuery("  团课  "));
+    }
+
+    @Test
+    public void testOperatorsAreStripped() {
+        assertEquals("+\"团课\" +\"历史\"", FullTextQuery.toBooleanQuery("+团课* -\"历史\""));
+        assertEquals("+\"团章\"", FullTextQuery.toBooleanQuery("<(团章)>~@"));
+    }
+
+    @Test
+    public void testOperatorOnlyTermsAreIgnored() {
+        assertEquals("+\"团课\"", FullTextQuery.toBooleanQuery("团课 +-*"));
+        assertNull(FullTextQuery.toBooleanQuery("+ - *"));
+    }
+
+    @Test
+    public void testBlankInputReturnsNull() {
+        assertNull(FullTextQuery.toBooleanQuery(null));
+        assertNull(FullTextQuery.toBooleanQuery(""));
+        assertNull(FullTextQuery.toBooleanQuery("   "));
+    }
+
+    @Test
+    public void testShortTermFallsBackToLike() {
+        assertNull(FullTextQuery.toBooleanQuery("团"));
+        assertNull(FullTextQuery.toBooleanQuery("团 课程"));
+        // 去掉运算符后只剩一个字
+        assertNull(FullTextQuery.toBooleanQuery("+团*"));
+    }
+
+    @Test
+    public void testStopwordOnlyTermFallsBackToLike() {
+        // 每个词元都包含停用词"a"或"i"
+        assertNull(FullTextQuery.toBooleanQuery("Java"));
+        assertNull(FullTextQuery.toBooleanQuery("AI"));
+        assertNull(FullTextQuery.toBooleanQuery("Java 团课"));
+        // 仍有不含停用词的词元时正常检索
+        assertEquals("+\"Python\"", FullTextQuery.toBooleanQuery("Python"));
+    }
+}
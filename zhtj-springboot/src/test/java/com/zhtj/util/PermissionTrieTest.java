@@ -0,0 +1,74 @@
+package com.zhtj.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 权限前缀树测试
+ */
+public class PermissionTrieTest {
+
+    @Test
+    public void testExactMatch() {
+        PermissionTrie trie = new PermissionTrie(List.of("user:view", "org:edit"));
+
+        assertTrue(trie.matches("user:view"));
+        assertTrue(trie.matches("org:edit"));
+        assertFalse(trie.matches("user:edit"));
+        assertFalse(trie.matches("org:view"));
+    }
+
+    @Test
+    public void testPrefixIsNotMatch() {
+        PermissionTrie trie = new PermissionTrie(List.of("user:view"));
+
+        // 权限编码的前缀或更长的编码都不算匹配
+        assertFalse(trie.matches("user"));
+        assertFalse(trie.matches("user:view:detail"));
+        assertFalse(trie.matches("user:"));
+    }
+
+    @Test
+    public void testWildcardMatchesAnySuffix() {
+        PermissionTrie trie = new PermissionTrie(List.of("user:*"));
+
+        assertTrue(trie.matches("user:view"));
+        assertTrue(trie.matches("user:role:assign"));
+        // 通配符至少匹配一段
+        assertFalse(trie.matches("user"));
+        assertFalse(trie.matches("userx:view"));
+        assertFalse(trie.matches("org:view"));
+    }
+
+    @Test
+    public void testNestedWildcard() {
+        PermissionTrie trie = new PermissionTrie(List.of("org:member:*", "org:view"));
+
+        assertTrue(trie.matches("org:member:add"));
+        assertTrue(trie.matches("org:view"));
+        assertFalse(trie.matches("org:member"));
+        assertFalse(trie.matches("org:edit"));
+    }
+
+    @Test
+    public void testTopLevelStarIsLiteral() {
+        PermissionTrie trie = new PermissionTrie(List.of("*"));
+
+        assertTrue(trie.matches("*"));
+        assertFalse(trie.matches("user:view"));
+    }
+
+    @Test
+    public void testEmptyAndNullInput() {
+        PermissionTrie trie = new PermissionTrie(null);
+        assertFalse(trie.matches("user:view"));
+
+        PermissionTrie withBlank = new PermissionTrie(List.of("", "user:view"));
+        assertFalse(withBlank.matches(""));
+        assertFalse(withBlank.matches(null));
+        assertTrue(withBlank.matches("user:view"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.zhtj.util;
+
+import com.zhtj.common.api.CursorPage;
+import com.zhtj.common.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 游标分页定位键测试
+ */
+public class SeekCursorTest {
+
+    @Test
+    public void testEncodeDecodeRoundTrip() {
+        LocalDateTime time = LocalDateTime.of(2025, 5, 7, 17, 50, 14);
+        SeekCursor decoded = SeekCursor.decode(new SeekCursor(time, 42, 1).encode());
+
+        assertEquals(time, decoded.getTime());
+        assertEquals(42, decoded.getId());
+        assertEquals(1, decoded.getTag());
+    }
+
+    @Test
+    public void testRoundTripKeepsFractionalSeconds() {
+        LocalDateTime time = LocalDateTime.of(2025, 5, 7, 17, 50, 0, 123000000);
+        SeekCursor decoded = SeekCursor.decode(new SeekCursor(time, 7, 0).encode());
+
+        assertEquals(time, decoded.getTime());
+    }
+
+    @Test
+    public void testRoundTripWithNullTime() {
+        SeekCursor decoded = SeekCursor.decode(new SeekCursor(null, 9, 0).encode());
+
+        assertNull(decoded.getTime());
+        assertEquals(9, decoded.getId());
+        assertEquals(0, decoded.getTag());
+    }
+
+    @Test
+    public void testBlankCursorIsFirstPage() {
+        assertNull(SeekCursor.decode(null));
+        assertNull(SeekCursor.decode(""));
+        assertNull(SeekCursor.decode("  "));
+    }
+
+    @Test
+    public void testRejectMalformedCursor() {
+        assertThrows(BusinessException.class, () -> SeekCursor.decode("not base64!"));
+        assertThrows(BusinessException.class, () -> SeekCursor.decode(encodeRaw("2025-05-07T17:50:14|42")));
+        assertThrows(BusinessException.class, () -> SeekCursor.decode(encodeRaw("2025-05-07T17:50:14|42|0|1")));
+        assertThrows(BusinessException.class, () -> SeekCursor.decode(encodeRaw("2025-13-07T17:50:14|42|0")));
+        assertThrows(BusinessException.class, () -> SeekCursor.decode(encodeRaw("2025-05-07T17:50:14|abc|0")));
+        assertThrows(BusinessException.class, () -> SeekCursor.decode(encodeRaw("null|42|0")));
+    }
+
+    @Test
+    public void testPageWithMoreRows() {
+        List<Integer> rows = List.of(5, 4, 3);
+        CursorPage<Integer> page = SeekCursor.page(rows, 2, id -> new SeekCursor(null, id, 0));
+
+        assertEquals(List.of(5, 4), page.getList());
+        assertTrue(page.isHasMore());
+        assertEquals(4, SeekCursor.decode(page.getNextCursor()).getId());
+    }
+
+    @Test
+    public void testLastPage() {
+        List<Integer> rows = List.of(2, 1);
+        CursorPage<Integer> page = SeekCursor.page(rows, 2, id -> new SeekCursor(null, id, 0));
+
+        assertEquals(List.of(2, 1), page.getList());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
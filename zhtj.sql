@@ -158,6 +158,42 @@ CREATE TABLE `evaluation_template`  (
 -- ----------------------------
 INSERT INTO `evaluation_template` VALUES (1, '团员年度评议模板', '团员评议', '用于团员年度评议的标准模板', '{\"title\":\"团员年度评议表\",\"sections\":[{\"name\":\"基本信息\",\"fields\":[{\"label\":\"姓名\",\"type\":\"text\"},{\"label\":\"性别\",\"type\":\"select\"},{\"label\":\"学号\",\"type\":\"text\"}]},{\"name\":\"评议内容\",\"fields\":[{\"label\":\"思想政治表现\",\"type\":\"radio\"},{\"label\":\"学习成绩\",\"type\":\"radio\"},{\"label\":\"团组织活动参与度\",\"type\":\"radio\"},{\"label\":\"志愿服务表现\",\"type\":\"radio\"}]},{\"name\":\"综合评价\",\"fields\":[{\"label\":\"评议结果\",\"type\":\"select\"},{\"label\":\"评语\",\"type\":\"textarea\"}]}]}', 1, '张明', 1, '2025-03-25 10:53:51', '2025-03-25 10:53:51');
 
+-- ----------------------------
+-- Table structure for file_blob
+-- ----------------------------
+DROP TABLE IF EXISTS `file_blob`;
+CREATE TABLE `file_blob`  (
+  `digest` char(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '文件内容SHA-256摘要',
+  `storage_path` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '存储路径',
+  `file_size` bigint NULL DEFAULT NULL COMMENT '文件大小(字节)',
+  `ref_count` int NOT NULL DEFAULT 0 COMMENT '引用次数',
+  `create_time` datetime NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`digest`) USING BTREE,
+  UNIQUE INDEX `uk_storage_path`(`storage_path` ASC) USING BTREE,
+  INDEX `idx_ref_count_update_time`(`ref_count` ASC, `update_time` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '文件内容去重存储表' ROW_FORMAT = DYNAMIC;
+
+-- ----------------------------
+-- Records of file_blob
+-- ----------------------------
+
+-- ----------------------------
+-- Table structure for file_blob_ref
+-- ----------------------------
+DROP TABLE IF EXISTS `file_blob_ref`;
+CREATE TABLE `file_blob_ref`  (
+  `digest` char(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '文件内容SHA-256摘要',
+  `owner_key` varchar(100) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '引用方，格式为 业务类型:业务ID',
+  `uploader_id` int NULL DEFAULT NULL COMMENT '上传人ID',
+  `create_time` datetime NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`digest`, `owner_key`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '文件内容引用表' ROW_FORMAT = DYNAMIC;
+
+-- ----------------------------
+-- Records of file_blob_ref
+-- ----------------------------
+
 -- ----------------------------
 -- Table structure for file_storage
 -- ----------------------------
@@ -403,7 +439,7 @@ CREATE TABLE `member_evaluation_detail`  (
   `create_time` datetime NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`id`) USING BTREE,
-  INDEX `idx_evaluation_id`(`evaluation_id` ASC) USING BTREE,
+  UNIQUE INDEX `uk_evaluation_user`(`evaluation_id` ASC, `user_id` ASC) USING BTREE,
   INDEX `idx_user_id`(`user_id` ASC) USING BTREE,
   INDEX `idx_result`(`result` ASC) USING BTREE,
   INDEX `idx_status`(`status` ASC) USING BTREE,
@@ -434,6 +470,25 @@ INSERT INTO `member_evaluation_detail` VALUES (18, 15, 37, '周萍', '优秀', 9
 INSERT INTO `member_evaluation_detail` VALUES (19, 16, 39, '林丽', '合格', 86.50, '该团员在团内活动参与度较高，但学习成绩有待提高', 38, '吴刚', '2025-05-15 11:30:00', '已评议', '待审批', NULL, NULL, NULL, NULL, '2025-05-04 13:15:44', '2025-05-04 19:38:25');
 INSERT INTO `member_evaluation_detail` VALUES (20, 17, 41, '赵丽', '优秀', 95.00, '该团员在各方面表现优异，特别是在专业技能和志愿服务方面', 40, '陈刚', '2025-05-18 14:00:00', '已评议', '待审批', NULL, NULL, NULL, NULL, '2025-05-04 13:15:44', '2025-05-04 19:38:25');
 
+-- ----------------------------
+-- Table structure for member_evaluation_statistics
+-- ----------------------------
+DROP TABLE IF EXISTS `member_evaluation_statistics`;
+CREATE TABLE `member_evaluation_statistics`  (
+  `evaluation_id` int NOT NULL COMMENT '评议ID',
+  `organization_id` int NOT NULL COMMENT '评议组织ID',
+  `evaluation_year` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '评议年度',
+  `total_count` int NOT NULL DEFAULT 0 COMMENT '参评团员数',
+  `completed_count` int NOT NULL DEFAULT 0 COMMENT '已评议数',
+  `excellent_count` int NOT NULL DEFAULT 0 COMMENT '优秀数',
+  `qualified_count` int NOT NULL DEFAULT 0 COMMENT '合格数',
+  `basic_qualified_count` int NOT NULL DEFAULT 0 COMMENT '基本合格数',
+  `unqualified_count` int NOT NULL DEFAULT 0 COMMENT '不合格数',
+  `update_time` datetime NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`evaluation_id`) USING BTREE,
+  INDEX `idx_org_year`(`organization_id` ASC, `evaluation_year` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '团员评议统计表' ROW_FORMAT = DYNAMIC;
+
 -- ----------------------------
 -- Table structure for member_incentive
 -- ----------------------------
@@ -495,11 +550,11 @@ CREATE TABLE `member_register`  (
   `update_time` datetime NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`id`) USING BTREE,
   INDEX `idx_user_id`(`user_id` ASC) USING BTREE,
-  INDEX `idx_organization_id`(`organization_id` ASC) USING BTREE,
+  INDEX `idx_organization_id`(`organization_id` ASC, `create_time` ASC, `id` ASC) USING BTREE,
   INDEX `idx_register_year`(`register_year` ASC) USING BTREE,
   INDEX `idx_status`(`status` ASC) USING BTREE,
   INDEX `idx_register_deadline`(`register_deadline` ASC) USING BTREE,
-  INDEX `idx_batch_id`(`batch_id` ASC) USING BTREE
+  INDEX `idx_batch_id`(`batch_id` ASC, `create_time` ASC, `id` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 24 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '团员年度注册表' ROW_FORMAT = Dynamic;
 
 -- ----------------------------
@@ -803,7 +858,8 @@ CREATE TABLE `notification`  (
   `create_time` datetime NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`id`) USING BTREE,
-  INDEX `idx_recipient_id`(`recipient_id` ASC) USING BTREE,
+  INDEX `idx_recipient_time`(`recipient_id` ASC, `create_time` ASC, `id` ASC) USING BTREE,
+  INDEX `idx_recipient_read_time`(`recipient_id` ASC, `is_read` ASC, `create_time` ASC, `id` ASC) USING BTREE,
   INDEX `idx_sender_id`(`sender_id` ASC) USING BTREE,
   INDEX `idx_organization_id`(`organization_id` ASC) USING BTREE,
   INDEX `idx_reference_id`(`reference_id` ASC) USING BTREE,
@@ -820,6 +876,75 @@ INSERT INTO `notification` VALUES (3, '荣誉申请通知', '您已被提名申
 INSERT INTO `notification` VALUES (4, '新的荣誉推荐等待审批', '组织ID为16的团支部推荐了一个荣誉申请，请及时审批。', 0, '系统', NULL, 1, NULL, NULL, '荣誉通知', 8, 'honor_application', 0, NULL, 1, 0, NULL, '2025-05-10 00:41:35', '2025-05-10 00:41:35');
 INSERT INTO `notification` VALUES (5, '新的荣誉推荐等待审批', '组织ID为16的团支部推荐了一个荣誉申请，请及时审批。', 0, '系统', NULL, 1, NULL, NULL, '荣誉通知', 8, 'honor_application', 0, NULL, 1, 0, NULL, '2025-05-10 12:09:03', '2025-05-10 12:09:03');
 
+-- ----------------------------
+-- Table structure for notification_broadcast
+-- ----------------------------
+DROP TABLE IF EXISTS `notification_broadcast`;
+CREATE TABLE `notification_broadcast`  (
+  `id` int NOT NULL AUTO_INCREMENT COMMENT '序号',
+  `title` varchar(100) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '通知标题',
+  `content` text CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL COMMENT '通知内容',
+  `sender_id` int NULL DEFAULT NULL COMMENT '发送者ID',
+  `sender_name` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '发送者姓名',
+  `organization_id` int NOT NULL COMMENT '目标组织ID',
+  `include_children` tinyint(1) NOT NULL DEFAULT 1 COMMENT '是否包含下级组织(0-否,1-是)',
+  `role_code` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '目标角色编码，为空表示全部成员',
+  `notification_type` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '通知类型',
+  `reference_id` int NULL DEFAULT NULL COMMENT '关联ID',
+  `reference_type` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '关联类型',
+  `priority` int NULL DEFAULT 0 COMMENT '优先级(0-普通,1-重要,2-紧急)',
+  `expire_time` datetime NULL DEFAULT NULL COMMENT '过期时间',
+  `status` tinyint(1) NULL DEFAULT 1 COMMENT '状态(0-撤回,1-有效)',
+  `create_time` datetime NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  INDEX `idx_organization_create_time`(`organization_id` ASC, `create_time` ASC, `id` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '组织广播通知表' ROW_FORMAT = DYNAMIC;
+
+-- ----------------------------
+-- Table structure for notification_broadcast_read
+-- ----------------------------
+DROP TABLE IF EXISTS `notification_broadcast_read`;
+CREATE TABLE `notification_broadcast_read`  (
+  `broadcast_id` int NOT NULL COMMENT '广播通知ID',
+  `user_id` int NOT NULL COMMENT '用户ID',
+  `read_time` datetime NULL DEFAULT NULL COMMENT '阅读时间',
+  `is_deleted` tinyint(1) NOT NULL DEFAULT 0 COMMENT '用户是否已删除(0-否,1-是)',
+  `create_time` datetime NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`broadcast_id`, `user_id`) USING BTREE,
+  INDEX `idx_user_id`(`user_id` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '广播通知阅读状态表，用户阅读或删除时才写入' ROW_FORMAT = DYNAMIC;
+
+-- ----------------------------
+-- Table structure for notification_outbox
+-- ----------------------------
+DROP TABLE IF EXISTS `notification_outbox`;
+CREATE TABLE `notification_outbox`  (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '序号',
+  `channel` varchar(10) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL DEFAULT 'site' COMMENT '投递渠道(site-站内信,email-邮件,sms-短信)',
+  `title` varchar(100) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '通知标题',
+  `content` text CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL COMMENT '通知内容',
+  `sender_id` int NULL DEFAULT NULL COMMENT '发送者ID',
+  `sender_name` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '发送者姓名',
+  `recipient_id` int NULL DEFAULT NULL COMMENT '接收者ID',
+  `notification_type` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '通知类型',
+  `reference_id` int NULL DEFAULT NULL COMMENT '关联ID',
+  `reference_type` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '关联类型',
+  `priority` int NULL DEFAULT 0 COMMENT '优先级(0-普通,1-重要,2-紧急)',
+  `expire_time` datetime NULL DEFAULT NULL COMMENT '通知过期时间',
+  `status` tinyint NOT NULL DEFAULT 0 COMMENT '投递状态(0-待投递,1-已投递,2-投递失败,3-投递中)',
+  `attempts` int NOT NULL DEFAULT 0 COMMENT '已尝试次数',
+  `next_retry_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '下次投递时间',
+  `last_error` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '最近一次失败原因',
+  `claim_token` varchar(32) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NULL DEFAULT NULL COMMENT '认领本条记录的投递批次标识',
+  `lease_until` datetime NULL DEFAULT NULL COMMENT '投递租约到期时间',
+  `create_time` datetime NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  INDEX `idx_status_next_retry`(`status` ASC, `next_retry_time` ASC) USING BTREE,
+  INDEX `idx_status_lease`(`status` ASC, `lease_until` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '消息通知发件箱' ROW_FORMAT = DYNAMIC;
+
 -- ----------------------------
 -- Table structure for notification_read_log
 -- ----------------------------
@@ -868,37 +993,39 @@ CREATE TABLE `organization`  (
   `status` tinyint(1) NULL DEFAULT 1 COMMENT '状态(0-禁用,1-启用)',
   `create_time` datetime NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  `total_member_count` int NULL DEFAULT 0 COMMENT '团员总人数(含下级组织)',
   PRIMARY KEY (`id`) USING BTREE,
   UNIQUE INDEX `uk_org_code`(`org_code` ASC) USING BTREE,
   INDEX `idx_name`(`name` ASC) USING BTREE,
-  INDEX `idx_parent_id`(`parent_id` ASC) USING BTREE
+  INDEX `idx_parent_id`(`parent_id` ASC) USING BTREE,
+  INDEX `idx_path`(`path` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 45 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = DYNAMIC;
 
 -- ----------------------------
 -- Records of organization
 -- ----------------------------
-INSERT INTO `organization` VALUES (3, '清华大学团委', '清华大学共青团委员会', '高校', '学校', '010-12345678', 'tuanwei@tsinghua.edu.cn', 5000, 3000, '张三', '13800000001', '李四', '13800000002', NULL, 0, '3', 1, 'THU001', 0, 1, '2025-03-25 10:53:51', '2025-05-02 12:07:47');
-INSERT INTO `organization` VALUES (14, '计算机学院团委', '清华大学计算机学院团委', '高校', '学院', '010-12345679', 'cs_tuanwei@tsinghua.edu.cn', 800, 500, '王五', '13800000003', '赵六', '13800000004', 3, 1, '3,14', 1, 'THU002', 0, 1, '2025-03-25 10:53:51', '2025-05-02 12:07:47');
-INSERT INTO `organization` VALUES (15, '计算机科学与技术系2101班团支部', '清华大学计算机学院计算机科学与技术系2101班团支部', '高校', '班级', '010-12345680', 'cs_class@tsinghua.edu.cn', 120, 80, '钱七', '13800000005', '孙八', '13800000006', 14, 2, '3,14,15', 1, 'THU003', 1, 1, '2025-03-25 10:53:51', '2025-05-04 13:11:10');
-INSERT INTO `organization` VALUES (16, '电子工程学院团委', '清华大学电子工程学院团委', '高校', '学院', '010-12345681', 'ee_tuanwei@tsinghua.edu.cn', 750, 450, '周九', '13800000007', '吴十', '13800000008', 3, 1, '3,16', 2, 'THU004', 0, 1, '2025-03-25 10:53:51', '2025-05-02 12:07:47');
-INSERT INTO `organization` VALUES (17, '数学科学学院团委', '清华大学数学科学学院团委', '高校', '学院', '010-12345682', 'math_tuanwei@tsinghua.edu.cn', 600, 400, '张学', '13800000009', NULL, NULL, 3, 1, '3,17', 3, 'THU005', 0, 1, '2025-05-04 12:51:41', '2025-05-04 13:15:44');
-INSERT INTO `organization` VALUES (18, '电子信息学院团委', '清华大学电子信息学院团委', '高校', '学院', '010-12345683', 'ei_tuanwei@tsinghua.edu.cn', 550, 350, '李信', '13800000010', NULL, NULL, 3, 1, '3,18', 4, 'THU006', 0, 1, '2025-05-04 12:51:41', '2025-05-04 13:15:44');
-INSERT INTO `organization` VALUES (19, '机械工程学院团委', '清华大学机械工程学院团委', '高校', '学院', '010-12345684', 'me_tuanwei@tsinghua.edu.cn', 650, 400, '王机', '13800000011', NULL, NULL, 3, 1, '3,19', 5, 'THU007', 0, 1, '2025-05-04 12:51:41', '2025-05-04 13:15:44');
-INSERT INTO `organization` VALUES (30, '计算机科学与技术系2102班团支部', '清华大学计算机学院计算机科学与技术系2102班团支部', '高校', '班级', '010-12345701', 'cs_2102@tsinghua.edu.cn', 35, 30, '刘计', '13900002001', NULL, NULL, 14, 2, '3,14,30', 2, 'THU018', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35');
-INSERT INTO `organization` VALUES (31, '软件工程系2101班团支部', '清华大学计算机学院软件工程系2101班团支部', '高校', '班级', '010-12345702', 'se_2101@tsinghua.edu.cn', 34, 30, '孙软', '13900002002', NULL, NULL, 14, 2, '3,14,31', 3, 'THU019', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35');
-INSERT INTO `organization` VALUES (32, '软件工程系2102班团支部', '清华大学计算机学院软件工程系2102班团支部', '高校', '班级', '010-12345703', 'se_2102@tsinghua.edu.cn', 36, 32, '钱软', '13900002003', NULL, NULL, 14, 2, '3,14,32', 4, 'THU020', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35');
-INSERT INTO `organization` VALUES (33, '电子工程系2101班团支部', '清华大学电子工程学院电子工程系2101班团支部', '高校', '班级', '010-12345704', 'ee_2101@tsinghua.edu.cn', 38, 34, '周电', '13900002004', NULL, NULL, 16, 2, '3,16,33', 1, 'THU021', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35');
-INSERT INTO `organization` VALUES (34, '电子工程系2102班团支部', '清华大学电子工程学院电子工程系2102班团支部', '高校', '班级', '010-12345705', 'ee_2102@tsinghua.edu.cn', 36, 32, '吴电', '13900002005', NULL, NULL, 16, 2, '3,16,34', 2, 'THU022', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35');
-INSERT INTO `organization` VALUES (35, '微电子系2101班团支部', '清华大学电子工程学院微电子系2101班团支部', '高校', '班级', '010-12345706', 'me_2101@tsinghua.edu.cn', 35, 30, '郑微', '13900002006', NULL, NULL, 16, 2, '3,16,35', 3, 'THU023', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35');
-INSERT INTO `organization` VALUES (36, '数学系2101班团支部', '清华大学数学科学学院数学系2101班团支部', '高校', '班级', '010-12345707', 'math_2101@tsinghua.edu.cn', 34, 30, '王数', '13900002007', NULL, NULL, 17, 2, '3,17,36', 1, 'THU024', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35');
-INSERT INTO `organization` VALUES (37, '数学系2102班团支部', '清华大学数学科学学院数学系2102班团支部', '高校', '班级', '010-12345708', 'math_2102@tsinghua.edu.cn', 32, 28, '李数', '13900002008', NULL, NULL, 17, 2, '3,17,37', 2, 'THU025', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35');
-INSERT INTO `organization` VALUES (38, '应用数学系2101班团支部', '清华大学数学科学学院应用数学系2101班团支部', '高校', '班级', '010-12345709', 'am_2101@tsinghua.edu.cn', 33, 29, '张应', '13900002009', NULL, NULL, 17, 2, '3,17,38', 3, 'THU026', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35');
-INSERT INTO `organization` VALUES (39, '信息工程系2101班团支部', '清华大学电子信息学院信息工程系2101班团支部', '高校', '班级', '010-12345710', 'ie_2101@tsinghua.edu.cn', 37, 33, '陈信', '13900002010', NULL, NULL, 18, 2, '3,18,39', 1, 'THU027', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35');
-INSERT INTO `organization` VALUES (40, '信息工程系2102班团支部', '清华大学电子信息学院信息工程系2102班团支部', '高校', '班级', '010-12345711', 'ie_2102@tsinghua.edu.cn', 36, 32, '林信', '13900002011', NULL, NULL, 18, 2, '3,18,40', 2, 'THU028', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35');
-INSERT INTO `organization` VALUES (41, '通信工程系2101班团支部', '清华大学电子信息学院通信工程系2101班团支部', '高校', '班级', '010-12345712', 'ce_2101@tsinghua.edu.cn', 35, 31, '赵通', '13900002012', NULL, NULL, 18, 2, '3,18,41', 3, 'THU029', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35');
-INSERT INTO `organization` VALUES (42, '机械设计系2101班团支部', '清华大学机械工程学院机械设计系2101班团支部', '高校', '班级', '010-12345713', 'md_2101@tsinghua.edu.cn', 38, 34, '钱机', '13900002013', NULL, NULL, 19, 2, '3,19,42', 1, 'THU030', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35');
-INSERT INTO `organization` VALUES (43, '机械设计系2102班团支部', '清华大学机械工程学院机械设计系2102班团支部', '高校', '班级', '010-12345714', 'md_2102@tsinghua.edu.cn', 37, 33, '孙机', '13900002014', NULL, NULL, 19, 2, '3,19,43', 2, 'THU031', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35');
-INSERT INTO `organization` VALUES (44, '自动化系2101班团支部', '清华大学机械工程学院自动化系2101班团支部', '高校', '班级', '010-12345715', 'auto_2101@tsinghua.edu.cn', 36, 32, '周自', '13900002015', NULL, NULL, 19, 2, '3,19,44', 3, 'THU032', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35');
+INSERT INTO `organization` VALUES (3, '清华大学团委', '清华大学共青团委员会', '高校', '学校', '010-12345678', 'tuanwei@tsinghua.edu.cn', 5000, 3000, '张三', '13800000001', '李四', '13800000002', NULL, 0, '3', 1, 'THU001', 0, 1, '2025-03-25 10:53:51', '2025-05-02 12:07:47', 0);
+INSERT INTO `organization` VALUES (14, '计算机学院团委', '清华大学计算机学院团委', '高校', '学院', '010-12345679', 'cs_tuanwei@tsinghua.edu.cn', 800, 500, '王五', '13800000003', '赵六', '13800000004', 3, 1, '3,14', 1, 'THU002', 0, 1, '2025-03-25 10:53:51', '2025-05-02 12:07:47', 0);
+INSERT INTO `organization` VALUES (15, '计算机科学与技术系2101班团支部', '清华大学计算机学院计算机科学与技术系2101班团支部', '高校', '班级', '010-12345680', 'cs_class@tsinghua.edu.cn', 120, 80, '钱七', '13800000005', '孙八', '13800000006', 14, 2, '3,14,15', 1, 'THU003', 1, 1, '2025-03-25 10:53:51', '2025-05-04 13:11:10', 0);
+INSERT INTO `organization` VALUES (16, '电子工程学院团委', '清华大学电子工程学院团委', '高校', '学院', '010-12345681', 'ee_tuanwei@tsinghua.edu.cn', 750, 450, '周九', '13800000007', '吴十', '13800000008', 3, 1, '3,16', 2, 'THU004', 0, 1, '2025-03-25 10:53:51', '2025-05-02 12:07:47', 0);
+INSERT INTO `organization` VALUES (17, '数学科学学院团委', '清华大学数学科学学院团委', '高校', '学院', '010-12345682', 'math_tuanwei@tsinghua.edu.cn', 600, 400, '张学', '13800000009', NULL, NULL, 3, 1, '3,17', 3, 'THU005', 0, 1, '2025-05-04 12:51:41', '2025-05-04 13:15:44', 0);
+INSERT INTO `organization` VALUES (18, '电子信息学院团委', '清华大学电子信息学院团委', '高校', '学院', '010-12345683', 'ei_tuanwei@tsinghua.edu.cn', 550, 350, '李信', '13800000010', NULL, NULL, 3, 1, '3,18', 4, 'THU006', 0, 1, '2025-05-04 12:51:41', '2025-05-04 13:15:44', 0);
+INSERT INTO `organization` VALUES (19, '机械工程学院团委', '清华大学机械工程学院团委', '高校', '学院', '010-12345684', 'me_tuanwei@tsinghua.edu.cn', 650, 400, '王机', '13800000011', NULL, NULL, 3, 1, '3,19', 5, 'THU007', 0, 1, '2025-05-04 12:51:41', '2025-05-04 13:15:44', 0);
+INSERT INTO `organization` VALUES (30, '计算机科学与技术系2102班团支部', '清华大学计算机学院计算机科学与技术系2102班团支部', '高校', '班级', '010-12345701', 'cs_2102@tsinghua.edu.cn', 35, 30, '刘计', '13900002001', NULL, NULL, 14, 2, '3,14,30', 2, 'THU018', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35', 0);
+INSERT INTO `organization` VALUES (31, '软件工程系2101班团支部', '清华大学计算机学院软件工程系2101班团支部', '高校', '班级', '010-12345702', 'se_2101@tsinghua.edu.cn', 34, 30, '孙软', '13900002002', NULL, NULL, 14, 2, '3,14,31', 3, 'THU019', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35', 0);
+INSERT INTO `organization` VALUES (32, '软件工程系2102班团支部', '清华大学计算机学院软件工程系2102班团支部', '高校', '班级', '010-12345703', 'se_2102@tsinghua.edu.cn', 36, 32, '钱软', '13900002003', NULL, NULL, 14, 2, '3,14,32', 4, 'THU020', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35', 0);
+INSERT INTO `organization` VALUES (33, '电子工程系2101班团支部', '清华大学电子工程学院电子工程系2101班团支部', '高校', '班级', '010-12345704', 'ee_2101@tsinghua.edu.cn', 38, 34, '周电', '13900002004', NULL, NULL, 16, 2, '3,16,33', 1, 'THU021', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35', 0);
+INSERT INTO `organization` VALUES (34, '电子工程系2102班团支部', '清华大学电子工程学院电子工程系2102班团支部', '高校', '班级', '010-12345705', 'ee_2102@tsinghua.edu.cn', 36, 32, '吴电', '13900002005', NULL, NULL, 16, 2, '3,16,34', 2, 'THU022', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35', 0);
+INSERT INTO `organization` VALUES (35, '微电子系2101班团支部', '清华大学电子工程学院微电子系2101班团支部', '高校', '班级', '010-12345706', 'me_2101@tsinghua.edu.cn', 35, 30, '郑微', '13900002006', NULL, NULL, 16, 2, '3,16,35', 3, 'THU023', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35', 0);
+INSERT INTO `organization` VALUES (36, '数学系2101班团支部', '清华大学数学科学学院数学系2101班团支部', '高校', '班级', '010-12345707', 'math_2101@tsinghua.edu.cn', 34, 30, '王数', '13900002007', NULL, NULL, 17, 2, '3,17,36', 1, 'THU024', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35', 0);
+INSERT INTO `organization` VALUES (37, '数学系2102班团支部', '清华大学数学科学学院数学系2102班团支部', '高校', '班级', '010-12345708', 'math_2102@tsinghua.edu.cn', 32, 28, '李数', '13900002008', NULL, NULL, 17, 2, '3,17,37', 2, 'THU025', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35', 0);
+INSERT INTO `organization` VALUES (38, '应用数学系2101班团支部', '清华大学数学科学学院应用数学系2101班团支部', '高校', '班级', '010-12345709', 'am_2101@tsinghua.edu.cn', 33, 29, '张应', '13900002009', NULL, NULL, 17, 2, '3,17,38', 3, 'THU026', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35', 0);
+INSERT INTO `organization` VALUES (39, '信息工程系2101班团支部', '清华大学电子信息学院信息工程系2101班团支部', '高校', '班级', '010-12345710', 'ie_2101@tsinghua.edu.cn', 37, 33, '陈信', '13900002010', NULL, NULL, 18, 2, '3,18,39', 1, 'THU027', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35', 0);
+INSERT INTO `organization` VALUES (40, '信息工程系2102班团支部', '清华大学电子信息学院信息工程系2102班团支部', '高校', '班级', '010-12345711', 'ie_2102@tsinghua.edu.cn', 36, 32, '林信', '13900002011', NULL, NULL, 18, 2, '3,18,40', 2, 'THU028', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35', 0);
+INSERT INTO `organization` VALUES (41, '通信工程系2101班团支部', '清华大学电子信息学院通信工程系2101班团支部', '高校', '班级', '010-12345712', 'ce_2101@tsinghua.edu.cn', 35, 31, '赵通', '13900002012', NULL, NULL, 18, 2, '3,18,41', 3, 'THU029', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35', 0);
+INSERT INTO `organization` VALUES (42, '机械设计系2101班团支部', '清华大学机械工程学院机械设计系2101班团支部', '高校', '班级', '010-12345713', 'md_2101@tsinghua.edu.cn', 38, 34, '钱机', '13900002013', NULL, NULL, 19, 2, '3,19,42', 1, 'THU030', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35', 0);
+INSERT INTO `organization` VALUES (43, '机械设计系2102班团支部', '清华大学机械工程学院机械设计系2102班团支部', '高校', '班级', '010-12345714', 'md_2102@tsinghua.edu.cn', 37, 33, '孙机', '13900002014', NULL, NULL, 19, 2, '3,19,43', 2, 'THU031', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35', 0);
+INSERT INTO `organization` VALUES (44, '自动化系2101班团支部', '清华大学机械工程学院自动化系2101班团支部', '高校', '班级', '010-12345715', 'auto_2101@tsinghua.edu.cn', 36, 32, '周自', '13900002015', NULL, NULL, 19, 2, '3,19,44', 3, 'THU032', 1, 1, '2025-05-04 13:14:35', '2025-05-04 13:14:35', 0);
 
 -- ----------------------------
 -- Table structure for organization_hierarchy
@@ -996,7 +1123,9 @@ INSERT INTO `role_permission` VALUES (33, 7, 9, '2025-05-06 12:24:00', '2025-05-
 
 -- ----------------------------
 -- Table structure for study_resource
+-- 全文索引在关闭停用词时创建：ngram分词器会丢弃包含停用词的词元，启用时"Java"、"AI"等词无法检索
 -- ----------------------------
+SET SESSION innodb_ft_enable_stopword = OFF;
 DROP TABLE IF EXISTS `study_resource`;
 CREATE TABLE `study_resource`  (
   `id` int NOT NULL AUTO_INCREMENT,
@@ -1014,9 +1143,12 @@ CREATE TABLE `study_resource`  (
   `create_time` datetime NOT NULL COMMENT '创建时间',
   `update_time` datetime NOT NULL COMMENT '更新时间',
   PRIMARY KEY (`id`) USING BTREE,
-  INDEX `idx_organization`(`organization_id` ASC) USING BTREE,
-  INDEX `idx_category`(`category_id` ASC) USING BTREE
+  INDEX `idx_category`(`category_id` ASC) USING BTREE,
+  INDEX `idx_org_format_time`(`organization_id` ASC, `format` ASC, `create_time` ASC) USING BTREE,
+  FULLTEXT INDEX `ft_title`(`title`) WITH PARSER `ngram`,
+  FULLTEXT INDEX `ft_title_description`(`title`, `description`) WITH PARSER `ngram`
 ) ENGINE = InnoDB AUTO_INCREMENT = 20 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '团课资源表' ROW_FORMAT = Dynamic;
+SET SESSION innodb_ft_enable_stopword = ON;
 
 -- ----------------------------
 -- Records of study_resource
@@ -1174,12 +1306,12 @@ CREATE TABLE `transfer`  (
   `create_time` datetime NOT NULL COMMENT '创建时间',
   `update_time` datetime NOT NULL COMMENT '更新时间',
   PRIMARY KEY (`id`) USING BTREE,
-  INDEX `idx_transfer_user_id`(`transfer_user_id` ASC) USING BTREE,
-  INDEX `idx_transfer_out_org_id`(`transfer_out_org_id` ASC) USING BTREE,
-  INDEX `idx_transfer_in_org_id`(`transfer_in_org_id` ASC) USING BTREE,
-  INDEX `idx_application_time`(`application_time` ASC) USING BTREE,
+  INDEX `idx_transfer_user_id`(`transfer_user_id` ASC, `application_time` ASC, `id` ASC) USING BTREE,
+  INDEX `idx_transfer_out_org_id`(`transfer_out_org_id` ASC, `application_time` ASC, `id` ASC) USING BTREE,
+  INDEX `idx_transfer_in_org_id`(`transfer_in_org_id` ASC, `application_time` ASC, `id` ASC) USING BTREE,
+  INDEX `idx_application_time`(`application_time` ASC, `id` ASC) USING BTREE,
   INDEX `idx_status`(`status` ASC) USING BTREE,
-  INDEX `idx_status_code`(`status_code` ASC) USING BTREE,
+  INDEX `idx_status_code`(`status_code` ASC, `application_time` ASC, `id` ASC) USING BTREE,
   INDEX `idx_expire_time`(`expire_time` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 7 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '团员关系转接表' ROW_FORMAT = Dynamic;
 